@@ -101,7 +101,8 @@ public final class GameRenderCoordinator {
         mapOverlay.getTracked(),
         ctx.companionSystem().getRenderX(),
         ctx.companionSystem().getRenderY(),
-        ctx.miningSystem().getTarget());
+        ctx.miningSystem().getTarget(),
+        update.remotePlayers());
 
     // Apply lighting after world rendering, before screen effects
     if (lightingSystem != null && lightingEnabled) {
@@ -140,7 +141,8 @@ public final class GameRenderCoordinator {
               delta,
               lightCount,
               update.pendingInputsCount(),
-              update.lastProcessedTick());
+              update.lastProcessedTick(),
+              update.link());
     }
 
     hudRenderer.render(
@@ -2,19 +2,18 @@ package com.droiddungeon.control;
 
 import com.badlogic.gdx.math.Vector2;
 import com.droiddungeon.config.GameConfig;
-import com.droiddungeon.grid.Player;
 import com.droiddungeon.input.HeldMovementController;
 import com.droiddungeon.input.InputFrame;
-import com.droiddungeon.player.PlayerStats;
+import com.droiddungeon.input.MovementIntent;
 import com.droiddungeon.runtime.GameContext;
 import com.droiddungeon.runtime.GameUpdateResult;
 import com.droiddungeon.systems.CameraController;
 import com.droiddungeon.systems.WeaponSystem;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
-/** Runs per-frame world updates (movement, combat, AI). */
+/**
+ * Applies one player's input for one simulation step (actions, movement, combat, mining). World
+ * updates such as enemy AI run separately in {@link com.droiddungeon.runtime.SimulationCore}.
+ */
 public final class GameUpdater {
   private final GameConfig config;
   private final CameraController cameraController;
@@ -29,14 +28,22 @@ public final class GameUpdater {
     this.movementController = movementController;
   }
 
+  /**
+   * Only the player-movement part of {@link #update}, for client-side prediction: moves the player
+   * exactly as a step with the same intent and length does on the server.
+   */
+  public void predictMovement(GameContext ctx, MovementIntent intent, float delta) {
+    movementController.update(ctx.grid(), ctx.player(), ctx.entityWorld(), intent);
+    ctx.player().update(delta, config.playerSpeedTilesPerSecond());
+  }
+
   public GameUpdateResult update(
       float delta,
       boolean dead,
       InputFrame input,
       GameContext ctx,
       float worldViewportTileSize,
-      boolean mapOpen,
-      boolean simulateEnemies) {
+      boolean mapOpen) {
     float gridOriginX;
     float gridOriginY;
     WeaponSystem.WeaponState weaponState;
@@ -81,6 +88,7 @@ public final class GameUpdater {
         movementController.update(
             ctx.grid(), ctx.player(), ctx.entityWorld(), input.movementIntent());
       }
+      // the companion only reads the player's target tile, so this matches predictMovement
       ctx.companionSystem().updateFollowerTrail(ctx.player().getGridX(), ctx.player().getGridY());
       ctx.player().update(delta, config.playerSpeedTilesPerSecond());
       ctx.companionSystem().updateRender(delta);
@@ -120,14 +128,6 @@ public final class GameUpdater {
               worldViewportTileSize,
               canInteract,
               canInteract && input.mineRequested());
-
-      if (simulateEnemies) {
-        // singleplayer/simulation mode: update enemies using single-player context
-        List<Player> players = List.of(ctx.player());
-        Map<Integer, PlayerStats> stats = new HashMap<>();
-        stats.put(ctx.player().id(), ctx.playerStats());
-        ctx.enemySystem().update(delta, players, stats);
-      }
     } else {
       if (cameraController != null) {
         cameraController.update(ctx.grid(), ctx.player(), delta);
@@ -151,6 +151,6 @@ public final class GameUpdater {
               false);
     }
 
-    return new GameUpdateResult(gridOriginX, gridOriginY, weaponState, 0, -1L);
+    return new GameUpdateResult(gridOriginX, gridOriginY, weaponState, 0, -1L, null, null);
   }
 }
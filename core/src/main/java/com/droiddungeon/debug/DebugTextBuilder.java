@@ -11,6 +11,7 @@ import com.droiddungeon.inventory.ItemStack;
 import com.droiddungeon.items.GroundItem;
 import com.droiddungeon.items.ItemDefinition;
 import com.droiddungeon.items.ItemRegistry;
+import com.droiddungeon.net.ClockSync;
 import com.droiddungeon.player.PlayerStats;
 import com.droiddungeon.systems.CompanionSystem;
 import com.droiddungeon.systems.EnemySystem;
@@ -33,7 +34,8 @@ public final class DebugTextBuilder {
       float delta,
       int lightCount,
       int pendingInputsCount,
-      long lastProcessedTick) {
+      long lastProcessedTick,
+      ClockSync.Estimate link) {
     float tileSize = grid.getTileSize();
     Vector2 world = worldViewport.unproject(new Vector2(Gdx.input.getX(), Gdx.input.getY()));
     float localX = world.x - gridOriginX;
@@ -49,7 +51,7 @@ public final class DebugTextBuilder {
     long usedMb = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
     long maxMb = rt.maxMemory() / (1024 * 1024);
     int totalEnemies = enemySystem != null ? enemySystem.getEnemies().size() : 0;
-    int groundItemCount = inventorySystem != null ? inventorySystem.getGroundItems().size() : 0;
+    int groundItemCount = inventorySystem != null ? inventorySystem.groundItemsView().size() : 0;
 
     StringBuilder text = new StringBuilder();
     text.append("FPS: ").append(fps).append(" (").append(String.format("%.1fms", ms)).append(")");
@@ -61,8 +63,19 @@ public final class DebugTextBuilder {
     text.append("Network: pendingInputs=")
         .append(pendingInputsCount)
         .append("  |  lastAck=")
-        .append(lastProcessedTick)
-        .append("\n");
+        .append(lastProcessedTick);
+    if (link != null) {
+      text.append("  |  RTT: ")
+          .append(String.format("%.0f±%.0fms", link.rttMillis(), link.rttJitterMillis()))
+          .append("  |  jitter: ")
+          .append(String.format("%.1fms", link.snapshotJitterMillis()))
+          .append("  |  interp: ")
+          .append(link.interpDelayTicks())
+          .append("t  |  lead: ")
+          .append(link.inputLeadTicks())
+          .append("t");
+    }
+    text.append("\n");
 
     if (grid.isInside(tileX, tileY)) {
       appendTileInfo(
@@ -127,18 +140,16 @@ public final class DebugTextBuilder {
       }
     }
 
-    for (GroundItem groundItem : inventorySystem.getGroundItems()) {
-      if (groundItem.isAt(tileX, tileY)) {
-        ItemDefinition def = itemRegistry.get(groundItem.getStack().itemId());
-        String name = def != null ? def.displayName() : groundItem.getStack().itemId();
-        int count = groundItem.getStack().count();
-        text.append(hasEntities ? ", " : "\nEntity: ");
-        text.append(name);
-        if (count > 1) {
-          text.append(" x").append(count);
-        }
-        hasEntities = true;
+    for (GroundItem groundItem : inventorySystem.groundItemsView().at(tileX, tileY)) {
+      ItemDefinition def = itemRegistry.get(groundItem.getStack().itemId());
+      String name = def != null ? def.displayName() : groundItem.getStack().itemId();
+      int count = groundItem.getStack().count();
+      text.append(hasEntities ? ", " : "\nEntity: ");
+      text.append(name);
+      if (count > 1) {
+        text.append(" x").append(count);
       }
+      hasEntities = true;
     }
 
     if (!hasEntities) {
@@ -180,6 +191,10 @@ public final class DebugTextBuilder {
       if (alert > 0) {
         text.append(" (alert: ").append(alert).append(")");
       }
+      int dormant = enemySystem.dormantCount();
+      if (dormant > 0) {
+        text.append(" (dormant: ").append(dormant).append(")");
+      }
     }
   }
 }
@@ -5,27 +5,15 @@ import com.droiddungeon.entity.EntityLayer;
 import com.droiddungeon.entity.RenderableEntity;
 import com.droiddungeon.grid.Grid;
 
-/** Runtime enemy instance (position, timers, room bounds). */
+/**
+ * Runtime enemy instance (position, timers, room bounds).
+ *
+ * <p>The state lives in an {@link EnemyStore} slot; this object is a view onto it. A new enemy
+ * starts in a private one-slot store until {@link EnemyStore#add} takes it in.
+ */
 public final class Enemy implements RenderableEntity, DamageableEntity {
-  private final int id;
-  private final EnemyType type;
-  private final int roomMinX;
-  private final int roomMinY;
-  private final int roomMaxX;
-  private final int roomMaxY;
-  private final int homeX;
-  private final int homeY;
-
-  private int gridX;
-  private int gridY;
-  private float renderX;
-  private float renderY;
-  private float attackCooldown;
-  private float wanderCooldown;
-  private boolean hasLineOfSight;
-  private float health;
-  private int lastHitSwing = -1;
-  private float hitFlashTimer;
+  EnemyStore store;
+  int slot;
 
   public Enemy(
       int id,
@@ -36,28 +24,23 @@ public final class Enemy implements RenderableEntity, DamageableEntity {
       int roomMinY,
       int roomMaxX,
       int roomMaxY) {
-    this.id = id;
-    this.type = type;
-    this.gridX = spawnX;
-    this.gridY = spawnY;
-    this.renderX = spawnX;
-    this.renderY = spawnY;
-    this.roomMinX = roomMinX;
-    this.roomMinY = roomMinY;
-    this.roomMaxX = roomMaxX;
-    this.roomMaxY = roomMaxY;
-    this.homeX = spawnX;
-    this.homeY = spawnY;
-    this.attackCooldown = 0f;
-    this.wanderCooldown = 0f;
-    this.hasLineOfSight = false;
-    this.health = type.maxHealth();
-    this.hitFlashTimer = 0f;
+    this.store = new EnemyStore(1);
+    this.slot =
+        store.init(this, id, type, spawnX, spawnY, roomMinX, roomMinY, roomMaxX, roomMaxY);
+  }
+
+  void bind(EnemyStore store, int slot) {
+    this.store = store;
+    this.slot = slot;
+  }
+
+  void detach() {
+    bind(store.detachedCopy(slot), 0);
   }
 
   @Override
   public int id() {
-    return id;
+    return store.ids[slot];
   }
 
   @Override
@@ -71,149 +54,154 @@ public final class Enemy implements RenderableEntity, DamageableEntity {
   }
 
   public EnemyType getType() {
-    return type;
+    return store.type(slot);
   }
 
   public int getGridX() {
-    return gridX;
+    return store.gridX[slot];
   }
 
   public int getGridY() {
-    return gridY;
+    return store.gridY[slot];
   }
 
   @Override
   public int gridX() {
-    return gridX;
+    return store.gridX[slot];
   }
 
   @Override
   public int gridY() {
-    return gridY;
+    return store.gridY[slot];
   }
 
   @Override
   public float renderX() {
-    return renderX;
+    return store.renderX[slot];
   }
 
   @Override
   public float renderY() {
-    return renderY;
+    return store.renderY[slot];
   }
 
   public float getRenderX() {
-    return renderX;
+    return store.renderX[slot];
   }
 
   public float getRenderY() {
-    return renderY;
+    return store.renderY[slot];
   }
 
   public boolean hasLineOfSight() {
-    return hasLineOfSight;
+    return store.lineOfSight[slot];
   }
 
   public void setHasLineOfSight(boolean value) {
-    hasLineOfSight = value;
+    store.lineOfSight[slot] = value;
   }
 
   public int getHomeX() {
-    return homeX;
+    return store.homeX[slot];
   }
 
   public int getHomeY() {
-    return homeY;
+    return store.homeY[slot];
+  }
+
+  public int getRoomMinX() {
+    return store.roomMinX[slot];
+  }
+
+  public int getRoomMinY() {
+    return store.roomMinY[slot];
+  }
+
+  public int getRoomMaxX() {
+    return store.roomMaxX[slot];
+  }
+
+  public int getRoomMaxY() {
+    return store.roomMaxY[slot];
   }
 
   @Override
   public boolean isMoving() {
-    return Math.abs(renderX - gridX) > 0.001f || Math.abs(renderY - gridY) > 0.001f;
+    return Math.abs(store.renderX[slot] - store.gridX[slot]) > 0.001f
+        || Math.abs(store.renderY[slot] - store.gridY[slot]) > 0.001f;
   }
 
   @Override
   public boolean isDead() {
-    return health <= 0f;
-  }
-
-  public void updateRender(float deltaSeconds) {
-    float targetX = gridX;
-    float targetY = gridY;
-    float dx = targetX - renderX;
-    float dy = targetY - renderY;
-    float dist2 = dx * dx + dy * dy;
-    if (dist2 < 0.000001f || deltaSeconds <= 0f) {
-      renderX = targetX;
-      renderY = targetY;
-      return;
-    }
-    float dist = (float) Math.sqrt(dist2);
-    float step = type.speedTilesPerSecond() * deltaSeconds;
-    if (step >= dist) {
-      renderX = targetX;
-      renderY = targetY;
-      return;
-    }
-    renderX += (dx / dist) * step;
-    renderY += (dy / dist) * step;
-  }
-
-  public void tickCooldowns(float deltaSeconds) {
-    if (attackCooldown > 0f) {
-      attackCooldown = Math.max(0f, attackCooldown - deltaSeconds);
-    }
-    if (wanderCooldown > 0f) {
-      wanderCooldown = Math.max(0f, wanderCooldown - deltaSeconds);
-    }
-    if (hitFlashTimer > 0f) {
-      hitFlashTimer = Math.max(0f, hitFlashTimer - deltaSeconds);
-    }
+    return store.health[slot] <= 0f;
   }
 
   public boolean readyToAttack() {
-    return attackCooldown <= 0f;
+    return store.attackCooldown[slot] <= 0f;
   }
 
   public void triggerAttackCooldown() {
-    attackCooldown = type.attackCooldownSeconds();
+    store.attackCooldown[slot] = getType().attackCooldownSeconds();
   }
 
   public void resetWanderCooldown() {
-    wanderCooldown = type.wanderDelaySeconds();
+    store.wanderCooldown[slot] = getType().wanderDelaySeconds();
   }
 
   public boolean readyToWander() {
-    return wanderCooldown <= 0f && !isMoving();
+    return store.wanderCooldown[slot] <= 0f && !isMoving();
   }
 
   public boolean moveTo(int x, int y, Grid grid) {
     if (!grid.isWalkable(x, y)) {
       return false;
     }
-    gridX = x;
-    gridY = y;
+    store.gridX[slot] = x;
+    store.gridY[slot] = y;
     return true;
   }
 
   public boolean isInsideRoomBounds(int x, int y) {
-    return x >= roomMinX && x <= roomMaxX && y >= roomMinY && y <= roomMaxY;
+    return x >= store.roomMinX[slot]
+        && x <= store.roomMaxX[slot]
+        && y >= store.roomMinY[slot]
+        && y <= store.roomMaxY[slot];
   }
 
   public void snapToGrid() {
-    renderX = gridX;
-    renderY = gridY;
+    store.renderX[slot] = store.gridX[slot];
+    store.renderY[slot] = store.gridY[slot];
+  }
+
+  /**
+   * Network mode: take authoritative tile and health without recreating the enemy. Flashes when
+   * health dropped since the last update.
+   */
+  public void applyServerState(int gridX, int gridY, float health, boolean flashOnDamage) {
+    store.gridX[slot] = gridX;
+    store.gridY[slot] = gridY;
+    if (flashOnDamage && health < store.health[slot]) {
+      store.hitFlashTimer[slot] = 0.18f;
+    }
+    store.health[slot] = Math.max(0f, health);
+  }
+
+  /** Network mode: render position comes from the interpolation buffer. */
+  public void setRenderPosition(float renderX, float renderY) {
+    store.renderX[slot] = renderX;
+    store.renderY[slot] = renderY;
   }
 
   public boolean applyDamage(float amount, int swingIndex) {
     if (amount <= 0f) {
       return false;
     }
-    if (lastHitSwing == swingIndex) {
+    if (store.lastHitSwing[slot] == swingIndex) {
       return false;
     }
-    lastHitSwing = swingIndex;
-    health = Math.max(0f, health - amount);
-    hitFlashTimer = 0.18f;
+    store.lastHitSwing[slot] = swingIndex;
+    store.health[slot] = Math.max(0f, store.health[slot] - amount);
+    store.hitFlashTimer[slot] = 0.18f;
     return true;
   }
 
@@ -223,19 +211,20 @@ public final class Enemy implements RenderableEntity, DamageableEntity {
   }
 
   public int getLastHitSwing() {
-    return lastHitSwing;
+    return store.lastHitSwing[slot];
   }
 
   public float getHealth() {
-    return health;
+    return store.health[slot];
   }
 
   @Override
   public float healthRatio() {
-    return type.maxHealth() > 0f ? health / type.maxHealth() : 0f;
+    float max = getType().maxHealth();
+    return max > 0f ? store.health[slot] / max : 0f;
   }
 
   public float getHitFlashTimer() {
-    return hitFlashTimer;
+    return store.hitFlashTimer[slot];
   }
 }
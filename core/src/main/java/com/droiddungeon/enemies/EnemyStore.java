@@ -0,0 +1,340 @@
+package com.droiddungeon.enemies;
+
+import com.droiddungeon.util.IntIntMap;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Dense storage for enemies: every field lives in a primitive array indexed by slot, slots
+ * {@code 0..size-1} are all live, ids map to slots through an {@link IntIntMap}, and removal moves
+ * the last slot into the hole. Lookups, upserts and removals by id are O(1) and per-tick passes
+ * ({@link #tickCooldowns}, {@link #updateRender}) are straight loops over the arrays.
+ *
+ * <p>{@link Enemy} objects are views onto a slot and are kept for code that wants an object
+ * (rendering, {@link com.droiddungeon.entity.EntityWorld}). A removed enemy's state is copied into
+ * a private one-slot store, so a view held past removal still reads its last values. Like the
+ * list it replaces, the store is confined to the thread that simulates or replicates the world.
+ */
+public final class EnemyStore {
+  private static final EnemyType[] TYPES = EnemyType.values();
+
+  private final IntIntMap slotById;
+  private final List<Enemy> view = new Views();
+  private int size;
+
+  Enemy[] views;
+  int[] ids;
+  byte[] types;
+  int[] gridX;
+  int[] gridY;
+  float[] renderX;
+  float[] renderY;
+  float[] previousRenderX;
+  float[] previousRenderY;
+  float[] simulatedRenderX;
+  float[] simulatedRenderY;
+  int[] homeX;
+  int[] homeY;
+  int[] roomMinX;
+  int[] roomMinY;
+  int[] roomMaxX;
+  int[] roomMaxY;
+  float[] health;
+  float[] attackCooldown;
+  float[] wanderCooldown;
+  float[] hitFlashTimer;
+  int[] lastHitSwing;
+  boolean[] lineOfSight;
+
+  public EnemyStore() {
+    this(32);
+  }
+
+  public EnemyStore(int initialCapacity) {
+    int capacity = Math.max(1, initialCapacity);
+    slotById = new IntIntMap(capacity, -1);
+    allocate(capacity);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Live enemies in slot order; the list reflects later changes and is not modifiable. */
+  public List<Enemy> asList() {
+    return view;
+  }
+
+  public Enemy at(int slot) {
+    return views[slot];
+  }
+
+  /** Enemy with {@code id}, or null. */
+  public Enemy get(int id) {
+    int slot = slotById.get(id);
+    return slot < 0 ? null : views[slot];
+  }
+
+  public boolean contains(int id) {
+    return slotById.containsKey(id);
+  }
+
+  /**
+   * Moves {@code enemy} into this store, taking its current state; an enemy with the same id is
+   * replaced. The enemy keeps working as a view onto its new slot.
+   */
+  public void add(Enemy enemy) {
+    EnemyStore from = enemy.store;
+    if (from == this) return;
+    int fromSlot = enemy.slot;
+    int slot = slotById.get(from.ids[fromSlot]);
+    if (slot < 0) {
+      if (size == ids.length) {
+        grow(size * 2);
+      }
+      slot = size++;
+      slotById.put(from.ids[fromSlot], slot);
+    } else {
+      views[slot].detach();
+    }
+    copy(from, fromSlot, this, slot);
+    views[slot] = enemy;
+    from.removeAt(fromSlot, false);
+    enemy.bind(this, slot);
+  }
+
+  /** Removes the enemy with {@code id}; returns it (now detached) or null. */
+  public Enemy remove(int id) {
+    int slot = slotById.get(id);
+    if (slot < 0) return null;
+    Enemy enemy = views[slot];
+    removeAt(slot, true);
+    return enemy;
+  }
+
+  /**
+   * Removes the enemy in {@code slot}, filling the hole with the last slot. Callers walking slots
+   * upwards should revisit {@code slot}; walking downwards needs no adjustment.
+   */
+  public void removeAt(int slot) {
+    removeAt(slot, true);
+  }
+
+  public void clear() {
+    for (int slot = 0; slot < size; slot++) {
+      views[slot].detach();
+      views[slot] = null;
+    }
+    slotById.clear();
+    size = 0;
+  }
+
+  /** Counts attack, wander and hit-flash timers down for every enemy. */
+  public void tickCooldowns(float deltaSeconds) {
+    for (int i = 0; i < size; i++) {
+      attackCooldown[i] = Math.max(0f, attackCooldown[i] - deltaSeconds);
+      wanderCooldown[i] = Math.max(0f, wanderCooldown[i] - deltaSeconds);
+      hitFlashTimer[i] = Math.max(0f, hitFlashTimer[i] - deltaSeconds);
+    }
+  }
+
+  /** Glides every render position towards its tile at the enemy type's speed. */
+  public void updateRender(float deltaSeconds) {
+    for (int i = 0; i < size; i++) {
+      float dx = gridX[i] - renderX[i];
+      float dy = gridY[i] - renderY[i];
+      float dist2 = dx * dx + dy * dy;
+      float step = TYPES[types[i]].speedTilesPerSecond() * deltaSeconds;
+      if (dist2 < 0.000001f || deltaSeconds <= 0f || step * step >= dist2) {
+        renderX[i] = gridX[i];
+        renderY[i] = gridY[i];
+        continue;
+      }
+      float scale = step / (float) Math.sqrt(dist2);
+      renderX[i] += dx * scale;
+      renderY[i] += dy * scale;
+    }
+  }
+
+  /** Remembers every render position as the start of the next simulation step. */
+  public void markStep() {
+    System.arraycopy(renderX, 0, previousRenderX, 0, size);
+    System.arraycopy(renderY, 0, previousRenderY, 0, size);
+  }
+
+  /**
+   * Until {@link #endPresentation()}, render positions read {@code alpha} of the way from the last
+   * step to the current one.
+   */
+  public void beginPresentation(float alpha) {
+    System.arraycopy(renderX, 0, simulatedRenderX, 0, size);
+    System.arraycopy(renderY, 0, simulatedRenderY, 0, size);
+    for (int i = 0; i < size; i++) {
+      renderX[i] = previousRenderX[i] + (renderX[i] - previousRenderX[i]) * alpha;
+      renderY[i] = previousRenderY[i] + (renderY[i] - previousRenderY[i]) * alpha;
+    }
+  }
+
+  public void endPresentation() {
+    System.arraycopy(simulatedRenderX, 0, renderX, 0, size);
+    System.arraycopy(simulatedRenderY, 0, renderY, 0, size);
+  }
+
+  EnemyType type(int slot) {
+    return TYPES[types[slot]];
+  }
+
+  /** Claims slot 0 of a fresh one-slot store for a new, unattached enemy. */
+  int init(
+      Enemy enemy,
+      int id,
+      EnemyType type,
+      int x,
+      int y,
+      int minX,
+      int minY,
+      int maxX,
+      int maxY) {
+    int slot = size++;
+    slotById.put(id, slot);
+    views[slot] = enemy;
+    ids[slot] = id;
+    types[slot] = (byte) type.ordinal();
+    gridX[slot] = x;
+    gridY[slot] = y;
+    renderX[slot] = x;
+    renderY[slot] = y;
+    previousRenderX[slot] = x;
+    previousRenderY[slot] = y;
+    homeX[slot] = x;
+    homeY[slot] = y;
+    roomMinX[slot] = minX;
+    roomMinY[slot] = minY;
+    roomMaxX[slot] = maxX;
+    roomMaxY[slot] = maxY;
+    health[slot] = type.maxHealth();
+    lastHitSwing[slot] = -1;
+    return slot;
+  }
+
+  private void removeAt(int slot, boolean detach) {
+    if (detach) {
+      views[slot].detach();
+    }
+    slotById.remove(ids[slot]);
+    int last = --size;
+    if (slot != last) {
+      copy(this, last, this, slot);
+      views[slot] = views[last];
+      views[slot].bind(this, slot);
+      slotById.put(ids[slot], slot);
+    }
+    views[last] = null;
+  }
+
+  private static void copy(EnemyStore from, int a, EnemyStore to, int b) {
+    to.ids[b] = from.ids[a];
+    to.types[b] = from.types[a];
+    to.gridX[b] = from.gridX[a];
+    to.gridY[b] = from.gridY[a];
+    to.renderX[b] = from.renderX[a];
+    to.renderY[b] = from.renderY[a];
+    to.previousRenderX[b] = from.previousRenderX[a];
+    to.previousRenderY[b] = from.previousRenderY[a];
+    to.homeX[b] = from.homeX[a];
+    to.homeY[b] = from.homeY[a];
+    to.roomMinX[b] = from.roomMinX[a];
+    to.roomMinY[b] = from.roomMinY[a];
+    to.roomMaxX[b] = from.roomMaxX[a];
+    to.roomMaxY[b] = from.roomMaxY[a];
+    to.health[b] = from.health[a];
+    to.attackCooldown[b] = from.attackCooldown[a];
+    to.wanderCooldown[b] = from.wanderCooldown[a];
+    to.hitFlashTimer[b] = from.hitFlashTimer[a];
+    to.lastHitSwing[b] = from.lastHitSwing[a];
+    to.lineOfSight[b] = from.lineOfSight[a];
+  }
+
+  /** A one-slot store holding a copy of {@code slot}, for a view leaving this store. */
+  EnemyStore detachedCopy(int slot) {
+    EnemyStore own = new EnemyStore(1);
+    copy(this, slot, own, 0);
+    own.views[0] = views[slot];
+    own.slotById.put(ids[slot], 0);
+    own.size = 1;
+    return own;
+  }
+
+  private void allocate(int capacity) {
+    views = new Enemy[capacity];
+    ids = new int[capacity];
+    types = new byte[capacity];
+    gridX = new int[capacity];
+    gridY = new int[capacity];
+    renderX = new float[capacity];
+    renderY = new float[capacity];
+    previousRenderX = new float[capacity];
+    previousRenderY = new float[capacity];
+    simulatedRenderX = new float[capacity];
+    simulatedRenderY = new float[capacity];
+    homeX = new int[capacity];
+    homeY = new int[capacity];
+    roomMinX = new int[capacity];
+    roomMinY = new int[capacity];
+    roomMaxX = new int[capacity];
+    roomMaxY = new int[capacity];
+    health = new float[capacity];
+    attackCooldown = new float[capacity];
+    wanderCooldown = new float[capacity];
+    hitFlashTimer = new float[capacity];
+    lastHitSwing = new int[capacity];
+    lineOfSight = new boolean[capacity];
+  }
+
+  private void grow(int capacity) {
+    views = Arrays.copyOf(views, capacity);
+    ids = Arrays.copyOf(ids, capacity);
+    types = Arrays.copyOf(types, capacity);
+    gridX = Arrays.copyOf(gridX, capacity);
+    gridY = Arrays.copyOf(gridY, capacity);
+    renderX = Arrays.copyOf(renderX, capacity);
+    renderY = Arrays.copyOf(renderY, capacity);
+    previousRenderX = Arrays.copyOf(previousRenderX, capacity);
+    previousRenderY = Arrays.copyOf(previousRenderY, capacity);
+    simulatedRenderX = Arrays.copyOf(simulatedRenderX, capacity);
+    simulatedRenderY = Arrays.copyOf(simulatedRenderY, capacity);
+    homeX = Arrays.copyOf(homeX, capacity);
+    homeY = Arrays.copyOf(homeY, capacity);
+    roomMinX = Arrays.copyOf(roomMinX, capacity);
+    roomMinY = Arrays.copyOf(roomMinY, capacity);
+    roomMaxX = Arrays.copyOf(roomMaxX, capacity);
+    roomMaxY = Arrays.copyOf(roomMaxY, capacity);
+    health = Arrays.copyOf(health, capacity);
+    attackCooldown = Arrays.copyOf(attackCooldown, capacity);
+    wanderCooldown = Arrays.copyOf(wanderCooldown, capacity);
+    hitFlashTimer = Arrays.copyOf(hitFlashTimer, capacity);
+    lastHitSwing = Arrays.copyOf(lastHitSwing, capacity);
+    lineOfSight = Arrays.copyOf(lineOfSight, capacity);
+  }
+
+  private final class Views extends AbstractList<Enemy> implements RandomAccess {
+    @Override
+    public Enemy get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return views[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -28,4 +28,12 @@ public final class EntityIds {
       }
     } while (!COUNTER.compareAndSet(current, next));
   }
+
+  /**
+   * Sets the next id to {@code next}, even if ids at or above it were handed out already. Only for
+   * tools that rerun a world from its start within one process, such as input replays.
+   */
+  public static void reset(int next) {
+    COUNTER.set(next);
+  }
 }
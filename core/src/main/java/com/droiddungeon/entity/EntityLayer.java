@@ -4,5 +4,23 @@ package com.droiddungeon.entity;
 public enum EntityLayer {
   ACTOR,
   ITEM,
-  STRUCTURE
+  STRUCTURE;
+
+  /** Mask matching every layer. */
+  public static final int ALL = ~0;
+
+  /** This layer's bit in a layer mask. */
+  public int bit() {
+    return 1 << ordinal();
+  }
+
+  /** Mask matching the given layers; no layers means {@link #ALL}. */
+  public static int mask(EntityLayer... layers) {
+    if (layers == null || layers.length == 0) return ALL;
+    int mask = 0;
+    for (EntityLayer layer : layers) {
+      mask |= layer.bit();
+    }
+    return mask;
+  }
 }
@@ -0,0 +1,11 @@
+package com.droiddungeon.entity;
+
+/**
+ * Callback for {@link EntityWorld} queries. Keep instances in fields rather than capturing
+ * lambdas on hot paths so queries stay allocation-free.
+ */
+@FunctionalInterface
+public interface EntityVisitor {
+  /** Returns false to stop the query. */
+  boolean visit(GridEntity entity);
+}
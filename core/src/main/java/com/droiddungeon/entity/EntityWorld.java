@@ -1,99 +1,314 @@
 package com.droiddungeon.entity;
 
+import com.droiddungeon.util.IntIntMap;
+import com.droiddungeon.util.LongIntMap;
 import java.util.ArrayList;
-import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
-/** Lightweight registry for grid entities with tile occupancy tracking. */
+/**
+ * Lightweight registry for grid entities with tile occupancy tracking.
+ *
+ * <p>Entities live in slots of parallel arrays. Ids map to slots and packed tile coordinates to
+ * the first slot on that tile through open-addressing primitive maps; the slots on one tile form
+ * an intrusive doubly linked list in {@code next}/{@code prev} arrays, so add, remove and move are
+ * O(1) and allocate nothing once the arrays have grown. Queries by tile, rectangle or radius take
+ * a layer mask ({@link EntityLayer#bit()}) and an {@link EntityVisitor}.
+ *
+ * <p>Blocking entities are also counted in per-chunk {@code short} arrays kept up to date by
+ * {@link #add}, {@link #remove} and {@link #move}, so {@link #isBlocked} is an array read that
+ * movement code can call for every step.
+ *
+ * <p>Updates and queries are synchronized so the server can run player ticks for distant regions
+ * concurrently; those only ever touch disjoint tiles, so the outcome does not depend on their
+ * interleaving. Visitors run under the lock and must not add, remove or move entities. {@link
+ * #all()} is a live view for single-threaded callers.
+ */
 public final class EntityWorld {
-  private final Map<Integer, GridEntity> byId = new HashMap<>();
-  private final Map<Long, List<Integer>> byTile = new HashMap<>();
+  private static final int NONE = -1;
+  private static final int OCCUPANCY_SHIFT = 5;
+  private static final int OCCUPANCY_MASK = (1 << OCCUPANCY_SHIFT) - 1;
+  private static final int OCCUPANCY_TILES = 1 << (OCCUPANCY_SHIFT * 2);
 
-  public void add(GridEntity entity) {
+  private final IntIntMap slotById = new IntIntMap(64, NONE);
+  private final LongIntMap headByTile = new LongIntMap(64, NONE);
+  private GridEntity[] entities = new GridEntity[64];
+  private int[] tileXs = new int[64];
+  private int[] tileYs = new int[64];
+  private int[] next = new int[64];
+  private int[] prev = new int[64];
+  private int[] layerBits = new int[64];
+  private boolean[] blockers = new boolean[64];
+  private int[] freeSlots = new int[64];
+  private int freeCount;
+  private int slotCount;
+
+  // blocking entities per tile; the extra last slot counts the chunk's occupied tiles
+  private final LongIntMap occupancyByChunk = new LongIntMap(16, NONE);
+  private short[][] occupancy = new short[16][];
+  private int[] freeOccupancy = new int[16];
+  private int freeOccupancyCount;
+  private int occupancyCount;
+  private long cachedChunkKey;
+  private short[] cachedChunk;
+
+  public synchronized void add(GridEntity entity) {
     if (entity == null) return;
-    byId.put(entity.id(), entity);
-    addToTile(entity, entity.gridX(), entity.gridY());
+    int slot = slotById.get(entity.id());
+    if (slot == NONE) {
+      slot = acquireSlot();
+      slotById.put(entity.id(), slot);
+    } else {
+      unlink(slot);
+    }
+    entities[slot] = entity;
+    layerBits[slot] = entity.layer().bit();
+    blockers[slot] = entity.blocking();
+    link(slot, entity.gridX(), entity.gridY());
   }
 
-  public void remove(GridEntity entity) {
+  public synchronized void remove(GridEntity entity) {
     if (entity == null) return;
-    byId.remove(entity.id());
-    removeFromTile(entity, entity.gridX(), entity.gridY());
+    int slot = slotById.get(entity.id());
+    if (slot == NONE) return;
+    slotById.remove(entity.id());
+    unlink(slot);
+    entities[slot] = null;
+    freeSlots[freeCount++] = slot;
   }
 
-  public void move(GridEntity entity, int fromX, int fromY, int toX, int toY) {
+  /**
+   * Moves a registered entity to ({@code toX}, {@code toY}). The world remembers where each entity
+   * is, so {@code fromX}/{@code fromY} only short-circuit calls that do not change tile.
+   */
+  public synchronized void move(GridEntity entity, int fromX, int fromY, int toX, int toY) {
     if (entity == null) return;
-    long fromKey = key(fromX, fromY);
-    long toKey = key(toX, toY);
-    if (fromKey == toKey) {
+    if (fromX == toX && fromY == toY) {
       return;
     }
-    removeFromTile(entity, fromX, fromY);
-    addToTile(entity, toX, toY);
+    int slot = slotById.get(entity.id());
+    if (slot == NONE) return;
+    if (tileXs[slot] == toX && tileYs[slot] == toY) return;
+    unlink(slot);
+    link(slot, toX, toY);
   }
 
-  public void clear() {
-    byId.clear();
-    byTile.clear();
+  public synchronized void clear() {
+    slotById.clear();
+    headByTile.clear();
+    Arrays.fill(entities, 0, slotCount, null);
+    freeCount = 0;
+    slotCount = 0;
+    occupancyByChunk.clear();
+    Arrays.fill(occupancy, 0, occupancyCount, null);
+    freeOccupancyCount = 0;
+    occupancyCount = 0;
+    cachedChunk = null;
   }
 
-  public boolean isBlocked(int x, int y) {
-    List<Integer> list = byTile.get(key(x, y));
-    if (list == null) {
-      return false;
-    }
-    for (Integer id : list) {
-      GridEntity e = byId.get(id);
-      if (e != null && e.blocking()) {
-        return true;
+  /** True if a blocking entity stands on the tile. */
+  public synchronized boolean isBlocked(int x, int y) {
+    short[] chunk = occupancyChunk(x, y, false);
+    return chunk != null && chunk[tileIndex(x, y)] > 0;
+  }
+
+  /**
+   * Visits the entities on one tile whose layer is in {@code layerMask}. Returns false if the
+   * visitor stopped early.
+   */
+  public synchronized boolean forEachAt(int x, int y, int layerMask, EntityVisitor visitor) {
+    for (int slot = headByTile.get(key(x, y)); slot != NONE; slot = next[slot]) {
+      if ((layerBits[slot] & layerMask) != 0 && !visitor.visit(entities[slot])) {
+        return false;
       }
     }
-    return false;
+    return true;
   }
 
-  public List<GridEntity> at(int x, int y, EntityLayer... layers) {
-    EnumSet<EntityLayer> filter =
-        layers == null || layers.length == 0
-            ? EnumSet.allOf(EntityLayer.class)
-            : EnumSet.of(layers[0], layers);
-    List<GridEntity> result = new ArrayList<>();
-    List<Integer> list = byTile.get(key(x, y));
-    if (list == null) {
-      return result;
+  /** Visits matching entities on tiles in the inclusive rectangle; see {@link #forEachAt}. */
+  public synchronized boolean forEachIn(
+      int minX, int minY, int maxX, int maxY, int layerMask, EntityVisitor visitor) {
+    if (minX > maxX || minY > maxY) return true;
+    long area = ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+    if (area > slotCount) {
+      // a large area: scanning every entity beats probing mostly empty tiles
+      for (int slot = 0; slot < slotCount; slot++) {
+        if (entities[slot] == null || (layerBits[slot] & layerMask) == 0) continue;
+        int x = tileXs[slot];
+        int y = tileYs[slot];
+        if (x < minX || x > maxX || y < minY || y > maxY) continue;
+        if (!visitor.visit(entities[slot])) return false;
+      }
+      return true;
+    }
+    for (int x = minX; x <= maxX; x++) {
+      for (int y = minY; y <= maxY; y++) {
+        if (!forEachAt(x, y, layerMask, visitor)) return false;
+      }
     }
-    for (Integer id : list) {
-      GridEntity e = byId.get(id);
-      if (e != null && filter.contains(e.layer())) {
-        result.add(e);
+    return true;
+  }
+
+  /**
+   * Visits matching entities on tiles within {@code radius} tiles (center to center) of ({@code
+   * centerX}, {@code centerY}); see {@link #forEachAt}.
+   */
+  public synchronized boolean forEachWithin(
+      int centerX, int centerY, float radius, int layerMask, EntityVisitor visitor) {
+    int r = (int) Math.floor(radius);
+    float r2 = radius * radius;
+    for (int x = centerX - r; x <= centerX + r; x++) {
+      int dx = x - centerX;
+      for (int y = centerY - r; y <= centerY + r; y++) {
+        int dy = y - centerY;
+        if (dx * dx + dy * dy > r2) continue;
+        if (!forEachAt(x, y, layerMask, visitor)) return false;
       }
     }
+    return true;
+  }
+
+  /** Entities on one tile, optionally filtered by layer. Allocates; prefer {@link #forEachAt}. */
+  public synchronized List<GridEntity> at(int x, int y, EntityLayer... layers) {
+    List<GridEntity> result = new ArrayList<>();
+    forEachAt(x, y, EntityLayer.mask(layers), result::add);
     return result;
   }
 
   public Iterable<GridEntity> all() {
-    return byId.values();
+    return () ->
+        new Iterator<>() {
+          private int slot = advance(0);
+
+          @Override
+          public boolean hasNext() {
+            return slot < slotCount;
+          }
+
+          @Override
+          public GridEntity next() {
+            if (slot >= slotCount) throw new NoSuchElementException();
+            GridEntity entity = entities[slot];
+            slot = advance(slot + 1);
+            return entity;
+          }
+
+          private int advance(int from) {
+            int s = from;
+            while (s < slotCount && entities[s] == null) s++;
+            return s;
+          }
+        };
   }
 
-  private void addToTile(GridEntity entity, int x, int y) {
-    long key = key(x, y);
-    byTile.computeIfAbsent(key, k -> new ArrayList<>()).add(entity.id());
+  private int acquireSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (slotCount == entities.length) {
+      int capacity = slotCount * 2;
+      entities = Arrays.copyOf(entities, capacity);
+      tileXs = Arrays.copyOf(tileXs, capacity);
+      tileYs = Arrays.copyOf(tileYs, capacity);
+      next = Arrays.copyOf(next, capacity);
+      prev = Arrays.copyOf(prev, capacity);
+      layerBits = Arrays.copyOf(layerBits, capacity);
+      blockers = Arrays.copyOf(blockers, capacity);
+      freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+    return slotCount++;
   }
 
-  private void removeFromTile(GridEntity entity, int x, int y) {
+  private void link(int slot, int x, int y) {
     long key = key(x, y);
-    List<Integer> list = byTile.get(key);
-    if (list == null) {
-      return;
+    int head = headByTile.get(key);
+    tileXs[slot] = x;
+    tileYs[slot] = y;
+    prev[slot] = NONE;
+    next[slot] = head;
+    if (head != NONE) {
+      prev[head] = slot;
+    }
+    headByTile.put(key, slot);
+    if (blockers[slot]) {
+      short[] chunk = occupancyChunk(x, y, true);
+      if (chunk[tileIndex(x, y)]++ == 0) {
+        chunk[OCCUPANCY_TILES]++;
+      }
+    }
+  }
+
+  private void unlink(int slot) {
+    int x = tileXs[slot];
+    int y = tileYs[slot];
+    int before = prev[slot];
+    int after = next[slot];
+    if (after != NONE) {
+      prev[after] = before;
     }
-    list.remove((Integer) entity.id());
-    if (list.isEmpty()) {
-      byTile.remove(key);
+    if (before != NONE) {
+      next[before] = after;
+    } else if (after != NONE) {
+      headByTile.put(key(x, y), after);
+    } else {
+      headByTile.remove(key(x, y));
     }
+    if (blockers[slot]) {
+      short[] chunk = occupancyChunk(x, y, false);
+      if (chunk != null && --chunk[tileIndex(x, y)] == 0 && --chunk[OCCUPANCY_TILES] == 0) {
+        releaseChunk(key(x >> OCCUPANCY_SHIFT, y >> OCCUPANCY_SHIFT));
+      }
+    }
+  }
+
+  private short[] occupancyChunk(int x, int y, boolean create) {
+    long chunkKey = key(x >> OCCUPANCY_SHIFT, y >> OCCUPANCY_SHIFT);
+    // movement probes cluster around one actor at a time, so the last chunk usually matches
+    if (cachedChunk != null && cachedChunkKey == chunkKey) {
+      return cachedChunk;
+    }
+    int index = occupancyByChunk.get(chunkKey);
+    short[] chunk;
+    if (index != NONE) {
+      chunk = occupancy[index];
+    } else {
+      if (!create) return null;
+      if (freeOccupancyCount > 0) {
+        index = freeOccupancy[--freeOccupancyCount];
+      } else {
+        if (occupancyCount == occupancy.length) {
+          occupancy = Arrays.copyOf(occupancy, occupancyCount * 2);
+          freeOccupancy = Arrays.copyOf(freeOccupancy, occupancyCount * 2);
+        }
+        index = occupancyCount++;
+      }
+      // released chunks are all zeros again, so their arrays are reused as they are
+      chunk = occupancy[index];
+      if (chunk == null) {
+        chunk = new short[OCCUPANCY_TILES + 1];
+        occupancy[index] = chunk;
+      }
+      occupancyByChunk.put(chunkKey, index);
+    }
+    cachedChunkKey = chunkKey;
+    cachedChunk = chunk;
+    return chunk;
+  }
+
+  private void releaseChunk(long chunkKey) {
+    int index = occupancyByChunk.remove(chunkKey);
+    if (index == NONE) return;
+    freeOccupancy[freeOccupancyCount++] = index;
+    cachedChunk = null;
+  }
+
+  private static int tileIndex(int x, int y) {
+    return ((y & OCCUPANCY_MASK) << OCCUPANCY_SHIFT) | (x & OCCUPANCY_MASK);
   }
 
-  private long key(int x, int y) {
+  private static long key(int x, int y) {
     return ((long) x << 32) ^ (y & 0xffffffffL);
   }
 }
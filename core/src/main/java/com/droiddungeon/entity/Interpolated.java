@@ -0,0 +1,19 @@
+package com.droiddungeon.entity;
+
+/**
+ * Something whose render position is simulated in fixed steps and shown between them.
+ *
+ * <p>The runtime calls {@link #markStep()} before every simulation step, then wraps drawing in
+ * {@link #beginPresentation(float)} and {@link #endPresentation()}: in between, render positions
+ * read as the blend of the last two steps, and afterwards the simulated values are back.
+ */
+public interface Interpolated {
+  /** Remembers the current render position as the start of the next step. */
+  void markStep();
+
+  /** Shows the position {@code alpha} (0..1) of the way from the previous step to the current. */
+  void beginPresentation(float alpha);
+
+  /** Restores the simulated render position. */
+  void endPresentation();
+}
@@ -108,6 +108,15 @@ public final class DungeonGenerator {
     private final int originY;
     private final TileCell[][] cells;
     private final List<Room> rooms;
+    // set once a block in this chunk differs from what the generator produced
+    private boolean modified;
+    // changed since the last autosave took this chunk
+    private boolean unsaved;
+    // see Grid#chunkVersion
+    private int version;
+    // one bit per tile (x-major rows of cells.length), set where a block stops sight
+    private long[] opaque;
+    private int opaqueVersion;
 
     Chunk(int chunkX, int chunkY, int originX, int originY, TileCell[][] cells, List<Room> rooms) {
       this.chunkX = chunkX;
@@ -146,6 +155,50 @@ public final class DungeonGenerator {
     public int chunkY() {
       return chunkY;
     }
+
+    /** True once any block in this chunk was changed after generation. */
+    public boolean isModified() {
+      return modified;
+    }
+
+    void markModified() {
+      modified = true;
+      unsaved = true;
+    }
+
+    public int version() {
+      return version;
+    }
+
+    void bumpVersion() {
+      version++;
+    }
+
+    /** Opaque-tile bitset for the current version, indexed {@code localY * size + localX}. */
+    long[] opaqueBits() {
+      if (opaque == null || opaqueVersion != version) {
+        int size = cells.length;
+        long[] bits = new long[(size * size + 63) >>> 6];
+        for (int lx = 0; lx < size; lx++) {
+          for (int ly = 0; ly < size; ly++) {
+            BlockMaterial block = cells[lx][ly].block;
+            if (block != null && !block.transparent()) {
+              int bit = ly * size + lx;
+              bits[bit >>> 6] |= 1L << bit;
+            }
+          }
+        }
+        opaque = bits;
+        opaqueVersion = version;
+      }
+      return opaque;
+    }
+
+    boolean takeUnsaved() {
+      boolean was = unsaved;
+      unsaved = false;
+      return was;
+    }
   }
 
   /** Deterministic chunk generator responsible for carving rooms and corridors. */
@@ -15,6 +15,7 @@ public final class Grid {
   private final float tileSize;
   private final DungeonGenerator.ChunkGenerator chunkGenerator;
   private final Map<Long, DungeonGenerator.Chunk> chunks = new HashMap<>();
+  private long chunksGenerated;
 
   // Bounds of generated tiles (inclusive) for debug visualisation.
   private int minGeneratedX = 0;
@@ -38,6 +39,7 @@ public final class Grid {
       return chunk;
     }
     DungeonGenerator.Chunk generated = chunkGenerator.generate(chunkX, chunkY);
+    chunksGenerated++;
     chunks.put(key, generated);
     updateBounds(generated);
     return generated;
@@ -92,7 +94,8 @@ public final class Grid {
     if (amount <= 0f) {
       return false;
     }
-    DungeonGenerator.TileCell cell = mutableCell(x, y);
+    DungeonGenerator.Chunk chunk = mutableChunk(x, y);
+    DungeonGenerator.TileCell cell = chunk.cellAt(x, y);
     if (cell.block == null) {
       return false;
     }
@@ -100,22 +103,36 @@ public final class Grid {
     if (cell.blockHealth <= 0f) {
       cell.block = null;
       cell.blockHealth = 0f;
+      chunk.bumpVersion();
       return true;
     }
     return false;
   }
 
   public void setBlock(int x, int y, BlockMaterial block) {
-    DungeonGenerator.TileCell cell = mutableCell(x, y);
+    DungeonGenerator.Chunk chunk = mutableChunk(x, y);
+    DungeonGenerator.TileCell cell = chunk.cellAt(x, y);
+    if (cell.block != block) {
+      chunk.bumpVersion();
+    }
     cell.block = block;
     cell.blockHealth = block != null ? block.maxHealth() : 0f;
   }
 
-  private DungeonGenerator.TileCell mutableCell(int x, int y) {
+  private DungeonGenerator.Chunk mutableChunk(int x, int y) {
     int chunkX = Math.floorDiv(x, chunkGenerator.chunkSize());
     int chunkY = Math.floorDiv(y, chunkGenerator.chunkSize());
     DungeonGenerator.Chunk chunk = ensureChunk(chunkX, chunkY);
-    return chunk.cellAt(x, y);
+    chunk.markModified();
+    return chunk;
+  }
+
+  /**
+   * Counter that changes whenever a block in the chunk appears, disappears or changes material, so
+   * caches derived from walkability or transparency can tell they are stale.
+   */
+  public int chunkVersion(int chunkX, int chunkY) {
+    return ensureChunk(chunkX, chunkY).version();
   }
 
   public DungeonGenerator.RoomType getRoomType(int x, int y) {
@@ -141,6 +158,41 @@ public final class Grid {
     return tileSize;
   }
 
+  /** Number of chunks currently held in memory. */
+  public int loadedChunkCount() {
+    return chunks.size();
+  }
+
+  /** Total chunks generated since this grid was created (monotonic). */
+  public long chunksGenerated() {
+    return chunksGenerated;
+  }
+
+  /** Chunks whose blocks were changed since generation; everything else the seed reproduces. */
+  public List<DungeonGenerator.Chunk> modifiedChunks() {
+    List<DungeonGenerator.Chunk> result = new ArrayList<>();
+    for (DungeonGenerator.Chunk chunk : chunks.values()) {
+      if (chunk.isModified()) {
+        result.add(chunk);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Chunks changed since the previous call, clearing their flag; the first call returns every
+   * modified chunk. Not safe to call while chunks are being modified.
+   */
+  public List<DungeonGenerator.Chunk> takeUnsavedChunks() {
+    List<DungeonGenerator.Chunk> result = new ArrayList<>();
+    for (DungeonGenerator.Chunk chunk : chunks.values()) {
+      if (chunk.takeUnsaved()) {
+        result.add(chunk);
+      }
+    }
+    return result;
+  }
+
   public int getChunkSize() {
     return chunkGenerator.chunkSize();
   }
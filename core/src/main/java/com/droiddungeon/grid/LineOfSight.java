@@ -0,0 +1,177 @@
+package com.droiddungeon.grid;
+
+import com.droiddungeon.util.IntIntMap;
+import java.util.Arrays;
+
+/**
+ * Tile line-of-sight over a {@link Grid}, with a one-entry cache per viewer.
+ *
+ * <p>Lines are walked with Bresenham over each chunk's opaque-tile bitset, so a step is a shift
+ * and a mask rather than a cell lookup. {@link #visible(int, int, int, int, int)} remembers the
+ * last answer per viewer id together with both end tiles and the summed versions of the chunks
+ * the line's bounding box touches ({@link Grid#chunkVersion}); while none of those change, the
+ * answer is reused without walking. Not thread-safe; one instance per simulation.
+ */
+public final class LineOfSight {
+  private final Grid grid;
+  private final IntIntMap slotByViewer = new IntIntMap(64, -1);
+  private int[] viewerBySlot = new int[64];
+  private long[] fromTiles = new long[64];
+  private long[] toTiles = new long[64];
+  private long[] versions = new long[64];
+  private boolean[] results = new boolean[64];
+  private int slots;
+
+  // chunk of the last probed tile
+  private int cachedChunkX;
+  private int cachedChunkY;
+  private DungeonGenerator.Chunk cachedChunk;
+  private long hits;
+  private long walks;
+
+  public LineOfSight(Grid grid) {
+    this.grid = grid;
+  }
+
+  /** Cached line of sight for {@code viewerId} from tile (x0, y0) to tile (x1, y1). */
+  public boolean visible(int viewerId, int x0, int y0, int x1, int y1) {
+    long from = key(x0, y0);
+    long to = key(x1, y1);
+    long version = versionSum(x0, y0, x1, y1);
+    int slot = slotByViewer.get(viewerId);
+    if (slot >= 0
+        && fromTiles[slot] == from
+        && toTiles[slot] == to
+        && versions[slot] == version) {
+      hits++;
+      return results[slot];
+    }
+    boolean result = visible(x0, y0, x1, y1);
+    if (slot < 0) {
+      slot = acquire(viewerId);
+    }
+    fromTiles[slot] = from;
+    toTiles[slot] = to;
+    versions[slot] = version;
+    results[slot] = result;
+    return result;
+  }
+
+  /**
+   * Uncached line of sight: true if every tile on the Bresenham line between the two tiles,
+   * both ends included, lets sight through.
+   */
+  public boolean visible(int x0, int y0, int x1, int y1) {
+    walks++;
+    int dx = Math.abs(x1 - x0);
+    int dy = Math.abs(y1 - y0);
+    int sx = x0 < x1 ? 1 : -1;
+    int sy = y0 < y1 ? 1 : -1;
+    int err = dx - dy;
+
+    int cx = x0;
+    int cy = y0;
+    while (true) {
+      if (opaque(cx, cy)) {
+        return false;
+      }
+      if (cx == x1 && cy == y1) {
+        break;
+      }
+      int e2 = 2 * err;
+      if (e2 > -dy) {
+        err -= dy;
+        cx += sx;
+      }
+      if (cx == x1 && cy == y1) {
+        if (opaque(cx, cy)) {
+          return false;
+        }
+        break;
+      }
+      if (e2 < dx) {
+        err += dx;
+        cy += sy;
+      }
+    }
+    return true;
+  }
+
+  /** Drops the cached answer of a viewer that left the world. */
+  public void forget(int viewerId) {
+    int slot = slotByViewer.remove(viewerId);
+    if (slot < 0) return;
+    int last = --slots;
+    if (slot != last) {
+      viewerBySlot[slot] = viewerBySlot[last];
+      fromTiles[slot] = fromTiles[last];
+      toTiles[slot] = toTiles[last];
+      versions[slot] = versions[last];
+      results[slot] = results[last];
+      slotByViewer.put(viewerBySlot[slot], slot);
+    }
+  }
+
+  public void clear() {
+    slotByViewer.clear();
+    slots = 0;
+    cachedChunk = null;
+  }
+
+  /** Queries answered from the cache. */
+  long hits() {
+    return hits;
+  }
+
+  /** Lines actually walked. */
+  long walks() {
+    return walks;
+  }
+
+  private boolean opaque(int x, int y) {
+    int size = grid.getChunkSize();
+    int chunkX = Math.floorDiv(x, size);
+    int chunkY = Math.floorDiv(y, size);
+    if (cachedChunk == null || chunkX != cachedChunkX || chunkY != cachedChunkY) {
+      cachedChunk = grid.ensureChunk(chunkX, chunkY);
+      cachedChunkX = chunkX;
+      cachedChunkY = chunkY;
+    }
+    int bit = (y - cachedChunk.originY()) * size + (x - cachedChunk.originX());
+    return (cachedChunk.opaqueBits()[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private long versionSum(int x0, int y0, int x1, int y1) {
+    int size = grid.getChunkSize();
+    int minChunkX = Math.floorDiv(Math.min(x0, x1), size);
+    int maxChunkX = Math.floorDiv(Math.max(x0, x1), size);
+    int minChunkY = Math.floorDiv(Math.min(y0, y1), size);
+    int maxChunkY = Math.floorDiv(Math.max(y0, y1), size);
+    long sum = 0L;
+    for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+      for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+        sum += grid.chunkVersion(cx, cy);
+      }
+    }
+    return sum;
+  }
+
+  private int acquire(int viewerId) {
+    if (slots == viewerBySlot.length) {
+      int capacity = slots * 2;
+      viewerBySlot = Arrays.copyOf(viewerBySlot, capacity);
+      fromTiles = Arrays.copyOf(fromTiles, capacity);
+      toTiles = Arrays.copyOf(toTiles, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+      results = Arrays.copyOf(results, capacity);
+    }
+    int slot = slots++;
+    viewerBySlot[slot] = viewerId;
+    slotByViewer.put(viewerId, slot);
+    return slot;
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
+  }
+}
@@ -1,15 +1,21 @@
 package com.droiddungeon.grid;
 
 import com.droiddungeon.entity.EntityLayer;
+import com.droiddungeon.entity.Interpolated;
 import com.droiddungeon.entity.RenderableEntity;
 
-public final class Player implements RenderableEntity {
+public final class Player implements RenderableEntity, Interpolated {
   private final int id;
   private int gridX;
   private int gridY;
 
   private float renderX;
   private float renderY;
+  // render position at the start of the current step, and the simulated one while presenting
+  private float previousRenderX;
+  private float previousRenderY;
+  private float simulatedRenderX;
+  private float simulatedRenderY;
 
   public Player(int id, int gridX, int gridY) {
     this.id = id;
@@ -17,6 +23,8 @@ public final class Player implements RenderableEntity {
     this.gridY = gridY;
     this.renderX = gridX;
     this.renderY = gridY;
+    this.previousRenderX = gridX;
+    this.previousRenderY = gridY;
   }
 
   @Override
@@ -75,6 +83,26 @@ public final class Player implements RenderableEntity {
     return Math.abs(renderX - gridX) > 0.001f || Math.abs(renderY - gridY) > 0.001f;
   }
 
+  @Override
+  public void markStep() {
+    previousRenderX = renderX;
+    previousRenderY = renderY;
+  }
+
+  @Override
+  public void beginPresentation(float alpha) {
+    simulatedRenderX = renderX;
+    simulatedRenderY = renderY;
+    renderX = previousRenderX + (renderX - previousRenderX) * alpha;
+    renderY = previousRenderY + (renderY - previousRenderY) * alpha;
+  }
+
+  @Override
+  public void endPresentation() {
+    renderX = simulatedRenderX;
+    renderY = simulatedRenderY;
+  }
+
   public void update(float deltaSeconds, float speedTilesPerSecond) {
     if (deltaSeconds <= 0f) {
       return;
@@ -125,6 +153,9 @@ public final class Player implements RenderableEntity {
   public void setServerPosition(float renderX, float renderY, int gridX, int gridY) {
     this.renderX = renderX;
     this.renderY = renderY;
+    // a correction is a jump, not motion to interpolate across
+    this.previousRenderX = renderX;
+    this.previousRenderY = renderY;
     this.gridX = gridX;
     this.gridY = gridY;
   }
@@ -20,6 +20,87 @@ public record InputFrame(
     boolean debugToggleRequested,
     MovementIntent movementIntent,
     WeaponInput weaponInput) {
+  /**
+   * This frame with the one-shot events (clicks, presses, requests) of {@code earlier} added, for a
+   * frame that no simulation step consumed. Held state and cursor positions come from this frame.
+   */
+  public InputFrame withEventsOf(InputFrame earlier) {
+    if (earlier == null) return this;
+    MovementIntent m = movementIntent;
+    MovementIntent em = earlier.movementIntent;
+    if (m != null && em != null) {
+      m =
+          new MovementIntent(
+              m.leftHeld(),
+              m.rightHeld(),
+              m.upHeld(),
+              m.downHeld(),
+              m.leftJustPressed() || em.leftJustPressed(),
+              m.rightJustPressed() || em.rightJustPressed(),
+              m.upJustPressed() || em.upJustPressed(),
+              m.downJustPressed() || em.downJustPressed());
+    }
+    WeaponInput w = weaponInput;
+    if (w != null && earlier.weaponInput != null && earlier.weaponInput.attackJustPressed()) {
+      w = new WeaponInput(true, w.attackHeld(), w.aimWorldX(), w.aimWorldY());
+    }
+    return new InputFrame(
+        slotClicked || !earlier.slotClicked ? slotUnderCursor : earlier.slotUnderCursor,
+        hoveredSlot,
+        hoveredRecipeIcon,
+        recipeSelectClickIndex != -1 ? recipeSelectClickIndex : earlier.recipeSelectClickIndex,
+        craftButtonHovered,
+        craftButtonClicked || earlier.craftButtonClicked,
+        pointerOnUi,
+        slotClicked || earlier.slotClicked,
+        dropRequested || earlier.dropRequested,
+        pickUpRequested || earlier.pickUpRequested,
+        mapToggleRequested,
+        mapCloseRequested,
+        restartRequested,
+        mineRequested,
+        interactRequested || earlier.interactRequested,
+        debugToggleRequested,
+        m,
+        w);
+  }
+
+  /**
+   * This frame without its one-shot events, for the extra steps a long frame runs after the first
+   * so a click is not applied twice.
+   */
+  public InputFrame heldOnly() {
+    MovementIntent m = movementIntent;
+    if (m != null) {
+      m =
+          new MovementIntent(
+              m.leftHeld(), m.rightHeld(), m.upHeld(), m.downHeld(), false, false, false, false);
+    }
+    WeaponInput w = weaponInput;
+    if (w != null && w.attackJustPressed()) {
+      w = new WeaponInput(false, w.attackHeld(), w.aimWorldX(), w.aimWorldY());
+    }
+    return new InputFrame(
+        slotUnderCursor,
+        hoveredSlot,
+        hoveredRecipeIcon,
+        -1,
+        craftButtonHovered,
+        false,
+        pointerOnUi,
+        false,
+        false,
+        false,
+        mapToggleRequested,
+        mapCloseRequested,
+        restartRequested,
+        mineRequested,
+        false,
+        debugToggleRequested,
+        m,
+        w);
+  }
+
   /** Simplified frame for server/headless mode: UI/click fields are set to safe values. */
   public static InputFrame serverFrame(
       MovementIntent movement,
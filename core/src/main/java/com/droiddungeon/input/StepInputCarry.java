@@ -0,0 +1,20 @@
+package com.droiddungeon.input;
+
+/**
+ * Spreads per-frame input over the fixed steps a frame runs so that each one-shot event (click,
+ * press, request) reaches exactly one step: a frame that runs no step hands its events on to the
+ * next frame, and steps after the first in a long frame only see held state.
+ */
+public final class StepInputCarry {
+  private InputFrame carried;
+
+  /**
+   * Input for the first of the {@code steps} steps of this frame; later steps use {@link
+   * InputFrame#heldOnly()} of it. With no steps the events are kept for the next frame.
+   */
+  public InputFrame firstStep(InputFrame frame, int steps) {
+    InputFrame stepInput = frame.withEventsOf(carried);
+    carried = steps == 0 ? stepInput : null;
+    return stepInput;
+  }
+}
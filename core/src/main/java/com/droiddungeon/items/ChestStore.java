@@ -11,14 +11,22 @@ import java.util.Objects;
 /** In-memory store of chests placed in the world. */
 public final class ChestStore {
   private final Map<Long, Chest> chests = new HashMap<>();
+  private long version;
 
   public void clear() {
     chests.clear();
+    version++;
   }
 
   public void upsert(int x, int y, List<ItemStack> contents) {
     Objects.requireNonNull(contents, "contents");
     chests.put(key(x, y), new Chest(x, y, new ArrayList<>(contents)));
+    version++;
+  }
+
+  /** Changes whenever any chest changes; lets savers skip an unchanged store. */
+  public long version() {
+    return version;
   }
 
   public List<ItemStack> peek(int x, int y) {
@@ -31,6 +39,7 @@ public final class ChestStore {
   public List<ItemStack> drain(int x, int y) {
     Chest chest = chests.remove(key(x, y));
     if (chest == null) return List.of();
+    version++;
     return new ArrayList<>(chest.contents);
   }
 
@@ -11,7 +11,7 @@ public final class GroundItem implements GridEntity {
   private final int id;
   private final int gridX;
   private final int gridY;
-  private ItemStack stack;
+  private final ItemStack stack;
   private final List<ItemStack> bundled;
 
   public int getGridX() {
@@ -26,13 +26,6 @@ public final class GroundItem implements GridEntity {
     return stack;
   }
 
-  public void setStack(ItemStack stack) {
-    if (stack == null) {
-      throw new IllegalArgumentException("stack must not be null");
-    }
-    this.stack = stack;
-  }
-
   public boolean isAt(int x, int y) {
     return gridX == x && gridY == y;
   }
@@ -0,0 +1,205 @@
+package com.droiddungeon.items;
+
+import com.droiddungeon.util.IntIntMap;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the ground items of an authoritative world bounded. New drops are folded into compatible
+ * stacks within {@link Settings#mergeRadius()} tiles, items despawn after a fixed age, and a chunk
+ * holding more than {@link Settings#chunkCap()} items loses its oldest ones.
+ *
+ * <p>Despawn deadlines sit in a timing wheel with one slot per second, so each tick only looks at
+ * the items due in the second that just passed (plus those a full turn of the wheel away).
+ * Entries of items that were picked up or merged away are dropped lazily when their slot comes
+ * round. Merges and evictions work through queues filled as items arrive, a bounded number per
+ * tick, so no tick scans every item. Bundles (death loot) never merge and are never evicted; they
+ * and other {@code lasting} drops use the longer despawn timer.
+ *
+ * <p>The store calls in under its own lock; attach with {@link GroundItemStore#setLifecycle} and
+ * drive with {@link GroundItemStore#tick}. Ages are not saved, so loaded items start afresh.
+ */
+public final class GroundItemLifecycle {
+  /**
+   * Lifecycle limits. Despawn times are in seconds and zero or less keeps such items forever; a
+   * chunk cap of zero or less turns eviction off and a negative merge radius turns merging off.
+   */
+  public record Settings(
+      int despawnSeconds, int lastingDespawnSeconds, int chunkCap, int mergeRadius) {
+    public static Settings defaults() {
+      return new Settings(
+          Integer.getInteger("groundItems.despawnSeconds", 300),
+          Integer.getInteger("groundItems.lastingDespawnSeconds", 1800),
+          Integer.getInteger("groundItems.chunkCap", 64),
+          Integer.getInteger("groundItems.mergeRadius", 1));
+    }
+  }
+
+  private static final int NONE = -1;
+  private static final int WHEEL_SLOTS = 64;
+  private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+  private static final int MERGES_PER_TICK = 32;
+
+  private final Settings settings;
+  private final IntIntMap deadlineById = new IntIntMap(64, NONE);
+  private final int[][] wheelIds = new int[WHEEL_SLOTS][];
+  private final int[][] wheelDeadlines = new int[WHEEL_SLOTS][];
+  private final int[] wheelSizes = new int[WHEEL_SLOTS];
+  private final Set<Long> overfullChunks = new HashSet<>();
+  private int[] mergeQueue = new int[64];
+  private int mergeHead;
+  private int mergeTail;
+  private int now;
+  private float carry;
+
+  public GroundItemLifecycle(Settings settings) {
+    this.settings = settings;
+    for (int i = 0; i < WHEEL_SLOTS; i++) {
+      wheelIds[i] = new int[8];
+      wheelDeadlines[i] = new int[8];
+    }
+  }
+
+  /** Whole seconds simulated so far. */
+  int now() {
+    return now;
+  }
+
+  /** Items waiting for their merge check. */
+  int pendingMerges() {
+    return mergeTail - mergeHead;
+  }
+
+  void advance(GroundItemStore store, float deltaSeconds) {
+    carry += deltaSeconds;
+    while (carry >= 1f) {
+      carry -= 1f;
+      now++;
+      expireSlot(store, now & WHEEL_MASK);
+    }
+    for (int i = 0; i < MERGES_PER_TICK && mergeHead < mergeTail; i++) {
+      merge(store, mergeQueue[mergeHead++]);
+    }
+    if (mergeHead == mergeTail) {
+      mergeHead = 0;
+      mergeTail = 0;
+    }
+    if (!overfullChunks.isEmpty()) {
+      for (Long chunkKey : overfullChunks) {
+        evict(store, chunkKey);
+      }
+      overfullChunks.clear();
+    }
+  }
+
+  void added(GroundItemStore store, GroundItem item, boolean lasting) {
+    int seconds = lasting ? settings.lastingDespawnSeconds() : settings.despawnSeconds();
+    if (seconds > 0) {
+      schedule(item.id(), now + seconds);
+    }
+    if (!item.isBundle() && settings.mergeRadius() >= 0) {
+      enqueueMerge(item.id());
+    }
+    long chunkKey = GroundItemStore.chunkKey(item);
+    if (settings.chunkCap() > 0 && store.chunkItems(chunkKey).size() > settings.chunkCap()) {
+      overfullChunks.add(chunkKey);
+    }
+  }
+
+  void removed(GroundItem item) {
+    deadlineById.remove(item.id());
+  }
+
+  void cleared() {
+    deadlineById.clear();
+    Arrays.fill(wheelSizes, 0);
+    overfullChunks.clear();
+    mergeHead = 0;
+    mergeTail = 0;
+  }
+
+  private void expireSlot(GroundItemStore store, int slot) {
+    int[] ids = wheelIds[slot];
+    int[] deadlines = wheelDeadlines[slot];
+    int size = wheelSizes[slot];
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      int id = ids[i];
+      int deadline = deadlines[i];
+      if (deadlineById.get(id) != deadline) {
+        continue; // gone, or rescheduled under a later deadline
+      }
+      if (deadline <= now) {
+        store.removeGroundItem(id);
+        continue;
+      }
+      ids[kept] = id;
+      deadlines[kept] = deadline;
+      kept++;
+    }
+    wheelSizes[slot] = kept;
+  }
+
+  private void merge(GroundItemStore store, int id) {
+    GroundItem item = store.get(id);
+    if (item == null) return;
+    int deadline = deadlineById.get(id);
+    GroundItem target = store.mergeNearby(item, settings.mergeRadius());
+    if (target == null) return;
+    // the pile lives as long as its longest-lived part
+    int targetDeadline = deadlineById.get(target.id());
+    if (deadline == NONE) {
+      deadlineById.remove(target.id());
+    } else if (targetDeadline != NONE && deadline > targetDeadline) {
+      schedule(target.id(), deadline);
+    }
+  }
+
+  private void evict(GroundItemStore store, long chunkKey) {
+    List<GroundItem> items = store.chunkItems(chunkKey);
+    int excess = items.size() - settings.chunkCap();
+    if (excess <= 0) return;
+    int[] victims = new int[excess];
+    int count = 0;
+    for (int i = 0; i < items.size() && count < excess; i++) {
+      GroundItem item = items.get(i);
+      if (!item.isBundle()) {
+        victims[count++] = item.id();
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      store.removeGroundItem(victims[i]);
+    }
+  }
+
+  private void schedule(int id, int deadline) {
+    deadlineById.put(id, deadline);
+    int slot = deadline & WHEEL_MASK;
+    int size = wheelSizes[slot];
+    if (size == wheelIds[slot].length) {
+      wheelIds[slot] = Arrays.copyOf(wheelIds[slot], size * 2);
+      wheelDeadlines[slot] = Arrays.copyOf(wheelDeadlines[slot], size * 2);
+    }
+    wheelIds[slot][size] = id;
+    wheelDeadlines[slot][size] = deadline;
+    wheelSizes[slot] = size + 1;
+  }
+
+  private void enqueueMerge(int id) {
+    if (mergeTail == mergeQueue.length) {
+      int pending = mergeTail - mergeHead;
+      if (mergeHead > 0 && pending < mergeQueue.length / 2) {
+        System.arraycopy(mergeQueue, mergeHead, mergeQueue, 0, pending);
+      } else {
+        int[] grown = new int[mergeQueue.length * 2];
+        System.arraycopy(mergeQueue, mergeHead, grown, 0, pending);
+        mergeQueue = grown;
+      }
+      mergeHead = 0;
+      mergeTail = pending;
+    }
+    mergeQueue[mergeTail++] = id;
+  }
+}
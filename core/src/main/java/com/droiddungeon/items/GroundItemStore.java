@@ -4,53 +4,97 @@ import com.droiddungeon.entity.EntityIds;
 import com.droiddungeon.entity.EntityWorld;
 import com.droiddungeon.inventory.Inventory;
 import com.droiddungeon.inventory.ItemStack;
+import com.droiddungeon.save.SaveGame;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-/** Shared container for ground items in the world used by server and client. */
+/**
+ * Shared container for ground items in the world used by server and client.
+ *
+ * <p>Items are indexed by id, by tile and by {@link GroundItemsView#CHUNK_SHIFT chunk}, so drops,
+ * merges and removals touch only the tile or chunk involved. Items themselves are immutable; a
+ * merge replaces the item with a new one under the same id. Readers take a {@link #view()}: an
+ * immutable snapshot published once per change epoch that rebuilds only the chunks changed since
+ * the previous view.
+ *
+ * <p>An authoritative world attaches a {@link GroundItemLifecycle} that bounds how many items
+ * pile up; replicas mirror the server and leave it off.
+ */
 public final class GroundItemStore {
-  private final List<GroundItem> groundItems = new ArrayList<>();
+  private final Map<Integer, GroundItem> byId = new HashMap<>();
+  private final Map<Long, List<GroundItem>> byTile = new HashMap<>();
+  private final Map<Long, List<GroundItem>> byChunk = new HashMap<>();
+  private final Set<Long> dirtyChunks = new HashSet<>();
   private final EntityWorld entityWorld;
   private final ItemRegistry itemRegistry;
+  private GroundItemsView published = GroundItemsView.EMPTY;
+  private GroundItemLifecycle lifecycle;
+  private long version;
 
   public GroundItemStore(EntityWorld entityWorld, ItemRegistry itemRegistry) {
     this.entityWorld = entityWorld;
     this.itemRegistry = itemRegistry;
   }
 
-  public synchronized void addGroundStack(int gridX, int gridY, ItemStack stack) {
+  /** Makes {@code lifecycle} track every item added from now on; null detaches it. */
+  public synchronized void setLifecycle(GroundItemLifecycle lifecycle) {
+    this.lifecycle = lifecycle;
+  }
+
+  /** Advances the attached lifecycle, if any: merges, expiries and evictions. */
+  public synchronized void tick(float deltaSeconds) {
+    if (lifecycle != null) {
+      lifecycle.advance(this, deltaSeconds);
+    }
+  }
+
+  public void addGroundStack(int gridX, int gridY, ItemStack stack) {
+    addGroundStack(gridX, gridY, stack, false);
+  }
+
+  /**
+   * Drops {@code stack} on a tile, topping up compatible stacks there first. {@code lasting} items
+   * (such as a broken chest's contents) get the lifecycle's longer despawn timer.
+   */
+  public synchronized void addGroundStack(int gridX, int gridY, ItemStack stack, boolean lasting) {
     if (stack == null) return;
-    int maxStack =
-        itemRegistry != null
-            ? itemRegistry.maxStackSize(stack.itemId())
-            : Inventory.DEFAULT_MAX_STACK;
+    version++;
+    int maxStack = maxStack(stack.itemId());
     ItemStack remaining = stack;
 
-    for (GroundItem groundItem : groundItems) {
-      if (!groundItem.isAt(gridX, gridY)) continue;
-      if (!groundItem.getStack().canStackWith(remaining)) continue;
-      int space = maxStack - groundItem.getStack().count();
-      if (space <= 0) continue;
-      int toMove = Math.min(space, remaining.count());
-      groundItem.setStack(groundItem.getStack().withCount(groundItem.getStack().count() + toMove));
-      if (toMove == remaining.count()) {
-        remaining = null;
-        break;
+    List<GroundItem> onTile = byTile.get(tileKey(gridX, gridY));
+    if (onTile != null) {
+      for (int i = 0; i < onTile.size() && remaining != null; i++) {
+        GroundItem groundItem = onTile.get(i);
+        if (!groundItem.getStack().canStackWith(remaining)) continue;
+        int space = maxStack - groundItem.getStack().count();
+        if (space <= 0) continue;
+        int toMove = Math.min(space, remaining.count());
+        replace(
+            groundItem,
+            new GroundItem(
+                groundItem.id(),
+                gridX,
+                gridY,
+                groundItem.getStack().withCount(groundItem.getStack().count() + toMove)));
+        remaining =
+            toMove == remaining.count() ? null : remaining.withCount(remaining.count() - toMove);
       }
-      remaining = remaining.withCount(remaining.count() - toMove);
     }
 
     while (remaining != null) {
       int chunk = Math.min(remaining.count(), maxStack);
-      GroundItem newItem =
+      insert(
           new GroundItem(
               EntityIds.next(),
               gridX,
               gridY,
-              new ItemStack(remaining.itemId(), chunk, remaining.durability()));
-      groundItems.add(newItem);
-      if (entityWorld != null) entityWorld.add(newItem);
+              new ItemStack(remaining.itemId(), chunk, remaining.durability())),
+          lasting);
       if (remaining.count() <= maxStack) {
         remaining = null;
       } else {
@@ -62,41 +106,240 @@ public final class GroundItemStore {
   public synchronized void addGroundBundle(
       int gridX, int gridY, ItemStack pouchStack, List<ItemStack> bundled) {
     if (pouchStack == null || bundled == null || bundled.isEmpty()) return;
-    GroundItem item = new GroundItem(EntityIds.next(), gridX, gridY, pouchStack, bundled);
-    groundItems.add(item);
-    if (entityWorld != null) entityWorld.add(item);
+    version++;
+    insert(new GroundItem(EntityIds.next(), gridX, gridY, pouchStack, bundled), true);
+  }
+
+  /**
+   * Immutable view of the current items. Repeated calls without changes in between return the same
+   * view; after a change only the touched chunks are rebuilt.
+   */
+  public synchronized GroundItemsView view() {
+    if (published.epoch() == version) {
+      return published;
+    }
+    Map<Long, GroundItem[]> chunks = new HashMap<>(published.chunks());
+    for (Long key : dirtyChunks) {
+      List<GroundItem> items = byChunk.get(key);
+      if (items == null) {
+        chunks.remove(key);
+      } else {
+        chunks.put(key, items.toArray(new GroundItem[0]));
+      }
+    }
+    dirtyChunks.clear();
+    published = new GroundItemsView(version, chunks, byId.size());
+    return published;
   }
 
-  public synchronized List<GroundItem> getGroundItems() {
-    return new ArrayList<>(groundItems);
+  /** All items as of the current {@link #view()}; the list is shared and not modifiable. */
+  public List<GroundItem> getGroundItems() {
+    return view().all();
+  }
+
+  public synchronized GroundItem get(int id) {
+    return byId.get(id);
+  }
+
+  public synchronized int size() {
+    return byId.size();
   }
 
   public synchronized void removeGroundItem(int id) {
-    Iterator<GroundItem> it = groundItems.iterator();
-    while (it.hasNext()) {
-      GroundItem gi = it.next();
-      if (gi.id() == id) {
-        if (entityWorld != null) entityWorld.remove(gi);
-        it.remove();
-        return;
-      }
-    }
+    GroundItem item = byId.get(id);
+    if (item == null) return;
+    detach(item);
+    version++;
   }
 
   public synchronized void upsertGroundItem(int id, int x, int y, ItemStack stack) {
     if (stack == null) return;
-    removeGroundItem(id);
+    version++;
     GroundItem newItem = new GroundItem(id, x, y, stack);
-    groundItems.add(newItem);
-    if (entityWorld != null) entityWorld.add(newItem);
+    GroundItem existing = byId.get(id);
+    if (existing != null && existing.isAt(x, y)) {
+      replace(existing, newItem);
+      return;
+    }
+    if (existing != null) {
+      detach(existing);
+    }
+    insert(newItem, false);
+  }
+
+  public synchronized List<SaveGame.GroundItemState> toSaveStates() {
+    List<SaveGame.GroundItemState> states = new ArrayList<>();
+    for (GroundItem item : view().all()) {
+      List<SaveGame.ItemStackState> bundled = new ArrayList<>();
+      for (ItemStack stack : item.getBundledItems()) {
+        var state = SaveGame.ItemStackState.from(stack);
+        if (state != null) bundled.add(state);
+      }
+      states.add(
+          new SaveGame.GroundItemState(
+              item.id(),
+              item.getGridX(),
+              item.getGridY(),
+              SaveGame.ItemStackState.from(item.getStack()),
+              bundled));
+    }
+    return states;
+  }
+
+  /** Replaces all ground items; plain stacks keep their ids, bundles get new ones. */
+  public synchronized void loadFrom(List<SaveGame.GroundItemState> states) {
+    clear();
+    if (states == null) {
+      return;
+    }
+    for (SaveGame.GroundItemState state : states) {
+      if (state == null) continue;
+      ItemStack stack = state.stack != null ? state.stack.toItemStack() : null;
+      if (stack == null) continue;
+      List<ItemStack> bundled = new ArrayList<>();
+      if (state.bundled != null) {
+        for (SaveGame.ItemStackState is : state.bundled) {
+          ItemStack bs = is.toItemStack();
+          if (bs != null) bundled.add(bs);
+        }
+      }
+      if (bundled.isEmpty()) {
+        upsertGroundItem(state.id, state.x, state.y, stack);
+      } else {
+        addGroundBundle(state.x, state.y, stack, bundled);
+      }
+    }
   }
 
   public synchronized void clear() {
     if (entityWorld != null) {
-      for (GroundItem groundItem : groundItems) {
+      for (GroundItem groundItem : byId.values()) {
         entityWorld.remove(groundItem);
       }
     }
-    groundItems.clear();
+    dirtyChunks.addAll(byChunk.keySet());
+    byId.clear();
+    byTile.clear();
+    byChunk.clear();
+    if (lifecycle != null) {
+      lifecycle.cleared();
+    }
+    version++;
+  }
+
+  /** Changes whenever any ground item changes; lets savers skip an unchanged store. */
+  public synchronized long version() {
+    return version;
+  }
+
+  /** Items in one chunk, oldest first. */
+  List<GroundItem> chunkItems(long chunkKey) {
+    List<GroundItem> items = byChunk.get(chunkKey);
+    return items != null ? items : List.of();
+  }
+
+  /**
+   * Moves as much of {@code source} as fits into older (lower id, as ids are handed out in order)
+   * compatible stacks within {@code radius} tiles. Returns the item that took the last of it if
+   * {@code source} was used up, otherwise null.
+   */
+  GroundItem mergeNearby(GroundItem source, int radius) {
+    if (source.isBundle()) return null;
+    int maxStack = maxStack(source.getStack().itemId());
+    int sourceX = source.getGridX();
+    int sourceY = source.getGridY();
+    for (int x = sourceX - radius; x <= sourceX + radius; x++) {
+      for (int y = sourceY - radius; y <= sourceY + radius; y++) {
+        List<GroundItem> onTile = byTile.get(tileKey(x, y));
+        if (onTile == null) continue;
+        for (int i = 0; i < onTile.size(); i++) {
+          GroundItem target = onTile.get(i);
+          ItemStack targetStack = target.getStack();
+          if (target.id() >= source.id()
+              || target.isBundle()
+              || !targetStack.canStackWith(source.getStack())) {
+            continue;
+          }
+          int space = maxStack - targetStack.count();
+          if (space <= 0) continue;
+          int moved = Math.min(space, source.getStack().count());
+          version++;
+          ItemStack topped = targetStack.withCount(targetStack.count() + moved);
+          replace(target, new GroundItem(target.id(), x, y, topped));
+          if (moved == source.getStack().count()) {
+            detach(source);
+            return byId.get(target.id());
+          }
+          GroundItem rest =
+              new GroundItem(
+                  source.id(),
+                  sourceX,
+                  sourceY,
+                  source.getStack().withCount(source.getStack().count() - moved));
+          replace(source, rest);
+          source = rest;
+        }
+      }
+    }
+    return null;
+  }
+
+  private int maxStack(String itemId) {
+    return itemRegistry != null ? itemRegistry.maxStackSize(itemId) : Inventory.DEFAULT_MAX_STACK;
+  }
+
+  private void insert(GroundItem item, boolean lasting) {
+    byId.put(item.id(), item);
+    byTile
+        .computeIfAbsent(tileKey(item.getGridX(), item.getGridY()), k -> new ArrayList<>(2))
+        .add(item);
+    long chunkKey = chunkKey(item);
+    byChunk.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(item);
+    dirtyChunks.add(chunkKey);
+    if (entityWorld != null) entityWorld.add(item);
+    if (lifecycle != null) {
+      lifecycle.added(this, item, lasting);
+    }
+  }
+
+  private void detach(GroundItem item) {
+    byId.remove(item.id());
+    long tileKey = tileKey(item.getGridX(), item.getGridY());
+    List<GroundItem> onTile = byTile.get(tileKey);
+    if (onTile != null && onTile.remove(item) && onTile.isEmpty()) {
+      byTile.remove(tileKey);
+    }
+    long chunkKey = chunkKey(item);
+    List<GroundItem> inChunk = byChunk.get(chunkKey);
+    if (inChunk != null && inChunk.remove(item) && inChunk.isEmpty()) {
+      byChunk.remove(chunkKey);
+    }
+    dirtyChunks.add(chunkKey);
+    if (entityWorld != null) entityWorld.remove(item);
+    if (lifecycle != null) {
+      lifecycle.removed(item);
+    }
+  }
+
+  /** Swaps {@code item} for {@code replacement}, which has the same id and tile, in place. */
+  private void replace(GroundItem item, GroundItem replacement) {
+    byId.put(replacement.id(), replacement);
+    List<GroundItem> onTile = byTile.get(tileKey(item.getGridX(), item.getGridY()));
+    onTile.set(onTile.indexOf(item), replacement);
+    long chunkKey = chunkKey(item);
+    List<GroundItem> inChunk = byChunk.get(chunkKey);
+    inChunk.set(inChunk.indexOf(item), replacement);
+    dirtyChunks.add(chunkKey);
+    if (entityWorld != null) entityWorld.add(replacement);
+  }
+
+  static long chunkKey(GroundItem item) {
+    return GroundItemsView.chunkKey(
+        item.getGridX() >> GroundItemsView.CHUNK_SHIFT,
+        item.getGridY() >> GroundItemsView.CHUNK_SHIFT);
+  }
+
+  private static long tileKey(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
   }
 }
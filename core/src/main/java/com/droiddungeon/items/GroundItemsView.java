@@ -0,0 +1,104 @@
+package com.droiddungeon.items;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable picture of the ground items at one {@link GroundItemStore} epoch, bucketed by chunk.
+ * Safe to read from any thread and to hold while the store keeps changing; chunks that did not
+ * change between epochs share their arrays.
+ */
+public final class GroundItemsView {
+  static final int CHUNK_SHIFT = 4;
+  static final GroundItemsView EMPTY = new GroundItemsView(0L, Map.of(), 0);
+
+  private final long epoch;
+  private final Map<Long, GroundItem[]> chunks;
+  private final int size;
+  private List<GroundItem> all;
+
+  GroundItemsView(long epoch, Map<Long, GroundItem[]> chunks, int size) {
+    this.epoch = epoch;
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+  /** Store epoch this view was published at; a newer view has a larger epoch. */
+  public long epoch() {
+    return epoch;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Every item, in no particular order. Built once per view. */
+  public List<GroundItem> all() {
+    List<GroundItem> list = all;
+    if (list == null) {
+      List<GroundItem> built = new ArrayList<>(size);
+      for (GroundItem[] items : chunks.values()) {
+        Collections.addAll(built, items);
+      }
+      list = Collections.unmodifiableList(built);
+      all = list;
+    }
+    return list;
+  }
+
+  /** Items on one tile. */
+  public List<GroundItem> at(int x, int y) {
+    GroundItem[] items = chunks.get(chunkKey(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT));
+    if (items == null) return List.of();
+    List<GroundItem> result = new ArrayList<>(2);
+    for (GroundItem item : items) {
+      if (item.isAt(x, y)) result.add(item);
+    }
+    return result;
+  }
+
+  /** Calls {@code action} for every item in the inclusive tile rectangle. */
+  public void forEachIn(int minX, int minY, int maxX, int maxY, Consumer<GroundItem> action) {
+    for (int cx = minX >> CHUNK_SHIFT; cx <= maxX >> CHUNK_SHIFT; cx++) {
+      for (int cy = minY >> CHUNK_SHIFT; cy <= maxY >> CHUNK_SHIFT; cy++) {
+        GroundItem[] items = chunks.get(chunkKey(cx, cy));
+        if (items == null) continue;
+        for (GroundItem item : items) {
+          int x = item.getGridX();
+          int y = item.getGridY();
+          if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+            action.accept(item);
+          }
+        }
+      }
+    }
+  }
+
+  /** Items within {@code radius} tiles (center to center) of the given tile. */
+  public List<GroundItem> within(int centerX, int centerY, int radius) {
+    List<GroundItem> result = new ArrayList<>();
+    long r2 = (long) radius * radius;
+    forEachIn(
+        centerX - radius,
+        centerY - radius,
+        centerX + radius,
+        centerY + radius,
+        item -> {
+          long dx = item.getGridX() - centerX;
+          long dy = item.getGridY() - centerY;
+          if (dx * dx + dy * dy <= r2) result.add(item);
+        });
+    return result;
+  }
+
+  Map<Long, GroundItem[]> chunks() {
+    return chunks;
+  }
+
+  static long chunkKey(int chunkX, int chunkY) {
+    return ((long) chunkX << 32) ^ (chunkY & 0xffffffffL);
+  }
+}
@@ -9,16 +9,30 @@ public final class BinaryProtocol {
   public static final byte TYPE_WELCOME = 1;
   public static final byte TYPE_SNAPSHOT = 2;
   public static final byte TYPE_INPUT = 3;
+  public static final byte TYPE_PING = 4;
+  public static final byte TYPE_PONG = 5;
   public static final int HEADER_SIZE = 6;
 
+  /**
+   * Set in the type byte when the payload is compressed with the codec negotiated in the welcome
+   * message. Message types stay below this bit.
+   */
+  public static final int FLAG_COMPRESSED = 0x80;
+
+  private static final int TYPE_MASK = 0x7F;
+
   private BinaryProtocol() {}
 
   public static byte[] wrap(byte type, byte[] payload) {
+    return wrap(type, payload, false);
+  }
+
+  public static byte[] wrap(byte type, byte[] payload, boolean compressed) {
     ByteBuffer buffer =
         ByteBuffer.allocate(HEADER_SIZE + payload.length).order(ByteOrder.BIG_ENDIAN);
     buffer.putInt(MAGIC);
     buffer.put(VERSION_1);
-    buffer.put(type);
+    buffer.put((byte) (compressed ? type | FLAG_COMPRESSED : type));
     buffer.put(payload);
     return buffer.array();
   }
@@ -33,9 +47,10 @@ public final class BinaryProtocol {
       throw new IllegalArgumentException("Invalid magic header");
     }
     byte version = buffer.get();
-    byte type = buffer.get();
-    return new Header(version, type);
+    byte typeAndFlags = buffer.get();
+    return new Header(
+        version, (byte) (typeAndFlags & TYPE_MASK), (typeAndFlags & FLAG_COMPRESSED) != 0);
   }
 
-  public record Header(byte version, byte type) {}
+  public record Header(byte version, byte type, boolean compressed) {}
 }
@@ -0,0 +1,183 @@
+package com.droiddungeon.net;
+
+/**
+ * Client-side link estimator fed by ping/pong round trips and snapshot arrivals.
+ *
+ * <p>RTT is smoothed the way TCP does it (SRTT/RTTVAR, RFC 6298) and snapshot arrival jitter uses
+ * the RTP interarrival estimator (RFC 3550). From those it derives the interpolation delay (how far
+ * behind the newest snapshot remote entities are rendered) and the input lead (how many server
+ * ticks a local input needs to reach the server), so each client runs with the lowest latency its
+ * own link sustains. The server applies each player's latest input on its next tick rather than at
+ * a stamped tick, so the lead schedules nothing; it sizes how far prediction may drift before
+ * reconciliation snaps ({@link Estimate#snapThresholdTiles}) and is shown in the debug overlay.
+ *
+ * <p>Samples are recorded and pings scheduled on the network thread; readers take the immutable
+ * {@link Estimate} published after every update.
+ */
+public final class ClockSync {
+  private static final long NANOS_PER_MILLI = 1_000_000L;
+  // lowering the delay waits for this many snapshots in a row that would allow it (hysteresis)
+  private static final int LOWER_AFTER_SNAPSHOTS = 40;
+  private static final int FAST_PING_SAMPLES = 5;
+
+  private final int minDelayTicks;
+  private final int maxDelayTicks;
+  private final long pingIntervalNanos;
+
+  // network-thread state
+  private long tickNanos;
+  private double srttNanos = -1;
+  private double rttVarNanos;
+  private double snapshotJitterNanos;
+  private long lastTransitNanos;
+  private long lastSnapshotTick = -1L;
+  private int rttSamples;
+  private int delayTicks;
+  private int lowerStreak;
+  private long nextPingNanos;
+  private boolean pinged;
+
+  private volatile Estimate estimate;
+
+  public ClockSync() {
+    this(
+        Integer.getInteger("network.interpDelayTicks", 2),
+        Integer.getInteger("network.minInterpDelayTicks", 1),
+        Integer.getInteger("network.maxInterpDelayTicks", 8),
+        Float.parseFloat(System.getProperty("network.serverTickDt", "0.05")),
+        Integer.getInteger("network.pingIntervalMs", 1000));
+  }
+
+  /**
+   * @param initialDelayTicks interpolation delay used until the first snapshots have been measured
+   * @param tickSeconds server tick length assumed until the server announces its own
+   */
+  public ClockSync(
+      int initialDelayTicks,
+      int minDelayTicks,
+      int maxDelayTicks,
+      float tickSeconds,
+      int pingIntervalMillis) {
+    this.minDelayTicks = Math.max(0, minDelayTicks);
+    this.maxDelayTicks = Math.max(this.minDelayTicks, maxDelayTicks);
+    this.pingIntervalNanos = Math.max(1, pingIntervalMillis) * NANOS_PER_MILLI;
+    this.tickNanos = Math.max(NANOS_PER_MILLI, (long) (tickSeconds * 1e9));
+    this.delayTicks = clamp(initialDelayTicks);
+    publish();
+  }
+
+  /** Server tick length from the welcome message; non-positive values are ignored. */
+  public void setTickMillis(int tickMillis) {
+    if (tickMillis <= 0) return;
+    tickNanos = tickMillis * NANOS_PER_MILLI;
+    // transit times measured against the old tick length are no longer comparable
+    lastSnapshotTick = -1L;
+    publish();
+  }
+
+  /**
+   * Returns true (and schedules the next one) if a ping should be sent now. The first few pings go
+   * out quickly so the estimate converges right after connecting.
+   */
+  public boolean pingDue(long nowNanos) {
+    if (pinged && nowNanos - nextPingNanos < 0) return false;
+    pinged = true;
+    long interval = rttSamples < FAST_PING_SAMPLES ? pingIntervalNanos / 4 : pingIntervalNanos;
+    nextPingNanos = nowNanos + interval;
+    return true;
+  }
+
+  /** Records a pong echoing {@code sentNanos}, received at {@code nowNanos}. */
+  public void onPong(long sentNanos, long nowNanos) {
+    long rtt = nowNanos - sentNanos;
+    if (rtt < 0) return;
+    if (srttNanos < 0) {
+      srttNanos = rtt;
+      rttVarNanos = rtt / 2.0;
+    } else {
+      rttVarNanos += (Math.abs(srttNanos - rtt) - rttVarNanos) / 4.0;
+      srttNanos += (rtt - srttNanos) / 8.0;
+    }
+    rttSamples++;
+    publish();
+  }
+
+  /** Records the arrival of the snapshot for server {@code tick}. */
+  public void onSnapshot(long tick, long nowNanos) {
+    if (tick <= lastSnapshotTick) return;
+    long transit = nowNanos - tick * tickNanos;
+    if (lastSnapshotTick >= 0) {
+      // transit differences are what the network added on top of the server's own cadence
+      long d = Math.abs(transit - lastTransitNanos);
+      snapshotJitterNanos += (d - snapshotJitterNanos) / 16.0;
+      adaptDelay();
+    }
+    lastTransitNanos = transit;
+    lastSnapshotTick = tick;
+    publish();
+  }
+
+  public Estimate estimate() {
+    return estimate;
+  }
+
+  private void adaptDelay() {
+    // one tick to have the next sample in hand, plus enough margin to ride out typical jitter
+    double margin = 2.0 * snapshotJitterNanos + (srttNanos > 0 ? rttVarNanos : 0);
+    int target = clamp(1 + (int) Math.ceil(margin / tickNanos));
+    if (target >= delayTicks) {
+      delayTicks = target;
+      lowerStreak = 0;
+    } else if (++lowerStreak >= LOWER_AFTER_SNAPSHOTS) {
+      delayTicks--;
+      lowerStreak = 0;
+    }
+  }
+
+  private void publish() {
+    double rtt = Math.max(0, srttNanos);
+    int lead = 1 + (int) Math.ceil((rtt / 2.0 + 2.0 * rttVarNanos) / tickNanos);
+    estimate =
+        new Estimate(
+            (float) (rtt / NANOS_PER_MILLI),
+            (float) (rttVarNanos / NANOS_PER_MILLI),
+            (float) (snapshotJitterNanos / NANOS_PER_MILLI),
+            delayTicks,
+            lead,
+            tickNanos / 1e9f,
+            rttSamples);
+  }
+
+  private int clamp(int ticks) {
+    return Math.max(minDelayTicks, Math.min(maxDelayTicks, ticks));
+  }
+
+  /**
+   * Snapshot of the current link estimate.
+   *
+   * @param rttMillis smoothed round-trip time (0 until the first pong)
+   * @param rttJitterMillis mean RTT deviation
+   * @param snapshotJitterMillis smoothed snapshot interarrival jitter
+   * @param interpDelayTicks how many ticks behind the newest snapshot to render
+   * @param inputLeadTicks server ticks an input needs to reach the server, with a jitter margin
+   * @param tickSeconds server tick length
+   * @param rttSamples pongs received so far
+   */
+  public record Estimate(
+      float rttMillis,
+      float rttJitterMillis,
+      float snapshotJitterMillis,
+      int interpDelayTicks,
+      int inputLeadTicks,
+      float tickSeconds,
+      int rttSamples) {
+
+    /**
+     * Distance the predicted local player may drift from the server before it is snapped back:
+     * whatever it can cover while its inputs are in flight, plus half a tile of slack.
+     */
+    public float snapThresholdTiles(float speedTilesPerSecond) {
+      return Math.max(1f, 0.5f + speedTilesPerSecond * inputLeadTicks * tickSeconds);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.droiddungeon.input.MovementIntent;
 import com.droiddungeon.input.WeaponInput;
 import com.droiddungeon.net.dto.WorldSnapshotDto;
 import com.droiddungeon.runtime.NetworkSnapshotBuffer;
+import java.util.function.Consumer;
 
 /** Client-side network transport abstraction used by GameRuntime in network mode. */
 public interface NetworkClientAdapter {
@@ -12,6 +13,10 @@ public interface NetworkClientAdapter {
 
   boolean isConnected();
 
+  /**
+   * Sends one input. {@code viewTick} is the server tick other entities are currently rendered at
+   * (-1 if none yet).
+   */
   void sendInput(
       long tick,
       MovementIntent movement,
@@ -19,18 +24,37 @@ public interface NetworkClientAdapter {
       boolean drop,
       boolean pickUp,
       boolean mine,
-      String playerId);
+      String playerId,
+      long viewTick);
 
   NetworkSnapshotBuffer buffer();
 
   /** Called when disposing the game. */
   default void close() {}
 
-  /** Latest snapshot if available (optional). */
+  /** Next queued snapshot in arrival order, or null if none (optional). */
   default WorldSnapshotDto pollSnapshot() {
     return null;
   }
 
+  /** Hands all queued snapshots to {@code sink} in arrival order. */
+  default void drainSnapshots(Consumer<WorldSnapshotDto> sink) {
+    WorldSnapshotDto snap;
+    while ((snap = pollSnapshot()) != null) {
+      sink.accept(snap);
+    }
+  }
+
+  /** Inbound snapshot queue counters if the transport keeps them. */
+  default SnapshotQueue.Stats snapshotStats() {
+    return null;
+  }
+
+  /** Link estimator (RTT, jitter, adaptive delays) if the transport measures one. */
+  default ClockSync clockSync() {
+    return null;
+  }
+
   /** Player id assigned by server if known. */
   default String playerId() {
     return null;
@@ -0,0 +1,124 @@
+package com.droiddungeon.net;
+
+import com.droiddungeon.net.dto.WorldSnapshotDto;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded single-producer/single-consumer ring of decoded snapshots. The network thread offers,
+ * the render thread drains in arrival order, so deltas are never silently replaced by newer ones.
+ *
+ * <p>When the ring is full the producer drops the snapshot and then keeps dropping deltas until
+ * the next keyframe arrives: a delta applied on top of a missing one would corrupt client state,
+ * while a keyframe resynchronises everything.
+ */
+public final class SnapshotQueue {
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private final WorldSnapshotDto[] slots;
+  private final int mask;
+  private final int coalesceBacklog;
+
+  // next slot to read (owned by consumer) / write (owned by producer)
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  // producer-side state
+  private boolean awaitingKeyframe;
+
+  // metrics; written by one side, read by anyone
+  private final AtomicLong offered = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong maxDepth = new AtomicLong();
+
+  public SnapshotQueue() {
+    this(
+        Integer.getInteger("network.snapshotQueueCapacity", DEFAULT_CAPACITY),
+        Integer.getInteger("network.coalesceBacklog", 4));
+  }
+
+  /**
+   * @param capacity ring size, rounded up to a power of two
+   * @param coalesceBacklog when more than this many snapshots are queued at drain time they are
+   *     merged into one before being handed to the consumer; {@code 0} disables coalescing
+   */
+  public SnapshotQueue(int capacity, int coalesceBacklog) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.slots = new WorldSnapshotDto[size];
+    this.mask = size - 1;
+    this.coalesceBacklog = Math.max(0, coalesceBacklog);
+  }
+
+  /** Producer side. Returns false if the snapshot was dropped. */
+  public boolean offer(WorldSnapshotDto snap) {
+    if (snap == null) return false;
+    offered.incrementAndGet();
+    if (awaitingKeyframe && !snap.full()) {
+      dropped.incrementAndGet();
+      return false;
+    }
+    long t = tail.get();
+    long depth = t - head.get();
+    if (depth >= slots.length) {
+      awaitingKeyframe = true;
+      dropped.incrementAndGet();
+      return false;
+    }
+    awaitingKeyframe = false;
+    slots[(int) (t & mask)] = snap;
+    tail.lazySet(t + 1);
+    if (depth + 1 > maxDepth.get()) {
+      maxDepth.lazySet(depth + 1);
+    }
+    return true;
+  }
+
+  /** Consumer side. Next snapshot in arrival order, or null if empty. */
+  public WorldSnapshotDto poll() {
+    long h = head.get();
+    if (h >= tail.get()) return null;
+    int idx = (int) (h & mask);
+    WorldSnapshotDto snap = slots[idx];
+    slots[idx] = null;
+    head.lazySet(h + 1);
+    return snap;
+  }
+
+  /**
+   * Consumer side. Hands every queued snapshot to {@code sink} in order. If the render thread has
+   * fallen behind (backlog above the coalesce threshold) the backlog is merged and delivered as a
+   * single snapshot instead.
+   */
+  public void drain(Consumer<WorldSnapshotDto> sink) {
+    int backlog = size();
+    if (backlog == 0) return;
+    if (coalesceBacklog > 0 && backlog > coalesceBacklog) {
+      WorldSnapshotDto merged = null;
+      for (int i = 0; i < backlog; i++) {
+        merged = WorldSnapshotMerger.merge(merged, poll());
+      }
+      coalesced.addAndGet(backlog - 1L);
+      sink.accept(merged);
+      return;
+    }
+    for (int i = 0; i < backlog; i++) {
+      sink.accept(poll());
+    }
+  }
+
+  public int size() {
+    return (int) Math.max(0L, tail.get() - head.get());
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  public Stats stats() {
+    return new Stats(size(), offered.get(), dropped.get(), coalesced.get(), maxDepth.get());
+  }
+
+  /** Backpressure counters for debug overlays and logs. */
+  public record Stats(int depth, long offered, long dropped, long coalesced, long maxDepth) {}
+}
@@ -0,0 +1,123 @@
+package com.droiddungeon.net;
+
+import com.droiddungeon.net.dto.BlockChangeDto;
+import com.droiddungeon.net.dto.ChunkSnapshotDto;
+import com.droiddungeon.net.dto.EnemySnapshotDto;
+import com.droiddungeon.net.dto.GroundItemSnapshotDto;
+import com.droiddungeon.net.dto.WorldSnapshotDto;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds consecutive snapshots into one that produces the same client state when applied. Changes
+ * are unioned, the newer snapshot wins per entity/tile, and removals are kept so that a removal
+ * followed by a re-add still ends with the entity present (clients apply removals before adds).
+ */
+public final class WorldSnapshotMerger {
+  private WorldSnapshotMerger() {}
+
+  /** Merge {@code newer} on top of {@code older}. Either argument may be null. */
+  public static WorldSnapshotDto merge(WorldSnapshotDto older, WorldSnapshotDto newer) {
+    if (older == null) return newer;
+    if (newer == null) return older;
+    if (newer.full()) {
+      // a keyframe replaces everything that came before it
+      return newer;
+    }
+
+    Map<Integer, EnemySnapshotDto> enemies = new LinkedHashMap<>();
+    Set<Integer> enemyRemovals = new LinkedHashSet<>();
+    mergeEnemies(older, enemies, enemyRemovals);
+    mergeEnemies(newer, enemies, enemyRemovals);
+
+    Map<Integer, GroundItemSnapshotDto> ground = new LinkedHashMap<>();
+    Set<Integer> groundRemovals = new LinkedHashSet<>();
+    mergeGround(older, ground, groundRemovals);
+    mergeGround(newer, ground, groundRemovals);
+
+    Map<Long, BlockChangeDto> blocks = new LinkedHashMap<>();
+    mergeBlocks(older.blockChanges(), blocks);
+    mergeBlocks(newer.blockChanges(), blocks);
+
+    // deltas carry chunks that just came into range; none of them may be lost
+    Map<Long, ChunkSnapshotDto> chunks = new LinkedHashMap<>();
+    mergeChunks(older.chunks(), chunks);
+    mergeChunks(newer.chunks(), chunks);
+
+    boolean full = older.full();
+    return new WorldSnapshotDto(
+        newer.tick(),
+        newer.seed() != 0L ? newer.seed() : older.seed(),
+        newer.version() != null ? newer.version() : older.version(),
+        full,
+        chunks.values().toArray(new ChunkSnapshotDto[0]),
+        newer.player() != null ? newer.player() : older.player(),
+        newer.players() != null ? newer.players() : older.players(),
+        enemies.values().toArray(new EnemySnapshotDto[0]),
+        full ? new int[0] : toIntArray(enemyRemovals),
+        blocks.values().toArray(new BlockChangeDto[0]),
+        ground.values().toArray(new GroundItemSnapshotDto[0]),
+        full ? new int[0] : toIntArray(groundRemovals),
+        newer.weaponStates() != null ? newer.weaponStates() : older.weaponStates(),
+        newer.miningStates() != null ? newer.miningStates() : older.miningStates());
+  }
+
+  private static void mergeEnemies(
+      WorldSnapshotDto snap, Map<Integer, EnemySnapshotDto> enemies, Set<Integer> removals) {
+    if (snap.enemyRemovals() != null) {
+      for (int id : snap.enemyRemovals()) {
+        enemies.remove(id);
+        removals.add(id);
+      }
+    }
+    if (snap.enemies() != null) {
+      for (EnemySnapshotDto e : snap.enemies()) {
+        enemies.put(e.id(), e);
+      }
+    }
+  }
+
+  private static void mergeGround(
+      WorldSnapshotDto snap, Map<Integer, GroundItemSnapshotDto> ground, Set<Integer> removals) {
+    if (snap.groundItemRemovals() != null) {
+      for (int id : snap.groundItemRemovals()) {
+        ground.remove(id);
+        removals.add(id);
+      }
+    }
+    if (snap.groundItems() != null) {
+      for (GroundItemSnapshotDto g : snap.groundItems()) {
+        ground.put(g.id(), g);
+      }
+    }
+  }
+
+  private static void mergeBlocks(BlockChangeDto[] changes, Map<Long, BlockChangeDto> blocks) {
+    if (changes == null) return;
+    for (BlockChangeDto bc : changes) {
+      blocks.put(key(bc.x(), bc.y()), bc);
+    }
+  }
+
+  private static void mergeChunks(ChunkSnapshotDto[] snaps, Map<Long, ChunkSnapshotDto> chunks) {
+    if (snaps == null) return;
+    for (ChunkSnapshotDto chunk : snaps) {
+      chunks.put(key(chunk.chunkX(), chunk.chunkY()), chunk);
+    }
+  }
+
+  private static int[] toIntArray(Set<Integer> ids) {
+    int[] out = new int[ids.size()];
+    int i = 0;
+    for (int id : ids) {
+      out[i++] = id;
+    }
+    return out;
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
+  }
+}
@@ -2,6 +2,8 @@ package com.droiddungeon.net.codec;
 
 import com.droiddungeon.net.BinaryProtocol;
 import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.PingDto;
+import com.droiddungeon.net.dto.PongDto;
 import com.droiddungeon.net.dto.WelcomeDto;
 import com.droiddungeon.net.dto.WorldSnapshotDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,6 +13,10 @@ import java.nio.ByteBuffer;
 
 public final class CborProtocolCodec implements ProtocolCodec {
   private final ObjectMapper mapper;
+  // set once from the welcome exchange; read by both the encoding and decoding threads
+  private volatile PayloadCompressor compressor;
+  private volatile PayloadCompression compression;
+  private volatile int compressThreshold = Integer.MAX_VALUE;
 
   public CborProtocolCodec(ObjectMapper mapper) {
     this.mapper = mapper;
@@ -28,6 +34,13 @@ public final class CborProtocolCodec implements ProtocolCodec {
     }
     byte[] payload = new byte[buffer.remaining()];
     buffer.get(payload);
+    if (header.compressed()) {
+      PayloadCompressor c = compressor;
+      if (c == null) {
+        throw new IllegalArgumentException("Compressed payload but no codec negotiated");
+      }
+      payload = c.decompress(payload, 0, payload.length);
+    }
     return switch (header.type()) {
       case BinaryProtocol.TYPE_WELCOME ->
           new WelcomeMessage(mapper.readValue(payload, WelcomeDto.class));
@@ -35,6 +48,8 @@ public final class CborProtocolCodec implements ProtocolCodec {
           new SnapshotMessage(mapper.readValue(payload, WorldSnapshotDto.class));
       case BinaryProtocol.TYPE_INPUT ->
           new InputMessage(mapper.readValue(payload, ClientInputDto.class));
+      case BinaryProtocol.TYPE_PING -> new PingMessage(mapper.readValue(payload, PingDto.class));
+      case BinaryProtocol.TYPE_PONG -> new PongMessage(mapper.readValue(payload, PongDto.class));
       default -> throw new IllegalArgumentException("Unexpected message type: " + header.type());
     };
   }
@@ -47,13 +62,52 @@ public final class CborProtocolCodec implements ProtocolCodec {
 
   @Override
   public byte[] encodeSnapshot(WorldSnapshotDto dto) throws IOException {
-    byte[] payload = mapper.writeValueAsBytes(dto);
-    return BinaryProtocol.wrap(BinaryProtocol.TYPE_SNAPSHOT, payload);
+    return wrapMaybeCompressed(BinaryProtocol.TYPE_SNAPSHOT, mapper.writeValueAsBytes(dto));
   }
 
   @Override
   public byte[] encodeInput(ClientInputDto dto) throws IOException {
-    byte[] payload = mapper.writeValueAsBytes(dto);
-    return BinaryProtocol.wrap(BinaryProtocol.TYPE_INPUT, payload);
+    return wrapMaybeCompressed(BinaryProtocol.TYPE_INPUT, mapper.writeValueAsBytes(dto));
+  }
+
+  @Override
+  public byte[] encodePing(PingDto dto) throws IOException {
+    return BinaryProtocol.wrap(BinaryProtocol.TYPE_PING, mapper.writeValueAsBytes(dto));
+  }
+
+  @Override
+  public byte[] encodePong(PongDto dto) throws IOException {
+    // clock probes are tiny and may be encoded off the outbound thread: never compressed
+    return BinaryProtocol.wrap(BinaryProtocol.TYPE_PONG, mapper.writeValueAsBytes(dto));
+  }
+
+  @Override
+  public void enableCompression(PayloadCompression codec, int thresholdBytes) {
+    if (codec == null) {
+      compressThreshold = Integer.MAX_VALUE;
+      compressor = null;
+      compression = null;
+      return;
+    }
+    compressor = codec.newCompressor();
+    compression = codec;
+    compressThreshold = Math.max(0, thresholdBytes);
+  }
+
+  @Override
+  public PayloadCompression compression() {
+    return compression;
+  }
+
+  /**
+   * Compresses payloads at or above the threshold. Compressed output that is not smaller is still
+   * sent compressed: a streaming context has already consumed it and the peer must see it too.
+   */
+  private byte[] wrapMaybeCompressed(byte type, byte[] payload) {
+    PayloadCompressor c = compressor;
+    if (c == null || payload.length < compressThreshold) {
+      return BinaryProtocol.wrap(type, payload);
+    }
+    return BinaryProtocol.wrap(type, c.compress(payload), true);
   }
 }
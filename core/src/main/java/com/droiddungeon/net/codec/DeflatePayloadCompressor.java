@@ -0,0 +1,74 @@
+package com.droiddungeon.net.codec;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming raw deflate with a preset dictionary. Both directions keep their window across
+ * messages (context takeover) and end each message with a sync flush, so later snapshots can
+ * reference earlier ones. That relies on every compressed message being decoded, in order, by the
+ * peer; the websocket transport guarantees it.
+ */
+final class DeflatePayloadCompressor implements PayloadCompressor {
+  private final Deflater deflater;
+  private final Inflater inflater;
+  private byte[] outBuffer = new byte[8 * 1024];
+  private byte[] inBuffer = new byte[16 * 1024];
+
+  DeflatePayloadCompressor(byte[] dictionary) {
+    this(dictionary, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  DeflatePayloadCompressor(byte[] dictionary, int level) {
+    deflater = new Deflater(level, true);
+    inflater = new Inflater(true);
+    if (dictionary != null && dictionary.length > 0) {
+      deflater.setDictionary(dictionary);
+      inflater.setDictionary(dictionary);
+    }
+  }
+
+  @Override
+  public byte[] compress(byte[] payload) {
+    deflater.setInput(payload);
+    int written = 0;
+    while (true) {
+      if (written == outBuffer.length) {
+        outBuffer = Arrays.copyOf(outBuffer, outBuffer.length * 2);
+      }
+      int room = outBuffer.length - written;
+      int n = deflater.deflate(outBuffer, written, room, Deflater.SYNC_FLUSH);
+      written += n;
+      // a sync flush is complete once deflate leaves spare room in the buffer
+      if (n < room) break;
+    }
+    return Arrays.copyOf(outBuffer, written);
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    inflater.setInput(data, offset, length);
+    int written = 0;
+    try {
+      while (true) {
+        if (written == inBuffer.length) {
+          if (inBuffer.length >= PayloadCompression.MAX_DECOMPRESSED_SIZE) {
+            throw new IllegalArgumentException("Decompressed payload too large");
+          }
+          inBuffer = Arrays.copyOf(inBuffer, inBuffer.length * 2);
+        }
+        int n = inflater.inflate(inBuffer, written, inBuffer.length - written);
+        written += n;
+        if (inflater.needsDictionary()) {
+          throw new IllegalArgumentException("Unexpected deflate dictionary request");
+        }
+        if (n == 0 && (inflater.needsInput() || inflater.finished())) break;
+      }
+    } catch (DataFormatException ex) {
+      throw new IllegalArgumentException("Corrupt deflate payload", ex);
+    }
+    return Arrays.copyOf(inBuffer, written);
+  }
+}
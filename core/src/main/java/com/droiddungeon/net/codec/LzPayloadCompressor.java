@@ -0,0 +1,166 @@
+package com.droiddungeon.net.codec;
+
+import java.util.Arrays;
+
+/**
+ * Fast byte-oriented LZ77 codec in the LZ4 block layout: each sequence is a token (literal length
+ * nibble, match length nibble), the literals, a 2-byte little-endian offset and optional length
+ * extension bytes. Matches are found through a single-probe hash of the next four bytes, which
+ * trades ratio for speed. Every message is an independent block prefixed with its decoded length;
+ * the per-connection state is just the reusable hash table and output buffer.
+ */
+final class LzPayloadCompressor implements PayloadCompressor {
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_BITS = 13;
+  private static final int MAX_OFFSET = 0xFFFF;
+  // the last literals are never matched so the decoder's bounds stay simple
+  private static final int LAST_LITERALS = 5;
+
+  private final int[] table = new int[1 << HASH_BITS];
+  private byte[] out = new byte[8 * 1024];
+  private int pos;
+
+  @Override
+  public byte[] compress(byte[] src) {
+    int n = src.length;
+    pos = 0;
+    ensure(4 + n + n / 255 + 16);
+    writeIntLe(n);
+    Arrays.fill(table, -1);
+
+    int anchor = 0;
+    int i = 0;
+    int matchLimit = n - LAST_LITERALS;
+    while (i + MIN_MATCH <= matchLimit) {
+      int seq = readIntLe(src, i);
+      int h = hash(seq);
+      int ref = table[h];
+      table[h] = i;
+      if (ref < 0 || i - ref > MAX_OFFSET || readIntLe(src, ref) != seq) {
+        i++;
+        continue;
+      }
+      int len = MIN_MATCH;
+      while (i + len < matchLimit && src[ref + len] == src[i + len]) {
+        len++;
+      }
+      writeSequence(src, anchor, i - anchor, i - ref, len);
+      i += len;
+      anchor = i;
+    }
+    writeSequence(src, anchor, n - anchor, 0, 0);
+    return Arrays.copyOf(out, pos);
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    if (length < 4) {
+      throw new IllegalArgumentException("LZ payload too small");
+    }
+    int end = offset + length;
+    int size =
+        (data[offset] & 0xFF)
+            | (data[offset + 1] & 0xFF) << 8
+            | (data[offset + 2] & 0xFF) << 16
+            | (data[offset + 3] & 0xFF) << 24;
+    if (size < 0 || size > PayloadCompression.MAX_DECOMPRESSED_SIZE) {
+      throw new IllegalArgumentException("Invalid LZ payload size: " + size);
+    }
+    byte[] dst = new byte[size];
+    int ip = offset + 4;
+    int op = 0;
+    try {
+      while (ip < end) {
+        int token = data[ip++] & 0xFF;
+        int literals = token >>> 4;
+        if (literals == 15) {
+          int b;
+          do {
+            b = data[ip++] & 0xFF;
+            literals += b;
+          } while (b == 255);
+        }
+        System.arraycopy(data, ip, dst, op, literals);
+        ip += literals;
+        op += literals;
+        if (ip >= end) break;
+
+        int matchOffset = (data[ip] & 0xFF) | (data[ip + 1] & 0xFF) << 8;
+        ip += 2;
+        int len = token & 0x0F;
+        if (len == 15) {
+          int b;
+          do {
+            b = data[ip++] & 0xFF;
+            len += b;
+          } while (b == 255);
+        }
+        len += MIN_MATCH;
+        int from = op - matchOffset;
+        if (matchOffset == 0 || from < 0 || op + len > size) {
+          throw new IllegalArgumentException("Corrupt LZ payload");
+        }
+        // byte-by-byte so overlapping matches (offset < length) replicate correctly
+        for (int k = 0; k < len; k++) {
+          dst[op++] = dst[from + k];
+        }
+      }
+    } catch (IndexOutOfBoundsException ex) {
+      throw new IllegalArgumentException("Corrupt LZ payload", ex);
+    }
+    if (op != size) {
+      throw new IllegalArgumentException("Truncated LZ payload");
+    }
+    return dst;
+  }
+
+  private void writeSequence(byte[] src, int literalStart, int literals, int offset, int len) {
+    ensure(pos + literals + literals / 255 + len / 255 + 8);
+    int matchCode = len == 0 ? 0 : len - MIN_MATCH;
+    int token = Math.min(literals, 15) << 4 | Math.min(matchCode, 15);
+    out[pos++] = (byte) token;
+    if (literals >= 15) {
+      writeLength(literals - 15);
+    }
+    System.arraycopy(src, literalStart, out, pos, literals);
+    pos += literals;
+    if (len == 0) return;
+    out[pos++] = (byte) offset;
+    out[pos++] = (byte) (offset >>> 8);
+    if (matchCode >= 15) {
+      writeLength(matchCode - 15);
+    }
+  }
+
+  private void writeLength(int remaining) {
+    while (remaining >= 255) {
+      out[pos++] = (byte) 255;
+      remaining -= 255;
+    }
+    out[pos++] = (byte) remaining;
+  }
+
+  private void writeIntLe(int v) {
+    out[pos++] = (byte) v;
+    out[pos++] = (byte) (v >>> 8);
+    out[pos++] = (byte) (v >>> 16);
+    out[pos++] = (byte) (v >>> 24);
+  }
+
+  private void ensure(int capacity) {
+    if (capacity > out.length) {
+      out = Arrays.copyOf(out, Math.max(capacity, out.length * 2));
+    }
+  }
+
+  private static int readIntLe(byte[] b, int i) {
+    return (b[i] & 0xFF)
+        | (b[i + 1] & 0xFF) << 8
+        | (b[i + 2] & 0xFF) << 16
+        | (b[i + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(int seq) {
+    return (seq * -1640531535) >>> (32 - HASH_BITS);
+  }
+}
@@ -0,0 +1,66 @@
+package com.droiddungeon.net.codec;
+
+import java.util.Locale;
+
+/**
+ * Payload compression codecs a connection can negotiate. The client lists the ones it accepts
+ * (most preferred first) when connecting, the server picks the first one it also supports and
+ * names it in {@link com.droiddungeon.net.dto.WelcomeDto#compression()}.
+ */
+public enum PayloadCompression {
+  /** Streaming raw deflate primed with {@link SnapshotDictionary}; best ratio. */
+  DEFLATE("deflate"),
+  /** Byte-oriented LZ77 block codec; much cheaper on CPU, smaller savings. */
+  LZ("lz");
+
+  /** Payloads smaller than this are sent uncompressed unless configured otherwise. */
+  public static final int DEFAULT_THRESHOLD = 512;
+
+  /** Upper bound for a single decompressed payload, guarding against decompression bombs. */
+  public static final int MAX_DECOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+  private final String id;
+
+  PayloadCompression(String id) {
+    this.id = id;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  /** Creates a fresh per-connection context. */
+  public PayloadCompressor newCompressor() {
+    return switch (this) {
+      case DEFLATE -> new DeflatePayloadCompressor(SnapshotDictionary.bytes());
+      case LZ -> new LzPayloadCompressor();
+    };
+  }
+
+  /** Looks up a codec by id, or null if unknown (including null, empty and "none"). */
+  public static PayloadCompression fromId(String id) {
+    if (id == null) return null;
+    String normalized = id.trim().toLowerCase(Locale.ROOT);
+    for (PayloadCompression c : values()) {
+      if (c.id.equals(normalized)) return c;
+    }
+    return null;
+  }
+
+  /**
+   * Picks the first codec in a comma-separated client {@code offer} that is also in {@code
+   * supported}; null means the connection stays uncompressed.
+   */
+  public static PayloadCompression negotiate(String offer, String supported) {
+    if (offer == null || supported == null) return null;
+    String[] allowed = supported.split(",");
+    for (String candidate : offer.split(",")) {
+      PayloadCompression c = fromId(candidate);
+      if (c == null) continue;
+      for (String s : allowed) {
+        if (c == fromId(s)) return c;
+      }
+    }
+    return null;
+  }
+}
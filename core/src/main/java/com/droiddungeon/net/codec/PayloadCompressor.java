@@ -0,0 +1,17 @@
+package com.droiddungeon.net.codec;
+
+/**
+ * Per-connection compression context for message payloads. Implementations keep their buffers
+ * (and, for streaming codecs, their window) between calls, so one instance must serve exactly one
+ * connection. Outbound and inbound sides are independent: {@link #compress} may run on one thread
+ * and {@link #decompress} on another, but each side must not be called concurrently with itself.
+ */
+public interface PayloadCompressor {
+  byte[] compress(byte[] payload);
+
+  /**
+   * @throws IllegalArgumentException if the data is corrupt or would expand past {@link
+   *     PayloadCompression#MAX_DECOMPRESSED_SIZE}
+   */
+  byte[] decompress(byte[] data, int offset, int length);
+}
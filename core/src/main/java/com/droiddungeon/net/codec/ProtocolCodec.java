@@ -2,6 +2,8 @@ package com.droiddungeon.net.codec;
 
 import com.droiddungeon.net.BinaryProtocol;
 import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.PingDto;
+import com.droiddungeon.net.dto.PongDto;
 import com.droiddungeon.net.dto.WelcomeDto;
 import com.droiddungeon.net.dto.WorldSnapshotDto;
 import java.io.IOException;
@@ -16,7 +18,22 @@ public interface ProtocolCodec {
 
   byte[] encodeInput(ClientInputDto dto) throws IOException;
 
-  sealed interface DecodedMessage permits WelcomeMessage, SnapshotMessage, InputMessage {
+  byte[] encodePing(PingDto dto) throws IOException;
+
+  byte[] encodePong(PongDto dto) throws IOException;
+
+  /**
+   * Switches this connection to {@code codec} (null turns compression off). Outbound payloads of at
+   * least {@code thresholdBytes} are compressed and flagged; flagged inbound payloads are
+   * decompressed. Welcome messages are never compressed.
+   */
+  void enableCompression(PayloadCompression codec, int thresholdBytes);
+
+  /** Codec negotiated for this connection, or null. */
+  PayloadCompression compression();
+
+  sealed interface DecodedMessage
+      permits WelcomeMessage, SnapshotMessage, InputMessage, PingMessage, PongMessage {
     byte type();
   }
 
@@ -40,4 +57,18 @@ public interface ProtocolCodec {
       return BinaryProtocol.TYPE_INPUT;
     }
   }
+
+  record PingMessage(PingDto value) implements DecodedMessage {
+    @Override
+    public byte type() {
+      return BinaryProtocol.TYPE_PING;
+    }
+  }
+
+  record PongMessage(PongDto value) implements DecodedMessage {
+    @Override
+    public byte type() {
+      return BinaryProtocol.TYPE_PONG;
+    }
+  }
 }
@@ -0,0 +1,84 @@
+package com.droiddungeon.net.codec;
+
+import com.droiddungeon.enemies.EnemyType;
+import com.droiddungeon.grid.BlockMaterial;
+import com.droiddungeon.net.dto.BlockChangeDto;
+import com.droiddungeon.net.dto.ChunkSnapshotDto;
+import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.EnemySnapshotDto;
+import com.droiddungeon.net.dto.GroundItemSnapshotDto;
+import com.droiddungeon.net.dto.MiningStateSnapshotDto;
+import com.droiddungeon.net.dto.MovementIntentDto;
+import com.droiddungeon.net.dto.PlayerSnapshotDto;
+import com.droiddungeon.net.dto.WeaponInputDto;
+import com.droiddungeon.net.dto.WeaponStateSnapshotDto;
+import com.droiddungeon.net.dto.WorldSnapshotDto;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Preset deflate dictionary. CBOR repeats every record field name as a text string in every
+ * object, so the dictionary is those strings (CBOR-encoded exactly as Jackson writes them) plus the
+ * material and enemy ids that dominate chunk and enemy lists. Deflate reaches back into it from the
+ * very first message, before the streaming window has any history of its own.
+ *
+ * <p>Built from the DTO schema rather than a captured sample, so client and server always derive
+ * byte-identical dictionaries. Entries that occur most often go last, where back-references are
+ * shortest.
+ */
+public final class SnapshotDictionary {
+  private static final byte[] BYTES = build();
+
+  private SnapshotDictionary() {}
+
+  public static byte[] bytes() {
+    return BYTES.clone();
+  }
+
+  private static byte[] build() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    Class<?>[] rare = {
+      ClientInputDto.class,
+      MovementIntentDto.class,
+      WeaponInputDto.class,
+      MiningStateSnapshotDto.class,
+      WeaponStateSnapshotDto.class,
+      WorldSnapshotDto.class,
+      PlayerSnapshotDto.class,
+      GroundItemSnapshotDto.class,
+      EnemySnapshotDto.class,
+    };
+    for (Class<?> type : rare) {
+      for (RecordComponent component : type.getRecordComponents()) {
+        writeText(out, component.getName());
+      }
+    }
+    for (EnemyType type : EnemyType.values()) {
+      writeText(out, type.name());
+    }
+    for (RecordComponent component : ChunkSnapshotDto.class.getRecordComponents()) {
+      writeText(out, component.getName());
+    }
+    for (BlockMaterial material : BlockMaterial.values()) {
+      writeText(out, material.name());
+    }
+    // a typical chunk block entry: map(4) { x, y, materialId, blockHp }
+    out.write(0xA4);
+    for (RecordComponent component : BlockChangeDto.class.getRecordComponents()) {
+      writeText(out, component.getName());
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeText(ByteArrayOutputStream out, String value) {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    if (utf8.length < 24) {
+      out.write(0x60 | utf8.length);
+    } else {
+      out.write(0x78);
+      out.write(utf8.length);
+    }
+    out.write(utf8, 0, utf8.length);
+  }
+}
@@ -1,5 +1,9 @@
 package com.droiddungeon.net.dto;
 
+/**
+ * One client input. {@code viewTick} is the server tick the client was rendering other entities at
+ * when it sampled the input, or -1 if unknown; the server judges melee hits against that moment.
+ */
 public record ClientInputDto(
     long tick,
     String playerId,
@@ -7,4 +11,5 @@ public record ClientInputDto(
     WeaponInputDto weapon,
     boolean drop,
     boolean pickUp,
-    boolean mine) {}
+    boolean mine,
+    long viewTick) {}
@@ -0,0 +1,4 @@
+package com.droiddungeon.net.dto;
+
+/** Clock-sync probe; the server echoes {@code clientTimeNanos} back in a {@link PongDto}. */
+public record PingDto(long clientTimeNanos) {}
@@ -0,0 +1,4 @@
+package com.droiddungeon.net.dto;
+
+/** Reply to a {@link PingDto}, echoing the client timestamp alongside the server wall clock. */
+public record PongDto(long clientTimeNanos, long serverTimeMillis) {}
@@ -1,3 +1,13 @@
 package com.droiddungeon.net.dto;
 
-public record WelcomeDto(String playerId, PlayerSnapshotDto player, PlayerSnapshotDto[] players) {}
+/**
+ * First message on a connection; always sent uncompressed. {@code tickMillis} is the server tick
+ * length (0 if unknown) and {@code compression} the payload codec id chosen for this connection,
+ * or null for none.
+ */
+public record WelcomeDto(
+    String playerId,
+    PlayerSnapshotDto player,
+    PlayerSnapshotDto[] players,
+    int tickMillis,
+    String compression) {}
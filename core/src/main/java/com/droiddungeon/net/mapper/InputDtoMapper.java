@@ -37,8 +37,10 @@ public final class InputDtoMapper {
       WeaponInput weapon,
       boolean drop,
       boolean pickUp,
-      boolean mine) {
-    return new ClientInputDto(tick, playerId, toDto(movement), toDto(weapon), drop, pickUp, mine);
+      boolean mine,
+      long viewTick) {
+    return new ClientInputDto(
+        tick, playerId, toDto(movement), toDto(weapon), drop, pickUp, mine, viewTick);
   }
 
   public static InputFrame toInputFrame(ClientInputDto dto) {
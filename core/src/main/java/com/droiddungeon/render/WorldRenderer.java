@@ -21,6 +21,7 @@ import com.droiddungeon.grid.TileMaterial;
 import com.droiddungeon.items.GroundItem;
 import com.droiddungeon.items.ItemDefinition;
 import com.droiddungeon.items.ItemRegistry;
+import com.droiddungeon.runtime.RemotePlayers;
 import com.droiddungeon.systems.MiningSystem.MiningTarget;
 import com.droiddungeon.systems.WeaponSystem.WeaponState;
 import com.droiddungeon.ui.MapMarker;
@@ -65,7 +66,8 @@ public final class WorldRenderer {
       MapMarker trackedMarker,
       float companionX,
       float companionY,
-      MiningTarget miningTarget) {
+      MiningTarget miningTarget,
+      RemotePlayers remotePlayers) {
     viewport.apply(false);
     shapeRenderer.setProjectionMatrix(viewport.getCamera().combined);
     spriteBatch.setProjectionMatrix(viewport.getCamera().combined);
@@ -85,6 +87,7 @@ public final class WorldRenderer {
     renderGroundItems(groundItems, itemRegistry, tileSize, gridOriginX, gridOriginY);
     renderEnemies(enemies, gridOriginX, gridOriginY, tileSize);
     renderCompanionDotty(gridOriginX, gridOriginY, tileSize, companionX, companionY);
+    renderRemotePlayers(remotePlayers, gridOriginX, gridOriginY, tileSize);
     renderPlayer(player, gridOriginX, gridOriginY, tileSize);
     spriteBatch.end();
 
@@ -481,6 +484,20 @@ public final class WorldRenderer {
     spriteBatch.draw(playerRegion, drawX, drawY, drawSize, drawSize);
   }
 
+  private void renderRemotePlayers(
+      RemotePlayers remotePlayers, float gridOriginX, float gridOriginY, float tileSize) {
+    if (remotePlayers == null) {
+      return;
+    }
+    float drawSize = tileSize * 0.9f;
+    for (int i = 0; i < remotePlayers.size(); i++) {
+      float centerX = gridOriginX + (remotePlayers.renderX(i) + 0.5f) * tileSize;
+      float centerY = gridOriginY + (remotePlayers.renderY(i) + 0.5f) * tileSize;
+      spriteBatch.draw(
+          playerRegion, centerX - drawSize * 0.5f, centerY - drawSize * 0.5f, drawSize, drawSize);
+    }
+  }
+
   public void dispose() {
     shapeRenderer.dispose();
     spriteBatch.dispose();
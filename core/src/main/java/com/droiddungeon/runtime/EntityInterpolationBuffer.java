@@ -0,0 +1,223 @@
+package com.droiddungeon.runtime;
+
+import com.droiddungeon.net.dto.EnemySnapshotDto;
+import com.droiddungeon.util.IntIntMap;
+import java.util.Arrays;
+
+/**
+ * Per-entity history of authoritative positions and health, keyed by entity id, for rendering
+ * replicated entities (enemies, remote players, companions) a few ticks in the past.
+ *
+ * <p>Samples live in flat primitive rings (one ring of {@code history} entries per slot), ids map
+ * to slots through an {@link IntIntMap}, and freed slots are recycled, so steady-state pushes and
+ * lookups allocate nothing. The buffer is confined to the thread that applies snapshots (the render
+ * thread once they are drained from {@link com.droiddungeon.net.SnapshotQueue}); no locking is
+ * needed.
+ */
+public final class EntityInterpolationBuffer {
+  public static final int DEFAULT_HISTORY = 16;
+
+  private final int history;
+  private final int mask;
+  private final IntIntMap slotById = new IntIntMap(64, -1);
+
+  private int[] writeCount;
+  private int[] idBySlot;
+  private long[] ticks;
+  private float[] xs;
+  private float[] ys;
+  private float[] hps;
+  private int[] freeSlots;
+  private int freeCount;
+  private int slotCount;
+
+  private long latestTick = -1L;
+  private long previousTick = -1L;
+
+  public EntityInterpolationBuffer() {
+    this(DEFAULT_HISTORY, 64);
+  }
+
+  public EntityInterpolationBuffer(int history, int initialEntities) {
+    this.history = Integer.highestOneBit(Math.max(2, history) - 1) << 1;
+    this.mask = this.history - 1;
+    allocate(Math.max(4, initialEntities));
+  }
+
+  /**
+   * Marks the start of a snapshot at {@code tick}. Entities pushed in this snapshot whose last
+   * sample predates the previous snapshot get a hold sample there first, so delta-compressed
+   * entities that were idle do not glide across the whole idle gap.
+   */
+  public void beginSnapshot(long tick) {
+    if (tick <= latestTick) return;
+    previousTick = latestTick;
+    latestTick = tick;
+  }
+
+  public void push(int id, long tick, float x, float y, float hp) {
+    int slot = slotById.get(id);
+    if (slot < 0) {
+      slot = acquireSlot(id);
+    } else {
+      int n = writeCount[slot];
+      long lastTick = ticks[slot * history + ((n - 1) & mask)];
+      if (tick <= lastTick) {
+        // same or older tick: overwrite the newest sample instead of going back in time
+        int idx = slot * history + ((n - 1) & mask);
+        xs[idx] = x;
+        ys[idx] = y;
+        hps[idx] = hp;
+        return;
+      }
+      if (previousTick > lastTick && previousTick < tick) {
+        int prevIdx = slot * history + ((n - 1) & mask);
+        write(slot, previousTick, xs[prevIdx], ys[prevIdx], hps[prevIdx]);
+      }
+    }
+    write(slot, tick, x, y, hp);
+    if (tick > latestTick) {
+      latestTick = tick;
+    }
+  }
+
+  public void remove(int id) {
+    int slot = slotById.remove(id);
+    if (slot < 0) return;
+    writeCount[slot] = 0;
+    freeSlots[freeCount++] = slot;
+  }
+
+  /** Drops history for every entity not listed in {@code live} (used when a keyframe arrives). */
+  public void retainOnly(EnemySnapshotDto[] live) {
+    IntIntMap keep = new IntIntMap(live == null ? 4 : live.length, -1);
+    if (live != null) {
+      for (EnemySnapshotDto e : live) {
+        keep.put(e.id(), 1);
+      }
+    }
+    for (int slot = 0; slot < slotCount; slot++) {
+      int id = idBySlot[slot];
+      if (writeCount[slot] > 0 && !keep.containsKey(id) && slotById.get(id) == slot) {
+        remove(id);
+      }
+    }
+  }
+
+  public void clear() {
+    slotById.clear();
+    freeCount = 0;
+    slotCount = 0;
+    Arrays.fill(writeCount, 0);
+    latestTick = -1L;
+    previousTick = -1L;
+  }
+
+  public boolean contains(int id) {
+    return slotById.containsKey(id);
+  }
+
+  public long latestTick() {
+    return latestTick;
+  }
+
+  /**
+   * Interpolates the entity at a fractional tick into {@code out}. Targets before the oldest
+   * sample clamp to it, targets after the newest clamp to the newest (no extrapolation).
+   *
+   * @return false if the entity has no history
+   */
+  public boolean sample(int id, double targetTick, Sample out) {
+    int slot = slotById.get(id);
+    if (slot < 0) return false;
+    int n = writeCount[slot];
+    if (n == 0) return false;
+    int base = slot * history;
+    int available = Math.min(n, history);
+    int newest = base + ((n - 1) & mask);
+    if (available == 1 || targetTick >= ticks[newest]) {
+      out.set(xs[newest], ys[newest], hps[newest]);
+      return true;
+    }
+    // walk back from the newest sample to find the pair surrounding targetTick
+    int later = newest;
+    for (int k = 2; k <= available; k++) {
+      int earlier = base + ((n - k) & mask);
+      long earlierTick = ticks[earlier];
+      if (earlierTick <= targetTick) {
+        double span = ticks[later] - earlierTick;
+        float t = span > 0 ? (float) ((targetTick - earlierTick) / span) : 1f;
+        out.set(
+            lerp(xs[earlier], xs[later], t),
+            lerp(ys[earlier], ys[later], t),
+            lerp(hps[earlier], hps[later], t));
+        return true;
+      }
+      later = earlier;
+    }
+    out.set(xs[later], ys[later], hps[later]);
+    return true;
+  }
+
+  private void write(int slot, long tick, float x, float y, float hp) {
+    int idx = slot * history + (writeCount[slot] & mask);
+    ticks[idx] = tick;
+    xs[idx] = x;
+    ys[idx] = y;
+    hps[idx] = hp;
+    writeCount[slot]++;
+  }
+
+  private int acquireSlot(int id) {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      if (slotCount == writeCount.length) {
+        grow(writeCount.length * 2);
+      }
+      slot = slotCount++;
+    }
+    writeCount[slot] = 0;
+    idBySlot[slot] = id;
+    slotById.put(id, slot);
+    return slot;
+  }
+
+  private void allocate(int slots) {
+    writeCount = new int[slots];
+    idBySlot = new int[slots];
+    freeSlots = new int[slots];
+    ticks = new long[slots * history];
+    xs = new float[slots * history];
+    ys = new float[slots * history];
+    hps = new float[slots * history];
+  }
+
+  private void grow(int slots) {
+    writeCount = Arrays.copyOf(writeCount, slots);
+    idBySlot = Arrays.copyOf(idBySlot, slots);
+    freeSlots = Arrays.copyOf(freeSlots, slots);
+    ticks = Arrays.copyOf(ticks, slots * history);
+    xs = Arrays.copyOf(xs, slots * history);
+    ys = Arrays.copyOf(ys, slots * history);
+    hps = Arrays.copyOf(hps, slots * history);
+  }
+
+  private static float lerp(float a, float b, float t) {
+    return a + (b - a) * t;
+  }
+
+  /** Reusable output holder so sampling does not allocate. */
+  public static final class Sample {
+    public float x;
+    public float y;
+    public float hp;
+
+    void set(float x, float y, float hp) {
+      this.x = x;
+      this.y = y;
+      this.hp = hp;
+    }
+  }
+}
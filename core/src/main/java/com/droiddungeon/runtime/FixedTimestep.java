@@ -0,0 +1,74 @@
+package com.droiddungeon.runtime;
+
+/**
+ * Accumulator that turns variable frame times into whole simulation steps of a fixed length, so
+ * the world advances the same way at any frame rate and the same way as on the server.
+ *
+ * <p>Each frame adds its duration with {@link #advance} and runs the returned number of steps.
+ * Frames that stall for longer than {@code maxStepsPerFrame} steps drop the excess instead of
+ * trying to catch up. What is left over (less than one step) is exposed as {@link #alpha()}, the
+ * fraction of the way from the last simulated state to the next, for render interpolation.
+ */
+public final class FixedTimestep {
+  /** Length of one tick; the server's default tick rate is derived from it. */
+  public static final float DEFAULT_STEP_SECONDS = 0.05f;
+
+  private final int maxStepsPerFrame;
+  private float stepSeconds;
+  private float accumulator;
+  private long steps;
+
+  public FixedTimestep(float stepSeconds, int maxStepsPerFrame) {
+    if (stepSeconds <= 0f) {
+      throw new IllegalArgumentException("stepSeconds must be positive");
+    }
+    this.stepSeconds = stepSeconds;
+    this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+  }
+
+  /** Adds {@code frameSeconds} of real time; returns how many steps to run now. */
+  public int advance(float frameSeconds) {
+    if (frameSeconds > 0f) {
+      accumulator += frameSeconds;
+    }
+    int due = (int) (accumulator / stepSeconds);
+    if (due > maxStepsPerFrame) {
+      due = maxStepsPerFrame;
+      accumulator = stepSeconds * due;
+    }
+    accumulator -= stepSeconds * due;
+    if (accumulator < 0f) {
+      accumulator = 0f;
+    }
+    steps += due;
+    return due;
+  }
+
+  /** Fraction of a step accumulated since the last one, in [0, 1). */
+  public float alpha() {
+    return Math.min(accumulator / stepSeconds, 1f);
+  }
+
+  public float stepSeconds() {
+    return stepSeconds;
+  }
+
+  /**
+   * Changes the step length, e.g. to the tick length a server announced. Time already accumulated
+   * is kept.
+   */
+  public void setStepSeconds(float stepSeconds) {
+    if (stepSeconds > 0f) {
+      this.stepSeconds = stepSeconds;
+    }
+  }
+
+  /** Steps handed out so far. */
+  public long steps() {
+    return steps;
+  }
+
+  public void reset() {
+    accumulator = 0f;
+  }
+}
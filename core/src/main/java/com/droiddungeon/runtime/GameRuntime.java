@@ -21,14 +21,17 @@ import com.droiddungeon.input.HeldMovementController;
 import com.droiddungeon.input.InputBindings;
 import com.droiddungeon.input.InputFrame;
 import com.droiddungeon.input.MovementIntent;
+import com.droiddungeon.input.StepInputCarry;
 import com.droiddungeon.input.WeaponInput;
 import com.droiddungeon.inventory.Inventory;
 import com.droiddungeon.inventory.ItemStack;
 import com.droiddungeon.items.ChestStore;
+import com.droiddungeon.items.GroundItemLifecycle;
 import com.droiddungeon.items.GroundItemStore;
 import com.droiddungeon.items.ItemDefinition;
 import com.droiddungeon.items.ItemRegistry;
 import com.droiddungeon.items.TextureLoader;
+import com.droiddungeon.net.ClockSync;
 import com.droiddungeon.net.NetworkClientAdapter;
 import com.droiddungeon.net.dto.BlockChangeDto;
 import com.droiddungeon.net.dto.ChunkSnapshotDto;
@@ -49,10 +52,14 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /** Thin orchestration shell: wires input → update → render. */
 public final class GameRuntime {
+  // a frame stalled for longer than this many steps drops the rest rather than catching up
+  private static final int MAX_STEPS_PER_FRAME = 5;
+
   private final GameConfig config;
   private final InputBindings inputBindings;
   private final DebugTextBuilder debugTextBuilder = new DebugTextBuilder();
@@ -61,6 +68,10 @@ public final class GameRuntime {
   private final boolean networkMode;
   private final NetworkClientAdapter networkClient;
   private final NetworkSnapshotBuffer snapshotBuffer;
+  private final ClockSync clockSync;
+  private final NetworkSnapshotBuffer.Sample playerSample = new NetworkSnapshotBuffer.Sample();
+  private final EntityInterpolationBuffer entityInterpolation = new EntityInterpolationBuffer();
+  private final RemotePlayers remotePlayers = new RemotePlayers();
   private SaveGame pendingSave;
 
   private Viewport worldViewport;
@@ -72,6 +83,11 @@ public final class GameRuntime {
   private MapController mapController;
   private CameraController cameraController;
   private GameUpdater updater;
+  private SimulationCore simulation;
+  private final FixedTimestep clock =
+      new FixedTimestep(FixedTimestep.DEFAULT_STEP_SECONDS, MAX_STEPS_PER_FRAME);
+  private final StepInputCarry stepInputs = new StepInputCarry();
+  private GameUpdateResult lastStepResult;
   private GameRenderCoordinator renderer;
 
   private long worldSeed;
@@ -109,6 +125,8 @@ public final class GameRuntime {
 
   // last acked server tick for this client (from server PlayerSnapshot.lastProcessedTick)
   private long lastProcessedTickAck = -1L;
+  // fractional server tick replicated entities are rendered at (trails the newest snapshot)
+  private double renderTick = -1.0;
 
   public GameRuntime(GameConfig config) {
     this(config, null, null, null, new NetworkSnapshotBuffer(), false);
@@ -128,6 +146,8 @@ public final class GameRuntime {
     this.networkMode = networkMode;
     this.networkClient = networkClient;
     this.snapshotBuffer = buffer != null ? buffer : new NetworkSnapshotBuffer();
+    ClockSync sync = networkClient != null ? networkClient.clockSync() : null;
+    this.clockSync = sync != null ? sync : new ClockSync();
   }
 
   public void setPendingSave(SaveGame save) {
@@ -180,7 +200,8 @@ public final class GameRuntime {
     renderer.initLighting(config.tileSize(), worldSeed);
     inputController = new GameInputController(inputBindings, renderer.hudRenderer());
     mapController = new MapController();
-    updater = new GameUpdater(config, cameraController, movementController);
+    // the camera follows the interpolated player once per frame, not per simulation step
+    updater = new GameUpdater(config, null, movementController);
 
     entityWorld = new EntityWorld();
     if (textureLoader != null) {
@@ -190,9 +211,14 @@ public final class GameRuntime {
       itemRegistry = ItemRegistry.loadDataOnly(Path.of("items.txt"));
     }
     GroundItemStore gs = new GroundItemStore(entityWorld, itemRegistry);
+    if (!networkMode) {
+      // the server owns item lifetimes in multiplayer; replicas only mirror its snapshots
+      gs.setLifecycle(new GroundItemLifecycle(GroundItemLifecycle.Settings.defaults()));
+    }
     this.groundStore = gs;
     this.chestStore = new ChestStore();
     enemySystem = new EnemySystem(grid, worldSeed, entityWorld, gs);
+    simulation = new SimulationCore(enemySystem, gs);
     contextFactory =
         new GameContextFactory(
             config,
@@ -231,11 +257,6 @@ public final class GameRuntime {
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
     float delta = Gdx.graphics.getDeltaTime();
-    context.playerStats().update(delta);
-    if (context.playerStats().isDead() && !runStateManager.isDead()) {
-      runStateManager.handlePlayerDeath(context, mapOverlay);
-    }
-
     InputFrame input = inputController.collect(uiViewport, worldViewport, inventorySystem);
     boolean mapOpen =
         mapController.update(input, mapOverlay, renderer.minimapBounds(), uiViewport, context);
@@ -244,106 +265,48 @@ public final class GameRuntime {
       if (networkClient != null) {
         networkClient.connectIfNeeded();
         if (networkClient.isConnected()) {
-          if (networkClient.playerId() != null) {
-            playerId = networkClient.playerId();
-          }
-          WorldSnapshotDto latest = networkClient.pollSnapshot();
-          if (latest != null) {
-            applySnapshot(latest);
-          }
+          renderNetworked(delta, input, mapOpen);
+          return;
+        }
+      }
+    }
 
-          // send input with monotonic tick and keep it for prediction/replay
-          long tick = ++clientTickCounter;
-          pendingInputs.addLast(
-              new SentInput(
-                  tick,
-                  input.movementIntent(),
-                  input.weaponInput(),
-                  input.dropRequested(),
-                  input.pickUpRequested(),
-                  input.mineRequested()));
-
-          // local prediction: apply input immediately
-          movementController.update(
-              context.grid(), context.player(), context.entityWorld(), input.movementIntent());
-          context.player().update(delta, config.playerSpeedTilesPerSecond());
-
-          networkClient.sendInput(
-              tick,
-              input.movementIntent(),
-              input.weaponInput(),
-              input.dropRequested(),
-              input.pickUpRequested(),
-              input.mineRequested(),
-              playerId);
-
-          // Interpolate authoritative server snapshots based on server tick (avoid FPS hacks).
-          final int interpolationDelayTicks = Integer.getInteger("network.interpDelayTicks", 2);
-          long latestTick = snapshotBuffer.latestTick();
-          if (latestTick >= 0) {
-            double targetTick = (double) latestTick - interpolationDelayTicks;
-            NetworkSnapshot snap = snapshotBuffer.interpolateForTick(targetTick);
-            if (snap != null) {
-              // only use server position for non-local smoothing—local player uses reconciliation
-              // but we keep health and companion updates authoritative
-              context.playerStats().setHealth(snap.playerHp());
-              context
-                  .companionSystem()
-                  .updateFollowerTrail(context.player().getGridX(), context.player().getGridY());
-              context.companionSystem().updateRender(delta);
-            }
-          }
-          cameraController.update(context.grid(), context.player(), delta);
-          float gridOriginX = cameraController.getGridOriginX();
-          float gridOriginY = cameraController.getGridOriginY();
-          GameUpdateResult netResult =
-              new GameUpdateResult(
-                  gridOriginX,
-                  gridOriginY,
-                  weaponState,
-                  pendingInputs.size(),
-                  lastProcessedTickAck);
+    // the world advances in fixed steps whatever the frame rate; one-shot events of a frame that
+    // ran no step carry over to the next frame that does
+    int steps = clock.advance(delta);
+    InputFrame stepInput = stepInputs.firstStep(input, steps);
+    for (int i = 0; i < steps; i++) {
+      stepLocal(i == 0 ? stepInput : stepInput.heldOnly(), mapOpen);
+    }
+    if (lastStepResult == null) {
+      lastStepResult = new GameUpdateResult(0f, 0f, weaponState, 0, -1L, null, null);
+    }
+
+    float alpha = clock.alpha();
+    context.player().beginPresentation(alpha);
+    context.companionSystem().beginPresentation(alpha);
+    enemySystem.beginPresentation(alpha);
+    boolean restartHovered;
+    try {
+      cameraController.update(context.grid(), context.player(), delta);
+      restartHovered =
           renderer.render(
               worldViewport,
               uiViewport,
               context,
-              netResult,
+              lastStepResult,
               mapOverlay,
               debugTextBuilder,
               input,
               delta,
               runStateManager.isDead(),
               mapOpen);
-          return;
-        }
-      }
+    } finally {
+      enemySystem.endPresentation();
+      context.companionSystem().endPresentation();
+      context.player().endPresentation();
     }
 
-    GameUpdateResult updateResult =
-        updater.update(
-            delta,
-            runStateManager.isDead(),
-            input,
-            context,
-            context.grid().getTileSize(),
-            mapOpen,
-            !networkMode // simulate enemies locally only in non-network singleplayer
-            );
-    weaponState = updateResult.weaponState();
-
-    boolean restartHovered =
-        renderer.render(
-            worldViewport,
-            uiViewport,
-            context,
-            updateResult,
-            mapOverlay,
-            debugTextBuilder,
-            input,
-            delta,
-            runStateManager.isDead(),
-            mapOpen);
-
     if (runStateManager.isDead()) {
       if (Gdx.input.justTouched() && restartHovered) {
         restartRun();
@@ -354,6 +317,147 @@ public final class GameRuntime {
     }
   }
 
+  /** One fixed step of the local world: the player's input, then enemies and ground items. */
+  private void stepLocal(InputFrame input, boolean mapOpen) {
+    float step = clock.stepSeconds();
+    context.player().markStep();
+    context.companionSystem().markStep();
+    enemySystem.markStep();
+
+    context.playerStats().update(step);
+    if (context.playerStats().isDead() && !runStateManager.isDead()) {
+      runStateManager.handlePlayerDeath(context, mapOverlay);
+    }
+    boolean dead = runStateManager.isDead();
+    lastStepResult = simulation.stepPlayer(updater, context, input, step, dead, mapOpen);
+    weaponState = lastStepResult.weaponState();
+    // enemies are simulated locally only in singleplayer, and hold still while the player is dead
+    if (!networkMode && !dead) {
+      simulation.stepWorld(
+          step,
+          List.of(context.player()),
+          Map.of(context.player().id(), context.playerStats()));
+    }
+  }
+
+  private void renderNetworked(float delta, InputFrame input, boolean mapOpen) {
+    context.playerStats().update(delta);
+    if (context.playerStats().isDead() && !runStateManager.isDead()) {
+      runStateManager.handlePlayerDeath(context, mapOverlay);
+    }
+    if (networkClient.playerId() != null) {
+      playerId = networkClient.playerId();
+    }
+    // apply every queued snapshot in order so no delta is lost between frames
+    networkClient.drainSnapshots(this::applySnapshot);
+
+    // Delay and tick length adapt to the measured link instead of fixed settings.
+    ClockSync.Estimate link = clockSync.estimate();
+    float serverDt = link.tickSeconds();
+
+    // one input per server tick, predicted with the server's step so replays reproduce it exactly
+    clock.setStepSeconds(serverDt);
+    int steps = clock.advance(delta);
+    InputFrame stepInput = stepInputs.firstStep(input, steps);
+    for (int i = 0; i < steps; i++) {
+      predictStep(i == 0 ? stepInput : stepInput.heldOnly());
+    }
+
+    // Interpolate authoritative server snapshots based on server tick (avoid FPS hacks).
+    final int interpolationDelayTicks = link.interpDelayTicks();
+    long latestTick =
+        Math.max(
+            snapshotBuffer.latestTick(),
+            Math.max(entityInterpolation.latestTick(), remotePlayers.latestTick()));
+    if (latestTick >= 0) {
+      double targetTick = advanceRenderTick(latestTick, interpolationDelayTicks, delta, serverDt);
+      if (snapshotBuffer.sampleForTick(targetTick, playerSample)) {
+        // only use server position for non-local smoothing—local player uses reconciliation
+        // but we keep health and companion updates authoritative
+        context.playerStats().setHealth(playerSample.hp);
+        context
+            .companionSystem()
+            .updateFollowerTrail(context.player().getGridX(), context.player().getGridY());
+        context.companionSystem().updateRender(delta);
+      }
+      enemySystem.updateReplicated(delta, entityInterpolation, targetTick);
+      remotePlayers.sample(targetTick);
+    }
+
+    context.player().beginPresentation(clock.alpha());
+    try {
+      cameraController.update(context.grid(), context.player(), delta);
+      float gridOriginX = cameraController.getGridOriginX();
+      float gridOriginY = cameraController.getGridOriginY();
+      GameUpdateResult netResult =
+          new GameUpdateResult(
+              gridOriginX,
+              gridOriginY,
+              weaponState,
+              pendingInputs.size(),
+              lastProcessedTickAck,
+              link,
+              remotePlayers);
+      renderer.render(
+          worldViewport,
+          uiViewport,
+          context,
+          netResult,
+          mapOverlay,
+          debugTextBuilder,
+          input,
+          delta,
+          runStateManager.isDead(),
+          mapOpen);
+    } finally {
+      context.player().endPresentation();
+    }
+  }
+
+  /** Sends one tick of input and predicts its movement locally. */
+  private void predictStep(InputFrame input) {
+    // send input with monotonic tick and keep it for prediction/replay
+    long tick = ++clientTickCounter;
+    pendingInputs.addLast(
+        new SentInput(
+            tick,
+            input.movementIntent(),
+            input.weaponInput(),
+            input.dropRequested(),
+            input.pickUpRequested(),
+            input.mineRequested()));
+
+    context.player().markStep();
+    updater.predictMovement(context, input.movementIntent(), clock.stepSeconds());
+
+    networkClient.sendInput(
+        tick,
+        input.movementIntent(),
+        input.weaponInput(),
+        input.dropRequested(),
+        input.pickUpRequested(),
+        input.mineRequested(),
+        playerId,
+        // what the player was looking at when they clicked: last frame's render tick
+        renderTick >= 0 ? (long) renderTick : -1L);
+  }
+
+  /**
+   * Advances the render clock by frame time (in server ticks) and nudges it towards {@code
+   * latestTick - delayTicks}, so replicated entities move smoothly between snapshot arrivals.
+   */
+  private double advanceRenderTick(long latestTick, int delayTicks, float delta, float serverDt) {
+    double target = (double) latestTick - delayTicks;
+    if (renderTick < 0 || Math.abs(target - renderTick) > delayTicks + 4) {
+      renderTick = target;
+    } else {
+      renderTick += serverDt > 0f ? delta / serverDt : 0.0;
+      renderTick += (target - renderTick) * 0.1;
+      renderTick = Math.min(renderTick, latestTick);
+    }
+    return renderTick;
+  }
+
   public void dispose() {
     renderer.dispose();
     mapOverlay.dispose();
@@ -378,6 +482,10 @@ public final class GameRuntime {
     spawnY = layout.spawnY();
 
     enemySystem = new EnemySystem(grid, worldSeed, entityWorld, this.groundStore);
+    simulation = new SimulationCore(enemySystem, this.groundStore);
+    entityInterpolation.clear();
+    remotePlayers.clear();
+    renderTick = -1.0;
     chestStore = new ChestStore();
 
     contextFactory =
@@ -418,10 +526,14 @@ public final class GameRuntime {
     }
     applyBlockChanges(snap.blockChanges());
     applyGroundItems(snap.groundItems(), snap.groundItemRemovals(), snap.full());
-    applyEnemies(snap.enemies(), snap.enemyRemovals(), snap.full());
+    applyEnemies(snap.tick(), snap.enemies(), snap.enemyRemovals(), snap.full());
 
     String myId = playerId;
     if (snap.players() != null) {
+      // until the welcome names us, our own entry cannot be told apart from the others
+      if (myId != null) {
+        remotePlayers.apply(snap.tick(), snap.players(), myId);
+      }
       for (var p : snap.players()) {
         if (myId != null && myId.equals(p.playerId())) {
           // reconcile client prediction with authoritative server state
@@ -522,8 +634,23 @@ public final class GameRuntime {
     }
   }
 
-  private void applyEnemies(EnemySnapshotDto[] enemies, int[] removals, boolean full) {
+  private void applyEnemies(long tick, EnemySnapshotDto[] enemies, int[] removals, boolean full) {
     enemySystem.applySnapshot(enemies, removals, full);
+    entityInterpolation.beginSnapshot(tick);
+    if (full) {
+      // keyframes list every live enemy; keep history only for those still present
+      entityInterpolation.retainOnly(enemies);
+    }
+    if (removals != null) {
+      for (int id : removals) {
+        entityInterpolation.remove(id);
+      }
+    }
+    if (enemies != null) {
+      for (EnemySnapshotDto e : enemies) {
+        entityInterpolation.push(e.id(), tick, e.x(), e.y(), e.hp());
+      }
+    }
   }
 
   private void reconcilePlayerFromServer(
@@ -543,7 +670,10 @@ public final class GameRuntime {
     float dx = context.player().getRenderX() - serverX;
     float dy = context.player().getRenderY() - serverY;
     float dist2 = dx * dx + dy * dy;
-    float snapThreshold2 = 1.5f * 1.5f; // if >1.5 tiles, snap and replay
+    // if further off than inputs in flight could explain, snap and replay
+    ClockSync.Estimate link = clockSync.estimate();
+    float snapThreshold = link.snapThresholdTiles(config.playerSpeedTilesPerSecond());
+    float snapThreshold2 = snapThreshold * snapThreshold;
 
     if (dist2 > snapThreshold2) {
       // hard correction: set authoritative state then replay remaining inputs
@@ -553,12 +683,10 @@ public final class GameRuntime {
       // ensure player is not mid-move
       context.player().update(0f, config.playerSpeedTilesPerSecond());
 
-      float serverDt = Float.parseFloat(System.getProperty("network.serverTickDt", "0.05"));
+      float serverDt = link.tickSeconds();
       List<SentInput> toReplay = new ArrayList<>(pendingInputs);
       for (SentInput s : toReplay) {
-        movementController.update(
-            context.grid(), context.player(), context.entityWorld(), s.movement());
-        context.player().update(serverDt, config.playerSpeedTilesPerSecond());
+        updater.predictMovement(context, s.movement(), serverDt);
         // update weapon state locally as well
         float gridOriginX = cameraController.getGridOriginX();
         float gridOriginY = cameraController.getGridOriginY();
@@ -641,21 +769,7 @@ public final class GameRuntime {
       }
     }
 
-    var groundSnapshots = new ArrayList<SaveGame.GroundItemState>();
-    for (var gi : groundStore.getGroundItems()) {
-      List<SaveGame.ItemStackState> bundled = new ArrayList<>();
-      for (var b : gi.getBundledItems()) {
-        var bs = SaveGame.ItemStackState.from(b);
-        if (bs != null) bundled.add(bs);
-      }
-      groundSnapshots.add(
-          new SaveGame.GroundItemState(
-              gi.id(),
-              gi.getGridX(),
-              gi.getGridY(),
-              SaveGame.ItemStackState.from(gi.getStack()),
-              bundled));
-    }
+    var groundSnapshots = groundStore.toSaveStates();
 
     var invStates = new SaveGame.ItemStackState[inventory.size()];
     for (int i = 0; i < inventory.size(); i++) {
@@ -717,22 +831,7 @@ public final class GameRuntime {
       }
     }
 
-    groundStore.clear();
-    for (var g : save.groundItems) {
-      var stack = g.stack != null ? g.stack.toItemStack() : null;
-      List<ItemStack> bundled = new ArrayList<>();
-      if (g.bundled != null) {
-        for (var b : g.bundled) {
-          var bs = b.toItemStack();
-          if (bs != null) bundled.add(bs);
-        }
-      }
-      if (stack != null && bundled.isEmpty()) {
-        groundStore.upsertGroundItem(g.id, g.x, g.y, stack);
-      } else if (stack != null) {
-        groundStore.addGroundBundle(g.x, g.y, stack, bundled);
-      }
-    }
+    groundStore.loadFrom(save.groundItems);
 
     if (save.player != null) {
       context
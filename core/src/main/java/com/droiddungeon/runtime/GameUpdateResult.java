@@ -1,11 +1,17 @@
 package com.droiddungeon.runtime;
 
+import com.droiddungeon.net.ClockSync;
 import com.droiddungeon.systems.WeaponSystem;
 
-/** Output of a single update step used by renderers. */
+/**
+ * Output of a single update step used by renderers. {@code link} is the network estimate and
+ * {@code remotePlayers} the other players of the world in network mode; both are null otherwise.
+ */
 public record GameUpdateResult(
     float gridOriginX,
     float gridOriginY,
     WeaponSystem.WeaponState weaponState,
     int pendingInputsCount,
-    long lastProcessedTick) {}
+    long lastProcessedTick,
+    ClockSync.Estimate link,
+    RemotePlayers remotePlayers) {}
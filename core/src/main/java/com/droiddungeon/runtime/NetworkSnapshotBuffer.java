@@ -1,64 +1,141 @@
 package com.droiddungeon.runtime;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Thread-safe buffer of recent authoritative snapshots from the server. Allows interpolation for a
- * target server tick (fractional).
+ * Lock-free buffer of recent authoritative local-player snapshots from the server. Allows
+ * interpolation for a target server tick (fractional).
+ *
+ * <p>Single writer (network thread), any number of readers. Samples are stored in primitive rings
+ * and published through a sequence counter; readers retry if the writer lapped the samples they
+ * read. The slots are plain fields, so both sides fence them against the counter as in a seqlock:
+ * the writer makes the new count visible before it overwrites a slot, and readers finish their
+ * slot loads before they re-check the count.
  */
 public final class NetworkSnapshotBuffer {
   private static final int DEFAULT_CAPACITY = 32;
-  private final Deque<NetworkSnapshot> deque = new ArrayDeque<>(DEFAULT_CAPACITY);
+  private static final int MASK = DEFAULT_CAPACITY - 1;
 
-  public synchronized void push(NetworkSnapshot snap) {
-    if (deque.size() >= DEFAULT_CAPACITY) {
-      deque.removeFirst();
-    }
-    deque.addLast(snap);
+  private final long[] ticks = new long[DEFAULT_CAPACITY];
+  private final float[] xs = new float[DEFAULT_CAPACITY];
+  private final float[] ys = new float[DEFAULT_CAPACITY];
+  private final int[] gridXs = new int[DEFAULT_CAPACITY];
+  private final int[] gridYs = new int[DEFAULT_CAPACITY];
+  private final float[] hps = new float[DEFAULT_CAPACITY];
+  private final long[] lastProcessed = new long[DEFAULT_CAPACITY];
+  private final AtomicLong published = new AtomicLong();
+
+  public void push(NetworkSnapshot snap) {
+    long seq = published.get();
+    int i = (int) (seq & MASK);
+    // readers of the previous count may still be reading this slot; they must see it lapped
+    VarHandle.storeStoreFence();
+    ticks[i] = snap.tick();
+    xs[i] = snap.playerRenderX();
+    ys[i] = snap.playerRenderY();
+    gridXs[i] = snap.playerGridX();
+    gridYs[i] = snap.playerGridY();
+    hps[i] = snap.playerHp();
+    lastProcessed[i] = snap.lastProcessedTick();
+    published.lazySet(seq + 1);
   }
 
-  public synchronized long latestTick() {
-    NetworkSnapshot last = deque.peekLast();
-    return last == null ? -1L : last.tick();
+  public long latestTick() {
+    while (true) {
+      long seq = published.get();
+      if (seq == 0) return -1L;
+      long tick = ticks[(int) ((seq - 1) & MASK)];
+      VarHandle.acquireFence();
+      if (published.get() - seq < DEFAULT_CAPACITY - 1) {
+        return tick;
+      }
+    }
   }
 
   /**
    * Interpolates snapshots for a fractional server tick. If exact tick is not available, the method
    * will find surrounding snapshots and linearly interpolate between them.
    */
-  public synchronized NetworkSnapshot interpolateForTick(double targetTick) {
-    if (deque.isEmpty()) return null;
-    if (deque.size() == 1) return deque.peekLast();
+  public NetworkSnapshot interpolateForTick(double targetTick) {
+    Sample out = new Sample();
+    if (!sampleForTick(targetTick, out)) return null;
+    return new NetworkSnapshot(
+        out.tick, out.x, out.y, out.gridX, out.gridY, out.hp, out.lastProcessedTick);
+  }
 
-    NetworkSnapshot prev = null;
-    for (NetworkSnapshot s : deque) {
-      if (s.tick() == (long) targetTick) {
-        return s;
+  /**
+   * Allocation-free variant of {@link #interpolateForTick(double)}.
+   *
+   * @return false if no snapshot has been received yet
+   */
+  public boolean sampleForTick(double targetTick, Sample out) {
+    while (true) {
+      long seq = published.get();
+      if (seq == 0) return false;
+      // the oldest slot of a full ring is the next one written, so it is never safe to read
+      int available = (int) Math.min(seq, DEFAULT_CAPACITY - 1);
+      long oldestRead = seq - 1;
+      int newest = (int) ((seq - 1) & MASK);
+      if (available == 1 || targetTick >= ticks[newest]) {
+        out.copyFrom(this, newest);
+      } else {
+        int later = newest;
+        boolean found = false;
+        for (int k = 2; k <= available && !found; k++) {
+          oldestRead = seq - k;
+          int earlier = (int) (oldestRead & MASK);
+          if (ticks[earlier] <= targetTick) {
+            out.interpolate(this, earlier, later, targetTick);
+            found = true;
+          }
+          later = earlier;
+        }
+        if (!found) {
+          out.copyFrom(this, later);
+        }
       }
-      if (s.tick() > targetTick) {
-        if (prev == null) return s;
-        double t = (targetTick - prev.tick()) / (double) (s.tick() - prev.tick());
-        float tf = (float) Math.min(1.0, Math.max(0.0, t));
-        long interpTick = (long) (prev.tick() + (s.tick() - prev.tick()) * tf);
-        long interpLastProc =
-            (long)
-                Math.round(
-                    prev.lastProcessedTick()
-                        + (s.lastProcessedTick() - prev.lastProcessedTick()) * tf);
-        return new NetworkSnapshot(
-            interpTick,
-            lerp(prev.playerRenderX(), s.playerRenderX(), tf),
-            lerp(prev.playerRenderY(), s.playerRenderY(), tf),
-            (int) Math.round(lerp(prev.playerGridX(), s.playerGridX(), tf)),
-            (int) Math.round(lerp(prev.playerGridY(), s.playerGridY(), tf)),
-            lerp(prev.playerHp(), s.playerHp(), tf),
-            interpLastProc);
+      // the writer may have overwritten the slots we read while we were reading them
+      VarHandle.acquireFence();
+      if (published.get() - oldestRead < DEFAULT_CAPACITY) {
+        return true;
       }
-      prev = s;
     }
-    // targetTick is after last snapshot, clamp to last
-    return deque.peekLast();
+  }
+
+  /** Reusable interpolation result. */
+  public static final class Sample {
+    public long tick;
+    public float x;
+    public float y;
+    public int gridX;
+    public int gridY;
+    public float hp;
+    public long lastProcessedTick;
+
+    private void copyFrom(NetworkSnapshotBuffer b, int i) {
+      tick = b.ticks[i];
+      x = b.xs[i];
+      y = b.ys[i];
+      gridX = b.gridXs[i];
+      gridY = b.gridYs[i];
+      hp = b.hps[i];
+      lastProcessedTick = b.lastProcessed[i];
+    }
+
+    private void interpolate(NetworkSnapshotBuffer b, int prev, int next, double targetTick) {
+      long span = b.ticks[next] - b.ticks[prev];
+      double t = span > 0 ? (targetTick - b.ticks[prev]) / (double) span : 1.0;
+      float tf = (float) Math.min(1.0, Math.max(0.0, t));
+      tick = (long) (b.ticks[prev] + span * tf);
+      x = lerp(b.xs[prev], b.xs[next], tf);
+      y = lerp(b.ys[prev], b.ys[next], tf);
+      gridX = Math.round(lerp(b.gridXs[prev], b.gridXs[next], tf));
+      gridY = Math.round(lerp(b.gridYs[prev], b.gridYs[next], tf));
+      hp = lerp(b.hps[prev], b.hps[next], tf);
+      long lp = b.lastProcessed[prev];
+      lastProcessedTick = Math.round(lp + (b.lastProcessed[next] - lp) * (double) tf);
+    }
   }
 
   private static float lerp(float a, float b, float t) {
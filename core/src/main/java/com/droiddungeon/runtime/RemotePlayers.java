@@ -0,0 +1,108 @@
+package com.droiddungeon.runtime;
+
+import com.droiddungeon.net.dto.PlayerSnapshotDto;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Other players in a networked world, rendered a few ticks in the past like replicated enemies.
+ *
+ * <p>Every snapshot lists all players of the world, so one missing from a snapshot has left. Player
+ * ids are strings; each remote player gets a local int id for its {@link EntityInterpolationBuffer}
+ * history. Confined to the render thread, like the snapshots it is fed from.
+ */
+public final class RemotePlayers {
+  private final EntityInterpolationBuffer history =
+      new EntityInterpolationBuffer(EntityInterpolationBuffer.DEFAULT_HISTORY, 8);
+  private final EntityInterpolationBuffer.Sample sample = new EntityInterpolationBuffer.Sample();
+  private final Map<String, Remote> byPlayer = new HashMap<>();
+  private int nextLocalId;
+  private long snapshots;
+  // local ids of the players in the last snapshot, then the positions sampled for this frame
+  private int[] live = new int[8];
+  private int liveCount;
+  private float[] xs = new float[8];
+  private float[] ys = new float[8];
+  private int count;
+
+  private static final class Remote {
+    final int id;
+    long seenIn;
+
+    Remote(int id) {
+      this.id = id;
+    }
+  }
+
+  /** Records the snapshot at {@code tick}; {@code localPlayerId} is predicted, not replicated. */
+  public void apply(long tick, PlayerSnapshotDto[] players, String localPlayerId) {
+    snapshots++;
+    history.beginSnapshot(tick);
+    liveCount = 0;
+    for (PlayerSnapshotDto p : players) {
+      if (p == null || p.playerId() == null || p.playerId().equals(localPlayerId)) continue;
+      Remote remote = byPlayer.get(p.playerId());
+      if (remote == null) {
+        remote = new Remote(nextLocalId++);
+        byPlayer.put(p.playerId(), remote);
+      }
+      remote.seenIn = snapshots;
+      history.push(remote.id, tick, p.x(), p.y(), p.hp());
+      if (liveCount == live.length) {
+        live = Arrays.copyOf(live, liveCount * 2);
+      }
+      live[liveCount++] = remote.id;
+    }
+    // players left when they stop appearing in snapshots
+    Iterator<Remote> it = byPlayer.values().iterator();
+    while (it.hasNext()) {
+      Remote remote = it.next();
+      if (remote.seenIn != snapshots) {
+        history.remove(remote.id);
+        it.remove();
+      }
+    }
+  }
+
+  /** Samples every remote player at the fractional server tick {@code targetTick}. */
+  public void sample(double targetTick) {
+    if (xs.length < liveCount) {
+      xs = new float[live.length];
+      ys = new float[live.length];
+    }
+    count = 0;
+    for (int i = 0; i < liveCount; i++) {
+      if (history.sample(live[i], targetTick, sample)) {
+        xs[count] = sample.x;
+        ys[count] = sample.y;
+        count++;
+      }
+    }
+  }
+
+  public long latestTick() {
+    return history.latestTick();
+  }
+
+  /** Number of remote players placed by the last {@link #sample}. */
+  public int size() {
+    return count;
+  }
+
+  public float renderX(int index) {
+    return xs[index];
+  }
+
+  public float renderY(int index) {
+    return ys[index];
+  }
+
+  public void clear() {
+    history.clear();
+    byPlayer.clear();
+    liveCount = 0;
+    count = 0;
+  }
+}
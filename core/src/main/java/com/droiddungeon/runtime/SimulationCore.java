@@ -0,0 +1,43 @@
+package com.droiddungeon.runtime;
+
+import com.droiddungeon.control.GameUpdater;
+import com.droiddungeon.grid.Player;
+import com.droiddungeon.input.InputFrame;
+import com.droiddungeon.items.GroundItemStore;
+import com.droiddungeon.player.PlayerStats;
+import com.droiddungeon.systems.EnemySystem;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One simulation tick of a world, shared by the server loop and single-player so both advance
+ * the world the same way: every player's input is applied with {@link #stepPlayer}, then {@link
+ * #stepWorld} runs enemies and ground items. Callers step with a fixed length ({@link
+ * FixedTimestep}); nothing here reads the frame clock.
+ */
+public final class SimulationCore {
+  private final EnemySystem enemySystem;
+  private final GroundItemStore groundStore;
+
+  public SimulationCore(EnemySystem enemySystem, GroundItemStore groundStore) {
+    this.enemySystem = enemySystem;
+    this.groundStore = groundStore;
+  }
+
+  /** Applies one player's input for one step: actions, movement, combat and mining. */
+  public GameUpdateResult stepPlayer(
+      GameUpdater updater,
+      GameContext ctx,
+      InputFrame input,
+      float stepSeconds,
+      boolean dead,
+      boolean mapOpen) {
+    return updater.update(stepSeconds, dead, input, ctx, ctx.grid().getTileSize(), mapOpen);
+  }
+
+  /** Advances everything not owned by a player, after all players have stepped. */
+  public void stepWorld(float stepSeconds, List<Player> players, Map<Integer, PlayerStats> stats) {
+    enemySystem.update(stepSeconds, players, stats);
+    groundStore.tick(stepSeconds);
+  }
+}
@@ -0,0 +1,80 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.enemies.Enemy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render positions of enemies over the last few server ticks, so a swing can be judged against
+ * where the attacker saw them rather than where they are now.
+ */
+final class EnemyHistory {
+  private final int capacity;
+  private final Map<Integer, Track> tracks = new HashMap<>();
+
+  /** Keeps {@code capacity} ticks per enemy; rounded up to a power of two. */
+  EnemyHistory(int capacity) {
+    this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+  }
+
+  /** Records every enemy at {@code tick}; enemies missing from the list are forgotten. */
+  void record(long tick, List<Enemy> enemies) {
+    for (Enemy enemy : enemies) {
+      tracks
+          .computeIfAbsent(enemy.id(), id -> new Track(capacity))
+          .push(tick, enemy.getRenderX(), enemy.getRenderY());
+    }
+    tracks.values().removeIf(track -> track.newestTick() < tick);
+  }
+
+  /**
+   * Writes the position of enemy {@code id} at {@code tick} into {@code out} ({x, y}); ticks
+   * outside the kept window clamp to the oldest or newest sample. Returns false if the enemy has no
+   * history.
+   */
+  boolean positionAt(int id, long tick, float[] out) {
+    Track track = tracks.get(id);
+    return track != null && track.positionAt(tick, out);
+  }
+
+  private static final class Track {
+    private final long[] ticks;
+    private final float[] xs;
+    private final float[] ys;
+    private final int mask;
+    private int count;
+    private int next;
+
+    Track(int capacity) {
+      ticks = new long[capacity];
+      xs = new float[capacity];
+      ys = new float[capacity];
+      mask = capacity - 1;
+    }
+
+    void push(long tick, float x, float y) {
+      ticks[next] = tick;
+      xs[next] = x;
+      ys[next] = y;
+      next = (next + 1) & mask;
+      count = Math.min(count + 1, ticks.length);
+    }
+
+    long newestTick() {
+      return count == 0 ? Long.MIN_VALUE : ticks[(next - 1) & mask];
+    }
+
+    boolean positionAt(long tick, float[] out) {
+      if (count == 0) return false;
+      // walk back from the newest sample to the first one at or before the tick
+      int slot = (next - 1) & mask;
+      for (int i = 1; i < count && ticks[slot] > tick; i++) {
+        slot = (slot - 1) & mask;
+      }
+      out[0] = xs[slot];
+      out[1] = ys[slot];
+      return true;
+    }
+  }
+}
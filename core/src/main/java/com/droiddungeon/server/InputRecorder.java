@@ -0,0 +1,221 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.entity.EntityIds;
+import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.MovementIntentDto;
+import com.droiddungeon.net.dto.WeaponInputDto;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes what a {@link ServerGameLoop} is fed to a compact binary log (see {@link InputRecording}
+ * for the layout), so a real session can be replayed later as a benchmark or determinism check.
+ *
+ * <p>Records are encoded into a buffer on the simulation thread; full buffers are handed to a
+ * writer thread, so recording never waits for disk. A write error stops the recording and leaves
+ * what was written readable.
+ */
+public final class InputRecorder implements AutoCloseable {
+  private static final int HANDOFF_BYTES = 1 << 16;
+
+  private final Path file;
+  private final ExecutorService writer;
+  // writer thread
+  private final FileChannel channel;
+  // simulation thread
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(HANDOFF_BYTES * 2);
+  private final DataOutputStream out = new DataOutputStream(buffer);
+  private final Map<String, Integer> playerIndex = new HashMap<>();
+  private volatile boolean failed;
+  private boolean closed;
+
+  private InputRecorder(Path file, long worldSeed, int nextEntityId, float tickSeconds)
+      throws IOException {
+    this.file = file;
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    this.channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    this.writer =
+        Executors.newSingleThreadExecutor(
+            r ->
+                Thread.ofPlatform()
+                    .name("input-recorder-" + file.getFileName())
+                    .daemon(true)
+                    .unstarted(r));
+    out.writeInt(InputRecording.MAGIC);
+    out.writeByte(InputRecording.VERSION);
+    out.writeLong(worldSeed);
+    out.writeInt(nextEntityId);
+    out.writeFloat(tickSeconds);
+  }
+
+  /**
+   * Starts a recording at {@code file}, replacing any previous one, for a new world. {@code
+   * nextEntityId} is {@link EntityIds#peek()} taken before the world was built, since a replay
+   * resets the counter to it and then builds the world again; players are assumed to start fresh.
+   */
+  public static InputRecorder open(
+      Path file, long worldSeed, int nextEntityId, float tickSeconds) throws IOException {
+    return new InputRecorder(file, worldSeed, nextEntityId, tickSeconds);
+  }
+
+  public void join(String playerId) {
+    record(InputRecording.TAG_JOIN, () -> writePlayer(playerId));
+  }
+
+  public void leave(String playerId) {
+    record(InputRecording.TAG_LEAVE, () -> writePlayer(playerId));
+  }
+
+  /** Records server tick {@code tick} applying {@code inputs} in the order they will be applied. */
+  public void tick(long tick, float deltaSeconds, List<ClientInputDto> inputs) {
+    record(
+        InputRecording.TAG_TICK,
+        () -> {
+          writeVarLong(tick);
+          out.writeFloat(deltaSeconds);
+          writeVarLong(inputs.size());
+          for (ClientInputDto input : inputs) {
+            writePlayer(input.playerId());
+            writeVarLong(zigzag(input.tick() - tick));
+            writeVarLong(zigzag(input.viewTick() - tick));
+            writeVarLong(buttons(input));
+            WeaponInputDto weapon = input.weapon();
+            out.writeFloat(weapon.aimWorldX());
+            out.writeFloat(weapon.aimWorldY());
+          }
+        });
+  }
+
+  /** Records a global update outside the tick schedule. */
+  public void advance(float deltaSeconds) {
+    record(InputRecording.TAG_ADVANCE, () -> out.writeFloat(deltaSeconds));
+  }
+
+  /** Writes what is buffered and closes the file, waiting for the writer. */
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    handOff();
+    writer.execute(
+        () -> {
+          try {
+            channel.close();
+          } catch (IOException e) {
+            warn("close failed", e);
+          }
+        });
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+        warn("writer did not finish", null);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static int buttons(ClientInputDto input) {
+    MovementIntentDto m = input.movement();
+    WeaponInputDto w = input.weapon();
+    int buttons = 0;
+    if (m.leftHeld()) buttons |= InputRecording.LEFT_HELD;
+    if (m.rightHeld()) buttons |= InputRecording.RIGHT_HELD;
+    if (m.upHeld()) buttons |= InputRecording.UP_HELD;
+    if (m.downHeld()) buttons |= InputRecording.DOWN_HELD;
+    if (m.leftJustPressed()) buttons |= InputRecording.LEFT_PRESSED;
+    if (m.rightJustPressed()) buttons |= InputRecording.RIGHT_PRESSED;
+    if (m.upJustPressed()) buttons |= InputRecording.UP_PRESSED;
+    if (m.downJustPressed()) buttons |= InputRecording.DOWN_PRESSED;
+    if (w.attackJustPressed()) buttons |= InputRecording.ATTACK_PRESSED;
+    if (w.attackHeld()) buttons |= InputRecording.ATTACK_HELD;
+    if (input.drop()) buttons |= InputRecording.DROP;
+    if (input.pickUp()) buttons |= InputRecording.PICK_UP;
+    if (input.mine()) buttons |= InputRecording.MINE;
+    return buttons;
+  }
+
+  private interface Body {
+    void write() throws IOException;
+  }
+
+  private void record(int tag, Body body) {
+    if (closed) return;
+    try {
+      out.writeByte(tag);
+      body.write();
+    } catch (IOException e) {
+      throw new AssertionError(e); // in-memory stream
+    }
+    if (buffer.size() >= HANDOFF_BYTES) {
+      handOff();
+    }
+  }
+
+  private void writePlayer(String playerId) throws IOException {
+    Integer index = playerIndex.get(playerId);
+    if (index != null) {
+      writeVarLong(index);
+      return;
+    }
+    int next = playerIndex.size();
+    playerIndex.put(playerId, next);
+    writeVarLong(next);
+    out.writeUTF(playerId);
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7fL) != 0) {
+      out.writeByte((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private void handOff() {
+    if (buffer.size() == 0) return;
+    byte[] bytes = buffer.toByteArray();
+    buffer.reset();
+    if (failed) return;
+    writer.execute(() -> write(bytes));
+  }
+
+  private void write(byte[] bytes) {
+    if (failed) return;
+    try {
+      ByteBuffer data = ByteBuffer.wrap(bytes);
+      while (data.hasRemaining()) {
+        channel.write(data);
+      }
+    } catch (IOException e) {
+      failed = true;
+      warn("recording stopped", e);
+    }
+  }
+
+  private void warn(String message, Exception e) {
+    System.err.println(
+        "InputRecorder: " + message + " (" + file + ")" + (e != null ? ": " + e : ""));
+  }
+}
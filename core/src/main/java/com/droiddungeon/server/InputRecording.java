@@ -0,0 +1,202 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.MovementIntentDto;
+import com.droiddungeon.net.dto.WeaponInputDto;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A session written by {@link InputRecorder}: the world it started from and, in order, everything
+ * that was fed into its {@link ServerGameLoop}. Replaying the events against a loop built from the
+ * header reproduces the session, as long as the world was new when recording began.
+ *
+ * <p>Layout: a header ({@link #MAGIC}, {@link #VERSION}, world seed, next entity id, tick length
+ * in seconds), then one record per event, each starting with a tag byte. Players are referred to
+ * by index; an index one past the last known one is followed by the new id. Counts and tick
+ * offsets are varints (offsets zigzag-encoded), and an input packs its buttons into one varint.
+ */
+public final class InputRecording {
+  static final int MAGIC = 0x4444524c; // "DDRL"
+  static final int VERSION = 1;
+
+  static final int TAG_JOIN = 1;
+  static final int TAG_LEAVE = 2;
+  static final int TAG_TICK = 3;
+  static final int TAG_ADVANCE = 4;
+
+  static final int LEFT_HELD = 1;
+  static final int RIGHT_HELD = 1 << 1;
+  static final int UP_HELD = 1 << 2;
+  static final int DOWN_HELD = 1 << 3;
+  static final int LEFT_PRESSED = 1 << 4;
+  static final int RIGHT_PRESSED = 1 << 5;
+  static final int UP_PRESSED = 1 << 6;
+  static final int DOWN_PRESSED = 1 << 7;
+  static final int ATTACK_PRESSED = 1 << 8;
+  static final int ATTACK_HELD = 1 << 9;
+  static final int DROP = 1 << 10;
+  static final int PICK_UP = 1 << 11;
+  static final int MINE = 1 << 12;
+
+  /** One recorded call into the loop. */
+  public sealed interface Event permits Join, Leave, Tick, Advance {}
+
+  /** {@link ServerGameLoop#registerPlayer}. */
+  public record Join(String playerId) implements Event {}
+
+  /** {@link ServerGameLoop#unregisterPlayer}. */
+  public record Leave(String playerId) implements Event {}
+
+  /** A full server tick applying {@code inputs}, in this order, then the global update. */
+  public record Tick(long tick, float deltaSeconds, List<ClientInputDto> inputs)
+      implements Event {}
+
+  /** A global update outside the tick schedule. */
+  public record Advance(float deltaSeconds) implements Event {}
+
+  private final long worldSeed;
+  private final int nextEntityId;
+  private final float tickSeconds;
+  private final List<Event> events;
+
+  InputRecording(long worldSeed, int nextEntityId, float tickSeconds, List<Event> events) {
+    this.worldSeed = worldSeed;
+    this.nextEntityId = nextEntityId;
+    this.tickSeconds = tickSeconds;
+    this.events = events;
+  }
+
+  public long worldSeed() {
+    return worldSeed;
+  }
+
+  /** {@link com.droiddungeon.entity.EntityIds#peek()} when recording began. */
+  public int nextEntityId() {
+    return nextEntityId;
+  }
+
+  public float tickSeconds() {
+    return tickSeconds;
+  }
+
+  public List<Event> events() {
+    return events;
+  }
+
+  /** Number of {@link Tick} events. */
+  public long ticks() {
+    long ticks = 0;
+    for (Event event : events) {
+      if (event instanceof Tick) ticks++;
+    }
+    return ticks;
+  }
+
+  /**
+   * Reads a whole recording into memory. A record cut short (the server died mid-write) ends the
+   * recording.
+   */
+  public static InputRecording read(Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+      return read(in);
+    }
+  }
+
+  static InputRecording read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    if (in.readInt() != MAGIC) throw new IOException("Not an input recording");
+    int version = in.readUnsignedByte();
+    if (version != VERSION) throw new IOException("Unsupported recording version " + version);
+    long worldSeed = in.readLong();
+    int nextEntityId = in.readInt();
+    float tickSeconds = in.readFloat();
+    List<String> players = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    try {
+      int tag;
+      while ((tag = in.read()) != -1) {
+        events.add(
+            switch (tag) {
+              case TAG_JOIN -> new Join(readPlayer(in, players));
+              case TAG_LEAVE -> new Leave(readPlayer(in, players));
+              case TAG_TICK -> readTick(in, players);
+              case TAG_ADVANCE -> new Advance(in.readFloat());
+              default -> throw new IOException("Unknown record tag " + tag);
+            });
+      }
+    } catch (EOFException truncated) {
+      // keep what was complete
+    }
+    return new InputRecording(worldSeed, nextEntityId, tickSeconds, List.copyOf(events));
+  }
+
+  private static Tick readTick(DataInputStream in, List<String> players) throws IOException {
+    long tick = readVarLong(in);
+    float deltaSeconds = in.readFloat();
+    int count = (int) readVarLong(in);
+    List<ClientInputDto> inputs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String playerId = readPlayer(in, players);
+      long clientTick = tick + unzigzag(readVarLong(in));
+      long viewTick = tick + unzigzag(readVarLong(in));
+      int buttons = (int) readVarLong(in);
+      float aimX = in.readFloat();
+      float aimY = in.readFloat();
+      inputs.add(
+          new ClientInputDto(
+              clientTick,
+              playerId,
+              new MovementIntentDto(
+                  has(buttons, LEFT_HELD),
+                  has(buttons, RIGHT_HELD),
+                  has(buttons, UP_HELD),
+                  has(buttons, DOWN_HELD),
+                  has(buttons, LEFT_PRESSED),
+                  has(buttons, RIGHT_PRESSED),
+                  has(buttons, UP_PRESSED),
+                  has(buttons, DOWN_PRESSED)),
+              new WeaponInputDto(
+                  has(buttons, ATTACK_PRESSED), has(buttons, ATTACK_HELD), aimX, aimY),
+              has(buttons, DROP),
+              has(buttons, PICK_UP),
+              has(buttons, MINE),
+              viewTick));
+    }
+    return new Tick(tick, deltaSeconds, List.copyOf(inputs));
+  }
+
+  private static String readPlayer(DataInputStream in, List<String> players) throws IOException {
+    int index = (int) readVarLong(in);
+    if (index < players.size()) return players.get(index);
+    if (index > players.size()) throw new IOException("Unknown player index " + index);
+    String playerId = in.readUTF();
+    players.add(playerId);
+    return playerId;
+  }
+
+  private static boolean has(int buttons, int flag) {
+    return (buttons & flag) != 0;
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return value;
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
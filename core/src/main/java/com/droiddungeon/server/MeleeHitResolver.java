@@ -0,0 +1,178 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.enemies.EnemyType;
+import com.droiddungeon.entity.EntityLayer;
+import com.droiddungeon.entity.EntityVisitor;
+import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.entity.GridEntity;
+import com.droiddungeon.grid.Player;
+import com.droiddungeon.systems.WeaponSystem;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-side melee hits. While a player's swing is active, every enemy whose body overlaps the
+ * weapon's ring sector takes the swing's damage once.
+ *
+ * <p>Enemies are judged at their position on the tick the attacker was rendering ({@link
+ * EnemyHistory}), clamped to {@code maxRewindTicks} back, so what looked like a hit on screen is
+ * one. Candidates come from the entity world's tile index around the attacker, widened by how far
+ * an enemy can have moved since the rewound tick.
+ */
+final class MeleeHitResolver {
+  /** Enemies are treated as discs of this radius (tiles) around their tile center. */
+  static final float TARGET_RADIUS = 0.4f;
+
+  private final EntityWorld entityWorld;
+  private final EnemyHistory history;
+  private final int maxRewindTicks;
+  private final float maxEnemySpeed;
+  private final Map<String, Swing> swings = new HashMap<>();
+  private final float[] rewound = new float[2];
+  private final HitQuery query = new HitQuery();
+  private int lastSwingSerial;
+
+  MeleeHitResolver(EntityWorld entityWorld, EnemyHistory history, int maxRewindTicks) {
+    this.entityWorld = entityWorld;
+    this.history = history;
+    this.maxRewindTicks = maxRewindTicks;
+    float maxSpeed = 0f;
+    for (EnemyType type : EnemyType.values()) {
+      maxSpeed = Math.max(maxSpeed, type.speedTilesPerSecond());
+    }
+    this.maxEnemySpeed = maxSpeed;
+  }
+
+  /**
+   * Applies the attacker's active swing to enemies as seen at {@code viewTick}; {@code
+   * currentTick} is the newest recorded tick and {@code tickSeconds} the tick length. Returns the
+   * number of enemies hit.
+   */
+  int resolve(
+      String playerId,
+      Player attacker,
+      WeaponSystem.WeaponState weapon,
+      long viewTick,
+      long currentTick,
+      float tickSeconds) {
+    if (weapon == null || !weapon.swinging() || weapon.damage() <= 0f) return 0;
+    Swing swing = swings.computeIfAbsent(playerId, id -> new Swing());
+    if (swing.index != weapon.swingIndex()) {
+      swing.index = weapon.swingIndex();
+      // unique across attackers and swings, so no two swings ever shadow each other on an enemy
+      swing.serial = ++lastSwingSerial;
+      swing.hit.clear();
+    }
+
+    long rewindTo =
+        viewTick < 0
+            ? currentTick
+            : Math.max(currentTick - maxRewindTicks, Math.min(viewTick, currentTick));
+    float cx = attacker.getRenderX() + 0.5f;
+    float cy = attacker.getRenderY() + 0.5f;
+    // +1: the attacker's and the enemies' render positions trail their tiles by up to one tile
+    float drift = maxEnemySpeed * tickSeconds * (currentTick - rewindTo);
+    int radius = (int) Math.ceil(weapon.reachTiles() + TARGET_RADIUS + drift) + 1;
+    int originX = attacker.getGridX();
+    int originY = attacker.getGridY();
+
+    query.begin(swing, weapon, cx, cy, rewindTo);
+    entityWorld.forEachIn(
+        originX - radius,
+        originY - radius,
+        originX + radius,
+        originY + radius,
+        EntityLayer.ACTOR.bit(),
+        query);
+    return query.hits;
+  }
+
+  void forget(String playerId) {
+    swings.remove(playerId);
+  }
+
+  /**
+   * True if a target disc at ({@code tx}, {@code ty}) overlaps the ring sector centered on ({@code
+   * cx}, {@code cy}) facing {@code aimRad} with total angle {@code arcRad}, between {@code inner}
+   * and {@code reach} tiles.
+   */
+  static boolean inSector(
+      float cx,
+      float cy,
+      float tx,
+      float ty,
+      float aimRad,
+      float arcRad,
+      float inner,
+      float reach) {
+    float dx = tx - cx;
+    float dy = ty - cy;
+    float dist = (float) Math.sqrt(dx * dx + dy * dy);
+    if (dist - TARGET_RADIUS > reach || dist + TARGET_RADIUS < inner) return false;
+    if (dist <= TARGET_RADIUS) return true;
+    float delta = (float) Math.atan2(dy, dx) - aimRad;
+    delta = (float) Math.IEEEremainder(delta, Math.PI * 2);
+    // the disc's own angular half-width lets narrow thrusts connect
+    float tolerance = arcRad * 0.5f + (float) Math.asin(Math.min(1f, TARGET_RADIUS / dist));
+    return Math.abs(delta) <= tolerance;
+  }
+
+  /** Reused visitor for one {@link #resolve} call. */
+  private final class HitQuery implements EntityVisitor {
+    private Swing swing;
+    private WeaponSystem.WeaponState weapon;
+    private float cx;
+    private float cy;
+    private long rewindTo;
+    int hits;
+
+    void begin(
+        Swing swing,
+        WeaponSystem.WeaponState weapon,
+        float cx,
+        float cy,
+        long rewindTo) {
+      this.swing = swing;
+      this.weapon = weapon;
+      this.cx = cx;
+      this.cy = cy;
+      this.rewindTo = rewindTo;
+      this.hits = 0;
+    }
+
+    @Override
+    public boolean visit(GridEntity entity) {
+      if (!(entity instanceof Enemy enemy) || enemy.isDead()) return true;
+      if (swing.hit.contains(enemy.id())) return true;
+      if (!history.positionAt(enemy.id(), rewindTo, rewound)) {
+        rewound[0] = enemy.getRenderX();
+        rewound[1] = enemy.getRenderY();
+      }
+      if (!inSector(
+          cx,
+          cy,
+          rewound[0] + 0.5f,
+          rewound[1] + 0.5f,
+          weapon.aimAngleRad(),
+          weapon.arcRad(),
+          weapon.innerHoleTiles(),
+          weapon.reachTiles())) {
+        return true;
+      }
+      swing.hit.add(enemy.id());
+      if (enemy.applyDamage(weapon.damage(), swing.serial)) {
+        hits++;
+      }
+      return true;
+    }
+  }
+
+  private static final class Swing {
+    int index = -1;
+    int serial;
+    final Set<Integer> hit = new HashSet<>();
+  }
+}
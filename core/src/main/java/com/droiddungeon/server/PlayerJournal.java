@@ -0,0 +1,325 @@
+package com.droiddungeon.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable player states of one world: an append-only file with one JSON record per line, the
+ * latest record of a player winning.
+ *
+ * <p>{@link #append} only hands the record over; a background thread writes pending records in
+ * batches, syncs the file and rewrites it without superseded records once they make up most of
+ * it. Only the offsets of the records are kept in memory, so {@link #read} costs one positioned
+ * read unless the record is still pending or was {@link #prefetch prefetched}.
+ *
+ * <p>Reads take no lock, so a caller on the simulation thread never waits behind a write, sync or
+ * compaction: the file and its offsets are published together as one {@link Generation}, appends
+ * only add offsets past the end, and a compaction swaps in a new generation before closing the
+ * old file, which sends a read caught on it back to the new one.
+ */
+public final class PlayerJournal implements AutoCloseable {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final long FLUSH_INTERVAL_MS = 1000;
+  private static final int FLUSH_BATCH = 64;
+  private static final int COMPACT_MIN_RECORDS = 1024;
+
+  private final Path file;
+  private final ScheduledExecutorService writer;
+  // latest record per player not yet on disk
+  private final Map<String, WorldSave.PlayerState> pending = new ConcurrentHashMap<>();
+  // records read ahead of registerPlayer, handed out once
+  private final Map<String, WorldSave.PlayerState> prefetched = new ConcurrentHashMap<>();
+  private volatile Generation generation;
+  // writer thread
+  private long records;
+  // guarded by this
+  private boolean closed;
+
+  private record Location(long offset, int length) {}
+
+  /** A journal file and the offsets of the latest records in it; only the writer adds offsets. */
+  private record Generation(FileChannel channel, Map<String, Location> index) {}
+
+  private PlayerJournal(Path file) throws IOException {
+    this.file = file;
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.generation = new Generation(channel, scan(channel));
+    this.writer =
+        Executors.newSingleThreadScheduledExecutor(
+            r ->
+                Thread.ofPlatform()
+                    .name("player-journal-" + file.getFileName())
+                    .daemon(true)
+                    .unstarted(r));
+    writer.scheduleWithFixedDelay(
+        this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /** Opens (or creates) the journal at {@code file} and indexes the records already in it. */
+  public static PlayerJournal open(Path file) throws IOException {
+    return new PlayerJournal(file);
+  }
+
+  /** Queues {@code state} for writing; never waits for IO. */
+  public void append(WorldSave.PlayerState state) {
+    pending.put(state.id, state);
+    prefetched.remove(state.id);
+    if (pending.size() >= FLUSH_BATCH) {
+      submit(this::flushQuietly);
+    }
+  }
+
+  /** Latest state of {@code playerId}, or null if the journal has never seen them. */
+  public WorldSave.PlayerState read(String playerId) {
+    WorldSave.PlayerState state = pending.get(playerId);
+    if (state != null) return state;
+    state = prefetched.remove(playerId);
+    if (state != null) return state;
+    try {
+      return readFromDisk(playerId);
+    } catch (IOException e) {
+      warn("failed to read player " + playerId + " from " + file, e);
+      return null;
+    }
+  }
+
+  /** Loads {@code playerId} in the background so a following {@link #read} finds it in memory. */
+  public void prefetch(String playerId) {
+    submit(
+        () -> {
+          if (pending.containsKey(playerId) || prefetched.containsKey(playerId)) return;
+          try {
+            WorldSave.PlayerState state = readFromDisk(playerId);
+            if (state != null) {
+              // an append since the check above is newer; checking inside compute keeps the
+              // append's remove from falling between the check and the put
+              prefetched.compute(playerId, (id, old) -> pending.containsKey(id) ? old : state);
+            }
+          } catch (IOException e) {
+            warn("failed to prefetch player " + playerId + " from " + file, e);
+          }
+        });
+  }
+
+  public boolean contains(String playerId) {
+    return pending.containsKey(playerId) || generation.index().containsKey(playerId);
+  }
+
+  /** Writes everything pending before returning. */
+  void sync() throws IOException {
+    try {
+      writer
+          .submit(
+              () -> {
+                flush();
+                return null;
+              })
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /** Writes everything pending and stops the writer thread. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) return;
+      closed = true;
+    }
+    writer.shutdown();
+    try {
+      writer.awaitTermination(10, TimeUnit.SECONDS);
+      flush();
+      generation.channel().close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      warn("failed to flush " + file, e);
+    }
+  }
+
+  private void submit(Runnable task) {
+    if (!writer.isShutdown()) {
+      try {
+        writer.execute(task);
+      } catch (RejectedExecutionException ignored) {
+        // closing; close() flushes what is pending
+      }
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (IOException e) {
+      warn("failed to write " + file, e);
+    }
+  }
+
+  private void flush() throws IOException {
+    if (pending.isEmpty()) return;
+    Map<String, WorldSave.PlayerState> batch = new LinkedHashMap<>();
+    for (String id : pending.keySet()) {
+      WorldSave.PlayerState state = pending.get(id);
+      if (state != null) {
+        batch.put(id, state);
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Map<String, Location> written = new HashMap<>();
+    Generation current = generation;
+    long offset = current.channel().size();
+    for (WorldSave.PlayerState state : batch.values()) {
+      byte[] line = MAPPER.writeValueAsBytes(state);
+      written.put(state.id, new Location(offset + out.size(), line.length));
+      out.write(line);
+      out.write('\n');
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+    while (buffer.hasRemaining()) {
+      current.channel().write(buffer, offset + buffer.position());
+    }
+    current.channel().force(false);
+    // the records are on disk before readers can find them, and found before they leave pending
+    current.index().putAll(written);
+    records += written.size();
+    // a newer record may have arrived while writing; keep it pending
+    for (var entry : batch.entrySet()) {
+      pending.remove(entry.getKey(), entry.getValue());
+    }
+    if (records >= COMPACT_MIN_RECORDS && records > 2L * current.index().size()) {
+      compact(current);
+    }
+  }
+
+  private WorldSave.PlayerState readFromDisk(String playerId) throws IOException {
+    while (true) {
+      Generation current = generation;
+      Location location = current.index().get(playerId);
+      if (location == null) return null;
+      ByteBuffer buffer = ByteBuffer.allocate(location.length());
+      try {
+        readFully(current.channel(), buffer, location.offset(), playerId);
+      } catch (ClosedChannelException e) {
+        // compacted while reading: look the record up in the new file; closed for good otherwise
+        if (generation == current) throw e;
+        continue;
+      }
+      return MAPPER.readValue(buffer.array(), WorldSave.PlayerState.class);
+    }
+  }
+
+  private void readFully(FileChannel channel, ByteBuffer buffer, long offset, String playerId)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Record of " + playerId + " is past the end of " + file);
+      }
+    }
+  }
+
+  /** Rewrites the file with the latest record of every player. Runs on the writer thread. */
+  private void compact(Generation current) throws IOException {
+    Path tmp =
+        Files.createTempFile(
+            file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    Map<String, Location> compacted = new ConcurrentHashMap<>();
+    try {
+      try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        long offset = 0;
+        for (var entry : current.index().entrySet()) {
+          Location location = entry.getValue();
+          ByteBuffer buffer = ByteBuffer.allocate(location.length() + 1);
+          readFully(current.channel(), buffer, location.offset(), entry.getKey());
+          buffer.flip();
+          compacted.put(entry.getKey(), new Location(offset, location.length()));
+          while (buffer.hasRemaining()) {
+            offset += out.write(buffer, offset);
+          }
+        }
+        out.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    generation =
+        new Generation(
+            FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE), compacted);
+    records = compacted.size();
+    current.channel().close();
+  }
+
+  /** Indexes existing records; a torn last line (crash mid-write) is cut off. */
+  private Map<String, Location> scan(FileChannel channel) throws IOException {
+    Map<String, Location> index = new ConcurrentHashMap<>();
+    long size = channel.size();
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(Math.max(size, 1), 1 << 16));
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    long position = 0;
+    long good = 0;
+    scan:
+    while (position < size) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) break;
+      for (int i = 0; i < n; i++) {
+        byte b = buffer.get(i);
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+        byte[] bytes = line.toByteArray();
+        line.reset();
+        WorldSave.PlayerState state = parse(bytes);
+        if (state == null) break scan;
+        index.put(state.id, new Location(good, bytes.length));
+        records++;
+        good = position + i + 1;
+      }
+      position += n;
+    }
+    if (good < size) {
+      System.err.println(
+          "PlayerJournal: dropping " + (size - good) + " bytes of incomplete records from " + file);
+      channel.truncate(good);
+    }
+    return index;
+  }
+
+  private static WorldSave.PlayerState parse(byte[] line) {
+    try {
+      WorldSave.PlayerState state = MAPPER.readValue(line, WorldSave.PlayerState.class);
+      return state != null && state.id != null && state.player != null ? state : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void warn(String message, Exception e) {
+    System.err.println("PlayerJournal: " + message + ": " + e);
+  }
+}
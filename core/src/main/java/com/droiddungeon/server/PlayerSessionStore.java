@@ -4,14 +4,36 @@ import com.droiddungeon.entity.EntityWorld;
 import com.droiddungeon.inventory.Inventory;
 import com.droiddungeon.inventory.ItemStack;
 import com.droiddungeon.runtime.GameContextFactory;
+import com.droiddungeon.save.SaveGame;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Connected players of a world plus the state of those who left.
+ *
+ * <p>Without a {@link PlayerJournal} departed players are kept in memory for the life of the
+ * world. With one, every departure and periodic {@link #checkpoint} is appended to the journal and
+ * only the most recently used departed players stay cached ({@code server.playerCacheSize},
+ * default 256); the rest are read back from the journal when they reconnect.
+ */
 public final class PlayerSessionStore {
+  private static final int CACHE_CAPACITY = Integer.getInteger("server.playerCacheSize", 256);
+
   private final GameContextFactory contextFactory;
   private final EntityWorld entityWorld;
   private final Map<String, GameContextFactory.PlayerSession> sessions = new HashMap<>();
-  private final Map<String, PlayerSave> savedPlayers = new HashMap<>();
+  private final Map<String, PlayerSave> savedPlayers =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlayerSave> eldest) {
+          return journal != null && size() > CACHE_CAPACITY;
+        }
+      };
+  private PlayerJournal journal;
 
   public PlayerSessionStore(GameContextFactory contextFactory, EntityWorld entityWorld) {
     this.contextFactory = contextFactory;
@@ -29,6 +51,10 @@ public final class PlayerSessionStore {
     }
     var session = contextFactory.createPlayerSession(playerId);
     var saved = savedPlayers.remove(playerId);
+    if (saved == null && journal != null) {
+      var state = journal.read(playerId);
+      saved = state != null ? PlayerSave.fromState(state) : null;
+    }
     applySavedState(session, saved);
     sessions.put(playerId, session);
     entityWorld.add(session.player);
@@ -52,11 +78,70 @@ public final class PlayerSessionStore {
     return sessions.values();
   }
 
-  /** Persist current session state for reconnects (in-memory only). */
+  /** Makes departed players durable; call before any player registers. */
+  public void attachJournal(PlayerJournal journal) {
+    this.journal = journal;
+  }
+
+  /** Starts loading a player who is about to register; safe to call from any thread. */
+  public void prefetch(String playerId) {
+    if (journal != null) {
+      journal.prefetch(playerId);
+    }
+  }
+
+  /** Persist current session state for reconnects; the journal write happens in the background. */
   public void savePlayerState(String playerId, long lastProcessedTick) {
     var session = sessions.get(playerId);
     if (session == null) return;
-    savedPlayers.put(playerId, PlayerSave.snapshot(session, lastProcessedTick));
+    PlayerSave save = PlayerSave.snapshot(session, lastProcessedTick);
+    savedPlayers.put(playerId, save);
+    if (journal != null) {
+      journal.append(save.toState(playerId));
+    }
+  }
+
+  /** Queues the state of every connected player to the journal, if there is one. */
+  public void checkpoint() {
+    if (journal == null) return;
+    for (var entry : sessions.entrySet()) {
+      journal.append(PlayerSave.snapshot(entry.getValue(), -1L).toState(entry.getKey()));
+    }
+  }
+
+  /**
+   * Every known player for a world save: connected ones as they are now, the rest as they left.
+   * Processed ticks are not kept; tick numbering restarts with the world. With a journal the
+   * players live there instead: connected ones are checkpointed and the list is empty.
+   */
+  public List<WorldSave.PlayerState> exportPlayers() {
+    if (journal != null) {
+      checkpoint();
+      return List.of();
+    }
+    Map<String, PlayerSave> all = new TreeMap<>(savedPlayers);
+    for (var entry : sessions.entrySet()) {
+      all.put(entry.getKey(), PlayerSave.snapshot(entry.getValue(), -1L));
+    }
+    List<WorldSave.PlayerState> result = new ArrayList<>(all.size());
+    for (var entry : all.entrySet()) {
+      result.add(entry.getValue().toState(entry.getKey()));
+    }
+    return result;
+  }
+
+  /** Restores players from a world save; they get their state back when they reconnect. */
+  public void importPlayers(List<WorldSave.PlayerState> players) {
+    if (players == null) return;
+    for (WorldSave.PlayerState state : players) {
+      if (state == null || state.id == null || state.player == null) continue;
+      if (journal == null) {
+        savedPlayers.put(state.id, PlayerSave.fromState(state));
+      } else if (!journal.contains(state.id)) {
+        // saves written before the journal existed; the journal is newer otherwise
+        journal.append(state);
+      }
+    }
   }
 
   private static void applySavedState(GameContextFactory.PlayerSession session, PlayerSave saved) {
@@ -97,6 +182,46 @@ public final class PlayerSessionStore {
     private static final PlayerSave EMPTY =
         new PlayerSave(0f, 0f, 0, 0, 0f, 0f, 0, 0, 0f, new ItemStack[0], -1L);
 
+    private WorldSave.PlayerState toState(String id) {
+      SaveGame.ItemStackState[] items = new SaveGame.ItemStackState[inventory.length];
+      for (int i = 0; i < items.length; i++) {
+        items[i] = SaveGame.ItemStackState.from(inventory[i]);
+      }
+      return new WorldSave.PlayerState(
+          id,
+          new SaveGame.PlayerState(renderX, renderY, gridX, gridY, health),
+          new SaveGame.CompanionState(
+              companionRenderX, companionRenderY, companionGridX, companionGridY),
+          items);
+    }
+
+    private static PlayerSave fromState(WorldSave.PlayerState state) {
+      SaveGame.ItemStackState[] saved =
+          state.inventory != null ? state.inventory : new SaveGame.ItemStackState[0];
+      ItemStack[] items = new ItemStack[saved.length];
+      for (int i = 0; i < items.length; i++) {
+        items[i] = saved[i] != null ? saved[i].toItemStack() : null;
+      }
+      SaveGame.PlayerState p = state.player;
+      // no companion stored: start it on the player
+      SaveGame.CompanionState c =
+          state.companion != null
+              ? state.companion
+              : new SaveGame.CompanionState(p.renderX, p.renderY, p.gridX, p.gridY);
+      return new PlayerSave(
+          p.renderX,
+          p.renderY,
+          p.gridX,
+          p.gridY,
+          c.renderX,
+          c.renderY,
+          c.gridX,
+          c.gridY,
+          p.health,
+          items,
+          -1L);
+    }
+
     private static PlayerSave snapshot(
         GameContextFactory.PlayerSession session, long lastProcessedTick) {
       ItemStack[] items = new ItemStack[session.inventory.size()];
@@ -0,0 +1,112 @@
+package com.droiddungeon.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits one tick's player updates into groups that can run concurrently.
+ *
+ * <p>Each update declares the chunks it may read or write and whether it touches order-sensitive
+ * shared state (ground items, chests, entity id allocation). Updates whose chunk rectangles share a
+ * chunk land in the same group, and so do all updates flagged as shared. Every group keeps its
+ * members in their original order, so running the groups in any interleaving gives exactly the
+ * result of running all updates one after another.
+ */
+public final class PlayerTickPlanner {
+  private PlayerTickPlanner() {}
+
+  /**
+   * Chunk rectangle (inclusive) one player update may touch. An empty rectangle ({@code min > max})
+   * touches nothing.
+   */
+  public record Footprint(
+      int minChunkX, int minChunkY, int maxChunkX, int maxChunkY, boolean sharedState) {
+    public static final Footprint NONE = new Footprint(0, 0, -1, -1, false);
+
+    public boolean isEmpty() {
+      return minChunkX > maxChunkX || minChunkY > maxChunkY;
+    }
+  }
+
+  /**
+   * Groups update indices; each group is sorted ascending and groups are ordered by their first
+   * index.
+   */
+  public static List<int[]> group(List<Footprint> footprints) {
+    int n = footprints.size();
+    int[] parent = new int[n];
+    for (int i = 0; i < n; i++) {
+      parent[i] = i;
+    }
+    Map<Long, Integer> owners = new HashMap<>();
+    int shared = -1;
+    for (int i = 0; i < n; i++) {
+      Footprint f = footprints.get(i);
+      if (f.sharedState()) {
+        if (shared < 0) {
+          shared = i;
+        } else {
+          union(parent, shared, i);
+        }
+      }
+      if (f.isEmpty()) continue;
+      for (int cx = f.minChunkX(); cx <= f.maxChunkX(); cx++) {
+        for (int cy = f.minChunkY(); cy <= f.maxChunkY(); cy++) {
+          Integer owner = owners.putIfAbsent(key(cx, cy), i);
+          if (owner != null) {
+            union(parent, owner, i);
+          }
+        }
+      }
+    }
+
+    List<int[]> groups = new ArrayList<>();
+    int[] groupOf = new int[n];
+    Arrays.fill(groupOf, -1);
+    int[] sizes = new int[n];
+    for (int i = 0; i < n; i++) {
+      int root = find(parent, i);
+      if (groupOf[root] < 0) {
+        groupOf[root] = groups.size();
+        groups.add(null);
+      }
+      sizes[groupOf[root]]++;
+    }
+    int[] filled = new int[groups.size()];
+    for (int i = 0; i < n; i++) {
+      int g = groupOf[find(parent, i)];
+      if (groups.get(g) == null) {
+        groups.set(g, new int[sizes[g]]);
+      }
+      groups.get(g)[filled[g]++] = i;
+    }
+    return groups;
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parent, int a, int b) {
+    int ra = find(parent, a);
+    int rb = find(parent, b);
+    if (ra == rb) return;
+    // the smaller index stays root so roots are visited in order of first member
+    if (ra < rb) {
+      parent[rb] = ra;
+    } else {
+      parent[ra] = rb;
+    }
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
+  }
+}
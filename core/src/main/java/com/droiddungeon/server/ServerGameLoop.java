@@ -2,18 +2,30 @@ package com.droiddungeon.server;
 
 import com.droiddungeon.config.GameConfig;
 import com.droiddungeon.control.GameUpdater;
+import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.entity.EntityIds;
+import com.droiddungeon.grid.BlockMaterial;
+import com.droiddungeon.grid.DungeonGenerator;
 import com.droiddungeon.grid.Grid;
 import com.droiddungeon.grid.Player;
 import com.droiddungeon.input.HeldMovementController;
 import com.droiddungeon.input.InputFrame;
+import com.droiddungeon.items.ChestStore;
 import com.droiddungeon.items.GroundItem;
+import com.droiddungeon.items.GroundItemStore;
+import com.droiddungeon.items.GroundItemsView;
 import com.droiddungeon.items.ItemRegistry;
+import com.droiddungeon.net.dto.ClientInputDto;
 import com.droiddungeon.net.dto.PlayerSnapshotDto;
 import com.droiddungeon.player.PlayerStats;
+import com.droiddungeon.runtime.GameContextFactory;
 import com.droiddungeon.runtime.GameUpdateResult;
+import com.droiddungeon.runtime.SimulationCore;
+import com.droiddungeon.save.SaveGame;
 import com.droiddungeon.systems.CameraController;
 import com.droiddungeon.systems.EnemySystem;
 import com.droiddungeon.systems.MiningSystem;
+import com.droiddungeon.systems.WeaponSystem;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -24,29 +36,46 @@ import java.util.Map;
  * (InputFrame) to GameUpdater and provides a state snapshot.
  */
 public final class ServerGameLoop {
+  // mining and block placement reach 1.5 tiles, and a player moves at most one tile per tick
+  private static final int PLAYER_REACH_TILES = 2;
+  // how far back a swing may be judged; beyond this laggy clients have to lead their targets
+  private static final int MAX_REWIND_TICKS = Integer.getInteger("server.maxRewindTicks", 6);
+
+  private final GameConfig config;
   private final long worldSeed;
-  private final GameUpdater updater;
   private final EnemySystem enemySystem;
-  private final HeldMovementController movementController;
+  // per player: the movement controller remembers the last pressed direction
+  private final Map<String, GameUpdater> updaters = new HashMap<>();
   private final Grid grid;
+  private final GroundItemStore groundStore;
+  private final ChestStore chestStore;
   private final PlayerSessionStore sessionStore;
   private final SnapshotFacade snapshotFacade;
+  private final EnemyHistory enemyHistory = new EnemyHistory(MAX_REWIND_TICKS + 1);
+  private final MeleeHitResolver meleeHits;
+  private final SimulationCore simulation;
+  private PlayerJournal playerJournal;
+  private WorldAutosave autosave;
+  private InputRecorder recorder;
+  private long savedChestVersion = -1;
+  private long savedGroundVersion = -1;
 
   public ServerGameLoop(GameConfig config, ItemRegistry itemRegistry, long worldSeed) {
+    this.config = config;
     this.worldSeed = worldSeed;
-    this.movementController = new HeldMovementController();
 
     WorldInitializer.WorldState worldState =
         new WorldInitializer().initialize(config, itemRegistry, worldSeed);
     this.grid = worldState.grid();
     this.enemySystem = worldState.enemySystem();
+    this.groundStore = worldState.groundStore();
+    this.chestStore = worldState.chestStore();
     this.sessionStore =
         new PlayerSessionStore(worldState.contextFactory(), worldState.entityWorld());
     this.snapshotFacade = new SnapshotFacade(sessionStore, worldState.groundStore());
-
-    // camera and viewport are not needed for the server, passing null
-    CameraController cameraController = null;
-    this.updater = new GameUpdater(config, cameraController, movementController);
+    this.meleeHits =
+        new MeleeHitResolver(worldState.entityWorld(), enemyHistory, MAX_REWIND_TICKS);
+    this.simulation = new SimulationCore(enemySystem, groundStore);
   }
 
   public long worldSeed() {
@@ -59,27 +88,106 @@ public final class ServerGameLoop {
    * @return last processed tick if a saved state exists, otherwise -1
    */
   public long registerPlayer(String playerId) {
+    // camera and viewport are not needed for the server, passing null
+    CameraController cameraController = null;
+    updaters.put(
+        playerId, new GameUpdater(config, cameraController, new HeldMovementController()));
+    if (recorder != null) {
+      recorder.join(playerId);
+    }
     return sessionStore.registerPlayer(playerId);
   }
 
   /** Unregister player and clean up entities */
   public void unregisterPlayer(String playerId) {
+    if (recorder != null) {
+      recorder.leave(playerId);
+    }
+    updaters.remove(playerId);
+    meleeHits.forget(playerId);
     sessionStore.unregisterPlayer(playerId);
   }
 
+  /**
+   * Declares what {@link #tickForPlayer} may touch for this input and generates those chunks, so
+   * the tick itself never changes the chunk map. Must be called on the simulation thread; ticks
+   * with non-overlapping footprints may then run concurrently (see {@link PlayerTickPlanner}).
+   */
+  public PlayerTickPlanner.Footprint prepareTick(String playerId, InputFrame input) {
+    var s = sessionStore.getSession(playerId);
+    if (s == null) return PlayerTickPlanner.Footprint.NONE;
+    int chunkSize = grid.getChunkSize();
+    // the companion steps along the player's trail, at most its delay behind
+    int radius = PLAYER_REACH_TILES + config.companionDelayTiles();
+    int px = s.player.getGridX();
+    int py = s.player.getGridY();
+    int minX = Math.min(px - radius, s.companion.getGridX());
+    int minY = Math.min(py - radius, s.companion.getGridY());
+    int maxX = Math.max(px + radius, s.companion.getGridX());
+    int maxY = Math.max(py + radius, s.companion.getGridY());
+    if (input.interactRequested() && input.weaponInput() != null) {
+      // chests open at any distance
+      float tileSize = grid.getTileSize();
+      int tx = (int) Math.floor(input.weaponInput().aimWorldX() / tileSize);
+      int ty = (int) Math.floor(input.weaponInput().aimWorldY() / tileSize);
+      minX = Math.min(minX, tx);
+      minY = Math.min(minY, ty);
+      maxX = Math.max(maxX, tx);
+      maxY = Math.max(maxY, ty);
+    }
+    var footprint =
+        new PlayerTickPlanner.Footprint(
+            Math.floorDiv(minX, chunkSize),
+            Math.floorDiv(minY, chunkSize),
+            Math.floorDiv(maxX, chunkSize),
+            Math.floorDiv(maxY, chunkSize),
+            touchesSharedState(s, input));
+    for (int cx = footprint.minChunkX(); cx <= footprint.maxChunkX(); cx++) {
+      for (int cy = footprint.minChunkY(); cy <= footprint.maxChunkY(); cy++) {
+        grid.ensureChunk(cx, cy);
+      }
+    }
+    return footprint;
+  }
+
+  // ground items and chests are shared lists, and new ground items take the next entity id
+  private static boolean touchesSharedState(
+      GameContextFactory.PlayerSession s, InputFrame input) {
+    return input.dropRequested()
+        || input.pickUpRequested()
+        || input.interactRequested()
+        || input.mineRequested()
+        || s.inventorySystem.isChestOpen();
+  }
+
   /** Perform one player-specific simulation step (does not update global AI; see updateGlobal). */
   public GameUpdateResult tickForPlayer(String playerId, InputFrame input, float deltaSeconds) {
     var s = sessionStore.getSession(playerId);
-    if (s == null) return null;
-    return updater.update(
-        deltaSeconds,
-        false,
-        input,
-        s.context,
-        s.context.grid().getTileSize(),
-        false,
-        false // don't simulate enemies per-player
-        );
+    GameUpdater updater = updaters.get(playerId);
+    if (s == null || updater == null) return null;
+    return simulation.stepPlayer(updater, s.context, input, deltaSeconds, false, false);
+  }
+
+  /**
+   * Applies the player's active swing to enemies where the player saw them: at {@code viewTick},
+   * the server tick their client was rendering, rewound at most a few ticks behind {@code
+   * currentTick}. Touches shared enemy state, so call it for one player at a time after the
+   * player ticks. Returns the number of enemies hit.
+   */
+  public int resolveMeleeHits(
+      String playerId,
+      WeaponSystem.WeaponState weapon,
+      long viewTick,
+      long currentTick,
+      float deltaSeconds) {
+    var s = sessionStore.getSession(playerId);
+    if (s == null) return 0;
+    return meleeHits.resolve(playerId, s.player, weapon, viewTick, currentTick, deltaSeconds);
+  }
+
+  /** Remembers where every enemy is as of {@code tick}, for {@link #resolveMeleeHits}. */
+  public void recordEnemyPositions(long tick) {
+    enemyHistory.record(tick, enemySystem.getEnemies());
   }
 
   /** Perform global per-tick updates (AI, spawns, etc) after player inputs processed. */
@@ -91,7 +199,85 @@ public final class ServerGameLoop {
       players.add(s.player);
       stats.put(s.player.id(), s.stats);
     }
-    enemySystem.update(deltaSeconds, players, stats);
+    simulation.stepWorld(deltaSeconds, players, stats);
+  }
+
+  /**
+   * Records everything fed into this loop from now on, for replaying the session later. Attach to
+   * a new world before any player registers; the loop closes it in {@link #close()}.
+   */
+  public void attachRecorder(InputRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Notes that tick {@code tick} is about to apply {@code inputs} in this order, followed by
+   * {@link #updateGlobal}. No-op unless a recorder is attached.
+   */
+  public void recordTick(long tick, float deltaSeconds, List<ClientInputDto> inputs) {
+    if (recorder != null) {
+      recorder.tick(tick, deltaSeconds, inputs);
+    }
+  }
+
+  /** Notes an {@link #updateGlobal} call made outside a tick; no-op without a recorder. */
+  public void recordAdvance(float deltaSeconds) {
+    if (recorder != null) {
+      recorder.advance(deltaSeconds);
+    }
+  }
+
+  /**
+   * Hash of the simulated state: connected players, enemies, ground items and modified blocks.
+   * Entity ids are left out, so runs that only allocated ids differently still agree. Meant for
+   * comparing replays, not as a checksum against tampering.
+   */
+  public long stateHash() {
+    long hash = 0;
+    for (var s : sessionStore.sessions()) {
+      long h = s.id.hashCode();
+      h = h * 31 + s.player.getGridX();
+      h = h * 31 + s.player.getGridY();
+      h = h * 31 + Float.floatToIntBits(s.player.getRenderX());
+      h = h * 31 + Float.floatToIntBits(s.player.getRenderY());
+      h = h * 31 + Float.floatToIntBits(s.stats.getHealth());
+      hash += mix(h);
+    }
+    for (Enemy e : enemySystem.getEnemies()) {
+      long h = e.getType().ordinal();
+      h = h * 31 + Float.floatToIntBits(e.getRenderX());
+      h = h * 31 + Float.floatToIntBits(e.getRenderY());
+      h = h * 31 + Float.floatToIntBits(e.getHealth());
+      hash += mix(h ^ 0x2545f4914f6cdd1dL);
+    }
+    for (GroundItem item : groundStore.view().all()) {
+      long h = item.getGridX();
+      h = h * 31 + item.getGridY();
+      h = h * 31 + (item.isBundle() ? item.getBundledItems().hashCode() : 0);
+      h = h * 31 + (item.getStack() != null ? item.getStack().hashCode() : 0);
+      hash += mix(h ^ 0x7f4a7c15L);
+    }
+    int chunkSize = grid.getChunkSize();
+    for (DungeonGenerator.Chunk chunk : grid.modifiedChunks()) {
+      for (int x = chunk.originX(); x < chunk.originX() + chunkSize; x++) {
+        for (int y = chunk.originY(); y < chunk.originY() + chunkSize; y++) {
+          BlockMaterial material = grid.getBlockMaterial(x, y);
+          if (material == null) continue;
+          long h = ((long) x << 32) ^ (y & 0xffffffffL);
+          h = h * 31 + material.ordinal();
+          h = h * 31 + Float.floatToIntBits(grid.getBlockHealth(x, y));
+          hash += mix(h);
+        }
+      }
+    }
+    return hash;
+  }
+
+  // order-independent sum of well-mixed element hashes (splitmix64 finalizer)
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
   }
 
   public PlayerSnapshotDto playerSnapshotFor(String playerId, long lastProcessedTick) {
@@ -106,6 +292,10 @@ public final class ServerGameLoop {
     return snapshotFacade.getGroundItems();
   }
 
+  public GroundItemsView groundItemsView() {
+    return snapshotFacade.groundItemsView();
+  }
+
   public MiningSystem.MiningTarget getPlayerMiningTarget(String playerId) {
     return snapshotFacade.getPlayerMiningTarget(playerId);
   }
@@ -114,8 +304,154 @@ public final class ServerGameLoop {
     return enemySystem;
   }
 
-  /** Persist current session state for reconnects (in-memory only). */
+  /**
+   * Captures what the seed cannot regenerate: blocks of modified chunks, chests, ground items and
+   * every known player. Must not run concurrently with ticks.
+   */
+  public WorldSave captureWorld() {
+    WorldSave save = newSave();
+    grid.takeUnsavedChunks();
+    save.blocks = blockStates(grid.modifiedChunks());
+    save.chests = chestStore.toSaveStates();
+    save.groundItems = groundStore.toSaveStates();
+    save.players = sessionStore.exportPlayers();
+    markSaved();
+    return save;
+  }
+
+  /**
+   * Copies what changed since the previous capture: cells of chunks modified since then, and chests
+   * and ground items only if they changed (null otherwise). Returns null if nothing changed. Must
+   * not run concurrently with ticks.
+   */
+  public WorldSave captureChanges() {
+    List<DungeonGenerator.Chunk> chunks = grid.takeUnsavedChunks();
+    boolean chestsChanged = chestStore.version() != savedChestVersion;
+    boolean groundChanged = groundStore.version() != savedGroundVersion;
+    if (chunks.isEmpty() && !chestsChanged && !groundChanged) return null;
+    WorldSave save = newSave();
+    save.blocks = blockStates(chunks);
+    save.chests = chestsChanged ? chestStore.toSaveStates() : null;
+    save.groundItems = groundChanged ? groundStore.toSaveStates() : null;
+    markSaved();
+    return save;
+  }
+
+  /**
+   * Saves the world in the background from now on; {@link #checkpointWorld()} feeds it. Call after
+   * {@link #restoreWorld}. The loop closes it in {@link #close()}.
+   */
+  public void attachAutosave(WorldAutosave autosave) {
+    this.autosave = autosave;
+  }
+
+  /**
+   * At a tick boundary: copies the changes since the last checkpoint (or the whole world when the
+   * autosave asks for it) and hands them to the autosave's writer thread.
+   */
+  public void checkpointWorld() {
+    if (autosave == null) return;
+    if (autosave.wantsFull()) {
+      autosave.submit(captureWorld(), true);
+      return;
+    }
+    WorldSave changes = captureChanges();
+    if (changes != null) {
+      autosave.submit(changes, false);
+    }
+  }
+
+  private WorldSave newSave() {
+    WorldSave save = new WorldSave();
+    save.seed = worldSeed;
+    save.savedAt = System.currentTimeMillis();
+    save.nextEntityId = EntityIds.peek();
+    return save;
+  }
+
+  private List<SaveGame.BlockCellState> blockStates(List<DungeonGenerator.Chunk> chunks) {
+    int chunkSize = grid.getChunkSize();
+    List<SaveGame.BlockCellState> blocks = new ArrayList<>();
+    for (DungeonGenerator.Chunk chunk : chunks) {
+      for (int x = chunk.originX(); x < chunk.originX() + chunkSize; x++) {
+        for (int y = chunk.originY(); y < chunk.originY() + chunkSize; y++) {
+          BlockMaterial material = grid.getBlockMaterial(x, y);
+          blocks.add(
+              new SaveGame.BlockCellState(
+                  x, y, material != null ? material.name() : null, grid.getBlockHealth(x, y)));
+        }
+      }
+    }
+    return blocks;
+  }
+
+  private void markSaved() {
+    savedChestVersion = chestStore.version();
+    savedGroundVersion = groundStore.version();
+  }
+
+  /** Applies a save captured by {@link #captureWorld()} to this freshly created world. */
+  public void restoreWorld(WorldSave save) {
+    if (save == null) return;
+    EntityIds.setNext(save.nextEntityId);
+    if (save.blocks != null) {
+      for (SaveGame.BlockCellState cell : save.blocks) {
+        BlockMaterial material =
+            cell.blockMaterial != null ? BlockMaterial.valueOf(cell.blockMaterial) : null;
+        grid.setBlock(cell.x, cell.y, material);
+        if (material != null) {
+          float damage = material.maxHealth() - cell.blockHp;
+          if (damage > 0.0001f) {
+            grid.damageBlock(cell.x, cell.y, damage);
+          }
+        }
+      }
+    }
+    chestStore.loadFrom(save.chests);
+    groundStore.loadFrom(save.groundItems);
+    sessionStore.importPlayers(save.players);
+    // what was just restored is already on disk
+    grid.takeUnsavedChunks();
+    markSaved();
+  }
+
+  /** Persist current session state for reconnects; never waits for disk. */
   public void savePlayerState(String playerId, long lastProcessedTick) {
     sessionStore.savePlayerState(playerId, lastProcessedTick);
   }
+
+  /**
+   * Keeps departed players in {@code journal} instead of memory. Call right after construction,
+   * before {@link #restoreWorld}; the loop closes the journal in {@link #close()}.
+   */
+  public void attachPlayerJournal(PlayerJournal journal) {
+    sessionStore.attachJournal(journal);
+    this.playerJournal = journal;
+  }
+
+  /** Warms up a player's saved state ahead of {@link #registerPlayer}; thread-safe. */
+  public void prefetchPlayer(String playerId) {
+    sessionStore.prefetch(playerId);
+  }
+
+  /** Queues connected players' state for the journal; cheap enough to call from a tick. */
+  public void checkpointPlayers() {
+    sessionStore.checkpoint();
+  }
+
+  /**
+   * Flushes and closes the player journal, autosave and recorder, if any. Call once ticks have
+   * stopped.
+   */
+  public void close() {
+    if (playerJournal != null) {
+      playerJournal.close();
+    }
+    if (autosave != null) {
+      autosave.close();
+    }
+    if (recorder != null) {
+      recorder.close();
+    }
+  }
 }
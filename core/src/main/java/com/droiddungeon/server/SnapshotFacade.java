@@ -2,6 +2,7 @@ package com.droiddungeon.server;
 
 import com.droiddungeon.items.GroundItem;
 import com.droiddungeon.items.GroundItemStore;
+import com.droiddungeon.items.GroundItemsView;
 import com.droiddungeon.net.dto.PlayerSnapshotDto;
 import com.droiddungeon.systems.MiningSystem;
 import java.util.List;
@@ -32,6 +33,10 @@ public final class SnapshotFacade {
     return groundStore.getGroundItems();
   }
 
+  public GroundItemsView groundItemsView() {
+    return groundStore.view();
+  }
+
   public MiningSystem.MiningTarget getPlayerMiningTarget(String playerId) {
     var session = sessionStore.getSession(playerId);
     if (session == null) return null;
@@ -0,0 +1,221 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background persistence of one server world as a base save plus a log of incremental
+ * checkpoints.
+ *
+ * <p>The simulation captures what changed at a tick boundary (see {@link
+ * ServerGameLoop#checkpointWorld()}) as a {@link WorldSave} holding copies of the changed chunks,
+ * and of chests and ground items only if they changed; a null list means unchanged. {@link
+ * #submit} numbers the checkpoint and leaves serialization and fsync to a writer thread, which
+ * appends it to {@code <id>.log} as one line. Once the log outgrows the base, the next checkpoint
+ * is requested in full; it replaces {@code <id>.json} atomically and truncates the log.
+ *
+ * <p>On open the base is read and every later, complete log line replayed over it, so a crash
+ * loses at most the checkpoint being written.
+ */
+public final class WorldAutosave implements AutoCloseable {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final long COMPACT_MIN_BYTES = 1 << 20;
+
+  private final Path baseFile;
+  private final Path logFile;
+  private final ExecutorService writer;
+  private final WorldSave restored;
+  // writer thread
+  private final FileChannel log;
+  private long baseBytes;
+  // simulation thread
+  private long sequence;
+  private volatile boolean fullRequested;
+
+  private WorldAutosave(Path directory, String worldId) throws IOException {
+    Files.createDirectories(directory);
+    this.baseFile = directory.resolve(worldId + ".json");
+    this.logFile = directory.resolve(worldId + ".log");
+    WorldSave base = Files.exists(baseFile) ? WorldSave.read(baseFile) : null;
+    this.baseBytes = base != null ? Files.size(baseFile) : 0L;
+    this.log =
+        FileChannel.open(
+            logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.restored = replay(base, readLog());
+    this.sequence = restored != null ? restored.sequence : 0L;
+    this.writer =
+        Executors.newSingleThreadExecutor(
+            r -> Thread.ofPlatform().name("world-autosave-" + worldId).daemon(true).unstarted(r));
+  }
+
+  /** Opens the saves of {@code worldId} in {@code directory}, creating the directory if needed. */
+  public static WorldAutosave open(Path directory, String worldId) throws IOException {
+    return new WorldAutosave(directory, worldId);
+  }
+
+  /** Latest consistent state found on open, or null for a new world. */
+  public WorldSave restored() {
+    return restored;
+  }
+
+  /** True when the next checkpoint should be a full capture. */
+  public boolean wantsFull() {
+    return fullRequested;
+  }
+
+  /**
+   * Hands a checkpoint to the writer. {@code full} marks a complete capture that replaces the
+   * base. The save must not be touched afterwards.
+   */
+  public void submit(WorldSave checkpoint, boolean full) {
+    checkpoint.sequence = ++sequence;
+    if (full) {
+      // further checkpoints are appended after this one, so nothing else needs to be full
+      fullRequested = false;
+    }
+    writer.execute(() -> write(checkpoint, full));
+  }
+
+  /** Waits for submitted checkpoints to reach disk and stops the writer thread. */
+  @Override
+  public void close() {
+    writer.shutdown();
+    try {
+      writer.awaitTermination(30, TimeUnit.SECONDS);
+      log.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      warn("failed to close " + logFile, e);
+    }
+  }
+
+  private void write(WorldSave checkpoint, boolean full) {
+    try {
+      if (full) {
+        checkpoint.write(baseFile);
+        baseBytes = Files.size(baseFile);
+        // the base now covers every logged checkpoint; stale lines would be skipped anyway
+        log.truncate(0);
+        log.force(true);
+        return;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      out.write(MAPPER.writeValueAsBytes(checkpoint));
+      out.write('\n');
+      ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+      long offset = log.size();
+      while (buffer.hasRemaining()) {
+        log.write(buffer, offset + buffer.position());
+      }
+      log.force(false);
+      if (log.size() > Math.max(COMPACT_MIN_BYTES, 2 * baseBytes)) {
+        fullRequested = true;
+      }
+    } catch (IOException e) {
+      warn("failed to write checkpoint " + checkpoint.sequence, e);
+      // the log may now end in a torn line; start over from a full checkpoint
+      fullRequested = true;
+    }
+  }
+
+  /** Complete log lines in order; a torn last line (crash mid-write) is cut off. */
+  private List<WorldSave> readLog() throws IOException {
+    List<WorldSave> records = new ArrayList<>();
+    long size = log.size();
+    if (size == 0) return records;
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, 1 << 16));
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    long position = 0;
+    long good = 0;
+    scan:
+    while (position < size) {
+      buffer.clear();
+      int n = log.read(buffer, position);
+      if (n <= 0) break;
+      for (int i = 0; i < n; i++) {
+        byte b = buffer.get(i);
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+        WorldSave record = parse(line.toByteArray());
+        line.reset();
+        if (record == null) break scan;
+        records.add(record);
+        good = position + i + 1;
+      }
+      position += n;
+    }
+    if (good < size) {
+      System.err.println(
+          "WorldAutosave: dropping " + (size - good) + " bytes of incomplete checkpoints from "
+              + logFile);
+      log.truncate(good);
+    }
+    return records;
+  }
+
+  private static WorldSave parse(byte[] line) {
+    try {
+      return MAPPER.readValue(line, WorldSave.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Applies the log records newer than the base, in order, into one save. */
+  static WorldSave replay(WorldSave base, List<WorldSave> records) {
+    WorldSave merged = base;
+    Map<Long, SaveGame.BlockCellState> blocks = new LinkedHashMap<>();
+    if (base != null && base.blocks != null) {
+      for (SaveGame.BlockCellState cell : base.blocks) {
+        blocks.put(key(cell.x, cell.y), cell);
+      }
+    }
+    for (WorldSave record : records) {
+      if (base != null && record.sequence <= base.sequence) continue;
+      if (merged == null) {
+        merged = new WorldSave();
+        merged.seed = record.seed;
+      }
+      if (record.blocks != null) {
+        for (SaveGame.BlockCellState cell : record.blocks) {
+          blocks.put(key(cell.x, cell.y), cell);
+        }
+      }
+      if (record.chests != null) merged.chests = record.chests;
+      if (record.groundItems != null) merged.groundItems = record.groundItems;
+      if (record.players != null && !record.players.isEmpty()) merged.players = record.players;
+      merged.nextEntityId = Math.max(merged.nextEntityId, record.nextEntityId);
+      merged.savedAt = record.savedAt;
+      merged.sequence = record.sequence;
+    }
+    if (merged != null) {
+      merged.blocks = new ArrayList<>(blocks.values());
+    }
+    return merged;
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
+  }
+
+  private static void warn(String message, Exception e) {
+    System.err.println("WorldAutosave: " + message + ": " + e);
+  }
+}
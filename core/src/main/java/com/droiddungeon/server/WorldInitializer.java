@@ -5,6 +5,7 @@ import com.droiddungeon.entity.EntityWorld;
 import com.droiddungeon.grid.DungeonGenerator;
 import com.droiddungeon.grid.Grid;
 import com.droiddungeon.items.ChestStore;
+import com.droiddungeon.items.GroundItemLifecycle;
 import com.droiddungeon.items.GroundItemStore;
 import com.droiddungeon.items.ItemRegistry;
 import com.droiddungeon.runtime.GameContextFactory;
@@ -20,6 +21,7 @@ public final class WorldInitializer {
 
     EntityWorld entityWorld = new EntityWorld();
     GroundItemStore groundStore = new GroundItemStore(entityWorld, itemRegistry);
+    groundStore.setLifecycle(new GroundItemLifecycle(GroundItemLifecycle.Settings.defaults()));
     ChestStore chestStore = new ChestStore();
     EnemySystem enemySystem = new EnemySystem(grid, worldSeed, entityWorld, groundStore);
 
@@ -0,0 +1,69 @@
+package com.droiddungeon.server;
+
+import com.droiddungeon.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * On-disk state of a server world: whatever the seed cannot regenerate. Blocks are stored for
+ * modified chunks only; enemies are not stored and respawn from their rooms.
+ */
+public final class WorldSave {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  public long seed;
+  public long savedAt;
+
+  /** Checkpoint number assigned by {@link WorldAutosave}; 0 for a save written directly. */
+  public long sequence;
+
+  public int nextEntityId;
+  public List<SaveGame.BlockCellState> blocks;
+  public List<SaveGame.ChestState> chests;
+  public List<SaveGame.GroundItemState> groundItems;
+  public List<PlayerState> players;
+
+  public WorldSave() {}
+
+  public static WorldSave read(Path file) throws IOException {
+    return MAPPER.readValue(file.toFile(), WorldSave.class);
+  }
+
+  /** Writes to a sibling temp file first so a crash never leaves a truncated save behind. */
+  public void write(Path file) throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+    try {
+      MAPPER.writeValue(tmp.toFile(), this);
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /** A player who was in the world, restored when they reconnect. */
+  public static final class PlayerState {
+    public String id;
+    public SaveGame.PlayerState player;
+    public SaveGame.CompanionState companion;
+    public SaveGame.ItemStackState[] inventory;
+
+    public PlayerState() {}
+
+    public PlayerState(
+        String id,
+        SaveGame.PlayerState player,
+        SaveGame.CompanionState companion,
+        SaveGame.ItemStackState[] inventory) {
+      this.id = id;
+      this.player = player;
+      this.companion = companion;
+      this.inventory = inventory;
+    }
+  }
+}
@@ -3,12 +3,13 @@ package com.droiddungeon.systems;
 import com.droiddungeon.entity.DamageableEntity;
 import com.droiddungeon.entity.EntityLayer;
 import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.entity.Interpolated;
 import com.droiddungeon.entity.RenderableEntity;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
 /** Handles follower movement logic: grid trail + smooth render interpolation. */
-public final class CompanionSystem implements RenderableEntity, DamageableEntity {
+public final class CompanionSystem implements RenderableEntity, DamageableEntity, Interpolated {
   private final int id;
   private final EntityWorld entityWorld;
   private final int delayTiles;
@@ -19,6 +20,10 @@ public final class CompanionSystem implements RenderableEntity, DamageableEntity
   private int gridY;
   private float renderX;
   private float renderY;
+  private float previousRenderX;
+  private float previousRenderY;
+  private float simulatedRenderX;
+  private float simulatedRenderY;
   private int lastPlayerGridX;
   private int lastPlayerGridY;
 
@@ -37,6 +42,8 @@ public final class CompanionSystem implements RenderableEntity, DamageableEntity
     this.gridY = startGridY;
     this.renderX = startGridX;
     this.renderY = startGridY;
+    this.previousRenderX = startGridX;
+    this.previousRenderY = startGridY;
     this.lastPlayerGridX = startGridX;
     this.lastPlayerGridY = startGridY;
 
@@ -80,6 +87,26 @@ public final class CompanionSystem implements RenderableEntity, DamageableEntity
     }
   }
 
+  @Override
+  public void markStep() {
+    previousRenderX = renderX;
+    previousRenderY = renderY;
+  }
+
+  @Override
+  public void beginPresentation(float alpha) {
+    simulatedRenderX = renderX;
+    simulatedRenderY = renderY;
+    renderX = previousRenderX + (renderX - previousRenderX) * alpha;
+    renderY = previousRenderY + (renderY - previousRenderY) * alpha;
+  }
+
+  @Override
+  public void endPresentation() {
+    renderX = simulatedRenderX;
+    renderY = simulatedRenderY;
+  }
+
   public void updateRender(float deltaSeconds) {
     float targetX = gridX;
     float targetY = gridY;
@@ -122,6 +149,8 @@ public final class CompanionSystem implements RenderableEntity, DamageableEntity
     this.gridY = newGridY;
     this.renderX = newRenderX;
     this.renderY = newRenderY;
+    this.previousRenderX = newRenderX;
+    this.previousRenderY = newRenderY;
     this.lastPlayerGridX = playerGridX;
     this.lastPlayerGridY = playerGridY;
 
@@ -1,31 +1,68 @@
 package com.droiddungeon.systems;
 
 import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.enemies.EnemyStore;
 import com.droiddungeon.enemies.EnemyType;
 import com.droiddungeon.entity.EntityIds;
 import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.entity.Interpolated;
 import com.droiddungeon.grid.DungeonGenerator;
 import com.droiddungeon.grid.Grid;
+import com.droiddungeon.grid.LineOfSight;
 import com.droiddungeon.grid.Player;
 import com.droiddungeon.items.GroundItemStore;
 import com.droiddungeon.net.dto.EnemySnapshotDto;
 import com.droiddungeon.player.PlayerStats;
-import java.util.ArrayList;
+import com.droiddungeon.runtime.EntityInterpolationBuffer;
+import com.droiddungeon.util.IntIntMap;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SplittableRandom;
 
-/** Spawns and updates hostile entities. */
-public final class EnemySystem {
+/**
+ * Spawns and updates hostile entities.
+ *
+ * <p>Enemies are simulated in tiers by distance to the nearest player: within half a chunk they
+ * run full AI every tick; further out they only wander, and only every fourth tick. Once their
+ * room is more than three chunks from every player they are taken out of the world and packed
+ * into an int buffer under the room, which brings them back once a player comes within a chunk of
+ * that room again. Both distances are measured to the room, so an enemy that strayed from it is
+ * not woken and packed away again on alternate ticks. Per-tick cost therefore follows the
+ * players' neighbourhoods rather than the explored world.
+ */
+public final class EnemySystem implements Interpolated {
+  private static final int CHASE_DETOUR_TILES = 6;
+  private static final int MID_RANGE_STRIDE = 4;
+  private static final int DORMANT_CHUNKS = 3;
+  // how far from its dormant tile a woken enemy looks for a free one
+  private static final int WAKE_SEARCH_TILES = 2;
+  // id, type, x, y, home x, home y, room min x, min y, max x, max y, health bits
+  private static final int DORMANT_RECORD = 11;
+  private static final long NO_TILE = Long.MIN_VALUE;
+  private static final int[] STEP_DX = {1, -1, 0, 0};
+  private static final int[] STEP_DY = {0, 0, 1, -1};
+
   private final Grid grid;
   private final long worldSeed;
   private final EntityWorld entityWorld;
   private final GroundItemStore groundStore;
-  private final List<Enemy> enemies = new ArrayList<>();
+  private final EnemyStore enemies = new EnemyStore();
   private final Set<String> spawnedRooms = new HashSet<>();
+  private final Map<String, DormantRoom> dormantRooms = new HashMap<>();
+  private final int[] dormantRecord = new int[DORMANT_RECORD];
+  private final float fullRateRadius2;
+  private final int dormantRadius;
+  private long tickIndex;
+  private float nearestDistance2;
   private final SplittableRandom ambientRng;
+  private final FlowFieldNavigator navigator;
+  private final LineOfSight lineOfSight;
+  private final EntityInterpolationBuffer.Sample interpSample =
+      new EntityInterpolationBuffer.Sample();
 
   public EnemySystem(
       Grid grid, long worldSeed, EntityWorld entityWorld, GroundItemStore groundStore) {
@@ -34,21 +71,59 @@ public final class EnemySystem {
     this.entityWorld = entityWorld;
     this.groundStore = groundStore;
     this.ambientRng = new SplittableRandom(worldSeed ^ 0xACEDBADEL);
+    this.lineOfSight = new LineOfSight(grid);
+    float vision = 0f;
+    for (EnemyType type : EnemyType.values()) {
+      vision = Math.max(vision, type.visionRangeTiles());
+    }
+    // room to path around a wall between an enemy and a player it can see
+    this.navigator = new FlowFieldNavigator(grid, (int) Math.ceil(vision) + CHASE_DETOUR_TILES);
+    float fullRate = Math.max(vision, grid.getChunkSize() * 0.5f);
+    this.fullRateRadius2 = fullRate * fullRate;
+    // well past the one-chunk radius that wakes a room, so rooms do not flap at the edge
+    this.dormantRadius = grid.getChunkSize() * DORMANT_CHUNKS;
+  }
+
+  /** Enemies packed away in rooms no player is near. */
+  public int dormantCount() {
+    int count = 0;
+    for (DormantRoom room : dormantRooms.values()) {
+      count += room.length / DORMANT_RECORD;
+    }
+    return count;
   }
 
+  /** Live view of the enemies, in store slot order. */
   public List<Enemy> getEnemies() {
-    return enemies;
+    return enemies.asList();
+  }
+
+  @Override
+  public void markStep() {
+    enemies.markStep();
+  }
+
+  @Override
+  public void beginPresentation(float alpha) {
+    enemies.beginPresentation(alpha);
+  }
+
+  @Override
+  public void endPresentation() {
+    enemies.endPresentation();
   }
 
   public void reset() {
     enemies.clear();
     spawnedRooms.clear();
+    dormantRooms.clear();
+    lineOfSight.clear();
   }
 
   /** Replace or update enemies from authoritative snapshot (network mode). */
   public void applySnapshot(EnemySnapshotDto[] addsOrUpdates, int[] removals, boolean full) {
     if (full) {
-      enemies.clear();
+      retainOnly(addsOrUpdates);
     }
     if (removals != null && removals.length > 0) {
       for (int id : removals) {
@@ -62,21 +137,50 @@ public final class EnemySystem {
     }
   }
 
+  /** Keyframe: drops enemies missing from it; the listed ones are updated in place. */
+  private void retainOnly(EnemySnapshotDto[] live) {
+    IntIntMap keep = new IntIntMap(live == null ? 4 : live.length, -1);
+    if (live != null) {
+      for (EnemySnapshotDto e : live) {
+        keep.put(e.id(), 1);
+      }
+    }
+    for (int slot = enemies.size() - 1; slot >= 0; slot--) {
+      Enemy enemy = enemies.at(slot);
+      if (!keep.containsKey(enemy.id())) {
+        removeAt(slot);
+      }
+    }
+  }
+
   private void removeEnemy(int id) {
-    enemies.removeIf(
-        e -> {
-          if (e.id() == id) {
-            if (entityWorld != null) {
-              entityWorld.remove(e);
-            }
-            return true;
-          }
-          return false;
-        });
+    Enemy enemy = enemies.remove(id);
+    lineOfSight.forget(id);
+    if (enemy != null && entityWorld != null) {
+      entityWorld.remove(enemy);
+    }
+  }
+
+  private void removeAt(int slot) {
+    Enemy enemy = enemies.at(slot);
+    lineOfSight.forget(enemy.id());
+    if (entityWorld != null) {
+      entityWorld.remove(enemy);
+    }
+    enemies.removeAt(slot);
   }
 
   private void upsertEnemy(EnemySnapshotDto s) {
-    removeEnemy(s.id());
+    Enemy existing = enemies.get(s.id());
+    if (existing != null) {
+      int fromX = existing.getGridX();
+      int fromY = existing.getGridY();
+      existing.applyServerState(s.gridX(), s.gridY(), s.hp(), true);
+      if (entityWorld != null) {
+        entityWorld.move(existing, fromX, fromY, s.gridX(), s.gridY());
+      }
+      return;
+    }
     EnemyType type;
     try {
       type = EnemyType.valueOf(s.enemyType());
@@ -93,12 +197,29 @@ public final class EnemySystem {
             s.gridY() - 5,
             s.gridX() + 5,
             s.gridY() + 5);
+    enemy.applyServerState(s.gridX(), s.gridY(), s.hp(), false);
+    enemy.setRenderPosition(s.x(), s.y());
     enemies.add(enemy);
     if (entityWorld != null) {
       entityWorld.add(enemy);
     }
   }
 
+  /**
+   * Network mode: enemies are not simulated locally; place them at their interpolated server
+   * positions for {@code renderTick} and advance only visual timers.
+   */
+  public void updateReplicated(
+      float deltaSeconds, EntityInterpolationBuffer history, double renderTick) {
+    enemies.tickCooldowns(deltaSeconds);
+    for (int slot = 0; slot < enemies.size(); slot++) {
+      Enemy enemy = enemies.at(slot);
+      if (history.sample(enemy.id(), renderTick, interpSample)) {
+        enemy.setRenderPosition(interpSample.x, interpSample.y);
+      }
+    }
+  }
+
   public void update(
       float deltaSeconds, List<Player> players, Map<Integer, PlayerStats> playerStatsById) {
     if (players == null || players.isEmpty()) {
@@ -109,43 +230,43 @@ public final class EnemySystem {
       spawnNearby(p);
     }
 
-    Set<Long> occupied = new HashSet<>();
-    for (Enemy enemy : enemies) {
-      occupied.add(key(enemy.getGridX(), enemy.getGridY()));
-    }
-
-    for (Enemy enemy : enemies) {
-      enemy.tickCooldowns(deltaSeconds);
-
+    tickIndex++;
+    navigator.update(players);
+    enemies.tickCooldowns(deltaSeconds);
+    for (int slot = 0; slot < enemies.size(); slot++) {
+      Enemy enemy = enemies.at(slot);
       Player nearest = findNearestPlayer(enemy, players);
+      if (nearestDistance2 > fullRateRadius2) {
+        enemy.setHasLineOfSight(false);
+        if (!enemy.isDead() && !roomNear(enemy, players, dormantRadius)) {
+          hibernate(slot);
+          slot--; // the last enemy moved into this slot
+        } else if ((tickIndex + enemy.id()) % MID_RANGE_STRIDE == 0) {
+          wander(enemy);
+        }
+        continue;
+      }
       boolean seesPlayer = nearest != null && seesPlayer(enemy, nearest);
       enemy.setHasLineOfSight(seesPlayer);
 
       if (seesPlayer && nearest != null) {
-        chasePlayer(enemy, nearest, occupied);
+        chasePlayer(enemy, nearest);
         var stats = playerStatsById.get(nearest.id());
         if (stats != null) {
           attemptAttack(enemy, nearest, stats);
         }
       } else {
-        wander(enemy, occupied);
+        wander(enemy);
       }
     }
 
-    for (Enemy enemy : enemies) {
-      enemy.updateRender(deltaSeconds);
-    }
+    enemies.updateRender(deltaSeconds);
 
-    enemies.removeIf(
-        enemy -> {
-          if (enemy.isDead()) {
-            if (entityWorld != null) {
-              entityWorld.remove(enemy);
-            }
-            return true;
-          }
-          return false;
-        });
+    for (int slot = enemies.size() - 1; slot >= 0; slot--) {
+      if (enemies.at(slot).isDead()) {
+        removeAt(slot);
+      }
+    }
   }
 
   private Player findNearestPlayer(Enemy enemy, List<Player> players) {
@@ -160,9 +281,112 @@ public final class EnemySystem {
         best = p;
       }
     }
+    nearestDistance2 = bestDist;
     return best;
   }
 
+  /**
+   * Whether the enemy's room reaches within {@code radius} tiles of a player, measured the way
+   * {@link #spawnNearby} finds the rooms it wakes.
+   */
+  private static boolean roomNear(Enemy enemy, List<Player> players, int radius) {
+    for (Player p : players) {
+      if (enemy.getRoomMaxX() + 1 >= p.getGridX() - radius
+          && enemy.getRoomMinX() <= p.getGridX() + radius
+          && enemy.getRoomMaxY() + 1 >= p.getGridY() - radius
+          && enemy.getRoomMinY() <= p.getGridY() + radius) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Takes the enemy in {@code slot} out of the world and packs it under its room. */
+  private void hibernate(int slot) {
+    Enemy enemy = enemies.at(slot);
+    String key =
+        roomKey(
+            enemy.getRoomMinX(),
+            enemy.getRoomMinY(),
+            enemy.getRoomMaxX() - enemy.getRoomMinX() + 1,
+            enemy.getRoomMaxY() - enemy.getRoomMinY() + 1);
+    int[] record = dormantRecord;
+    record[0] = enemy.id();
+    record[1] = enemy.getType().ordinal();
+    record[2] = enemy.getGridX();
+    record[3] = enemy.getGridY();
+    record[4] = enemy.getHomeX();
+    record[5] = enemy.getHomeY();
+    record[6] = enemy.getRoomMinX();
+    record[7] = enemy.getRoomMinY();
+    record[8] = enemy.getRoomMaxX();
+    record[9] = enemy.getRoomMaxY();
+    record[10] = Float.floatToIntBits(enemy.getHealth());
+    dormantRooms.computeIfAbsent(key, k -> new DormantRoom()).append(record);
+    removeAt(slot);
+  }
+
+  /**
+   * Puts a room's dormant enemies back where they were left, or on the nearest free tile if
+   * something has moved onto that one since; an enemy with no free tile nearby stays dormant.
+   */
+  private void wake(String key) {
+    DormantRoom room = dormantRooms.remove(key);
+    if (room == null) return;
+    int[] records = room.records;
+    EnemyType[] types = EnemyType.values();
+    DormantRoom stillDormant = null;
+    for (int offset = 0; offset < room.length; offset += DORMANT_RECORD) {
+      long tile = freeTileNear(records[offset + 2], records[offset + 3]);
+      if (tile == NO_TILE) {
+        if (stillDormant == null) stillDormant = new DormantRoom();
+        stillDormant.append(Arrays.copyOfRange(records, offset, offset + DORMANT_RECORD));
+        continue;
+      }
+      Enemy enemy =
+          new Enemy(
+              records[offset],
+              types[records[offset + 1]],
+              records[offset + 4],
+              records[offset + 5],
+              records[offset + 6],
+              records[offset + 7],
+              records[offset + 8],
+              records[offset + 9]);
+      enemy.applyServerState(
+          (int) (tile >> 32), (int) tile, Float.intBitsToFloat(records[offset + 10]), false);
+      enemy.snapToGrid();
+      enemies.add(enemy);
+      if (entityWorld != null) {
+        entityWorld.add(enemy);
+      }
+    }
+    if (stillDormant != null) {
+      dormantRooms.put(key, stillDormant);
+    }
+  }
+
+  /**
+   * The tile closest to ({@code x}, {@code y}) that is walkable and free of blocking entities,
+   * packed as x in the high and y in the low half, or {@link #NO_TILE} if there is none within
+   * {@link #WAKE_SEARCH_TILES}.
+   */
+  private long freeTileNear(int x, int y) {
+    for (int r = 0; r <= WAKE_SEARCH_TILES; r++) {
+      for (int dy = -r; dy <= r; dy++) {
+        for (int dx = -r; dx <= r; dx++) {
+          if (Math.max(Math.abs(dx), Math.abs(dy)) != r) continue; // ring only
+          int tx = x + dx;
+          int ty = y + dy;
+          if (!grid.isWalkable(tx, ty)) continue;
+          if (entityWorld != null && entityWorld.isBlocked(tx, ty)) continue;
+          return ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+        }
+      }
+    }
+    return NO_TILE;
+  }
+
   private void spawnNearby(Player player) {
     int radius = grid.getChunkSize(); // one chunk in every direction
     List<DungeonGenerator.Room> rooms =
@@ -177,6 +401,7 @@ public final class EnemySystem {
       }
       String key = roomKey(room);
       if (spawnedRooms.contains(key)) {
+        wake(key);
         continue;
       }
       spawnedRooms.add(key);
@@ -228,10 +453,40 @@ public final class EnemySystem {
     }
   }
 
-  private void chasePlayer(Enemy enemy, Player player, Set<Long> occupied) {
+  /**
+   * Steps down the player's flow field, trying the best neighbour first and the next best if an
+   * entity holds it. Falls back to a straight-line step when the enemy is off the field.
+   */
+  private void chasePlayer(Enemy enemy, Player player) {
     if (enemy.isMoving()) {
       return;
     }
+    int x = enemy.getGridX();
+    int y = enemy.getGridY();
+    int here = navigator.distance(player, x, y);
+    if (here != FlowFieldNavigator.UNREACHABLE) {
+      int tried = 0;
+      for (int attempt = 0; attempt < 2; attempt++) {
+        int best = -1;
+        int bestDistance = here;
+        for (int d = 0; d < 4; d++) {
+          if ((tried & (1 << d)) != 0) continue;
+          int dist = navigator.distance(player, x + STEP_DX[d], y + STEP_DY[d]);
+          if (dist != FlowFieldNavigator.UNREACHABLE && dist < bestDistance) {
+            best = d;
+            bestDistance = dist;
+          }
+        }
+        if (best < 0) return;
+        if (tryStep(enemy, STEP_DX[best], STEP_DY[best], true, player)) return;
+        tried |= 1 << best;
+      }
+      return;
+    }
+    stepTowards(enemy, player);
+  }
+
+  private void stepTowards(Enemy enemy, Player player) {
     int targetX = player.getGridX();
     int targetY = player.getGridY();
 
@@ -240,24 +495,23 @@ public final class EnemySystem {
 
     boolean xFirst = Math.abs(targetX - enemy.getGridX()) >= Math.abs(targetY - enemy.getGridY());
     if (xFirst) {
-      if (!tryStep(enemy, dx, 0, occupied, true, player)) {
-        tryStep(enemy, 0, dy, occupied, true, player);
+      if (!tryStep(enemy, dx, 0, true, player)) {
+        tryStep(enemy, 0, dy, true, player);
       }
     } else {
-      if (!tryStep(enemy, 0, dy, occupied, true, player)) {
-        tryStep(enemy, dx, 0, occupied, true, player);
+      if (!tryStep(enemy, 0, dy, true, player)) {
+        tryStep(enemy, dx, 0, true, player);
       }
     }
   }
 
-  private void wander(Enemy enemy, Set<Long> occupied) {
+  private void wander(Enemy enemy) {
     if (!enemy.readyToWander()) {
       return;
     }
-    int[] dirs = new int[] {-1, 0, 1};
     for (int attempt = 0; attempt < 4; attempt++) {
-      int dx = dirs[ambientRng.nextInt(3)];
-      int dy = dirs[ambientRng.nextInt(3)];
+      int dx = ambientRng.nextInt(3) - 1;
+      int dy = ambientRng.nextInt(3) - 1;
       if (dx == 0 && dy == 0) {
         continue;
       }
@@ -272,7 +526,7 @@ public final class EnemySystem {
       if (!enemy.isInsideRoomBounds(enemy.getGridX() + dx, enemy.getGridY() + dy)) {
         continue;
       }
-      if (tryStep(enemy, dx, dy, occupied, false, null)) {
+      if (tryStep(enemy, dx, dy, false, null)) {
         enemy.resetWanderCooldown();
         return;
       }
@@ -280,8 +534,11 @@ public final class EnemySystem {
     enemy.resetWanderCooldown();
   }
 
-  private boolean tryStep(
-      Enemy enemy, int dx, int dy, Set<Long> occupied, boolean allowLeaveRoom, Player player) {
+  /**
+   * Moves the enemy one tile unless the tile is outside its room (when not allowed), the chased
+   * player's, or held by a blocking entity in {@link EntityWorld}'s occupancy counts.
+   */
+  private boolean tryStep(Enemy enemy, int dx, int dy, boolean allowLeaveRoom, Player player) {
     if (dx == 0 && dy == 0) {
       return false;
     }
@@ -293,8 +550,7 @@ public final class EnemySystem {
     if (player != null && nextX == player.getGridX() && nextY == player.getGridY()) {
       return false; // do not step into player's tile
     }
-    long nextKey = key(nextX, nextY);
-    if (occupied.contains(nextKey)) {
+    if (entityWorld != null && entityWorld.isBlocked(nextX, nextY)) {
       return false;
     }
     int fromX = enemy.getGridX();
@@ -302,10 +558,6 @@ public final class EnemySystem {
     if (!enemy.moveTo(nextX, nextY, grid)) {
       return false;
     }
-
-    long oldKey = key(enemy.getGridX() - dx, enemy.getGridY() - dy);
-    occupied.remove(oldKey);
-    occupied.add(nextKey);
     if (entityWorld != null && (fromX != nextX || fromY != nextY)) {
       entityWorld.move(enemy, fromX, fromY, nextX, nextY);
     }
@@ -344,46 +596,16 @@ public final class EnemySystem {
     if (dist2 > vision * vision) {
       return false;
     }
-    return hasLineOfSight(enemy.getGridX(), enemy.getGridY(), player.getGridX(), player.getGridY());
+    return lineOfSight.visible(
+        enemy.id(), enemy.getGridX(), enemy.getGridY(), player.getGridX(), player.getGridY());
   }
 
-  private boolean hasLineOfSight(int x0, int y0, int x1, int y1) {
-    int dx = Math.abs(x1 - x0);
-    int dy = Math.abs(y1 - y0);
-    int sx = x0 < x1 ? 1 : -1;
-    int sy = y0 < y1 ? 1 : -1;
-    int err = dx - dy;
-
-    int cx = x0;
-    int cy = y0;
-    while (true) {
-      if (!grid.isTransparent(cx, cy)) {
-        return false;
-      }
-      if (cx == x1 && cy == y1) {
-        break;
-      }
-      int e2 = 2 * err;
-      if (e2 > -dy) {
-        err -= dy;
-        cx += sx;
-      }
-      if (cx == x1 && cy == y1) {
-        if (!grid.isTransparent(cx, cy)) {
-          return false;
-        }
-        break;
-      }
-      if (e2 < dx) {
-        err += dx;
-        cy += sy;
-      }
-    }
-    return true;
+  private String roomKey(DungeonGenerator.Room room) {
+    return roomKey(room.x, room.y, room.width, room.height);
   }
 
-  private String roomKey(DungeonGenerator.Room room) {
-    return room.x + ":" + room.y + ":" + room.width + "x" + room.height;
+  private static String roomKey(int x, int y, int width, int height) {
+    return x + ":" + y + ":" + width + "x" + height;
   }
 
   private long hashRoom(DungeonGenerator.Room room) {
@@ -396,7 +618,17 @@ public final class EnemySystem {
     return h;
   }
 
-  private long key(int x, int y) {
-    return ((long) x << 32) ^ (y & 0xffffffffL);
+  /** Packed records of one room's dormant enemies; capacity doubles so appends stay amortized. */
+  private static final class DormantRoom {
+    int[] records = new int[DORMANT_RECORD * 2];
+    int length;
+
+    void append(int[] record) {
+      if (length + record.length > records.length) {
+        records = Arrays.copyOf(records, Math.max(records.length * 2, length + record.length));
+      }
+      System.arraycopy(record, 0, records, length, record.length);
+      length += record.length;
+    }
   }
 }
@@ -0,0 +1,187 @@
+package com.droiddungeon.systems;
+
+import com.droiddungeon.grid.Grid;
+import com.droiddungeon.grid.Player;
+import com.droiddungeon.util.IntIntMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared chase paths: one breadth-first distance field per player over walkable tiles, so any
+ * number of enemies can head for that player by stepping to a neighbour with a smaller distance.
+ *
+ * <p>A field covers the square of {@code radius} tiles around the player's tile. {@link #update}
+ * marks fields stale when their player changed tile or a chunk they cover changed version ({@link
+ * Grid#chunkVersion}); a stale field is rebuilt on first use, so players nobody chases cost
+ * nothing. Buffers are reused across rebuilds. Entities are ignored; blocked neighbours are the
+ * caller's concern.
+ */
+public final class FlowFieldNavigator {
+  /** Distance reported for tiles outside the field or not reachable from the player. */
+  public static final int UNREACHABLE = -1;
+
+  private static final int[] DX = {1, -1, 0, 0};
+  private static final int[] DY = {0, 0, 1, -1};
+
+  private final Grid grid;
+  private final int radius;
+  private final int side;
+  private final IntIntMap fieldByPlayer = new IntIntMap(8, -1);
+  private final List<Field> fields = new ArrayList<>();
+  private final boolean[] passable;
+  private final int[] queue;
+  private long rebuilds;
+
+  public FlowFieldNavigator(Grid grid, int radius) {
+    this.grid = grid;
+    this.radius = radius;
+    this.side = radius * 2 + 1;
+    this.passable = new boolean[side * side];
+    this.queue = new int[side * side];
+  }
+
+  /** Tracks {@code players}: drops fields of players who left and flags stale ones. */
+  public void update(List<Player> players) {
+    for (int i = fields.size() - 1; i >= 0; i--) {
+      Field field = fields.get(i);
+      if (!contains(players, field.playerId)) {
+        fieldByPlayer.remove(field.playerId);
+        Field last = fields.remove(fields.size() - 1);
+        if (last != field) {
+          fields.set(i, last);
+          fieldByPlayer.put(last.playerId, i);
+        }
+      }
+    }
+    for (Player player : players) {
+      int index = fieldByPlayer.get(player.id());
+      Field field;
+      if (index < 0) {
+        field = new Field(player.id(), side);
+        fieldByPlayer.put(player.id(), fields.size());
+        fields.add(field);
+      } else {
+        field = fields.get(index);
+      }
+      if (field.stale) continue;
+      if (field.originX != player.getGridX()
+          || field.originY != player.getGridY()
+          || field.versions != versionSum(field.originX, field.originY)) {
+        field.stale = true;
+      }
+    }
+  }
+
+  /**
+   * Path distance in steps from ({@code x}, {@code y}) to {@code player}'s tile, or {@link
+   * #UNREACHABLE}.
+   */
+  public int distance(Player player, int x, int y) {
+    Field field = field(player);
+    return field != null ? field.distance(x, y) : UNREACHABLE;
+  }
+
+  /** Number of field builds so far. */
+  long rebuilds() {
+    return rebuilds;
+  }
+
+  private Field field(Player player) {
+    int index = fieldByPlayer.get(player.id());
+    if (index < 0) return null;
+    Field field = fields.get(index);
+    if (field.stale) {
+      build(field, player.getGridX(), player.getGridY());
+    }
+    return field;
+  }
+
+  private void build(Field field, int originX, int originY) {
+    field.originX = originX;
+    field.originY = originY;
+    field.minX = originX - radius;
+    field.minY = originY - radius;
+    field.versions = versionSum(originX, originY);
+    field.stale = false;
+    rebuilds++;
+
+    int[] dist = field.dist;
+    Arrays.fill(dist, UNREACHABLE);
+    for (int ly = 0; ly < side; ly++) {
+      int row = ly * side;
+      for (int lx = 0; lx < side; lx++) {
+        passable[row + lx] = grid.isWalkable(field.minX + lx, field.minY + ly);
+      }
+    }
+
+    int start = radius * side + radius;
+    dist[start] = 0;
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = start;
+    while (head < tail) {
+      int cell = queue[head++];
+      int lx = cell % side;
+      int ly = cell / side;
+      int next = dist[cell] + 1;
+      for (int d = 0; d < 4; d++) {
+        int nx = lx + DX[d];
+        int ny = ly + DY[d];
+        if (nx < 0 || ny < 0 || nx >= side || ny >= side) continue;
+        int n = ny * side + nx;
+        if (dist[n] != UNREACHABLE || !passable[n]) continue;
+        dist[n] = next;
+        queue[tail++] = n;
+      }
+    }
+  }
+
+  /** Sum of the versions of the chunks a field at this origin covers; versions only grow. */
+  private long versionSum(int originX, int originY) {
+    int chunkSize = grid.getChunkSize();
+    int minChunkX = Math.floorDiv(originX - radius, chunkSize);
+    int maxChunkX = Math.floorDiv(originX + radius, chunkSize);
+    int minChunkY = Math.floorDiv(originY - radius, chunkSize);
+    int maxChunkY = Math.floorDiv(originY + radius, chunkSize);
+    long sum = 0L;
+    for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+      for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+        sum += grid.chunkVersion(cx, cy);
+      }
+    }
+    return sum;
+  }
+
+  private static boolean contains(List<Player> players, int id) {
+    for (Player player : players) {
+      if (player.id() == id) return true;
+    }
+    return false;
+  }
+
+  private static final class Field {
+    final int playerId;
+    final int side;
+    final int[] dist;
+    int originX;
+    int originY;
+    int minX;
+    int minY;
+    long versions;
+    boolean stale = true;
+
+    Field(int playerId, int side) {
+      this.playerId = playerId;
+      this.side = side;
+      this.dist = new int[side * side];
+    }
+
+    int distance(int x, int y) {
+      int lx = x - minX;
+      int ly = y - minY;
+      if (lx < 0 || ly < 0 || lx >= side || ly >= side) return UNREACHABLE;
+      return dist[ly * side + lx];
+    }
+  }
+}
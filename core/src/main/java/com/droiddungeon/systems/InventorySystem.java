@@ -12,6 +12,7 @@ import com.droiddungeon.inventory.Inventory;
 import com.droiddungeon.inventory.ItemStack;
 import com.droiddungeon.items.GroundItem;
 import com.droiddungeon.items.GroundItemStore;
+import com.droiddungeon.items.GroundItemsView;
 import com.droiddungeon.items.ItemRegistry;
 import java.util.ArrayList;
 import java.util.List;
@@ -100,12 +101,8 @@ public final class InventorySystem {
   public void pickUpItemsAtPlayer(Player player) {
     int playerX = player.getGridX();
     int playerY = player.getGridY();
-    // operate on a copy to avoid concurrent modification on the store
-    List<GroundItem> snapshot = groundStore.getGroundItems();
-    for (GroundItem groundItem : snapshot) {
-      if (!groundItem.isAt(playerX, playerY)) {
-        continue;
-      }
+    // the view is immutable, so the store can change while we walk it
+    for (GroundItem groundItem : groundStore.view().at(playerX, playerY)) {
       if (groundItem.isBundle()) {
         List<ItemStack> leftovers = new ArrayList<>();
         for (ItemStack item : groundItem.getBundledItems()) {
@@ -213,13 +210,18 @@ public final class InventorySystem {
   }
 
   public void addGroundStack(int gridX, int gridY, ItemStack stack) {
+    addGroundStack(gridX, gridY, stack, false);
+  }
+
+  /** Drops a stack; {@code lasting} drops despawn on the longer timer (see GroundItemStore). */
+  public void addGroundStack(int gridX, int gridY, ItemStack stack, boolean lasting) {
     if (stack == null) {
       return;
     }
     if (!grid.isInside(gridX, gridY)) {
       return;
     }
-    groundStore.addGroundStack(gridX, gridY, stack);
+    groundStore.addGroundStack(gridX, gridY, stack, lasting);
   }
 
   public void addGroundBundle(int gridX, int gridY, ItemStack pouchStack, List<ItemStack> bundled) {
@@ -376,6 +378,10 @@ public final class InventorySystem {
     return groundStore.getGroundItems();
   }
 
+  public GroundItemsView groundItemsView() {
+    return groundStore.view();
+  }
+
   public void removeGroundItem(int id) {
     groundStore.removeGroundItem(id);
   }
@@ -114,7 +114,7 @@ public final class MiningSystem {
       }
       if (destroyed && block == BlockMaterial.CHEST && chestStore != null) {
         for (ItemStack stack : chestStore.drain(targetX, targetY)) {
-          inventorySystem.addGroundStack(targetX, targetY, stack);
+          inventorySystem.addGroundStack(targetX, targetY, stack, true);
         }
       }
       if (destroyed && equippedItem != null) {
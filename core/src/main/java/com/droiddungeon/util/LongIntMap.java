@@ -0,0 +1,151 @@
+package com.droiddungeon.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long → int map with linear probing and backward-shift deletion; the {@code long}
+ * counterpart of {@link IntIntMap}, for packed tile or chunk coordinates on hot paths.
+ */
+public final class LongIntMap {
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private final int missing;
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  /**
+   * @param expected initial number of entries before the first resize
+   * @param missing value returned by {@link #get(long)} for absent keys
+   */
+  public LongIntMap(int expected, int missing) {
+    this.missing = missing;
+    int cap = tableSizeFor(Math.max(4, expected) * 2);
+    allocate(cap);
+  }
+
+  public int get(long key) {
+    checkKey(key);
+    int i = mix(key) & mask;
+    while (true) {
+      long k = keys[i];
+      if (k == key) return values[i];
+      if (k == EMPTY) return missing;
+      i = (i + 1) & mask;
+    }
+  }
+
+  public boolean containsKey(long key) {
+    checkKey(key);
+    int i = mix(key) & mask;
+    while (true) {
+      long k = keys[i];
+      if (k == key) return true;
+      if (k == EMPTY) return false;
+      i = (i + 1) & mask;
+    }
+  }
+
+  /** Associates {@code value} with {@code key}; returns the previous value or {@code missing}. */
+  public int put(long key, int value) {
+    checkKey(key);
+    int i = mix(key) & mask;
+    while (true) {
+      long k = keys[i];
+      if (k == key) {
+        int prev = values[i];
+        values[i] = value;
+        return prev;
+      }
+      if (k == EMPTY) {
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+          rehash(keys.length << 1);
+        }
+        return missing;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  /** Removes {@code key}; returns its value or {@code missing}. */
+  public int remove(long key) {
+    checkKey(key);
+    int i = mix(key) & mask;
+    while (true) {
+      long k = keys[i];
+      if (k == EMPTY) return missing;
+      if (k == key) break;
+      i = (i + 1) & mask;
+    }
+    int prev = values[i];
+    size--;
+    // backward-shift following entries so probe chains stay intact without tombstones
+    int gap = i;
+    int j = (i + 1) & mask;
+    while (keys[j] != EMPTY) {
+      int home = mix(keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        gap = j;
+      }
+      j = (j + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    return prev;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  private void rehash(int newCapacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(newCapacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      long k = oldKeys[i];
+      if (k == EMPTY) continue;
+      int j = mix(k) & mask;
+      while (keys[j] != EMPTY) {
+        j = (j + 1) & mask;
+      }
+      keys[j] = k;
+      values[j] = oldValues[i];
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+  }
+
+  private static void checkKey(long key) {
+    if (key == EMPTY) {
+      throw new IllegalArgumentException("Long.MIN_VALUE is reserved");
+    }
+  }
+
+  static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static int tableSizeFor(int n) {
+    return Integer.highestOneBit(Math.max(2, n) - 1) << 1;
+  }
+}
@@ -0,0 +1,69 @@
+package com.droiddungeon.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.config.GameConfig;
+import com.droiddungeon.input.HeldMovementController;
+import com.droiddungeon.input.InputFrame;
+import com.droiddungeon.input.MovementIntent;
+import com.droiddungeon.input.WeaponInput;
+import com.droiddungeon.items.ItemRegistry;
+import com.droiddungeon.runtime.GameContext;
+import com.droiddungeon.runtime.SimulationCore;
+import com.droiddungeon.server.WorldInitializer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GameUpdaterTest {
+  private static final float STEP = 0.05f;
+
+  @Test
+  void predictedMovementMatchesTheAuthoritativeStep() {
+    GameConfig config = GameConfig.defaults();
+    ItemRegistry items = ItemRegistry.loadDataOnly(List.of());
+    WorldInitializer.WorldState serverWorld = new WorldInitializer().initialize(config, items, 7L);
+    WorldInitializer.WorldState clientWorld = new WorldInitializer().initialize(config, items, 7L);
+    GameContext server = serverWorld.contextFactory().createContext();
+    GameContext client = clientWorld.contextFactory().createContext();
+    SimulationCore simulation =
+        new SimulationCore(serverWorld.enemySystem(), serverWorld.groundStore());
+    GameUpdater serverUpdater = new GameUpdater(config, null, new HeldMovementController());
+    GameUpdater clientUpdater = new GameUpdater(config, null, new HeldMovementController());
+
+    MovementIntent[] script = {
+      intent(true, false, false, false, true),
+      intent(true, false, false, false, false),
+      intent(true, false, true, false, false),
+      intent(false, false, true, false, false),
+      intent(false, false, false, false, false),
+      intent(false, true, false, true, true),
+      intent(false, true, false, true, false),
+    };
+    int startX = server.player().getGridX();
+    int startY = server.player().getGridY();
+    boolean moved = false;
+    for (int i = 0; i < 60; i++) {
+      MovementIntent movement = script[i % script.length];
+      InputFrame frame =
+          InputFrame.serverFrame(
+              movement, new WeaponInput(false, false, 0f, 0f), false, false, false);
+
+      simulation.stepPlayer(serverUpdater, server, frame, STEP, false, false);
+      clientUpdater.predictMovement(client, movement, STEP);
+
+      assertEquals(server.player().getGridX(), client.player().getGridX(), "step " + i);
+      assertEquals(server.player().getGridY(), client.player().getGridY(), "step " + i);
+      assertEquals(server.player().getRenderX(), client.player().getRenderX(), "step " + i);
+      assertEquals(server.player().getRenderY(), client.player().getRenderY(), "step " + i);
+      moved |= server.player().getGridX() != startX || server.player().getGridY() != startY;
+    }
+    assertTrue(moved);
+  }
+
+  private static MovementIntent intent(
+      boolean left, boolean right, boolean up, boolean down, boolean pressed) {
+    return new MovementIntent(
+        left, right, up, down, pressed && left, pressed && right, pressed && up, pressed && down);
+  }
+}
@@ -0,0 +1,64 @@
+package com.droiddungeon.enemies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class EnemyStoreTest {
+
+  @Test
+  void swapRemoveKeepsIdsAndViewsPointingAtTheRightSlots() {
+    EnemyStore store = new EnemyStore(2);
+    Enemy a = enemy(1, 0);
+    Enemy b = enemy(2, 10);
+    Enemy c = enemy(3, 20);
+    store.add(a);
+    store.add(b);
+    store.add(c);
+    c.applyDamage(1f, 0);
+
+    assertSame(a, store.remove(1));
+    assertEquals(2, store.size());
+    assertSame(c, store.get(3));
+    assertSame(b, store.get(2));
+    assertEquals(20, c.getGridX());
+    assertEquals(EnemyType.CATSTER.maxHealth() - 1f, c.getHealth());
+    assertEquals(0, a.getGridX(), "a removed enemy keeps its last state");
+    assertNull(store.get(1));
+  }
+
+  @Test
+  void addingAKnownIdReplacesTheOldView() {
+    EnemyStore store = new EnemyStore();
+    Enemy old = enemy(7, 1);
+    store.add(old);
+    Enemy fresh = enemy(7, 5);
+    store.add(fresh);
+
+    assertEquals(1, store.size());
+    assertSame(fresh, store.get(7));
+    assertEquals(1, old.getGridX());
+  }
+
+  @Test
+  void bulkPassesMoveRenderPositionsAndTimers() {
+    EnemyStore store = new EnemyStore();
+    Enemy enemy = enemy(1, 0);
+    store.add(enemy);
+    enemy.triggerAttackCooldown();
+    enemy.applyServerState(1, 0, enemy.getHealth(), false);
+
+    store.tickCooldowns(100f);
+    store.updateRender(100f);
+
+    assertEquals(1f, enemy.getRenderX());
+    assertTrue(enemy.readyToAttack());
+  }
+
+  private static Enemy enemy(int id, int x) {
+    return new Enemy(id, EnemyType.CATSTER, x, 0, x - 5, -5, x + 5, 5);
+  }
+}
@@ -0,0 +1,72 @@
+package com.droiddungeon.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.enemies.EnemyType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EntityWorldTest {
+
+  @Test
+  void occupancyFollowsMovesAcrossChunkBorders() {
+    EntityWorld world = new EntityWorld();
+    world.add(enemy(1, -1, 0));
+
+    assertTrue(world.isBlocked(-1, 0));
+    assertFalse(world.isBlocked(0, 0));
+
+    world.move(enemy(1, -1, 0), -1, 0, 0, 0);
+    assertFalse(world.isBlocked(-1, 0));
+    assertTrue(world.isBlocked(0, 0));
+  }
+
+  @Test
+  void tileStaysBlockedUntilItsLastBlockerLeaves() {
+    EntityWorld world = new EntityWorld();
+    Enemy first = enemy(1, 5, 5);
+    Enemy second = enemy(2, 5, 5);
+    world.add(first);
+    world.add(second);
+
+    world.remove(first);
+    assertTrue(world.isBlocked(5, 5));
+    world.remove(second);
+    assertFalse(world.isBlocked(5, 5));
+  }
+
+  @Test
+  void queriesFilterByLayerAndAreaAndSurviveRemovalsMidTile() {
+    EntityWorld world = new EntityWorld();
+    Enemy a = enemy(1, 2, 2);
+    Enemy b = enemy(2, 2, 2);
+    Enemy c = enemy(3, 2, 2);
+    Enemy far = enemy(4, 9, 9);
+    world.add(a);
+    world.add(b);
+    world.add(c);
+    world.add(far);
+    world.remove(b);
+
+    List<Integer> seen = new ArrayList<>();
+    world.forEachIn(0, 0, 4, 4, EntityLayer.ACTOR.bit(), e -> seen.add(e.id()));
+    seen.sort(null);
+    assertEquals(List.of(1, 3), seen);
+
+    seen.clear();
+    world.forEachWithin(2, 2, 3f, EntityLayer.ITEM.bit(), e -> seen.add(e.id()));
+    assertTrue(seen.isEmpty());
+
+    seen.clear();
+    world.forEachIn(-100, -100, 100, 100, EntityLayer.ALL, e -> seen.add(e.id()));
+    assertEquals(3, seen.size(), "large areas scan entities instead of tiles");
+  }
+
+  private static Enemy enemy(int id, int x, int y) {
+    return new Enemy(id, EnemyType.CATSTER, x, y, x - 5, y - 5, x + 5, y + 5);
+  }
+}
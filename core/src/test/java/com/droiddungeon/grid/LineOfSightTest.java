@@ -0,0 +1,68 @@
+package com.droiddungeon.grid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LineOfSightTest {
+
+  @Test
+  void cachedAnswersLastUntilABlockOnTheWayChanges() {
+    DungeonGenerator.DungeonLayout layout = DungeonGenerator.generateInfinite(1f, 12345L);
+    Grid grid = layout.grid();
+    int x = layout.spawnX();
+    int y = layout.spawnY();
+    LineOfSight sight = new LineOfSight(grid);
+
+    grid.setBlock(x + 1, y, BlockMaterial.STONE);
+    assertFalse(sight.visible(7, x, y, x + 2, y));
+    assertFalse(sight.visible(7, x, y, x + 2, y));
+    assertEquals(1, sight.walks());
+    assertEquals(1, sight.hits());
+
+    grid.setBlock(x + 1, y, null);
+    assertTrue(sight.visible(7, x, y, x + 2, y));
+    assertEquals(2, sight.walks());
+  }
+
+  @Test
+  void matchesTheGridTileByTile() {
+    DungeonGenerator.DungeonLayout layout = DungeonGenerator.generateInfinite(1f, 12345L);
+    Grid grid = layout.grid();
+    LineOfSight sight = new LineOfSight(grid);
+    int x = layout.spawnX();
+    int y = layout.spawnY();
+    for (int tx = x - 30; tx <= x + 30; tx += 3) {
+      for (int ty = y - 30; ty <= y + 30; ty += 3) {
+        assertEquals(walk(grid, x, y, tx, ty), sight.visible(x, y, tx, ty), tx + "," + ty);
+      }
+    }
+  }
+
+  /** Reference walk through {@link Grid#isTransparent}. */
+  private static boolean walk(Grid grid, int x0, int y0, int x1, int y1) {
+    int dx = Math.abs(x1 - x0);
+    int dy = Math.abs(y1 - y0);
+    int sx = x0 < x1 ? 1 : -1;
+    int sy = y0 < y1 ? 1 : -1;
+    int err = dx - dy;
+    int cx = x0;
+    int cy = y0;
+    while (true) {
+      if (!grid.isTransparent(cx, cy)) return false;
+      if (cx == x1 && cy == y1) return true;
+      int e2 = 2 * err;
+      if (e2 > -dy) {
+        err -= dy;
+        cx += sx;
+      }
+      if (cx == x1 && cy == y1) return grid.isTransparent(cx, cy);
+      if (e2 < dx) {
+        err += dx;
+        cy += sy;
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.droiddungeon.input;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StepInputCarryTest {
+
+  @Test
+  void eventsOfAFrameWithoutStepsReachTheNextStepOnce() {
+    StepInputCarry carry = new StepInputCarry();
+
+    carry.firstStep(frame(true, true), 0);
+    InputFrame step = carry.firstStep(frame(false, false), 2);
+    InputFrame later = carry.firstStep(frame(false, false), 1);
+
+    assertTrue(step.dropRequested());
+    assertTrue(step.movementIntent().rightJustPressed());
+    assertTrue(step.weaponInput().attackJustPressed());
+    assertFalse(later.dropRequested());
+    assertFalse(later.movementIntent().rightJustPressed());
+    assertFalse(later.weaponInput().attackJustPressed());
+  }
+
+  @Test
+  void extraStepsOfALongFrameKeepHeldStateOnly() {
+    InputFrame step = new StepInputCarry().firstStep(frame(true, true), 3);
+
+    InputFrame extra = step.heldOnly();
+
+    assertTrue(step.dropRequested());
+    assertFalse(extra.dropRequested());
+    assertFalse(extra.movementIntent().rightJustPressed());
+    assertTrue(extra.movementIntent().rightHeld());
+    assertFalse(extra.weaponInput().attackJustPressed());
+    assertTrue(extra.weaponInput().attackHeld());
+  }
+
+  @Test
+  void heldStateComesFromTheLatestFrame() {
+    StepInputCarry carry = new StepInputCarry();
+
+    carry.firstStep(frame(true, true), 0);
+    InputFrame released =
+        carry.firstStep(
+            InputFrame.serverFrame(
+                new MovementIntent(false, false, false, false, false, false, false, false),
+                new WeaponInput(false, false, 0f, 0f),
+                false,
+                false,
+                false),
+            1);
+
+    assertFalse(released.movementIntent().rightHeld());
+    assertTrue(released.movementIntent().rightJustPressed());
+    assertFalse(released.weaponInput().attackHeld());
+  }
+
+  private static InputFrame frame(boolean pressed, boolean drop) {
+    return InputFrame.serverFrame(
+        new MovementIntent(false, true, false, false, false, pressed, false, false),
+        new WeaponInput(pressed, true, 3f, 4f),
+        drop,
+        false,
+        false);
+  }
+}
@@ -0,0 +1,69 @@
+package com.droiddungeon.items;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.inventory.ItemStack;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GroundItemLifecycleTest {
+
+  @Test
+  void dropsExpireOnTimeWhileBundlesLastLonger() {
+    GroundItemStore store = store(new GroundItemLifecycle.Settings(10, 100, 0, -1));
+    store.addGroundStack(0, 0, new ItemStack("stone", 1));
+    store.addGroundBundle(5, 5, new ItemStack("pouch", 1), List.of(new ItemStack("wood", 3)));
+
+    tickSeconds(store, 9);
+    assertEquals(2, store.size());
+    tickSeconds(store, 1);
+    assertEquals(1, store.size());
+    assertTrue(store.view().at(5, 5).get(0).isBundle());
+
+    tickSeconds(store, 90);
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  void nearbyStacksMergeIntoTheOlderPile() {
+    GroundItemStore store = store(new GroundItemLifecycle.Settings(0, 0, 0, 1));
+    store.addGroundStack(0, 0, new ItemStack("stone", 4));
+    store.addGroundStack(1, 1, new ItemStack("stone", 3));
+    store.addGroundStack(3, 3, new ItemStack("stone", 2));
+
+    store.tick(0.1f);
+
+    assertEquals(2, store.size());
+    assertEquals(7, store.view().at(0, 0).get(0).getStack().count());
+    assertEquals(2, store.view().at(3, 3).get(0).getStack().count());
+  }
+
+  @Test
+  void fullChunksLoseTheirOldestItemsFirst() {
+    GroundItemStore store = store(new GroundItemLifecycle.Settings(0, 0, 3, -1));
+    for (int x = 0; x < 5; x++) {
+      store.addGroundStack(x, 0, new ItemStack("stone", 1));
+    }
+
+    store.tick(0.1f);
+
+    assertEquals(3, store.size());
+    assertTrue(store.view().at(0, 0).isEmpty());
+    assertTrue(store.view().at(1, 0).isEmpty());
+    assertEquals(1, store.view().at(4, 0).size());
+  }
+
+  private static GroundItemStore store(GroundItemLifecycle.Settings settings) {
+    GroundItemStore store = new GroundItemStore(new EntityWorld(), null);
+    store.setLifecycle(new GroundItemLifecycle(settings));
+    return store;
+  }
+
+  private static void tickSeconds(GroundItemStore store, int seconds) {
+    for (int i = 0; i < seconds; i++) {
+      store.tick(1f);
+    }
+  }
+}
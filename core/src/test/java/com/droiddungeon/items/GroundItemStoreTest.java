@@ -0,0 +1,53 @@
+package com.droiddungeon.items;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.inventory.ItemStack;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GroundItemStoreTest {
+
+  @Test
+  void dropsMergeOnTheirTileWithoutTouchingPublishedViews() {
+    GroundItemStore store = new GroundItemStore(new EntityWorld(), null);
+    store.addGroundStack(3, 4, new ItemStack("stone", 10));
+    GroundItemsView before = store.view();
+    GroundItem first = before.at(3, 4).get(0);
+
+    store.addGroundStack(3, 4, new ItemStack("stone", 5));
+    GroundItemsView after = store.view();
+
+    assertEquals(10, before.at(3, 4).get(0).getStack().count());
+    List<GroundItem> merged = after.at(3, 4);
+    assertEquals(1, merged.size());
+    assertEquals(first.id(), merged.get(0).id());
+    assertEquals(15, merged.get(0).getStack().count());
+    assertTrue(after.epoch() > before.epoch());
+    assertSame(after, store.view());
+  }
+
+  @Test
+  void viewsShareUnchangedChunksAndAnswerRangeQueries() {
+    GroundItemStore store = new GroundItemStore(new EntityWorld(), null);
+    store.addGroundStack(0, 0, new ItemStack("stone", 1));
+    store.addGroundStack(100, 100, new ItemStack("wood", 1));
+    store.addGroundStack(-5, 2, new ItemStack("wood", 1));
+    GroundItemsView before = store.view();
+
+    store.removeGroundItem(before.at(100, 100).get(0).id());
+    GroundItemsView after = store.view();
+
+    long home = GroundItemsView.chunkKey(0, 0);
+    assertSame(before.chunks().get(home), after.chunks().get(home));
+    assertEquals(3, before.size());
+    assertEquals(2, after.size());
+    assertEquals(2, after.all().size());
+    assertEquals(2, after.within(0, 0, 6).size());
+    assertEquals(1, after.within(0, 0, 4).size());
+    assertEquals(0, after.at(100, 100).size());
+  }
+}
@@ -0,0 +1,47 @@
+package com.droiddungeon.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ClockSyncTest {
+  private static final long MS = 1_000_000L;
+
+  @Test
+  void steadyLinkSettlesOnMinimumDelay() {
+    ClockSync sync = new ClockSync(4, 1, 8, 0.05f, 1000);
+    for (int tick = 0; tick < 200; tick++) {
+      sync.onSnapshot(tick, tick * 50 * MS + 30 * MS);
+    }
+    assertEquals(1, sync.estimate().interpDelayTicks());
+  }
+
+  @Test
+  void jitteryLinkRaisesDelayImmediately() {
+    ClockSync sync = new ClockSync(1, 1, 8, 0.05f, 1000);
+    for (int tick = 0; tick < 100; tick++) {
+      long wobble = (tick % 2 == 0) ? 0 : 60 * MS;
+      sync.onSnapshot(tick, tick * 50 * MS + wobble);
+    }
+    assertTrue(sync.estimate().interpDelayTicks() >= 3);
+    assertTrue(sync.estimate().snapshotJitterMillis() > 30f);
+  }
+
+  @Test
+  void pongsProduceRttAndInputLead() {
+    ClockSync sync = new ClockSync(2, 1, 8, 0.05f, 1000);
+    long now = 0;
+    for (int i = 0; i < 10; i++) {
+      assertTrue(sync.pingDue(now));
+      assertFalse(sync.pingDue(now));
+      sync.onPong(now, now + 120 * MS);
+      now += 2000 * MS;
+    }
+    ClockSync.Estimate estimate = sync.estimate();
+    assertEquals(120f, estimate.rttMillis(), 1f);
+    assertEquals(3, estimate.inputLeadTicks());
+    assertEquals(10, estimate.rttSamples());
+  }
+}
@@ -0,0 +1,113 @@
+package com.droiddungeon.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.net.dto.BlockChangeDto;
+import com.droiddungeon.net.dto.ChunkSnapshotDto;
+import com.droiddungeon.net.dto.EnemySnapshotDto;
+import com.droiddungeon.net.dto.WorldSnapshotDto;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SnapshotQueueTest {
+
+  @Test
+  void drainsInArrivalOrder() {
+    SnapshotQueue queue = new SnapshotQueue(8, 0);
+    for (int tick = 1; tick <= 5; tick++) {
+      assertTrue(queue.offer(delta(tick, new EnemySnapshotDto[0], new int[0])));
+    }
+    List<Long> ticks = new ArrayList<>();
+    queue.drain(s -> ticks.add(s.tick()));
+    assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ticks);
+    assertNull(queue.poll());
+  }
+
+  @Test
+  void overflowDropsDeltasUntilKeyframe() {
+    SnapshotQueue queue = new SnapshotQueue(2, 0);
+    assertTrue(queue.offer(delta(1, null, null)));
+    assertTrue(queue.offer(delta(2, null, null)));
+    assertFalse(queue.offer(delta(3, null, null)));
+
+    queue.poll();
+    queue.poll();
+    assertFalse(queue.offer(delta(4, null, null)), "deltas after an overflow are unsafe");
+    assertTrue(queue.offer(keyframe(5)));
+    assertTrue(queue.offer(delta(6, null, null)));
+    assertEquals(2L, queue.stats().dropped());
+    assertEquals(5L, queue.poll().tick());
+  }
+
+  @Test
+  void coalescesBacklogKeepingRemovalsAndLatestState() {
+    SnapshotQueue queue = new SnapshotQueue(8, 1);
+    queue.offer(delta(1, new EnemySnapshotDto[] {enemy(7, 1f), enemy(8, 1f)}, null));
+    queue.offer(delta(2, new EnemySnapshotDto[] {enemy(7, 2f)}, new int[] {8}));
+    queue.offer(delta(3, null, new int[] {9}));
+
+    List<WorldSnapshotDto> out = new ArrayList<>();
+    queue.drain(out::add);
+
+    assertEquals(1, out.size());
+    WorldSnapshotDto merged = out.get(0);
+    assertEquals(3L, merged.tick());
+    assertEquals(1, merged.enemies().length);
+    assertEquals(2f, merged.enemies()[0].x());
+    assertArrayEquals(new int[] {8, 9}, merged.enemyRemovals());
+    assertEquals(2L, queue.stats().coalesced());
+  }
+
+  @Test
+  void mergeLetsNewerBlockChangeWin() {
+    WorldSnapshotDto a =
+        withBlocks(1, new BlockChangeDto[] {new BlockChangeDto(1, 1, "STONE", 10f)});
+    WorldSnapshotDto b = withBlocks(2, new BlockChangeDto[] {new BlockChangeDto(1, 1, "", 0f)});
+
+    WorldSnapshotDto merged = WorldSnapshotMerger.merge(a, b);
+
+    assertEquals(1, merged.blockChanges().length);
+    assertEquals("", merged.blockChanges()[0].materialId());
+  }
+
+  @Test
+  void mergeKeepsChunksFromEverySnapshot() {
+    WorldSnapshotDto a = withChunks(1, new ChunkSnapshotDto(0, 0, new BlockChangeDto[0]));
+    WorldSnapshotDto b = withChunks(2, new ChunkSnapshotDto(1, 0, new BlockChangeDto[0]));
+
+    WorldSnapshotDto merged = WorldSnapshotMerger.merge(a, b);
+
+    assertEquals(2, merged.chunks().length);
+    assertEquals(0, merged.chunks()[0].chunkX());
+    assertEquals(1, merged.chunks()[1].chunkX());
+  }
+
+  private static EnemySnapshotDto enemy(int id, float x) {
+    return new EnemySnapshotDto(id, "CATSTER", x, 0f, (int) x, 0, 10f);
+  }
+
+  private static WorldSnapshotDto delta(long tick, EnemySnapshotDto[] enemies, int[] removals) {
+    return new WorldSnapshotDto(
+        tick, 1L, "0.1", false, null, null, null, enemies, removals, null, null, null, null, null);
+  }
+
+  private static WorldSnapshotDto withBlocks(long tick, BlockChangeDto[] blocks) {
+    return new WorldSnapshotDto(
+        tick, 1L, "0.1", false, null, null, null, null, null, blocks, null, null, null, null);
+  }
+
+  private static WorldSnapshotDto withChunks(long tick, ChunkSnapshotDto... chunks) {
+    return new WorldSnapshotDto(
+        tick, 1L, "0.1", false, chunks, null, null, null, null, null, null, null, null, null);
+  }
+
+  private static WorldSnapshotDto keyframe(long tick) {
+    return new WorldSnapshotDto(
+        tick, 1L, "0.1", true, null, null, null, null, null, null, null, null, null, null);
+  }
+}
@@ -0,0 +1,58 @@
+package com.droiddungeon.net.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PayloadCompressionTest {
+
+  @Test
+  void deflateStreamsAcrossMessagesWithDictionary() {
+    PayloadCompressor sender = PayloadCompression.DEFLATE.newCompressor();
+    PayloadCompressor receiver = PayloadCompression.DEFLATE.newCompressor();
+    for (int tick = 0; tick < 20; tick++) {
+      byte[] payload = chunkLike(tick);
+      byte[] packed = sender.compress(payload);
+      assertTrue(packed.length < payload.length / 2, "chunk payloads should shrink a lot");
+      assertArrayEquals(payload, receiver.decompress(packed, 0, packed.length));
+    }
+  }
+
+  @Test
+  void lzRoundTripsRepetitiveAndRandomData() {
+    PayloadCompressor lz = PayloadCompression.LZ.newCompressor();
+    Random random = new Random(7);
+    byte[] noise = new byte[5000];
+    random.nextBytes(noise);
+    byte[][] inputs = {new byte[0], "abc".getBytes(StandardCharsets.UTF_8), chunkLike(3), noise};
+    for (byte[] input : inputs) {
+      byte[] packed = lz.compress(input);
+      assertArrayEquals(input, lz.decompress(packed, 0, packed.length));
+    }
+    byte[] chunk = chunkLike(1);
+    assertTrue(lz.compress(chunk).length < chunk.length / 2);
+  }
+
+  @Test
+  void negotiationPicksFirstMutuallySupportedCodec() {
+    assertEquals(
+        PayloadCompression.LZ, PayloadCompression.negotiate("zstd, lz,deflate", "deflate,lz"));
+    assertEquals(PayloadCompression.DEFLATE, PayloadCompression.negotiate("deflate", "deflate"));
+    assertNull(PayloadCompression.negotiate("lz", "deflate"));
+    assertNull(PayloadCompression.negotiate(null, "deflate,lz"));
+  }
+
+  private static byte[] chunkLike(int seed) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 400; i++) {
+      sb.append("{x:").append(seed * 48 + i % 48).append(",y:").append(i / 48);
+      sb.append(",materialId:").append(i % 7 == 0 ? "DIRT" : "STONE").append(",blockHp:12.0}");
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
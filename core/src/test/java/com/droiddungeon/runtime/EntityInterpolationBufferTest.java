@@ -0,0 +1,92 @@
+package com.droiddungeon.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.net.dto.EnemySnapshotDto;
+import org.junit.jupiter.api.Test;
+
+class EntityInterpolationBufferTest {
+
+  @Test
+  void samplesInterpolateAndClampToTheHistory() {
+    EntityInterpolationBuffer buffer = new EntityInterpolationBuffer();
+    EntityInterpolationBuffer.Sample out = new EntityInterpolationBuffer.Sample();
+    assertFalse(buffer.sample(1, 0, out));
+
+    buffer.beginSnapshot(10);
+    buffer.push(1, 10, 0f, 0f, 10f);
+    buffer.beginSnapshot(11);
+    buffer.push(1, 11, 2f, 4f, 8f);
+
+    assertTrue(buffer.sample(1, 10.5, out));
+    assertEquals(1f, out.x);
+    assertEquals(2f, out.y);
+    assertEquals(9f, out.hp);
+    buffer.sample(1, 3, out);
+    assertEquals(0f, out.x, "before the oldest sample");
+    buffer.sample(1, 30, out);
+    assertEquals(2f, out.x, "no extrapolation past the newest");
+  }
+
+  @Test
+  void idleEntitiesHoldUntilThePreviousSnapshot() {
+    EntityInterpolationBuffer buffer = new EntityInterpolationBuffer();
+    EntityInterpolationBuffer.Sample out = new EntityInterpolationBuffer.Sample();
+    buffer.beginSnapshot(10);
+    buffer.push(1, 10, 0f, 0f, 10f);
+    // a delta snapshot that leaves entity 1 out: it did not move
+    buffer.beginSnapshot(20);
+    buffer.push(2, 20, 7f, 7f, 10f);
+    buffer.beginSnapshot(21);
+    buffer.push(1, 21, 4f, 0f, 10f);
+
+    buffer.sample(1, 15, out);
+    assertEquals(0f, out.x, "still where it was at tick 20");
+    buffer.sample(1, 20.5, out);
+    assertEquals(2f, out.x, "moves only between the last two snapshots");
+  }
+
+  @Test
+  void removedAndDroppedEntitiesLoseTheirHistoryAndSlotsAreReused() {
+    EntityInterpolationBuffer buffer = new EntityInterpolationBuffer(4, 4);
+    EntityInterpolationBuffer.Sample out = new EntityInterpolationBuffer.Sample();
+    buffer.beginSnapshot(1);
+    for (int id = 1; id <= 6; id++) {
+      buffer.push(id, 1, id, 0f, 1f);
+    }
+
+    buffer.remove(2);
+    buffer.retainOnly(new EnemySnapshotDto[] {enemy(1), enemy(3)});
+
+    assertTrue(buffer.contains(1));
+    assertFalse(buffer.contains(2));
+    assertTrue(buffer.contains(3));
+    assertFalse(buffer.contains(6));
+    buffer.push(9, 2, 9f, 0f, 1f);
+    buffer.sample(9, 2, out);
+    assertEquals(9f, out.x);
+    buffer.sample(3, 1, out);
+    assertEquals(3f, out.x);
+  }
+
+  @Test
+  void theRingKeepsTheNewestSamples() {
+    EntityInterpolationBuffer buffer = new EntityInterpolationBuffer(4, 4);
+    EntityInterpolationBuffer.Sample out = new EntityInterpolationBuffer.Sample();
+    for (int tick = 1; tick <= 10; tick++) {
+      buffer.beginSnapshot(tick);
+      buffer.push(1, tick, tick, 0f, 1f);
+    }
+
+    buffer.sample(1, 0, out);
+    assertEquals(7f, out.x);
+    buffer.sample(1, 8.25, out);
+    assertEquals(8.25f, out.x);
+  }
+
+  private static EnemySnapshotDto enemy(int id) {
+    return new EnemySnapshotDto(id, "catster", 0f, 0f, 0, 0, 1f);
+  }
+}
@@ -0,0 +1,44 @@
+package com.droiddungeon.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class FixedTimestepTest {
+
+  @Test
+  void stepCountDependsOnElapsedTimeNotFrameRate() {
+    FixedTimestep fast = new FixedTimestep(0.05f, 10);
+    FixedTimestep slow = new FixedTimestep(0.05f, 10);
+    int fastSteps = 0;
+    for (int frame = 0; frame < 144; frame++) {
+      fastSteps += fast.advance(1f / 144f);
+    }
+    int slowSteps = 0;
+    for (int frame = 0; frame < 30; frame++) {
+      slowSteps += slow.advance(1f / 30f);
+    }
+
+    assertEquals(20, fastSteps, 1);
+    assertEquals(20, slowSteps, 1);
+  }
+
+  @Test
+  void leftoverTimeBecomesTheInterpolationFraction() {
+    FixedTimestep clock = new FixedTimestep(0.05f, 10);
+
+    assertEquals(1, clock.advance(0.075f));
+    assertEquals(0.5f, clock.alpha(), 1e-4f);
+    assertEquals(1, clock.advance(0.025f));
+    assertEquals(0f, clock.alpha(), 1e-4f);
+  }
+
+  @Test
+  void longStallsAreCappedInsteadOfCaughtUp() {
+    FixedTimestep clock = new FixedTimestep(0.05f, 4);
+
+    assertEquals(4, clock.advance(2f));
+    assertEquals(0, clock.advance(0.01f));
+    assertEquals(4, clock.steps());
+  }
+}
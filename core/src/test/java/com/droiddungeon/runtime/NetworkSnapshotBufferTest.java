@@ -0,0 +1,78 @@
+package com.droiddungeon.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class NetworkSnapshotBufferTest {
+
+  @Test
+  void samplesInterpolateBetweenSnapshotsAndClampAtTheEnds() {
+    NetworkSnapshotBuffer buffer = new NetworkSnapshotBuffer();
+    NetworkSnapshotBuffer.Sample out = new NetworkSnapshotBuffer.Sample();
+    assertFalse(buffer.sampleForTick(0, out));
+    assertEquals(-1L, buffer.latestTick());
+
+    buffer.push(snapshot(10, 0f));
+    buffer.push(snapshot(12, 4f));
+
+    assertTrue(buffer.sampleForTick(11, out));
+    assertEquals(2f, out.x);
+    assertEquals(-2f, out.y);
+    assertEquals(11L, out.tick);
+    buffer.sampleForTick(5, out);
+    assertEquals(0f, out.x, "before the oldest sample");
+    buffer.sampleForTick(20, out);
+    assertEquals(4f, out.x, "after the newest sample");
+    assertEquals(12L, buffer.latestTick());
+  }
+
+  @Test
+  void targetsBeforeAFullRingClampToItsOldestReadableSnapshot() {
+    NetworkSnapshotBuffer buffer = new NetworkSnapshotBuffer();
+    NetworkSnapshotBuffer.Sample out = new NetworkSnapshotBuffer.Sample();
+    for (int tick = 1; tick <= 40; tick++) {
+      buffer.push(snapshot(tick, tick));
+    }
+
+    buffer.sampleForTick(0, out);
+
+    assertEquals(10f, out.x);
+    assertEquals(40L, buffer.latestTick());
+  }
+
+  @Test
+  void readersNeverSeeAHalfWrittenSnapshot() throws Exception {
+    NetworkSnapshotBuffer buffer = new NetworkSnapshotBuffer();
+    buffer.push(snapshot(0, 0f));
+    int ticks = 200_000;
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int tick = 1; tick <= ticks; tick++) {
+                buffer.push(snapshot(tick, tick));
+              }
+            });
+    writer.start();
+    NetworkSnapshotBuffer.Sample out = new NetworkSnapshotBuffer.Sample();
+    long lastTick = 0;
+    while (writer.isAlive() || lastTick < ticks) {
+      buffer.sampleForTick(Double.MAX_VALUE, out);
+      // every field of one push carries the tick, so a torn read shows up as a mismatch
+      assertEquals((float) out.tick, out.x);
+      assertEquals(-out.x, out.y);
+      assertEquals(out.tick, out.lastProcessedTick);
+      assertTrue(out.tick >= lastTick, "the newest sample never goes back");
+      lastTick = out.tick;
+      buffer.sampleForTick(lastTick - 5.5, out);
+      assertEquals(-out.x, out.y);
+    }
+    writer.join();
+  }
+
+  private static NetworkSnapshot snapshot(long tick, float x) {
+    return new NetworkSnapshot(tick, x, -x, (int) x, 0, 100f, tick);
+  }
+}
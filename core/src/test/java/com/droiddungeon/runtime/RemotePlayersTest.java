@@ -0,0 +1,30 @@
+package com.droiddungeon.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.droiddungeon.net.dto.PlayerSnapshotDto;
+import org.junit.jupiter.api.Test;
+
+class RemotePlayersTest {
+
+  @Test
+  void otherPlayersAreInterpolatedAndDroppedOnceTheyLeave() {
+    RemotePlayers remote = new RemotePlayers();
+    remote.apply(10, new PlayerSnapshotDto[] {player("me", 50f), player("bob", 0f)}, "me");
+    remote.apply(11, new PlayerSnapshotDto[] {player("me", 51f), player("bob", 2f)}, "me");
+
+    remote.sample(10.5);
+
+    assertEquals(1, remote.size(), "the local player is predicted, not replicated");
+    assertEquals(1f, remote.renderX(0));
+    assertEquals(-1f, remote.renderY(0));
+
+    remote.apply(12, new PlayerSnapshotDto[] {player("me", 52f)}, "me");
+    remote.sample(11.5);
+    assertEquals(0, remote.size());
+  }
+
+  private static PlayerSnapshotDto player(String id, float x) {
+    return new PlayerSnapshotDto(id, x, -x, (int) x, 0, 100f, -1L);
+  }
+}
@@ -0,0 +1,75 @@
+package com.droiddungeon.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.MovementIntentDto;
+import com.droiddungeon.net.dto.WeaponInputDto;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class InputRecordingTest {
+
+  @Test
+  void recordedSessionReadsBackInOrder() throws Exception {
+    Path file = Files.createTempFile("session", ".ddrec");
+    ClientInputDto walk = input("alice", 41, true, false, -1);
+    ClientInputDto swing = input("bob", 7, false, true, 38);
+    try (InputRecorder recorder = InputRecorder.open(file, 1234L, 77, 0.05f)) {
+      recorder.join("alice");
+      recorder.join("bob");
+      recorder.tick(40, 0.05f, List.of(walk, swing));
+      recorder.advance(0.5f);
+      recorder.leave("alice");
+    }
+
+    InputRecording recording = InputRecording.read(file);
+
+    assertEquals(1234L, recording.worldSeed());
+    assertEquals(77, recording.nextEntityId());
+    assertEquals(0.05f, recording.tickSeconds());
+    assertEquals(1, recording.ticks());
+    assertEquals(
+        List.of(
+            new InputRecording.Join("alice"),
+            new InputRecording.Join("bob"),
+            new InputRecording.Tick(40, 0.05f, List.of(walk, swing)),
+            new InputRecording.Advance(0.5f),
+            new InputRecording.Leave("alice")),
+        recording.events());
+    Files.delete(file);
+  }
+
+  @Test
+  void recordCutShortEndsTheRecording() throws Exception {
+    Path file = Files.createTempFile("session", ".ddrec");
+    try (InputRecorder recorder = InputRecorder.open(file, 1L, 1, 0.05f)) {
+      recorder.join("alice");
+      recorder.tick(0, 0.05f, List.of(input("alice", 0, true, true, 0)));
+    }
+    byte[] bytes = Files.readAllBytes(file);
+    Files.delete(file);
+
+    InputRecording recording =
+        InputRecording.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+
+    assertEquals(List.of(new InputRecording.Join("alice")), recording.events());
+  }
+
+  private static ClientInputDto input(
+      String playerId, long tick, boolean right, boolean attack, long viewTick) {
+    return new ClientInputDto(
+        tick,
+        playerId,
+        new MovementIntentDto(false, right, false, false, false, right, false, false),
+        new WeaponInputDto(attack, attack, 12.5f, -3.25f),
+        false,
+        attack,
+        !attack,
+        viewTick);
+  }
+}
@@ -0,0 +1,75 @@
+package com.droiddungeon.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.enemies.EnemyType;
+import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.grid.Player;
+import com.droiddungeon.systems.WeaponSystem;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MeleeHitResolverTest {
+  private static final float ARC = (float) Math.toRadians(10);
+
+  @Test
+  void narrowThrustHitsAlongTheAimAndWithinReach() {
+    assertTrue(MeleeHitResolver.inSector(0f, 0f, 3f, 0f, 0f, ARC, 0.42f, 3.4f));
+    // the target disc still overlaps the thin arc a little off axis
+    assertTrue(MeleeHitResolver.inSector(0f, 0f, 3f, 0.3f, 0f, ARC, 0.42f, 3.4f));
+    assertFalse(MeleeHitResolver.inSector(0f, 0f, 3f, 1.5f, 0f, ARC, 0.42f, 3.4f));
+    assertFalse(MeleeHitResolver.inSector(0f, 0f, 4.5f, 0f, 0f, ARC, 0.42f, 3.4f));
+    assertFalse(MeleeHitResolver.inSector(0f, 0f, -3f, 0f, 0f, ARC, 0.42f, 3.4f));
+  }
+
+  @Test
+  void aimAngleWrapsAroundPi() {
+    float aim = (float) Math.PI - 0.01f;
+    assertTrue(MeleeHitResolver.inSector(0f, 0f, -3f, -0.05f, aim, ARC, 0f, 3.4f));
+  }
+
+  @Test
+  void historyRewindsToTheRequestedTickAndClampsOutsideTheWindow() {
+    EnemyHistory history = new EnemyHistory(4);
+    Enemy enemy = new Enemy(7, EnemyType.CATSTER, 0, 0, -5, -5, 5, 5);
+    float[] out = new float[2];
+    for (int tick = 1; tick <= 6; tick++) {
+      enemy.setRenderPosition(tick, 0f);
+      history.record(tick, List.of(enemy));
+    }
+
+    assertTrue(history.positionAt(7, 4, out));
+    assertEquals(4f, out[0]);
+    assertTrue(history.positionAt(7, 1, out));
+    assertEquals(3f, out[0], "only the last four ticks are kept");
+    assertTrue(history.positionAt(7, 99, out));
+    assertEquals(6f, out[0]);
+
+    history.record(7, List.of());
+    assertFalse(history.positionAt(7, 6, out), "enemies gone from the world are forgotten");
+  }
+
+  @Test
+  void swingsOfDifferentAttackersAllLand() {
+    EntityWorld world = new EntityWorld();
+    Enemy enemy = new Enemy(5, EnemyType.CATSTER, 2, 0, -5, -5, 5, 5);
+    world.add(enemy);
+    MeleeHitResolver resolver = new MeleeHitResolver(world, new EnemyHistory(4), 4);
+    float before = enemy.getHealth();
+
+    // attacker 10 on swing 40 and attacker 11 on swing 9 once shared a dedup key
+    assertEquals(1, resolver.resolve("a", new Player(10, 0, 0), swing(40), 3, 3, 0.05f));
+    assertEquals(1, resolver.resolve("b", new Player(11, 0, 0), swing(9), 3, 3, 0.05f));
+    assertEquals(0, resolver.resolve("b", new Player(11, 0, 0), swing(9), 3, 3, 0.05f));
+
+    assertEquals(before - 2f, enemy.getHealth(), 1e-4f);
+  }
+
+  private static WeaponSystem.WeaponState swing(int index) {
+    return new WeaponSystem.WeaponState(
+        true, true, 0f, (float) Math.PI, 3f, 0f, 0.5f, 0f, 1f, index);
+  }
+}
@@ -0,0 +1,110 @@
+package com.droiddungeon.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.save.SaveGame;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+class PlayerJournalTest {
+
+  @Test
+  void appendedStatesAreReadBeforeAndAfterTheyReachDisk() throws Exception {
+    Path file = Files.createTempDirectory("journal").resolve("world.players");
+    try (PlayerJournal journal = PlayerJournal.open(file)) {
+      WorldSave.PlayerState alice = state("alice", 3);
+      journal.append(alice);
+
+      assertSame(alice, journal.read("alice"), "pending records are served from memory");
+      assertTrue(journal.contains("alice"));
+      assertFalse(journal.contains("bob"));
+      assertNull(journal.read("bob"));
+
+      journal.sync();
+      assertEquals(3, journal.read("alice").player.gridX);
+      journal.append(state("alice", 4));
+    }
+
+    try (PlayerJournal reopened = PlayerJournal.open(file)) {
+      assertEquals(4, reopened.read("alice").player.gridX, "close writes what is pending");
+      assertTrue(reopened.contains("alice"));
+    }
+  }
+
+  @Test
+  void compactionKeepsOnlyTheLatestRecordOfEachPlayer() throws Exception {
+    Path file = Files.createTempDirectory("journal").resolve("world.players");
+    int players = 64;
+    int rounds = 20;
+    try (PlayerJournal journal = PlayerJournal.open(file)) {
+      for (int round = 0; round < rounds; round++) {
+        for (int p = 0; p < players; p++) {
+          journal.append(state("p" + p, round));
+        }
+        journal.sync();
+      }
+      // compacted once 1024 records were written, then four more rounds appended
+      assertEquals(players * 5, Files.readAllLines(file).size());
+      for (int p = 0; p < players; p++) {
+        assertEquals(rounds - 1, journal.read("p" + p).player.gridX);
+      }
+    }
+
+    try (PlayerJournal reopened = PlayerJournal.open(file)) {
+      for (int p = 0; p < players; p++) {
+        assertEquals(rounds - 1, reopened.read("p" + p).player.gridX);
+      }
+    }
+  }
+
+  @Test
+  void prefetchedStatesAreHandedOutOnceAndDroppedByANewerAppend() throws Exception {
+    Path file = Files.createTempDirectory("journal").resolve("world.players");
+    try (PlayerJournal journal = PlayerJournal.open(file)) {
+      journal.append(state("alice", 1));
+      journal.sync();
+
+      journal.prefetch("alice");
+      journal.sync(); // runs after the prefetch on the writer thread
+      WorldSave.PlayerState prefetched = journal.read("alice");
+      assertEquals(1, prefetched.player.gridX);
+      assertNotSame(prefetched, journal.read("alice"), "the second read goes back to disk");
+
+      journal.prefetch("alice");
+      journal.sync();
+      journal.append(state("alice", 2));
+      assertEquals(2, journal.read("alice").player.gridX);
+      journal.sync();
+      assertEquals(2, journal.read("alice").player.gridX);
+    }
+  }
+
+  @Test
+  void aPrefetchRacingAnAppendNeverOutlivesIt() throws Exception {
+    Path file = Files.createTempDirectory("journal").resolve("world.players");
+    try (PlayerJournal journal = PlayerJournal.open(file)) {
+      for (int i = 0; i < 500; i++) {
+        journal.append(state("alice", i));
+        journal.sync();
+
+        // the append lands while the writer thread reads record i for the prefetch
+        journal.prefetch("alice");
+        journal.append(state("alice", i + 1));
+        journal.sync();
+
+        assertEquals(i + 1, journal.read("alice").player.gridX, "read after round " + i);
+      }
+    }
+  }
+
+  private static WorldSave.PlayerState state(String id, int gridX) {
+    return new WorldSave.PlayerState(
+        id, new SaveGame.PlayerState(gridX, 0f, gridX, 0, 100f), null, null);
+  }
+}
@@ -0,0 +1,51 @@
+package com.droiddungeon.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.droiddungeon.server.PlayerTickPlanner.Footprint;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PlayerTickPlannerTest {
+
+  @Test
+  void distantPlayersRunIndependently() {
+    List<int[]> groups =
+        PlayerTickPlanner.group(List.of(area(0, 0), area(10, 10), area(-10, 4)));
+    assertEquals(3, groups.size());
+    assertArrayEquals(new int[] {0}, groups.get(0));
+    assertArrayEquals(new int[] {1}, groups.get(1));
+    assertArrayEquals(new int[] {2}, groups.get(2));
+  }
+
+  @Test
+  void overlappingFootprintsShareGroupInOriginalOrder() {
+    // 0 and 2 overlap directly, 3 links 2 and 4 transitively; 1 stays alone
+    List<int[]> groups =
+        PlayerTickPlanner.group(
+            List.of(area(0, 0), area(20, 20), area(1, 1), area(2, 2), area(3, 3)));
+    assertEquals(2, groups.size());
+    assertArrayEquals(new int[] {0, 2, 3, 4}, groups.get(0));
+    assertArrayEquals(new int[] {1}, groups.get(1));
+  }
+
+  @Test
+  void sharedStateUpdatesAreSerialized() {
+    List<int[]> groups =
+        PlayerTickPlanner.group(
+            List.of(
+                area(0, 0),
+                new Footprint(10, 10, 10, 10, true),
+                Footprint.NONE,
+                new Footprint(-10, -10, -10, -10, true)));
+    assertEquals(3, groups.size());
+    assertArrayEquals(new int[] {0}, groups.get(0));
+    assertArrayEquals(new int[] {1, 3}, groups.get(1));
+    assertArrayEquals(new int[] {2}, groups.get(2));
+  }
+
+  private static Footprint area(int chunkX, int chunkY) {
+    return new Footprint(chunkX - 1, chunkY - 1, chunkX + 1, chunkY + 1, false);
+  }
+}
@@ -0,0 +1,62 @@
+package com.droiddungeon.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.droiddungeon.save.SaveGame;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WorldAutosaveTest {
+
+  @Test
+  void nothingOnDiskRestoresNothing() {
+    assertNull(WorldAutosave.replay(null, List.of()));
+  }
+
+  @Test
+  void laterCheckpointsOverwriteCellsAndKeepUnchangedStores() {
+    WorldSave base = save(1, cell(0, 0, "STONE"), cell(1, 0, "STONE"));
+    base.chests = List.of(new SaveGame.ChestState(5, 5, List.of()));
+    base.groundItems = List.of();
+
+    WorldSave mined = save(2, cell(0, 0, null));
+    WorldSave dropped = save(3);
+    dropped.groundItems = List.of(new SaveGame.GroundItemState());
+
+    WorldSave merged = WorldAutosave.replay(base, List.of(mined, dropped));
+
+    assertEquals(3, merged.sequence);
+    assertEquals(2, merged.blocks.size());
+    assertNull(merged.blocks.get(0).blockMaterial);
+    assertEquals("STONE", merged.blocks.get(1).blockMaterial);
+    assertSame(base.chests, merged.chests);
+    assertSame(dropped.groundItems, merged.groundItems);
+  }
+
+  @Test
+  void checkpointsAlreadyInTheBaseAreSkipped() {
+    // a crash between writing a full base and truncating the log leaves older lines behind
+    WorldSave base = save(5, cell(0, 0, "STONE"));
+    WorldSave stale = save(4, cell(0, 0, null));
+
+    WorldSave merged = WorldAutosave.replay(base, List.of(stale));
+
+    assertEquals(5, merged.sequence);
+    assertEquals("STONE", merged.blocks.get(0).blockMaterial);
+  }
+
+  private static WorldSave save(long sequence, SaveGame.BlockCellState... cells) {
+    WorldSave save = new WorldSave();
+    save.seed = 42L;
+    save.sequence = sequence;
+    save.blocks = new ArrayList<>(List.of(cells));
+    return save;
+  }
+
+  private static SaveGame.BlockCellState cell(int x, int y, String material) {
+    return new SaveGame.BlockCellState(x, y, material, material != null ? 10f : 0f);
+  }
+}
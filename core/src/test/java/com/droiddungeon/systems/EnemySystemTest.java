@@ -0,0 +1,159 @@
+package com.droiddungeon.systems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.enemies.Enemy;
+import com.droiddungeon.entity.EntityWorld;
+import com.droiddungeon.grid.DungeonGenerator;
+import com.droiddungeon.grid.Grid;
+import com.droiddungeon.grid.Player;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class EnemySystemTest {
+  // longer than any cooldown, so an enemy is ready to wander again at the start of every tick
+  private static final float LONG_TICK = 10f;
+  private static final long SEED = 12345L;
+
+  @Test
+  void midRangeEnemiesWanderEveryFourthTickAndDormantOnesComeBackAsTheyWereLeft() {
+    Grid grid = DungeonGenerator.generateInfinite(1f, SEED).grid();
+    DungeonGenerator.Room room = dangerRoom(grid);
+    EnemySystem system = new EnemySystem(grid, SEED, null, null);
+    // within a chunk of the room, so it spawns, but further than the full-rate radius
+    Player player = new Player(1, room.x - grid.getChunkSize() * 3 / 4, room.centerY());
+    List<Player> players = List.of(player);
+
+    system.update(LONG_TICK, players, Map.of());
+    Enemy enemy = enemyIn(system, room);
+    int id = enemy.id();
+
+    // a wander resets the cooldown, so "not ready" after a tick means the enemy ran that tick
+    int ticks = 1;
+    int firstWander = -1;
+    int wanders = 0;
+    for (int i = 0; i < 8; i++) {
+      system.update(LONG_TICK, players, Map.of());
+      ticks++;
+      if (!enemy.readyToWander()) {
+        wanders++;
+        if (firstWander < 0) firstWander = ticks;
+      }
+    }
+    assertEquals(2, wanders, "mid-range enemies run one tick in four");
+
+    enemy.applyDamage(5f);
+    int x = enemy.getGridX();
+    int y = enemy.getGridY();
+    float health = enemy.getHealth();
+
+    moveTo(player, room.x - grid.getChunkSize() * 10, room.centerY());
+    system.update(LONG_TICK, players, Map.of());
+    ticks++;
+    assertTrue(system.dormantCount() > 0);
+    for (Enemy e : system.getEnemies()) {
+      assertTrue(e.id() != id, "the enemy left the world");
+    }
+
+    // come back on a tick the enemy does not wander, so its position is the one it was left at
+    while ((ticks + 1 - firstWander) % 4 == 0) {
+      system.update(LONG_TICK, players, Map.of());
+      ticks++;
+    }
+    moveTo(player, room.x - grid.getChunkSize() * 3 / 4, room.centerY());
+    system.update(LONG_TICK, players, Map.of());
+
+    Enemy woken = null;
+    for (Enemy e : system.getEnemies()) {
+      if (e.id() == id) woken = e;
+    }
+    assertTrue(woken != null, "the enemy is back");
+    assertEquals(enemy.getType(), woken.getType());
+    assertEquals(x, woken.getGridX());
+    assertEquals(y, woken.getGridY());
+    assertEquals(health, woken.getHealth());
+    assertEquals(enemy.getHomeX(), woken.getHomeX());
+    assertEquals(enemy.getHomeY(), woken.getHomeY());
+    assertEquals(enemy.getRoomMinX(), woken.getRoomMinX());
+    assertEquals(enemy.getRoomMinY(), woken.getRoomMinY());
+    assertEquals(enemy.getRoomMaxX(), woken.getRoomMaxX());
+    assertEquals(enemy.getRoomMaxY(), woken.getRoomMaxY());
+  }
+
+  @Test
+  void anEnemyFarFromAPlayerStaysAwakeWhileItsRoomIsNear() {
+    Grid grid = DungeonGenerator.generateInfinite(1f, SEED).grid();
+    DungeonGenerator.Room room = dangerRoom(grid);
+    EnemySystem system = new EnemySystem(grid, SEED, null, null);
+    Player player = new Player(1, room.x - grid.getChunkSize() / 2, room.centerY());
+    List<Player> players = List.of(player);
+
+    system.update(LONG_TICK, players, Map.of());
+    Enemy enemy = enemyIn(system, room);
+    int id = enemy.id();
+    // strayed well past the dormant radius, on the far side of its room from the player
+    enemy.applyServerState(
+        room.x + room.width + grid.getChunkSize() * 4, room.centerY(), enemy.getHealth(), false);
+
+    for (int i = 0; i < 8; i++) {
+      system.update(LONG_TICK, players, Map.of());
+      assertEquals(0, system.dormantCount(), "the room is near, so its enemy stays awake");
+      assertTrue(system.getEnemies().stream().anyMatch(e -> e.id() == id));
+    }
+  }
+
+  @Test
+  void aWokenEnemyMovesOffATileSomethingElseHasTaken() {
+    Grid grid = DungeonGenerator.generateInfinite(1f, SEED).grid();
+    DungeonGenerator.Room room = dangerRoom(grid);
+    EntityWorld world = new EntityWorld();
+    EnemySystem system = new EnemySystem(grid, SEED, world, null);
+    Player player = new Player(1, room.x - grid.getChunkSize() * 3 / 4, room.centerY());
+    List<Player> players = List.of(player);
+
+    system.update(LONG_TICK, players, Map.of());
+    Enemy enemy = enemyIn(system, room);
+    int id = enemy.id();
+    int x = enemy.getGridX();
+    int y = enemy.getGridY();
+    moveTo(player, room.x - grid.getChunkSize() * 10, room.centerY());
+    system.update(LONG_TICK, players, Map.of());
+    assertTrue(system.dormantCount() > 0);
+
+    // another player walks onto the tile the enemy was packed away on
+    world.add(new Player(2, x, y));
+    moveTo(player, room.x - grid.getChunkSize() * 3 / 4, room.centerY());
+    system.update(LONG_TICK, players, Map.of());
+
+    Enemy woken = null;
+    for (Enemy e : system.getEnemies()) {
+      if (e.id() == id) woken = e;
+    }
+    assertTrue(woken != null, "the enemy is back");
+    assertFalse(woken.getGridX() == x && woken.getGridY() == y, "not on the taken tile");
+    assertTrue(Math.abs(woken.getGridX() - x) <= 2 && Math.abs(woken.getGridY() - y) <= 2);
+    assertTrue(grid.isWalkable(woken.getGridX(), woken.getGridY()));
+  }
+
+  private static DungeonGenerator.Room dangerRoom(Grid grid) {
+    int reach = grid.getChunkSize() * 4;
+    for (DungeonGenerator.Room room : grid.getRoomsInArea(-reach, -reach, reach, reach)) {
+      if (room.type == DungeonGenerator.RoomType.DANGER) return room;
+    }
+    throw new AssertionError("no danger room near the origin");
+  }
+
+  private static Enemy enemyIn(EnemySystem system, DungeonGenerator.Room room) {
+    for (Enemy enemy : system.getEnemies()) {
+      if (enemy.getRoomMinX() == room.x && enemy.getRoomMinY() == room.y) return enemy;
+    }
+    throw new AssertionError("no enemy spawned in the room");
+  }
+
+  private static void moveTo(Player player, int x, int y) {
+    player.setServerPosition(x, y, x, y);
+  }
+}
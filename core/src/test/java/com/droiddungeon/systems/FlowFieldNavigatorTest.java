@@ -0,0 +1,39 @@
+package com.droiddungeon.systems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.droiddungeon.grid.BlockMaterial;
+import com.droiddungeon.grid.DungeonGenerator;
+import com.droiddungeon.grid.Grid;
+import com.droiddungeon.grid.Player;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FlowFieldNavigatorTest {
+
+  @Test
+  void distancesGoAroundBlocksAndFieldsRebuildOnlyWhenSomethingChanged() {
+    DungeonGenerator.DungeonLayout layout = DungeonGenerator.generateInfinite(1f, 12345L);
+    Grid grid = layout.grid();
+    int x = layout.spawnX();
+    int y = layout.spawnY();
+    Player player = new Player(1, x, y);
+    FlowFieldNavigator navigator = new FlowFieldNavigator(grid, 6);
+
+    navigator.update(List.of(player));
+    assertEquals(0, navigator.distance(player, x, y));
+    assertEquals(2, navigator.distance(player, x + 2, y));
+    assertEquals(FlowFieldNavigator.UNREACHABLE, navigator.distance(player, x + 7, y));
+
+    navigator.update(List.of(player));
+    navigator.distance(player, x + 2, y);
+    assertEquals(1, navigator.rebuilds());
+
+    grid.setBlock(x + 1, y, BlockMaterial.STONE);
+    navigator.update(List.of(player));
+    assertEquals(FlowFieldNavigator.UNREACHABLE, navigator.distance(player, x + 1, y));
+    assertTrue(navigator.distance(player, x + 2, y) > 2, "the path now detours round the block");
+    assertEquals(2, navigator.rebuilds());
+  }
+}
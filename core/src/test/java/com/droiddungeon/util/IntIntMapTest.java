@@ -0,0 +1,67 @@
+package com.droiddungeon.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntIntMapTest {
+
+  @Test
+  void removalShiftsAChainBackAcrossTheEndOfTheTable() {
+    IntIntMap map = new IntIntMap(4, -1); // 8 slots
+    List<Integer> lastSlot = keysWithHome(7, 3);
+    int wrapped = keysWithHome(0, 1).get(0);
+    for (int i = 0; i < lastSlot.size(); i++) {
+      map.put(lastSlot.get(i), i);
+    }
+    map.put(wrapped, 99); // probes past the three keys homed at 7 into slot 2
+
+    assertEquals(0, map.remove(lastSlot.get(0)));
+
+    assertFalse(map.containsKey(lastSlot.get(0)));
+    assertEquals(1, map.get(lastSlot.get(1)));
+    assertEquals(2, map.get(lastSlot.get(2)));
+    assertEquals(99, map.get(wrapped));
+    assertEquals(3, map.size());
+    assertEquals(99, map.remove(wrapped));
+    assertEquals(2, map.get(lastSlot.get(2)));
+    assertEquals(-1, map.get(wrapped));
+  }
+
+  @Test
+  void matchesAHashMapUnderRandomPutsAndRemoves() {
+    IntIntMap map = new IntIntMap(4, -1);
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(46);
+    for (int op = 0; op < 20_000; op++) {
+      // a small key range keeps probe chains long and collisions frequent
+      int key = random.nextInt(64) - 32;
+      int value = random.nextInt(1000);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.getOrDefault(key, -1).intValue(), map.remove(key));
+        expected.remove(key);
+      } else {
+        assertEquals(expected.getOrDefault(key, -1).intValue(), map.put(key, value));
+        expected.put(key, value);
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (int key = -32; key < 32; key++) {
+      assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key));
+    }
+  }
+
+  private static List<Integer> keysWithHome(int slot, int count) {
+    List<Integer> keys = new ArrayList<>();
+    for (int key = 1; keys.size() < count; key++) {
+      if ((IntIntMap.mix(key) & 7) == slot) keys.add(key);
+    }
+    return keys;
+  }
+}
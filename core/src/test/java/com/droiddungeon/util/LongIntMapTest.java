@@ -0,0 +1,160 @@
+package com.droiddungeon.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LongIntMapTest {
+
+  @Test
+  void removalShiftsAChainBackAcrossTheEndOfTheTable() {
+    LongIntMap map = new LongIntMap(4, -1); // 8 slots
+    List<Long> lastSlot = keysWithHome(7, 3);
+    long wrapped = keysWithHome(0, 1).get(0);
+    for (int i = 0; i < lastSlot.size(); i++) {
+      map.put(lastSlot.get(i), i);
+    }
+    map.put(wrapped, 99); // probes past the three keys homed at 7 into slot 2
+
+    assertEquals(0, map.remove(lastSlot.get(0)));
+
+    assertFalse(map.containsKey(lastSlot.get(0)));
+    assertEquals(1, map.get(lastSlot.get(1)));
+    assertEquals(2, map.get(lastSlot.get(2)));
+    assertEquals(99, map.get(wrapped));
+    assertEquals(3, map.size());
+    assertEquals(99, map.remove(wrapped));
+    assertEquals(2, map.get(lastSlot.get(2)));
+    assertEquals(-1, map.get(wrapped));
+  }
+
+  @Test
+  void matchesAHashMapUnderRandomPutsAndRemoves() {
+    LongIntMap map = new LongIntMap(4, -1);
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(46);
+    for (int op = 0; op < 20_000; op++) {
+      // a small key range keeps probe chains long and collisions frequent
+      long key = random.nextInt(64) - 32;
+      int value = random.nextInt(1000);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.getOrDefault(key, -1).intValue(), map.remove(key));
+        expected.remove(key);
+      } else {
+        assertEquals(expected.getOrDefault(key, -1).intValue(), map.put(key, value));
+        expected.put(key, value);
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (long key = -32; key < 32; key++) {
+      assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key));
+    }
+  }
+
+  @Test
+  void negativeChunkCoordinatesStayDistinct() {
+    LongIntMap map = new LongIntMap(4, -1);
+    // sign-extended halves: (-1, -1) is -1L, and (-1, 0) and (0, -1) differ only in which half
+    for (int x = -8; x <= 8; x++) {
+      for (int y = -8; y <= 8; y++) {
+        map.put(pack(x, y), index(x, y));
+      }
+    }
+    assertEquals(17 * 17, map.size());
+    for (int x = -8; x <= 8; x++) {
+      for (int y = -8; y <= 8; y++) {
+        assertEquals(index(x, y), map.get(pack(x, y)));
+      }
+    }
+    assertEquals(index(-1, -1), map.get(-1L));
+    assertEquals(index(-1, 0), map.remove(pack(-1, 0)));
+    assertEquals(index(0, -1), map.get(pack(0, -1)));
+    assertEquals(-1, map.get(pack(-1, 0)));
+  }
+
+  @Test
+  void theReservedKeyIsOneChunkAtTheMostNegativeX() {
+    LongIntMap map = new LongIntMap(4, -1);
+    map.put(pack(Integer.MIN_VALUE, 1), 1);
+    map.put(pack(Integer.MAX_VALUE, 0), 2);
+
+    assertEquals(1, map.get(pack(Integer.MIN_VALUE, 1)));
+    assertEquals(2, map.get(pack(Integer.MAX_VALUE, 0)));
+    assertThrows(IllegalArgumentException.class, () -> map.put(pack(Integer.MIN_VALUE, 0), 3));
+  }
+
+  @Test
+  void keysWhoseHalvesCancelOrSwapDoNotShareAHome() {
+    // folding the halves together with xor sends every (i, i) to 0 and (i, 7) to (7, i)'s slot
+    List<Long> keys = new ArrayList<>();
+    for (int i = -512; i < 512; i++) {
+      keys.add(pack(i, i));
+      if (i != 7) {
+        keys.add(pack(i, 7));
+        keys.add(pack(7, i));
+      }
+    }
+    LongIntMap map = new LongIntMap(4, -1);
+    Set<Integer> homes = new HashSet<>();
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(-1, map.put(keys.get(i), i));
+      homes.add(LongIntMap.mix(keys.get(i)) & 8191);
+    }
+    assertEquals(keys.size(), map.size());
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(i, map.get(keys.get(i)));
+    }
+    // a uniform hash puts these 3070 keys in about 2560 of 8192 slots
+    assertTrue(homes.size() > 2300, homes.size() + " distinct homes");
+  }
+
+  @Test
+  void growsThroughAClusteredBlockOfChunks() {
+    LongIntMap map = new LongIntMap(4, -1);
+    // the chunks around a player: one contiguous block, straddling both axes
+    for (int x = -40; x < 40; x++) {
+      for (int y = -40; y < 40; y++) {
+        assertEquals(-1, map.put(pack(x, y), index(x, y)));
+      }
+    }
+    assertEquals(80 * 80, map.size());
+    for (int x = -40; x < 40; x++) {
+      for (int y = -40; y < 40; y++) {
+        if (((x ^ y) & 1) == 0) assertEquals(index(x, y), map.remove(pack(x, y)));
+      }
+    }
+    assertEquals(80 * 80 / 2, map.size());
+    for (int x = -40; x < 40; x++) {
+      for (int y = -40; y < 40; y++) {
+        assertEquals(((x ^ y) & 1) == 0 ? -1 : index(x, y), map.get(pack(x, y)));
+      }
+    }
+  }
+
+  /** Chunk coordinates packed the way {@code EntityWorld} keys its occupancy. */
+  private static long pack(int x, int y) {
+    return ((long) x << 32) ^ (y & 0xffffffffL);
+  }
+
+  private static int index(int x, int y) {
+    return (x + 100) * 1000 + (y + 100);
+  }
+
+  private static List<Long> keysWithHome(int slot, int count) {
+    List<Long> keys = new ArrayList<>();
+    for (long key = 1; keys.size() < count; key++) {
+      if ((LongIntMap.mix(key) & 7) == slot) keys.add(key);
+    }
+    return keys;
+  }
+}
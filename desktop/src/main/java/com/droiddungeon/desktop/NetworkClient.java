@@ -2,10 +2,15 @@ package com.droiddungeon.desktop;
 
 import com.droiddungeon.input.MovementIntent;
 import com.droiddungeon.input.WeaponInput;
+import com.droiddungeon.net.ClockSync;
 import com.droiddungeon.net.NetworkClientAdapter;
+import com.droiddungeon.net.SnapshotQueue;
 import com.droiddungeon.net.codec.CborProtocolCodec;
+import com.droiddungeon.net.codec.PayloadCompression;
 import com.droiddungeon.net.codec.ProtocolCodec;
 import com.droiddungeon.net.dto.ClientInputDto;
+import com.droiddungeon.net.dto.PingDto;
+import com.droiddungeon.net.dto.PongDto;
 import com.droiddungeon.net.dto.WelcomeDto;
 import com.droiddungeon.net.dto.WorldSnapshotDto;
 import com.droiddungeon.net.mapper.InputDtoMapper;
@@ -15,24 +20,35 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
 public final class NetworkClient extends WebSocketClient implements NetworkClientAdapter {
   private final ProtocolCodec codec = CborProtocolCodec.createDefault();
   private final NetworkSnapshotBuffer buffer;
-  private final AtomicReference<WorldSnapshotDto> latestSnapshot = new AtomicReference<>();
+  private final SnapshotQueue snapshots = new SnapshotQueue();
+  private final ClockSync clockSync = new ClockSync();
   private volatile boolean connected = false;
   private long tickCounter = 0L;
   private boolean connectAttempted = false;
   private String playerId = null;
 
   public NetworkClient(URI serverUri, NetworkSnapshotBuffer buffer) {
-    super(serverUri);
+    super(withCompressionOffer(serverUri));
     this.buffer = buffer;
   }
 
+  /** Lists the payload codecs we accept so the server can pick one for the welcome message. */
+  private static URI withCompressionOffer(URI uri) {
+    String offer = System.getProperty("network.compression", "deflate,lz");
+    if (offer.isBlank() || (uri.getQuery() != null && uri.getQuery().contains("compression="))) {
+      return uri;
+    }
+    String s = uri.toString();
+    return URI.create(s + (uri.getQuery() == null ? "?" : "&") + "compression=" + offer);
+  }
+
   @Override
   public void onOpen(ServerHandshake handshakedata) {
     connected = true;
@@ -47,11 +63,30 @@ public final class NetworkClient extends WebSocketClient implements NetworkClien
           playerId = welcome.playerId();
           PlayerIdStore.save(playerId);
         }
+        if (welcome != null) {
+          clockSync.setTickMillis(welcome.tickMillis());
+          codec.enableCompression(
+              PayloadCompression.fromId(welcome.compression()),
+              Integer.getInteger(
+                  "network.compressionThreshold", PayloadCompression.DEFAULT_THRESHOLD));
+        }
+        return;
+      }
+      if (decoded instanceof ProtocolCodec.PongMessage(PongDto pong)) {
+        if (pong != null) {
+          clockSync.onPong(pong.clientTimeNanos(), System.nanoTime());
+        }
         return;
       }
       if (decoded instanceof ProtocolCodec.SnapshotMessage(WorldSnapshotDto snap)) {
         if (snap != null) {
-          latestSnapshot.set(snap);
+          long now = System.nanoTime();
+          clockSync.onSnapshot(snap.tick(), now);
+          // snapshots arrive every tick, so they pace the pings; ClockSync stays on this thread
+          if (clockSync.pingDue(now)) {
+            send(codec.encodePing(new PingDto(now)));
+          }
+          snapshots.offer(snap);
           if (playerId != null && snap.players() != null) {
             for (var p : snap.players()) {
               if (playerId.equals(p.playerId())) {
@@ -123,11 +158,13 @@ public final class NetworkClient extends WebSocketClient implements NetworkClien
       boolean drop,
       boolean pickUp,
       boolean mine,
-      String playerId) {
+      String playerId,
+      long viewTick) {
     if (!connected) return;
     String pid = playerId != null ? playerId : this.playerId;
     if (pid == null) return;
-    ClientInputDto dto = InputDtoMapper.toDto(tick, pid, movement, weapon, drop, pickUp, mine);
+    ClientInputDto dto =
+        InputDtoMapper.toDto(tick, pid, movement, weapon, drop, pickUp, mine, viewTick);
     tickCounter = Math.max(tickCounter, tick + 1);
     try {
       send(codec.encodeInput(dto));
@@ -142,7 +179,22 @@ public final class NetworkClient extends WebSocketClient implements NetworkClien
 
   @Override
   public WorldSnapshotDto pollSnapshot() {
-    return latestSnapshot.getAndSet(null);
+    return snapshots.poll();
+  }
+
+  @Override
+  public void drainSnapshots(Consumer<WorldSnapshotDto> sink) {
+    snapshots.drain(sink);
+  }
+
+  @Override
+  public SnapshotQueue.Stats snapshotStats() {
+    return snapshots.stats();
+  }
+
+  @Override
+  public ClockSync clockSync() {
+    return clockSync;
   }
 
   @Override
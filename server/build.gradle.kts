@@ -36,6 +36,24 @@ application {
     mainClass.set("com.droiddungeon.server.HttpServer")
 }
 
+// Headless bot load test against an in-process server, e.g. --args="--bots=2000 --duration=120"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs simulated websocket clients against the server and reports latency/bandwidth."
+    mainClass.set("com.droiddungeon.server.loadtest.LoadTest")
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "2g"
+}
+
+// Headless replay of a recorded session, e.g. --args="--file=recordings/default-1700000000000.ddrec"
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays recorded inputs at full speed and reports ticks/s, allocation and state hash."
+    mainClass.set("com.droiddungeon.server.replay.Replay")
+    classpath = sourceSets["main"].runtimeClasspath
+    maxHeapSize = "2g"
+}
+
 tasks.withType<ScalaCompile>().configureEach {
     scalaCompileOptions.apply {
         additionalParameters = listOf(
@@ -1,107 +1,78 @@
 package com.droiddungeon.server
 
-import com.droiddungeon.net.dto.{
-  ClientInputDto,
-  EnemySnapshotDto,
-  WorldSnapshotDto
-}
+import com.droiddungeon.net.dto.ClientInputDto
+import org.apache.pekko.Done
 import org.apache.pekko.actor.typed.scaladsl.Behaviors
-import org.apache.pekko.actor.typed.{ActorRef, Behavior}
+import org.apache.pekko.actor.typed.{ActorRef, Behavior, PostStop}
 
 import scala.concurrent.duration._
-import scala.jdk.CollectionConverters.*
 
+/** Actor front of the world. The simulation itself runs on [[WorldSimulation]]'s own thread;
+  * this actor only forwards session commands into it and stops it with the actor system.
+  */
 object GameWorldActor {
+  val Simulation: SimulationConfig = SimulationConfig.fromSystemProperties()
+  val TickInterval: FiniteDuration = Simulation.tickInterval
+
   sealed trait Command
   final case class RegisterSession(
       playerId: String,
-      ref: ActorRef[WorldSnapshotDto]
+      outbox: SnapshotOutbox
   ) extends Command
-  final case class UnregisterSession(ref: ActorRef[WorldSnapshotDto])
-      extends Command
+  final case class UnregisterSession(outbox: SnapshotOutbox) extends Command
   final case class ApplyInput(input: ClientInputDto) extends Command
   final case class AdvanceGlobal(dt: Float) extends Command
-  private case object Tick extends Command
-  def apply(loop: ServerGameLoop): Behavior[Command] =
-    Behaviors.withTimers { timers =>
-      timers.startTimerAtFixedRate(Tick, 50.millis)
-      active(
-        loop,
-        SessionRegistry.empty,
-        TickProcessor.empty,
-        SnapshotService.empty
-      )
-    }
 
-  private def active(
+  /** Stops the simulation, saves connected players and what changed since the last autosave and
+    * stops the actor; replies once everything is on disk.
+    */
+  final case class Hibernate(replyTo: ActorRef[Done]) extends Command
+
+  def apply(
+      worldId: String,
       loop: ServerGameLoop,
-      sessions: SessionRegistry,
-      ticks: TickProcessor,
-      snapshots: SnapshotService
+      metrics: ServerMetrics,
+      workers: TickWorkers
   ): Behavior[Command] =
-    Behaviors.receive { (ctx, msg) =>
-      msg match {
-        case RegisterSession(playerId, ref) =>
-          val updatedSessions = sessions.register(playerId, ref)
-          ctx.log.info("Session registered {} as player {}", ref, playerId)
-          val (updatedTicks, _) = ticks.registerPlayer(loop, playerId)
-          val enemiesAll =
-            loop.enemySystem().getEnemies().asScala.toSeq.map { e =>
-              new EnemySnapshotDto(
-                e.id(),
-                e.getType.toString,
-                e.getRenderX,
-                e.getRenderY,
-                e.getGridX,
-                e.getGridY,
-                e.getHealth
-              )
-            }
-          val (updatedSnapshots, snap) = snapshots.buildInitialSnapshot(
-            loop,
-            playerId,
-            updatedSessions.sessions.keySet,
-            updatedTicks.tick,
-            updatedTicks.processedTicks,
-            enemiesAll
-          )
-          ref ! snap
-          active(loop, updatedSessions, updatedTicks, updatedSnapshots)
-
-        case UnregisterSession(ref) =>
-          val (updatedSessions, removedPlayers) = sessions.unregister(ref)
-          ctx.log.info("Session unregistered {}", ref)
-          val nextTicks = removedPlayers.foldLeft(ticks) { (acc, pid) =>
-            acc.unregisterPlayer(loop, pid)
-          }
-          val nextSnapshots = snapshots.removePlayers(removedPlayers)
-          active(loop, updatedSessions, nextTicks, nextSnapshots)
-
-        case ApplyInput(input) =>
-          if (sessions.contains(input.playerId())) {
-            val nextTicks = ticks.enqueueInput(input)
-            active(loop, sessions, nextTicks, snapshots)
-          } else {
+    Behaviors.setup { ctx =>
+      val simulation = new WorldSimulation(loop, metrics, Simulation, workers, worldId)
+      simulation.start()
+      ctx.log.info(
+        "World {} simulation running at {} Hz, late ticks: {}",
+        worldId,
+        Simulation.tickRate,
+        Simulation.latePolicy
+      )
+      Behaviors
+        .receiveMessage[Command] {
+          case Hibernate(replyTo) =>
+            // once the thread has exited nothing else touches the loop
+            simulation.stop()
+            try
+              // shutdown hibernates worlds with players still connected; the world checkpoint
+              // only carries players when the autosave asks for a full save
+              loop.checkpointPlayers()
+              loop.checkpointWorld()
+              ctx.log.info("World {} hibernated", worldId)
+            catch case ex: Exception => ctx.log.error(s"Failed to hibernate world $worldId", ex)
+            // waits for the journal and autosave writers to drain
+            loop.close()
+            replyTo ! Done
+            Behaviors.stopped
+          case msg @ RegisterSession(playerId, _) =>
+            // the journal read overlaps the wait for the next tick
+            loop.prefetchPlayer(playerId)
+            simulation.submit(msg)
             Behaviors.same
-          }
-
-        case AdvanceGlobal(dt) =>
-          loop.updateGlobal(dt)
+          case msg =>
+            simulation.submit(msg)
+            Behaviors.same
+        }
+        .receiveSignal { case (_, PostStop) =>
+          simulation.stop()
+          loop.close()
           Behaviors.same
-
-        case Tick =>
-          val (nextTicks, tickResult) = ticks.processTick(loop)
-          val (nextSnapshots, outgoing) = snapshots.buildSnapshots(
-            loop,
-            sessions.sessions,
-            tickResult.tick,
-            tickResult.processedTicks,
-            tickResult.weaponStates,
-            tickResult.enemies
-          )
-          outgoing.foreach { case (ref, snap) => ref ! snap }
-          active(loop, sessions, nextTicks, nextSnapshots)
-      }
+        }
     }
 
 }
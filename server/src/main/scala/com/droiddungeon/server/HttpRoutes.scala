@@ -1,21 +1,30 @@
 package com.droiddungeon.server
 
 import org.apache.pekko.actor.typed.ActorSystem
-import org.apache.pekko.http.scaladsl.model.{ContentTypes, HttpEntity}
+import org.apache.pekko.http.scaladsl.model.ws.Message
+import org.apache.pekko.http.scaladsl.model.{ContentTypes, HttpEntity, StatusCodes}
 import org.apache.pekko.http.scaladsl.server.Directives.*
 import org.apache.pekko.http.scaladsl.server.Route
+import org.apache.pekko.stream.scaladsl.{Flow, Sink, Source}
+import scala.concurrent.duration.*
 
 object HttpRoutes:
-  def build(
-      worldActor: org.apache.pekko.actor.typed.ActorRef[GameWorldActor.Command]
-  )(using system: ActorSystem[Nothing]): Route = {
+  private val UpgradeTimeout = 30.seconds
+
+  def build(worlds: WorldInstances)(using system: ActorSystem[Nothing]): Route = {
+    val ec = system.executionContext
     val tickRoute: Option[Route] =
       if (sys.props.get("tick.enabled").contains("true"))
         Some(
           path("tick") {
-            parameter("dt".as[Double].withDefault(0.016)) { dt =>
-              worldActor ! GameWorldActor.AdvanceGlobal(dt.toFloat)
-              complete(HttpEntity(ContentTypes.`text/plain(UTF-8)`, "ticked"))
+            parameters("dt".as[Double].withDefault(0.016), "world".withDefault(WorldInstances.DefaultWorld)) {
+              (dt, world) =>
+                worlds.awakeWorld(world) match
+                  case Some(actor) =>
+                    actor ! GameWorldActor.AdvanceGlobal(dt.toFloat)
+                    complete(HttpEntity(ContentTypes.`text/plain(UTF-8)`, "ticked"))
+                  case None =>
+                    complete(StatusCodes.NotFound, s"World $world is not awake")
             }
           }
         )
@@ -27,10 +36,37 @@ object HttpRoutes:
           complete(HttpEntity(ContentTypes.`text/plain(UTF-8)`, "ok"))
         }
       },
+      path("metrics") {
+        get {
+          complete(HttpEntity(ContentTypes.`text/plain(UTF-8)`, worlds.renderMetrics()))
+        }
+      },
       tickRoute.getOrElse(reject),
       path("ws") {
-        parameter("playerId".?) { pid =>
-          handleWebSocketMessages(WebSocketSessionHandler.websocketFlow(worldActor, pid)(using system))
+        parameters("playerId".?, "compression".?, "world".withDefault(WorldInstances.DefaultWorld)) {
+          (pid, compression, world) =>
+            extractWebSocketUpgrade { upgrade =>
+              onSuccess(worlds.acquire(world)) {
+                case Right(lease) =>
+                  val session = new WorldInstances.SessionLease(worlds, lease)
+                  // nothing else hands the lease back if the upgrade fails before the flow runs
+                  system.scheduler.scheduleOnce(UpgradeTimeout, () => session.abandon())(using ec)
+                  val flow = Flow.fromMaterializer { (_, _) =>
+                    if session.open() then
+                      WebSocketSessionHandler.websocketFlow(
+                        lease.world,
+                        pid,
+                        compression,
+                        lease.metrics,
+                        () => session.close()
+                      )(using system)
+                    else Flow.fromSinkAndSource(Sink.cancelled[Message], Source.empty[Message])
+                  }
+                  complete(upgrade.handleMessages(flow))
+                case Left(reason) =>
+                  complete(StatusCodes.ServiceUnavailable, reason)
+              }
+            }
         }
       }
     )
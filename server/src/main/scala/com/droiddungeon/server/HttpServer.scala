@@ -3,36 +3,57 @@ package com.droiddungeon.server
 import org.apache.pekko.actor.typed.ActorSystem
 import org.apache.pekko.actor.typed.scaladsl.Behaviors
 import org.apache.pekko.http.scaladsl.Http
-import com.droiddungeon.config.GameConfig
-import com.droiddungeon.server.ServerGameLoop
+import com.droiddungeon.items.ItemRegistry
 import com.droiddungeon.server.{HttpRoutes, ItemRegistryLoader}
-import scala.concurrent.ExecutionContext
+import scala.concurrent.duration.*
+import scala.concurrent.{Await, ExecutionContext, Future}
 import scala.util.{Failure, Success}
 
 object HttpServer:
+  /** A bound server; [[stop]] unbinds it, hibernates every world and releases shared resources. */
+  final case class Running(
+      binding: Http.ServerBinding,
+      itemRegistry: ItemRegistry,
+      worlds: WorldInstances,
+      workers: TickWorkers
+  ):
+    def port: Int = binding.localAddress.getPort
+
+    def stop()(using ec: ExecutionContext): Future[Unit] =
+      for
+        _ <- binding.unbind()
+        _ <- worlds.shutdown()
+      yield
+        workers.shutdown()
+        itemRegistry.close()
+
   def main(args: Array[String]): Unit =
     implicit val system: ActorSystem[Nothing] = ActorSystem(Behaviors.empty, "droiddungeon-server")
     implicit val ec: ExecutionContext = system.executionContext
 
     val seed = sys.props.get("network.seed").flatMap(s => scala.util.Try(s.toLong).toOption).getOrElse(System.currentTimeMillis())
 
-    val itemRegistry = ItemRegistryLoader.load()
-    val loop = new ServerGameLoop(GameConfig.defaults(), itemRegistry, seed)
-
-    val worldActor = system.systemActorOf(GameWorldActor(loop), "world")
-
-    val route = HttpRoutes.build(worldActor)
-
-    Http().newServerAt("0.0.0.0", 8080).bind(route).onComplete {
-      case Success(binding) =>
-        val addr = binding.localAddress
+    start("0.0.0.0", 8080, seed).onComplete {
+      case Success(running) =>
+        val addr = running.binding.localAddress
         system.log.info("Server online at http://{}:{}/", addr.getHostString, addr.getPort)
+        sys.addShutdownHook {
+          Await.ready(running.stop(), 60.seconds)
+          system.terminate()
+        }
       case Failure(ex) =>
         system.log.error("Failed to bind HTTP server", ex)
         system.terminate()
     }
 
-    sys.addShutdownHook {
-      itemRegistry.close()
-      system.terminate()
-    }
+  /** Sets up world hosting and binds the routes; also used to run the server in-process (load
+    * tests). Worlds are created on first use.
+    */
+  def start(host: String, port: Int, seed: Long)(using system: ActorSystem[Nothing]): Future[Running] =
+    val itemRegistry = ItemRegistryLoader.load()
+    val workers = TickWorkers.fromSystemProperties()
+    val worlds = new WorldInstances(itemRegistry, seed, WorldLimits.fromSystemProperties(), workers)
+
+    val route = HttpRoutes.build(worlds)
+
+    Http().newServerAt(host, port).bind(route).map(Running(_, itemRegistry, worlds, workers))(using system.executionContext)
@@ -0,0 +1,84 @@
+package com.droiddungeon.server
+
+import java.util.concurrent.atomic.{AtomicLong, AtomicLongArray}
+
+/** HDR-style log-linear histogram of non-negative longs (typically micro- or nanoseconds).
+  *
+  * Each power of two is split into `2^subBucketBits` linear sub-buckets, so every recorded value
+  * is kept with a relative error below `2^-subBucketBits` (about 3% by default) across the whole
+  * `long` range, in a fixed array of counters. Recording is lock-free and allocation-free and may
+  * happen from any number of threads.
+  */
+final class LatencyHistogram(subBucketBits: Int = 5):
+  private val subBuckets = 1 << subBucketBits
+  private val counts = new AtomicLongArray((64 - subBucketBits + 1) * subBuckets)
+  private val total = new AtomicLong()
+  private val valueSum = new AtomicLong()
+  private val maxValue = new AtomicLong()
+
+  def record(value: Long): Unit =
+    val v = math.max(0L, value)
+    counts.incrementAndGet(indexOf(v))
+    total.incrementAndGet()
+    valueSum.addAndGet(v)
+    maxValue.accumulateAndGet(v, (a, b) => math.max(a, b))
+
+  def count: Long = total.get()
+
+  /** Sum of every recorded value; only grows until [[reset]]. */
+  def sum: Long = valueSum.get()
+
+  def max: Long = maxValue.get()
+
+  def mean: Double =
+    val n = total.get()
+    if n == 0 then 0.0 else valueSum.get().toDouble / n
+
+  /** Upper bound of the bucket holding the `q`-quantile (`q` in 0..1); 0 when empty. */
+  def percentile(q: Double): Long =
+    val n = total.get()
+    if n == 0 then 0L
+    else
+      val rank = math.max(1L, math.ceil(q * n).toLong)
+      var seen = 0L
+      var i = 0
+      while i < counts.length do
+        seen += counts.get(i)
+        if seen >= rank then return math.min(upperBound(i), max)
+        i += 1
+      max
+
+  /** Adds every count of `other` into this histogram (same bucket layout required). */
+  def add(other: LatencyHistogram): Unit =
+    require(other.counts.length == counts.length, "bucket layouts differ")
+    var i = 0
+    while i < counts.length do
+      val c = other.counts.get(i)
+      if c != 0 then counts.addAndGet(i, c)
+      i += 1
+    total.addAndGet(other.total.get())
+    valueSum.addAndGet(other.valueSum.get())
+    maxValue.accumulateAndGet(other.maxValue.get(), (a, b) => math.max(a, b))
+
+  def reset(): Unit =
+    var i = 0
+    while i < counts.length do
+      counts.set(i, 0L)
+      i += 1
+    total.set(0L)
+    valueSum.set(0L)
+    maxValue.set(0L)
+
+  private def indexOf(v: Long): Int =
+    if v < subBuckets then v.toInt
+    else
+      val shift = 63 - java.lang.Long.numberOfLeadingZeros(v) - subBucketBits
+      val sub = ((v >>> shift) & (subBuckets - 1)).toInt
+      (shift + 1) * subBuckets + sub
+
+  private def upperBound(index: Int): Long =
+    if index < subBuckets then index.toLong
+    else
+      val shift = index / subBuckets - 1
+      val sub = index % subBuckets
+      (((subBuckets | sub).toLong + 1) << shift) - 1
@@ -0,0 +1,61 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.net.dto.EnemySnapshotDto
+import scala.collection.mutable
+
+/** Enemies of one tick bucketed into square regions of `regionChunks` × `regionChunks` chunks.
+  *
+  * Snapshots are assembled from the regions around each recipient instead of the whole enemy
+  * list, so a player only receives (and is diffed against) enemies near them. Entities that end
+  * up in a different region than on the previous tick count as handoffs.
+  */
+final case class RegionIndex(
+    regionTiles: Int,
+    regions: Map[(Int, Int), Vector[EnemySnapshotDto]],
+    regionOf: Map[Int, (Int, Int)],
+    handoffs: Int
+):
+  /** Enemies in every region that intersects the square of `radius` tiles around the point, in
+    * region order and tick order within a region.
+    */
+  def enemiesAround(x: Int, y: Int, radius: Int): Vector[EnemySnapshotDto] =
+    val minRx = Math.floorDiv(x - radius, regionTiles)
+    val maxRx = Math.floorDiv(x + radius, regionTiles)
+    val minRy = Math.floorDiv(y - radius, regionTiles)
+    val maxRy = Math.floorDiv(y + radius, regionTiles)
+    val out = Vector.newBuilder[EnemySnapshotDto]
+    for
+      rx <- minRx to maxRx
+      ry <- minRy to maxRy
+    do regions.get((rx, ry)).foreach(out ++= _)
+    out.result()
+
+object RegionIndex:
+  /** `server.regionChunks`: region edge length in chunks (default 2). */
+  val RegionChunks: Int =
+    sys.props.get("server.regionChunks").flatMap(_.toIntOption).filter(_ > 0).getOrElse(2)
+
+  val empty: RegionIndex = RegionIndex(1, Map.empty, Map.empty, 0)
+
+  def build(
+      enemies: Seq[EnemySnapshotDto],
+      chunkSize: Int,
+      previous: RegionIndex
+  ): RegionIndex =
+    val regionTiles = chunkSize * RegionChunks
+    val buckets =
+      mutable.HashMap.empty[(Int, Int), mutable.Builder[EnemySnapshotDto, Vector[EnemySnapshotDto]]]
+    val regionOf = Map.newBuilder[Int, (Int, Int)]
+    var handoffs = 0
+    enemies.foreach { e =>
+      val region = (Math.floorDiv(e.gridX(), regionTiles), Math.floorDiv(e.gridY(), regionTiles))
+      buckets.getOrElseUpdate(region, Vector.newBuilder[EnemySnapshotDto]) += e
+      regionOf += e.id() -> region
+      if previous.regionOf.get(e.id()).exists(_ != region) then handoffs += 1
+    }
+    RegionIndex(
+      regionTiles,
+      buckets.iterator.map((region, builder) => region -> builder.result()).toMap,
+      regionOf.result(),
+      handoffs
+    )
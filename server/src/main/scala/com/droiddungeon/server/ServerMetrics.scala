@@ -0,0 +1,171 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.net.dto.WorldSnapshotDto
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+
+/** Tick and network instrumentation for one world, rendered in the Prometheus text format on
+  * `/metrics`.
+  *
+  * Phase timings go into [[LatencyHistogram]]s (microseconds) and are exported as summaries with
+  * fixed quantiles; everything else is a plain counter or gauge. All members can be updated from
+  * any thread without locking, so the tick loop and the per-session encoding stages record
+  * directly.
+  */
+final class ServerMetrics:
+  import ServerMetrics.*
+
+  val processInputs = new LatencyHistogram()
+  val updateGlobal = new LatencyHistogram()
+  val buildSnapshots = new LatencyHistogram()
+  val encodeSnapshot = new LatencyHistogram()
+  val tickDuration = new LatencyHistogram()
+
+  /** Start-to-start time between ticks; drifts above the tick length when the loop falls behind. */
+  val tickInterval = new LatencyHistogram()
+
+  val ticks = new AtomicLong()
+  val tickOverruns = new AtomicLong()
+
+  /** Ticks dropped by the late-tick policy instead of being simulated. */
+  val ticksSkipped = new AtomicLong()
+
+  val snapshotsBuilt = new AtomicLong()
+  val snapshotsEncoded = new AtomicLong()
+  val snapshotBytes = new AtomicLong()
+
+  /** Snapshots folded into a pending one because the session's socket was backpressured. */
+  val snapshotsConflated = new AtomicLong()
+  val entitiesReplicated = new AtomicLong()
+  val chunksGenerated = new AtomicLong()
+  val meleeHits = new AtomicLong()
+
+  /** Enemies that moved into a different snapshot region (see [[RegionIndex]]). */
+  val regionHandoffs = new AtomicLong()
+  val activeRegions = new AtomicLong()
+
+  val loadedChunks = new AtomicLong()
+  val sessions = new AtomicLong()
+
+  /** Runs `body` and records its wall time into `histogram`. */
+  inline def time[A](histogram: LatencyHistogram)(inline body: A): A =
+    val start = System.nanoTime()
+    try body
+    finally histogram.record((System.nanoTime() - start) / 1000)
+
+  def recordSnapshot(snap: WorldSnapshotDto): Unit =
+    snapshotsBuilt.incrementAndGet()
+    entitiesReplicated.addAndGet(
+      length(snap.enemies()) + length(snap.groundItems()) + length(snap.players()) + length(snap.chunks())
+    )
+
+  def recordEncoded(bytes: Int, nanos: Long): Unit =
+    snapshotsEncoded.incrementAndGet()
+    snapshotBytes.addAndGet(bytes)
+    encodeSnapshot.record(nanos / 1000)
+
+  def render(): String = ServerMetrics.render(Seq((null, this)))
+
+object ServerMetrics:
+  private val Quantiles = Seq(0.5, 0.9, 0.99, 0.999, 1.0)
+
+  private def length(array: Array[?]): Int = if array == null then 0 else array.length
+
+  private val Phases: Seq[(String, ServerMetrics => LatencyHistogram)] = Seq(
+    ("process_inputs", _.processInputs),
+    ("update_global", _.updateGlobal),
+    ("build_snapshots", _.buildSnapshots),
+    ("encode_snapshot", _.encodeSnapshot),
+    ("total", _.tickDuration)
+  )
+
+  private val Counters: Seq[(String, String, ServerMetrics => AtomicLong)] = Seq(
+    ("droiddungeon_ticks_total", "Ticks simulated.", _.ticks),
+    ("droiddungeon_tick_overruns_total", "Ticks that took longer than the tick length.", _.tickOverruns),
+    ("droiddungeon_ticks_skipped_total", "Late ticks dropped by the late-tick policy.", _.ticksSkipped),
+    ("droiddungeon_snapshots_built_total", "Per-session snapshots built.", _.snapshotsBuilt),
+    ("droiddungeon_snapshots_encoded_total", "Snapshots encoded for the wire.", _.snapshotsEncoded),
+    ("droiddungeon_snapshot_bytes_total", "Encoded snapshot bytes sent.", _.snapshotBytes),
+    (
+      "droiddungeon_snapshots_conflated_total",
+      "Snapshots merged into a pending one for a slow client.",
+      _.snapshotsConflated
+    ),
+    (
+      "droiddungeon_entities_replicated_total",
+      "Enemies, ground items, players and chunks written into snapshots.",
+      _.entitiesReplicated
+    ),
+    ("droiddungeon_chunks_generated_total", "Chunks generated by the world.", _.chunksGenerated),
+    ("droiddungeon_melee_hits_total", "Enemies hit by player swings.", _.meleeHits),
+    ("droiddungeon_region_handoffs_total", "Enemies that crossed into another region.", _.regionHandoffs)
+  )
+
+  private val Gauges: Seq[(String, String, ServerMetrics => AtomicLong)] = Seq(
+    ("droiddungeon_loaded_chunks", "Chunks held in memory.", _.loadedChunks),
+    ("droiddungeon_active_regions", "Regions holding at least one enemy.", _.activeRegions),
+    ("droiddungeon_sessions", "Connected websocket sessions.", _.sessions)
+  )
+
+  /** Renders several worlds' metrics as one exposition, labelling each series with
+    * `world="<id>"`; a null id renders the series without the label.
+    */
+  def render(worlds: Seq[(String, ServerMetrics)]): String =
+    val out = new java.lang.StringBuilder(4096)
+    out.append("# HELP droiddungeon_tick_phase_seconds Wall time per tick phase.\n")
+    out.append("# TYPE droiddungeon_tick_phase_seconds summary\n")
+    for
+      (world, m) <- worlds
+      (phase, histogram) <- Phases
+    do summary(out, "droiddungeon_tick_phase_seconds", labels(world, "phase" -> phase), histogram(m))
+    out.append("# HELP droiddungeon_tick_interval_seconds Time between consecutive tick starts.\n")
+    out.append("# TYPE droiddungeon_tick_interval_seconds summary\n")
+    worlds.foreach { (world, m) =>
+      summary(out, "droiddungeon_tick_interval_seconds", labels(world), m.tickInterval)
+    }
+    Counters.foreach { (name, help, value) => metric(out, name, help, "counter", worlds, value) }
+    Gauges.foreach { (name, help, value) => metric(out, name, help, "gauge", worlds, value) }
+    out.toString
+
+  private def labels(world: String, extra: (String, String)*): Seq[(String, String)] =
+    (if world == null then Seq.empty else Seq("world" -> world)) ++ extra
+
+  private def labelText(labels: Seq[(String, String)]): String =
+    labels.map((k, v) => s"""$k="$v"""").mkString(",")
+
+  private def summary(
+      out: java.lang.StringBuilder,
+      name: String,
+      labels: Seq[(String, String)],
+      h: LatencyHistogram
+  ): Unit =
+    val prefix = labelText(labels)
+    Quantiles.foreach { q =>
+      out.append(name).append('{').append(prefix)
+      if prefix.nonEmpty then out.append(',')
+      out.append("quantile=\"").append(q).append("\"} ")
+      out.append(seconds(h.percentile(q))).append('\n')
+    }
+    val suffix = if prefix.isEmpty then "" else s"{$prefix}"
+    out.append(name).append("_sum").append(suffix).append(' ')
+    out.append(seconds(h.sum)).append('\n')
+    out.append(name).append("_count").append(suffix).append(' ').append(h.count).append('\n')
+
+  private def metric(
+      out: java.lang.StringBuilder,
+      name: String,
+      help: String,
+      kind: String,
+      worlds: Seq[(String, ServerMetrics)],
+      value: ServerMetrics => AtomicLong
+  ): Unit =
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+    out.append("# TYPE ").append(name).append(' ').append(kind).append('\n')
+    worlds.foreach { (world, m) =>
+      val prefix = labelText(labels(world))
+      out.append(name)
+      if prefix.nonEmpty then out.append('{').append(prefix).append('}')
+      out.append(' ').append(value(m).get()).append('\n')
+    }
+
+  private def seconds(micros: Long): String = String.format(Locale.ROOT, "%.6f", micros / 1e6)
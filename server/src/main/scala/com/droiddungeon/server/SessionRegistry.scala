@@ -1,24 +1,21 @@
 package com.droiddungeon.server
 
-import com.droiddungeon.net.dto.WorldSnapshotDto
-import org.apache.pekko.actor.typed.ActorRef
-
 final case class SessionRegistry(
-    sessions: Map[String, ActorRef[WorldSnapshotDto]]
+    sessions: Map[String, SnapshotOutbox]
 ) {
   def register(
       playerId: String,
-      ref: ActorRef[WorldSnapshotDto]
+      outbox: SnapshotOutbox
   ): SessionRegistry =
-    copy(sessions = sessions + (playerId -> ref))
+    copy(sessions = sessions + (playerId -> outbox))
 
   def unregister(
-      ref: ActorRef[WorldSnapshotDto]
+      outbox: SnapshotOutbox
   ): (SessionRegistry, Set[String]) = {
     val removedPlayers = sessions.collect {
-      case (pid, r) if r == ref => pid
+      case (pid, o) if o eq outbox => pid
     }.toSet
-    val remaining = sessions.filterNot { case (_, r) => r == ref }
+    val remaining = sessions.filterNot { case (_, o) => o eq outbox }
     (copy(sessions = remaining), removedPlayers)
   }
 
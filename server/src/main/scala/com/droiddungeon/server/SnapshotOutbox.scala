@@ -0,0 +1,47 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.net.WorldSnapshotMerger
+import com.droiddungeon.net.dto.WorldSnapshotDto
+import org.apache.pekko.NotUsed
+import org.apache.pekko.stream.scaladsl.Source
+import scala.concurrent.{Future, Promise}
+
+/** One session's outgoing snapshots, handed from the simulation thread to the session's stream.
+  *
+  * The simulation offers a snapshot every tick and never waits. While the stream has not taken
+  * the previous one (the socket is backpressured, or encoding stalls on a GC pause or a large
+  * keyframe) the new snapshot is merged into it with [[WorldSnapshotMerger]], so a slow session
+  * holds a single pending snapshot however far it falls behind, and no delta is ever dropped.
+  */
+final class SnapshotOutbox(metrics: ServerMetrics):
+  // guarded by this; at most one of them is set
+  private var pending: WorldSnapshotDto = null
+  private var waiting: Promise[WorldSnapshotDto] = null
+
+  /** Thread-safe and never blocks. */
+  def offer(snap: WorldSnapshotDto): Unit =
+    val puller = synchronized {
+      if waiting != null then
+        val w = waiting
+        waiting = null
+        w
+      else
+        if pending != null then metrics.snapshotsConflated.incrementAndGet()
+        pending = WorldSnapshotMerger.merge(pending, snap)
+        null
+    }
+    if puller != null then puller.success(snap)
+
+  /** The offered snapshots, merged while nothing pulls; materialize it once. */
+  def source: Source[WorldSnapshotDto, NotUsed] =
+    Source.repeat(()).mapAsync(1)(_ => take())
+
+  private def take(): Future[WorldSnapshotDto] = synchronized {
+    if pending != null then
+      val snap = pending
+      pending = null
+      Future.successful(snap)
+    else
+      waiting = Promise()
+      waiting.future
+  }
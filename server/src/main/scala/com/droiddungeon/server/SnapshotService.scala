@@ -7,17 +7,18 @@ import com.droiddungeon.net.dto.{
   WorldSnapshotDto
 }
 import com.droiddungeon.server.WorldSnapshotBuilder.BlockState
-import org.apache.pekko.actor.typed.ActorRef
 
 final case class SnapshotService(
     blockCacheByPlayer: Map[String, Map[(Int, Int), BlockState]],
     groundCacheByPlayer: Map[String, Map[Int, GroundItemSnapshotDto]],
-    prevEnemies: Map[Int, EnemySnapshotDto]
+    enemyCacheByPlayer: Map[String, Map[Int, EnemySnapshotDto]],
+    regions: RegionIndex
 ) {
   def removePlayers(playerIds: Set[String]): SnapshotService =
     copy(
       blockCacheByPlayer = blockCacheByPlayer -- playerIds,
-      groundCacheByPlayer = groundCacheByPlayer -- playerIds
+      groundCacheByPlayer = groundCacheByPlayer -- playerIds,
+      enemyCacheByPlayer = enemyCacheByPlayer -- playerIds
     )
 
   def buildInitialSnapshot(
@@ -28,73 +29,90 @@ final case class SnapshotService(
       processedTicks: Map[String, Long],
       enemiesAll: Seq[EnemySnapshotDto]
   ): (SnapshotService, WorldSnapshotDto) = {
-    val (snap, updatedBlockCache, updatedGroundCache) =
+    val view = WorldSnapshotBuilder.tickView(loop, playerIds, processedTicks, Map.empty)
+    val index = RegionIndex.build(enemiesAll, loop.grid().getChunkSize(), regions)
+    val built =
       WorldSnapshotBuilder.snapshotForPlayer(
         loop,
         playerId,
-        playerIds,
+        view,
         tick,
         full = true,
         blockCacheByPlayer.getOrElse(playerId, Map.empty),
         groundCacheByPlayer.getOrElse(playerId, Map.empty),
-        processedTicks,
-        Map.empty,
-        enemiesAll,
-        Seq.empty
+        index,
+        Map.empty
       )
     val next = copy(
-      blockCacheByPlayer = blockCacheByPlayer + (playerId -> updatedBlockCache),
-      groundCacheByPlayer =
-        groundCacheByPlayer + (playerId -> updatedGroundCache)
+      blockCacheByPlayer = blockCacheByPlayer + (playerId -> built.blockCache),
+      groundCacheByPlayer = groundCacheByPlayer + (playerId -> built.groundCache),
+      enemyCacheByPlayer = enemyCacheByPlayer + (playerId -> built.enemyCache)
     )
-    (next, snap)
+    (next, built.snapshot)
   }
 
+  /** Builds every session's snapshot for `tick`.
+    *
+    * Enemies are bucketed into regions ([[RegionIndex]]) once; each session then takes the
+    * regions around its player. Everything that can touch shared mutable state (chunk generation,
+    * reading player and ground item state) happens first on the calling thread; the per-session
+    * builds then only read the world and their own caches, so they are fanned out on `workers`
+    * and joined before returning. The result is the same as building the sessions one after
+    * another.
+    */
   def buildSnapshots(
       loop: ServerGameLoop,
-      sessions: Map[String, ActorRef[WorldSnapshotDto]],
+      sessions: Map[String, SnapshotOutbox],
       tick: Long,
       processedTicks: Map[String, Long],
       weaponStatesThisTick: Map[String, WeaponStateSnapshotDto],
-      enemiesAll: Seq[EnemySnapshotDto]
-  ): (SnapshotService, Seq[(ActorRef[WorldSnapshotDto], WorldSnapshotDto)]) = {
+      enemiesAll: Seq[EnemySnapshotDto],
+      workers: TickWorkers
+  ): (SnapshotService, Seq[(SnapshotOutbox, WorldSnapshotDto)]) = {
     val forceFull = tick % SnapshotService.KeyframeEvery == 0
-    val (enemiesToSend, enemyRemovals) =
-      if (forceFull) (enemiesAll, Seq.empty[Int])
-      else WorldSnapshotBuilder.diffEnemies(enemiesAll, prevEnemies)
+    val index = RegionIndex.build(enemiesAll, loop.grid().getChunkSize(), regions)
 
-    var nextBlockCache = blockCacheByPlayer
-    var nextGroundCache = groundCacheByPlayer
+    val view =
+      WorldSnapshotBuilder.tickView(loop, sessions.keySet, processedTicks, weaponStatesThisTick)
+    val recipients = sessions.toIndexedSeq
+    recipients.foreach { case (pid, _) =>
+      val (centerX, centerY) = view.centers.getOrElse(pid, (0, 0))
+      WorldSnapshotBuilder.ensureChunksAround(loop.grid(), centerX, centerY, forceFull)
+    }
 
-    val outgoing = sessions.toSeq.map { case (pid, ref) =>
+    val built = workers.map(recipients) { case (pid, _) =>
       val baseCache =
         if (forceFull) Map.empty[(Int, Int), BlockState]
         else blockCacheByPlayer.getOrElse(pid, Map.empty)
-      val (snap, updatedBlockCache, updatedGroundCache) =
-        WorldSnapshotBuilder.snapshotForPlayer(
-          loop,
-          pid,
-          sessions.keySet,
-          tick,
-          full = forceFull,
-          baseCache,
-          groundCacheByPlayer.getOrElse(pid, Map.empty),
-          processedTicks,
-          weaponStatesThisTick,
-          enemiesToSend,
-          enemyRemovals
-        )
-      nextBlockCache = nextBlockCache + (pid -> updatedBlockCache)
-      nextGroundCache = nextGroundCache + (pid -> updatedGroundCache)
-      (ref, snap)
+      WorldSnapshotBuilder.snapshotForPlayer(
+        loop,
+        pid,
+        view,
+        tick,
+        full = forceFull,
+        baseCache,
+        groundCacheByPlayer.getOrElse(pid, Map.empty),
+        index,
+        enemyCacheByPlayer.getOrElse(pid, Map.empty)
+      )
+    }
+
+    var nextBlockCache = blockCacheByPlayer
+    var nextGroundCache = groundCacheByPlayer
+    var nextEnemyCache = enemyCacheByPlayer
+    val outgoing = recipients.zip(built).map { case ((pid, outbox), b) =>
+      nextBlockCache = nextBlockCache + (pid -> b.blockCache)
+      nextGroundCache = nextGroundCache + (pid -> b.groundCache)
+      nextEnemyCache = nextEnemyCache + (pid -> b.enemyCache)
+      (outbox, b.snapshot)
     }
 
-    val nextEnemies = enemiesAll.map(e => e.id() -> e).toMap
     (
       copy(
         blockCacheByPlayer = nextBlockCache,
         groundCacheByPlayer = nextGroundCache,
-        prevEnemies = nextEnemies
+        enemyCacheByPlayer = nextEnemyCache,
+        regions = index
       ),
       outgoing
     )
@@ -103,5 +121,6 @@ final case class SnapshotService(
 
 object SnapshotService {
   val KeyframeEvery = 20 // every ~1s at 50ms tick
-  val empty: SnapshotService = SnapshotService(Map.empty, Map.empty, Map.empty)
+  val empty: SnapshotService =
+    SnapshotService(Map.empty, Map.empty, Map.empty, RegionIndex.empty)
 }
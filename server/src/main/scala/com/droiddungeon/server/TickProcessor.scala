@@ -7,6 +7,7 @@ import com.droiddungeon.net.dto.{
   WeaponStateSnapshotDto
 }
 import com.droiddungeon.net.mapper.InputDtoMapper
+import com.droiddungeon.runtime.GameUpdateResult
 
 import scala.jdk.CollectionConverters.*
 
@@ -48,29 +49,52 @@ final case class TickProcessor(
   def enqueueInput(input: ClientInputDto): TickProcessor =
     copy(pendingInputs = pendingInputs + (input.playerId() -> input))
 
-  def processTick(loop: ServerGameLoop): (TickProcessor, TickResult) = {
+  /** Applies the pending inputs and advances global state by one tick.
+    *
+    * Inputs are applied in `pendingInputs` order. With more than one worker the updates are first
+    * grouped by the chunks they can touch ([[PlayerTickPlanner]]) and independent groups run
+    * concurrently; each group keeps that order and conflicting updates share a group, so the
+    * outcome is the same as applying them one after another.
+    *
+    * Melee swings are then resolved one player at a time, against enemies rewound to the tick each
+    * attacker's client was rendering.
+    */
+  def processTick(
+      loop: ServerGameLoop,
+      metrics: ServerMetrics,
+      dt: Float,
+      workers: TickWorkers
+  ): (TickProcessor, TickResult) = {
     var newProcessed = processedTicks
     var weaponStatesThisTick = Map.empty[String, WeaponStateSnapshotDto]
 
-    pendingInputs.foreach { case (pid, in) =>
-      val frame = toInputFrame(in)
-      val res = loop.tickForPlayer(pid, frame, 0.05f)
-      newProcessed = newProcessed + (in.playerId() -> in.tick())
-      if (res != null && res.weaponState() != null) {
-        val w = res.weaponState()
-        weaponStatesThisTick =
-          weaponStatesThisTick + (pid -> new WeaponStateSnapshotDto(
-            pid,
-            w.swinging(),
-            w.swingProgress(),
-            w.aimAngleRad()
-          ))
+    metrics.time(metrics.processInputs) {
+      val inputs = pendingInputs.toIndexedSeq.map { case (pid, in) =>
+        (pid, in, toInputFrame(in))
+      }
+      loop.recordTick(tick, dt, inputs.map(_._2).asJava)
+      val results = tickPlayers(loop, inputs, dt, workers)
+      inputs.zip(results).foreach { case ((pid, in, _), res) =>
+        newProcessed = newProcessed + (in.playerId() -> in.tick())
+        if (res != null && res.weaponState() != null) {
+          val w = res.weaponState()
+          if (w.swinging())
+            metrics.meleeHits.addAndGet(loop.resolveMeleeHits(pid, w, in.viewTick(), tick, dt))
+          weaponStatesThisTick =
+            weaponStatesThisTick + (pid -> new WeaponStateSnapshotDto(
+              pid,
+              w.swinging(),
+              w.swingProgress(),
+              w.aimAngleRad()
+            ))
+        }
       }
     }
 
-    loop.updateGlobal(0.05f)
+    metrics.time(metrics.updateGlobal)(loop.updateGlobal(dt))
 
     val nextTick = tick + 1
+    loop.recordEnemyPositions(nextTick)
     val enemiesAll =
       loop.enemySystem().getEnemies().asScala.toSeq.map { e =>
         new EnemySnapshotDto(
@@ -96,6 +120,27 @@ final case class TickProcessor(
     )
   }
 
+  private def tickPlayers(
+      loop: ServerGameLoop,
+      inputs: IndexedSeq[(String, ClientInputDto, InputFrame)],
+      dt: Float,
+      workers: TickWorkers
+  ): IndexedSeq[GameUpdateResult] =
+    if (workers.parallelism < 2 || inputs.size < 2)
+      inputs.map { case (pid, _, frame) => loop.tickForPlayer(pid, frame, dt) }
+    else {
+      val footprints = inputs.map { case (pid, _, frame) => loop.prepareTick(pid, frame) }
+      val groups = PlayerTickPlanner.group(footprints.asJava).asScala.toIndexedSeq
+      val results = new Array[GameUpdateResult](inputs.size)
+      workers.map(groups) { group =>
+        group.foreach { i =>
+          val (pid, _, frame) = inputs(i)
+          results(i) = loop.tickForPlayer(pid, frame, dt)
+        }
+      }
+      results.toIndexedSeq
+    }
+
   private def toInputFrame(in: ClientInputDto): InputFrame =
     InputDtoMapper.toInputFrame(in)
 }
@@ -0,0 +1,54 @@
+package com.droiddungeon.server
+
+import java.util.concurrent.{Callable, ExecutionException, ForkJoinPool}
+import scala.jdk.CollectionConverters.*
+
+/** Work-stealing pool for the parts of a tick that run in parallel: independent player groups and
+  * per-session snapshot builds.
+  *
+  * [[map]] blocks until every task has finished, so the results are complete before the tick
+  * that asked for them ends, and they come back in input order whatever order the tasks ran in.
+  * With a parallelism of 1 (or a single item) everything runs inline on the calling thread.
+  */
+final class TickWorkers(val parallelism: Int):
+  private val pool =
+    if parallelism > 1 then
+      new ForkJoinPool(
+        parallelism,
+        owner => {
+          val thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(owner)
+          thread.setName("tick-worker-" + thread.getPoolIndex)
+          thread.setDaemon(true)
+          thread
+        },
+        null,
+        false
+      )
+    else null
+
+  def map[A, B](items: IndexedSeq[A])(f: A => B): IndexedSeq[B] =
+    if pool == null || items.size < 2 then items.map(f)
+    else
+      val tasks = items.map { item =>
+        val task: Callable[B] = () => f(item)
+        task
+      }
+      val futures = pool.invokeAll(tasks.asJava).asScala.toIndexedSeq
+      try futures.map(_.get())
+      catch case ex: ExecutionException => throw ex.getCause
+
+  def shutdown(): Unit =
+    if pool != null then pool.shutdown()
+
+object TickWorkers:
+  /** Runs everything on the calling thread. */
+  val Inline: TickWorkers = new TickWorkers(1)
+
+  /** `server.tickParallelism` (default: available processors; 1 runs everything on the tick thread). */
+  def fromSystemProperties(): TickWorkers =
+    val parallelism = sys.props
+      .get("server.tickParallelism")
+      .flatMap(_.toIntOption)
+      .filter(_ > 0)
+      .getOrElse(Runtime.getRuntime.availableProcessors())
+    new TickWorkers(parallelism)
@@ -1,25 +1,37 @@
 package com.droiddungeon.server
 
-import com.droiddungeon.net.codec.{CborProtocolCodec, ProtocolCodec}
-import com.droiddungeon.net.dto.{ClientInputDto, WelcomeDto, WorldSnapshotDto}
+import com.droiddungeon.net.codec.{CborProtocolCodec, PayloadCompression, ProtocolCodec}
+import com.droiddungeon.net.dto.{ClientInputDto, PongDto, WelcomeDto}
 import java.nio.ByteBuffer
+import org.apache.pekko.NotUsed
 import org.apache.pekko.actor.typed.ActorSystem
 import org.apache.pekko.http.scaladsl.model.ws.{BinaryMessage, Message}
-import org.apache.pekko.stream.OverflowStrategy
-import org.apache.pekko.stream.scaladsl.{Flow, Keep, Sink, Source}
+import org.apache.pekko.stream.BoundedSourceQueue
+import org.apache.pekko.stream.scaladsl.{Flow, Sink, Source}
 import org.apache.pekko.util.ByteString
 import scala.concurrent.duration.*
 import scala.util.{Failure, Success, Try}
 
 object WebSocketSessionHandler:
+  private val SupportedCompression = sys.props.getOrElse("network.compression", "deflate,lz")
+  private val CompressionThreshold =
+    sys.props.get("network.compressionThreshold").flatMap(_.toIntOption).getOrElse(PayloadCompression.DEFAULT_THRESHOLD)
+
   def websocketFlow(
       world: org.apache.pekko.actor.typed.ActorRef[GameWorldActor.Command],
-      requestedPlayerId: Option[String]
+      requestedPlayerId: Option[String],
+      compressionOffer: Option[String],
+      metrics: ServerMetrics,
+      onClose: () => Unit
   )(using system: ActorSystem[Nothing]): Flow[Message, Message, Any] =
     import system.executionContext
     val playerId =
       requestedPlayerId.filter(id => id != null && id.nonEmpty).getOrElse(java.util.UUID.randomUUID().toString)
     val codec: ProtocolCodec = CborProtocolCodec.createDefault()
+    val compression = Option(PayloadCompression.negotiate(compressionOffer.orNull, SupportedCompression))
+    compression.foreach(c => codec.enableCompression(c, CompressionThreshold))
+    // pongs bypass the world actor: they are answered straight from the session's own stream
+    val (pongQueue, pongSource) = Source.queue[Message](16).preMaterialize()
 
     val sink: Sink[Message, Any] = Flow[Message]
       .collect { case bm: BinaryMessage => bm }
@@ -40,9 +52,13 @@ object WebSocketSessionHandler:
               input.weapon(),
               input.drop(),
               input.pickUp(),
-              input.mine()
+              input.mine(),
+              input.viewTick()
             )
           )
+        case Success(msg: ProtocolCodec.PingMessage) =>
+          replyPong(pongQueue, codec, msg.value().clientTimeNanos())
+          Nil
         case Success(_) =>
           Nil
         case Failure(ex) =>
@@ -51,24 +67,31 @@ object WebSocketSessionHandler:
       }
       .to(Sink.foreach(input => world ! GameWorldActor.ApplyInput(input)))
 
-    val snapshotSource: Source[Message, org.apache.pekko.actor.typed.ActorRef[WorldSnapshotDto]] =
-      org.apache.pekko.stream.typed.scaladsl.ActorSource.actorRef[WorldSnapshotDto](
-        completionMatcher = PartialFunction.empty,
-        failureMatcher = PartialFunction.empty,
-        bufferSize = 64,
-        overflowStrategy = OverflowStrategy.dropHead
-      ).map { snap =>
-        BinaryMessage(ByteString(codec.encodeSnapshot(snap)))
-      }
+    // the outbox merges snapshots while the socket or the encoder lags, so it never overflows
+    val outbox = new SnapshotOutbox(metrics)
+    val snapshotSource: Source[Message, NotUsed] =
+      outbox.source.map { snap =>
+        val start = System.nanoTime()
+        val bytes = codec.encodeSnapshot(snap)
+        metrics.recordEncoded(bytes.length, System.nanoTime() - start)
+        BinaryMessage(ByteString(bytes))
+      }.merge(pongSource)
 
-    val welcome = BinaryMessage(ByteString(codec.encodeWelcome(new WelcomeDto(playerId, null, null))))
-    val source: Source[Message, org.apache.pekko.actor.typed.ActorRef[WorldSnapshotDto]] =
-      Source.single(welcome).concatMat(snapshotSource)(Keep.right)
+    val welcomeDto =
+      new WelcomeDto(playerId, null, null, GameWorldActor.TickInterval.toMillis.toInt, compression.map(_.id()).orNull)
+    val welcome = BinaryMessage(ByteString(codec.encodeWelcome(welcomeDto)))
+    val source: Source[Message, NotUsed] = Source.single(welcome).concat(snapshotSource)
 
-    Flow.fromSinkAndSourceCoupledMat(sink, source) { (_, ref: org.apache.pekko.actor.typed.ActorRef[WorldSnapshotDto]) =>
-      world ! GameWorldActor.RegisterSession(playerId, ref)
-      ref
-    }.watchTermination() { (ref: org.apache.pekko.actor.typed.ActorRef[WorldSnapshotDto], done) =>
-      done.onComplete(_ => world ! GameWorldActor.UnregisterSession(ref))(using system.executionContext)
-      ref
+    Flow.fromSinkAndSourceCoupled(sink, source).watchTermination() { (_, done) =>
+      world ! GameWorldActor.RegisterSession(playerId, outbox)
+      done.onComplete { _ =>
+        world ! GameWorldActor.UnregisterSession(outbox)
+        onClose()
+      }(using system.executionContext)
+      NotUsed
     }
+
+  private def replyPong(queue: BoundedSourceQueue[Message], codec: ProtocolCodec, clientTimeNanos: Long): Unit =
+    // a full queue means the client is flooding pings; dropping the extra pong is harmless
+    val pong = new PongDto(clientTimeNanos, System.currentTimeMillis())
+    queue.offer(BinaryMessage(ByteString(codec.encodePong(pong))))
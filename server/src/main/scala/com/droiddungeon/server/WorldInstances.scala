@@ -0,0 +1,276 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.config.GameConfig
+import com.droiddungeon.entity.EntityIds
+import com.droiddungeon.items.ItemRegistry
+import java.nio.file.Path
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong}
+import org.apache.pekko.Done
+import org.apache.pekko.actor.typed.scaladsl.AskPattern.*
+import org.apache.pekko.actor.typed.{ActorRef, ActorSystem, DispatcherSelector}
+import org.apache.pekko.util.Timeout
+import org.slf4j.LoggerFactory
+import scala.collection.mutable
+import scala.concurrent.duration.*
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success}
+
+final case class WorldLimits(
+    maxWorlds: Int,
+    maxPlayersPerWorld: Int,
+    idleBeforeHibernate: FiniteDuration,
+    directory: Path,
+    recordDirectory: Option[Path]
+)
+
+object WorldLimits:
+  /** `server.maxWorlds` (awake at once, default 64), `server.maxPlayersPerWorld` (default 16),
+    * `server.worldIdleSeconds` (default 300), `server.worldDir` (default `worlds`) and
+    * `server.recordDir` (unset: new worlds record their inputs there, see [[InputRecorder]]).
+    */
+  def fromSystemProperties(): WorldLimits =
+    def int(key: String, default: Int) =
+      sys.props.get(key).flatMap(_.toIntOption).filter(_ > 0).getOrElse(default)
+    WorldLimits(
+      int("server.maxWorlds", 64),
+      int("server.maxPlayersPerWorld", 16),
+      int("server.worldIdleSeconds", 300).seconds,
+      Path.of(sys.props.getOrElse("server.worldDir", "worlds")),
+      sys.props.get("server.recordDir").map(Path.of(_))
+    )
+
+/** Hosts independent worlds in one process, each with its own seed, simulation thread and
+  * metrics; they share the item registry and the tick workers.
+  *
+  * A world wakes when the first session asks for it (restored from its [[WorldAutosave]] if it
+  * has one), is saved in the background while awake, and is dropped once it has had no sessions
+  * for `idleBeforeHibernate`.
+  * Players who left are kept in a [[PlayerJournal]] next to the save (`<id>.players`).
+  * Sessions hold a [[WorldInstances.Lease]] for as long as they are connected; leases are what
+  * the per-world player limit and the idle check count.
+  *
+  * Waking reads the save and builds the world on the blocking-IO dispatcher; the id is reserved
+  * meanwhile, so other sessions asking for it wait for that wake instead of starting their own.
+  */
+final class WorldInstances(
+    itemRegistry: ItemRegistry,
+    baseSeed: Long,
+    limits: WorldLimits,
+    workers: TickWorkers
+)(using system: ActorSystem[Nothing]):
+  import WorldInstances.*
+
+  private val log = LoggerFactory.getLogger(classOf[WorldInstances])
+  private given ExecutionContext = system.executionContext
+  private val blockingIo = system.dispatchers.lookup(DispatcherSelector.blocking())
+
+  // guarded by this
+  private val awake = mutable.HashMap.empty[String, Instance]
+  private val waking = mutable.HashMap.empty[String, Future[Instance]]
+  private val hibernating = mutable.HashMap.empty[String, Future[Done]]
+  private var generation = 0L
+
+  private val hibernations = new AtomicLong()
+
+  private val idleCheck =
+    system.scheduler.scheduleAtFixedRate(IdleCheckInterval, IdleCheckInterval) { () =>
+      hibernateIdle()
+      ()
+    }
+
+  /** Joins `worldId`, waking it if needed. Fails with a reason if the id is invalid or a limit
+    * is reached.
+    */
+  def acquire(worldId: String): Future[Either[String, Lease]] =
+    if !ValidId.matches(worldId) then Future.successful(Left(s"Invalid world id: $worldId"))
+    else
+      val step = synchronized {
+        hibernating.get(worldId).orElse(waking.get(worldId)) match
+          case Some(pending) => Step.Wait(pending)
+          case None          => acquireAwake(worldId)
+      }
+      step match
+        case Step.Wait(pending) => pending.transformWith(_ => acquire(worldId))
+        case Step.Ready(result) => Future.successful(result)
+        case Step.Wake(woken)   => publish(worldId, woken)
+
+  def release(lease: Lease): Unit = synchronized {
+    awake.get(lease.worldId).filter(_.actor == lease.world).foreach { instance =>
+      instance.leases -= 1
+      if instance.leases == 0 then instance.idleSince = System.nanoTime()
+    }
+  }
+
+  /** The world's actor if it is awake; does not wake it or take a lease. */
+  def awakeWorld(worldId: String): Option[ActorRef[GameWorldActor.Command]] = synchronized {
+    awake.get(worldId).map(_.actor)
+  }
+
+  /** Metrics of every awake world, by id. */
+  def metrics(): Seq[(String, ServerMetrics)] = synchronized {
+    awake.values.toSeq.sortBy(_.id).map(i => i.id -> i.metrics)
+  }
+
+  def renderMetrics(): String =
+    val worlds = metrics()
+    val hibernatingNow = synchronized(hibernating.size)
+    val out = new java.lang.StringBuilder(ServerMetrics.render(worlds))
+    out.append("# HELP droiddungeon_worlds_awake Worlds loaded and simulating.\n")
+    out.append("# TYPE droiddungeon_worlds_awake gauge\n")
+    out.append("droiddungeon_worlds_awake ").append(worlds.size).append('\n')
+    out.append("# HELP droiddungeon_worlds_hibernating Worlds being written to disk.\n")
+    out.append("# TYPE droiddungeon_worlds_hibernating gauge\n")
+    out.append("droiddungeon_worlds_hibernating ").append(hibernatingNow).append('\n')
+    out.append("# HELP droiddungeon_world_hibernations_total Worlds hibernated after going idle.\n")
+    out.append("# TYPE droiddungeon_world_hibernations_total counter\n")
+    out.append("droiddungeon_world_hibernations_total ").append(hibernations.get()).append('\n')
+    out.toString
+
+  /** Hibernates every awake world, connected or not; used on shutdown. */
+  def shutdown(): Future[Unit] =
+    idleCheck.cancel()
+    val starting = synchronized(waking.values.toList)
+    Future.sequence(starting.map(_.transform(_ => Success(())))).flatMap { _ =>
+      val all = synchronized(awake.values.toList)
+      Future.sequence(all.map(hibernate)).map(_ => ())
+    }
+
+  private def acquireAwake(worldId: String): Step =
+    awake.get(worldId) match
+      case Some(instance) if instance.leases >= limits.maxPlayersPerWorld =>
+        Step.Ready(Left(s"World $worldId is full"))
+      case Some(instance) =>
+        instance.leases += 1
+        Step.Ready(Right(Lease(worldId, instance.actor, instance.metrics)))
+      case None if awake.size + waking.size >= limits.maxWorlds =>
+        Step.Ready(Left("No free world slots"))
+      case None =>
+        generation += 1
+        val actorGeneration = generation
+        val woken = Future(wake(worldId, actorGeneration))(using blockingIo)
+        waking.put(worldId, woken)
+        Step.Wake(woken)
+
+  /** Makes a world built outside the lock visible, with the waking session's lease on it. */
+  private def publish(worldId: String, woken: Future[Instance]): Future[Either[String, Lease]] =
+    woken.transform { result =>
+      synchronized {
+        waking.remove(worldId)
+        result.foreach { instance =>
+          instance.leases = 1
+          awake.put(worldId, instance)
+        }
+      }
+      result match
+        case Success(instance) => Success(Right(Lease(worldId, instance.actor, instance.metrics)))
+        case Failure(ex) =>
+          log.error(s"World $worldId failed to wake", ex)
+          Failure(ex)
+    }
+
+  // runs on the blocking-IO dispatcher, outside the lock
+  private def wake(worldId: String, generation: Long): Instance =
+    val autosave = WorldAutosave.open(limits.directory, worldId)
+    val save = Option(autosave.restored())
+    val seed = save.map(_.seed).getOrElse(seedFor(worldId))
+    // a replay resets the id counter to this and then builds the world, so take it first
+    val firstEntityId = EntityIds.peek()
+    val loop = new ServerGameLoop(GameConfig.defaults(), itemRegistry, seed)
+    loop.attachPlayerJournal(PlayerJournal.open(limits.directory.resolve(s"$worldId.players")))
+    save.foreach(loop.restoreWorld)
+    loop.attachAutosave(autosave)
+    // a replay starts from the seed, so only worlds without a save can be recorded
+    if save.isEmpty then
+      limits.recordDirectory.foreach { dir =>
+        val file = dir.resolve(s"$worldId-${System.currentTimeMillis()}.ddrec")
+        val tickSeconds = GameWorldActor.Simulation.tickSeconds
+        loop.attachRecorder(InputRecorder.open(file, seed, firstEntityId, tickSeconds))
+        log.info("Recording inputs of world {} to {}", worldId, file)
+      }
+    val metrics = new ServerMetrics
+    // a hibernated actor may still be stopping under the old name
+    val actor = system.systemActorOf(
+      GameWorldActor(worldId, loop, metrics, workers),
+      s"world-$worldId-$generation"
+    )
+    log.info("World {} awake (seed {}, {})", worldId, seed, if save.isDefined then "restored" else "new")
+    new Instance(worldId, actor, metrics)
+
+  /** Hibernates every world idle for `idleBeforeHibernate`; completes once they are on disk. */
+  private[server] def hibernateIdle(): Future[Unit] =
+    val now = System.nanoTime()
+    // checked and removed under one lock, so no session can take a lease in between
+    val saved = synchronized {
+      awake.values
+        .filter(i => i.leases == 0 && now - i.idleSince >= limits.idleBeforeHibernate.toNanos)
+        .toList
+        .map { instance =>
+          hibernations.incrementAndGet()
+          hibernate(instance)
+        }
+    }
+    Future.sequence(saved).map(_ => ())
+
+  private def hibernate(instance: Instance): Future[Done] = synchronized {
+    awake.remove(instance.id)
+    given Timeout = HibernateTimeout
+    val saved = instance.actor
+      .ask[Done](GameWorldActor.Hibernate(_))
+      .recover { case ex =>
+        log.error(s"World ${instance.id} did not confirm hibernation", ex)
+        Done
+      }
+    hibernating.put(instance.id, saved)
+    saved.onComplete(_ => synchronized(hibernating.remove(instance.id)))
+    saved
+  }
+
+  // the default world keeps the configured seed; every other id gets its own dungeon
+  private def seedFor(worldId: String): Long =
+    if worldId == DefaultWorld then baseSeed
+    else baseSeed ^ (worldId.hashCode.toLong * 0x9e3779b97f4a7c15L)
+
+object WorldInstances:
+  val DefaultWorld = "default"
+
+  private val ValidId = "[A-Za-z0-9_-]{1,32}".r
+  private val IdleCheckInterval = 10.seconds
+  private val HibernateTimeout = Timeout(30.seconds)
+
+  /** A session's claim on a world; hand it back through [[WorldInstances.release]]. */
+  final case class Lease(
+      worldId: String,
+      world: ActorRef[GameWorldActor.Command],
+      metrics: ServerMetrics
+  )
+
+  /** A websocket session's hold on its lease. The lease goes back exactly once: when the session
+    * closes, or through [[abandon]] if the session never opened because the upgrade failed or the
+    * client left before the socket was set up.
+    */
+  final class SessionLease(worlds: WorldInstances, val lease: Lease):
+    private val state = new AtomicInteger(Pending)
+
+    /** False if the lease was abandoned first; the session must not join the world then. */
+    def open(): Boolean = state.compareAndSet(Pending, Open)
+
+    def close(): Unit = if state.getAndSet(Closed) == Open then worlds.release(lease)
+
+    def abandon(): Unit = if state.compareAndSet(Pending, Closed) then worlds.release(lease)
+
+  private val Pending = 0
+  private val Open = 1
+  private val Closed = 2
+
+  private enum Step:
+    case Ready(result: Either[String, Lease])
+    case Wait(pending: Future[?])
+    case Wake(woken: Future[Instance])
+
+  private final class Instance(
+      val id: String,
+      val actor: ActorRef[GameWorldActor.Command],
+      val metrics: ServerMetrics
+  ):
+    var leases = 0
+    var idleSince: Long = System.nanoTime()
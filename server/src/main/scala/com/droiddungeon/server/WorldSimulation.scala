@@ -0,0 +1,244 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.net.dto.EnemySnapshotDto
+import com.droiddungeon.runtime.FixedTimestep
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.locks.LockSupport
+import org.slf4j.LoggerFactory
+import scala.concurrent.duration.*
+import scala.jdk.CollectionConverters.*
+
+/** What the simulation does when a tick finishes after the next one was due. */
+enum LateTickPolicy:
+  /** Drop the missed ticks and realign to the schedule; simulated time loses the gap. */
+  case Skip
+
+  /** Run missed ticks back to back, but keep at most `maxBacklog` of them and drop the rest. */
+  case CatchUp(maxBacklog: Int)
+
+  /** Start the next tick right away without accumulating debt; simulated time runs slower. */
+  case SlowDown
+
+object LateTickPolicy:
+  /** Parses `skip`, `slowdown`, `catchup` (a backlog of 3) or `catchup:N` with `N` > 0. */
+  def parse(value: String): LateTickPolicy = value.trim.toLowerCase match
+    case "skip"     => Skip
+    case "slowdown" => SlowDown
+    case "catchup"  => CatchUp(3)
+    case s"catchup:$backlog" if backlog.toIntOption.exists(_ > 0) => CatchUp(backlog.toInt)
+    case _ =>
+      throw new IllegalArgumentException(
+        s"Unknown late-tick policy '$value'; expected skip, catchup, catchup:<ticks> or slowdown"
+      )
+
+final case class SimulationConfig(
+    tickRate: Int,
+    latePolicy: LateTickPolicy,
+    parallelPlayerTicks: Boolean,
+    playerCheckpointInterval: FiniteDuration,
+    autosaveInterval: FiniteDuration
+):
+  val tickInterval: FiniteDuration = (1_000_000_000L / tickRate).nanos
+  val tickSeconds: Float = 1f / tickRate
+  val playerCheckpointTicks: Long = math.max(1L, playerCheckpointInterval.toNanos / tickInterval.toNanos)
+  val autosaveTicks: Long = math.max(1L, autosaveInterval.toNanos / tickInterval.toNanos)
+
+object SimulationConfig:
+  /** `server.tickRate` (Hz, default 20), `server.latePolicy` (skip | catchup[:N] | slowdown),
+    * `server.parallelPlayerTicks` (default false), `server.playerCheckpointSeconds` (default 30)
+    * and `server.autosaveSeconds` (default 30).
+    */
+  def fromSystemProperties(): SimulationConfig =
+    // the same step length single-player simulates with, so both advance the world alike
+    val defaultRate = math.round(1f / FixedTimestep.DEFAULT_STEP_SECONDS)
+    val rate =
+      sys.props.get("server.tickRate").flatMap(_.toIntOption).filter(_ > 0).getOrElse(defaultRate)
+    val policy = LateTickPolicy.parse(sys.props.getOrElse("server.latePolicy", "catchup:3"))
+    val parallelPlayers =
+      sys.props.get("server.parallelPlayerTicks").flatMap(_.toBooleanOption).getOrElse(false)
+    def seconds(key: String) =
+      sys.props.get(key).flatMap(_.toIntOption).filter(_ > 0).getOrElse(30).seconds
+    SimulationConfig(
+      rate,
+      policy,
+      parallelPlayers,
+      seconds("server.playerCheckpointSeconds"),
+      seconds("server.autosaveSeconds")
+    )
+
+/** Runs the world on its own platform thread at a fixed rate.
+  *
+  * Commands from sessions are handed over through a lock-free queue and applied at the start of
+  * the next tick; snapshots leave through each session's [[SnapshotOutbox]], so nothing on the
+  * network side ever waits for a tick and a slow tick never delays session bookkeeping on the
+  * dispatcher. All world state below is confined to the simulation thread.
+  */
+final class WorldSimulation(
+    loop: ServerGameLoop,
+    metrics: ServerMetrics,
+    config: SimulationConfig,
+    workers: TickWorkers,
+    name: String
+):
+  import GameWorldActor.*
+
+  private val log = LoggerFactory.getLogger(classOf[WorldSimulation])
+  private val inbox = new ConcurrentLinkedQueue[Command]()
+  private val intervalNanos = config.tickInterval.toNanos
+  // park until this close to the deadline, then spin; parkNanos alone overshoots by ~50-100µs
+  private val spinNanos = 200_000L
+  @volatile private var running = false
+  private val thread =
+    Thread.ofPlatform().name(s"world-simulation-$name").daemon(true).unstarted(() => run())
+  private val playerWorkers = if config.parallelPlayerTicks then workers else TickWorkers.Inline
+
+  // simulation-thread state
+  private var sessions = SessionRegistry.empty
+  private var ticks = TickProcessor.empty
+  private var snapshots = SnapshotService.empty
+  private var lastTickStart = 0L
+
+  def start(): Unit =
+    running = true
+    thread.start()
+
+  /** Stops after the current tick and waits for the thread to exit. The workers are shared and
+    * stay up.
+    */
+  def stop(): Unit =
+    running = false
+    LockSupport.unpark(thread)
+    thread.join(5000)
+
+  /** Thread-safe; the command takes effect at the start of the next tick. */
+  def submit(command: Command): Unit =
+    inbox.offer(command)
+
+  private def run(): Unit =
+    var deadline = System.nanoTime() + intervalNanos
+    while running do
+      awaitDeadline(deadline)
+      if running then
+        try
+          drainInbox()
+          tick()
+        catch case ex: Exception => log.error("Simulation tick failed", ex)
+        deadline = nextDeadline(deadline, System.nanoTime())
+
+  private def awaitDeadline(deadline: Long): Unit =
+    var remaining = deadline - System.nanoTime()
+    while running && remaining > 0 do
+      if remaining > spinNanos then LockSupport.parkNanos(remaining - spinNanos)
+      else Thread.onSpinWait()
+      remaining = deadline - System.nanoTime()
+
+  private def nextDeadline(deadline: Long, now: Long): Long =
+    val next = deadline + intervalNanos
+    if now <= next then next
+    else
+      val missed = (now - next) / intervalNanos
+      config.latePolicy match
+        case LateTickPolicy.Skip =>
+          metrics.ticksSkipped.addAndGet(missed)
+          next + missed * intervalNanos
+        case LateTickPolicy.CatchUp(maxBacklog) =>
+          if missed <= maxBacklog then next
+          else
+            metrics.ticksSkipped.addAndGet(missed - maxBacklog)
+            next + (missed - maxBacklog) * intervalNanos
+        case LateTickPolicy.SlowDown =>
+          now
+
+  private def drainInbox(): Unit =
+    var command = inbox.poll()
+    while command != null do
+      handle(command)
+      command = inbox.poll()
+
+  private def handle(command: Command): Unit = command match
+    case RegisterSession(playerId, outbox) =>
+      sessions = sessions.register(playerId, outbox)
+      metrics.sessions.set(sessions.sessions.size)
+      log.info("Session registered for player {}", playerId)
+      val (updatedTicks, _) = ticks.registerPlayer(loop, playerId)
+      ticks = updatedTicks
+      val (updatedSnapshots, snap) = snapshots.buildInitialSnapshot(
+        loop,
+        playerId,
+        sessions.sessions.keySet,
+        ticks.tick,
+        ticks.processedTicks,
+        currentEnemies()
+      )
+      snapshots = updatedSnapshots
+      outbox.offer(snap)
+
+    case UnregisterSession(outbox) =>
+      val (updatedSessions, removedPlayers) = sessions.unregister(outbox)
+      sessions = updatedSessions
+      metrics.sessions.set(sessions.sessions.size)
+      log.info("Session unregistered for players {}", removedPlayers.mkString(", "))
+      ticks = removedPlayers.foldLeft(ticks)((acc, pid) => acc.unregisterPlayer(loop, pid))
+      snapshots = snapshots.removePlayers(removedPlayers)
+
+    case ApplyInput(input) =>
+      if sessions.contains(input.playerId()) then ticks = ticks.enqueueInput(input)
+
+    case AdvanceGlobal(dt) =>
+      loop.recordAdvance(dt)
+      loop.updateGlobal(dt)
+
+    case Hibernate(_) =>
+      () // handled by GameWorldActor, never submitted
+
+  private def tick(): Unit =
+    val start = System.nanoTime()
+    val (nextTicks, tickResult) =
+      ticks.processTick(loop, metrics, config.tickSeconds, playerWorkers)
+    val (nextSnapshots, outgoing) = metrics.time(metrics.buildSnapshots) {
+      snapshots.buildSnapshots(
+        loop,
+        sessions.sessions,
+        tickResult.tick,
+        tickResult.processedTicks,
+        tickResult.weaponStates,
+        tickResult.enemies,
+        workers
+      )
+    }
+    ticks = nextTicks
+    snapshots = nextSnapshots
+    // only copies state and queues it; the journal writes on its own thread
+    if tickResult.tick % config.playerCheckpointTicks == 0 then loop.checkpointPlayers()
+    if tickResult.tick % config.autosaveTicks == 0 then loop.checkpointWorld()
+    metrics.regionHandoffs.addAndGet(snapshots.regions.handoffs)
+    metrics.activeRegions.set(snapshots.regions.regions.size)
+    outgoing.foreach { case (outbox, snap) =>
+      metrics.recordSnapshot(snap)
+      outbox.offer(snap)
+    }
+    recordTick(start)
+
+  private def recordTick(start: Long): Unit =
+    val now = System.nanoTime()
+    metrics.ticks.incrementAndGet()
+    metrics.tickDuration.record((now - start) / 1000)
+    if now - start > intervalNanos then metrics.tickOverruns.incrementAndGet()
+    if lastTickStart != 0L then metrics.tickInterval.record((start - lastTickStart) / 1000)
+    lastTickStart = start
+    // the grid counts generations itself (including those triggered outside ticks)
+    metrics.chunksGenerated.set(loop.grid().chunksGenerated())
+    metrics.loadedChunks.set(loop.grid().loadedChunkCount())
+
+  private def currentEnemies(): Seq[EnemySnapshotDto] =
+    loop.enemySystem().getEnemies().asScala.toSeq.map { e =>
+      new EnemySnapshotDto(
+        e.id(),
+        e.getType.toString,
+        e.getRenderX,
+        e.getRenderY,
+        e.getGridX,
+        e.getGridY,
+        e.getHealth
+      )
+    }
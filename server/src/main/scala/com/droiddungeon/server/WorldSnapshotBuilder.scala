@@ -1,61 +1,128 @@
 package com.droiddungeon.server
 
-import com.droiddungeon.items.GroundItem
+import com.droiddungeon.items.GroundItemsView
 import com.droiddungeon.net.dto.
-  {BlockChangeDto, ChunkSnapshotDto, EnemySnapshotDto, GroundItemSnapshotDto, MiningStateSnapshotDto, WeaponStateSnapshotDto, WorldSnapshotDto}
+  {BlockChangeDto, ChunkSnapshotDto, EnemySnapshotDto, GroundItemSnapshotDto, MiningStateSnapshotDto, PlayerSnapshotDto, WeaponStateSnapshotDto, WorldSnapshotDto}
 import scala.collection.mutable
 import scala.jdk.CollectionConverters.*
 
 object WorldSnapshotBuilder:
   final case class BlockState(materialId: String, hp: Float)
 
+  /** Block window sent around each player every tick. */
+  val BlockRadius = 8
+  val GroundRadius = 20
+
+  /** Chunks around each player sent in keyframes. */
+  val ChunkRadius = 2
+
+  /** Per-tick state that is the same for every recipient, gathered once on the simulation thread
+    * so per-session builds only read from it.
+    */
+  final case class TickView(
+      centers: Map[String, (Int, Int)],
+      players: Array[PlayerSnapshotDto],
+      weaponStates: Array[WeaponStateSnapshotDto],
+      miningStates: Array[MiningStateSnapshotDto],
+      groundItems: GroundItemsView
+  )
+
+  def tickView(
+      loop: ServerGameLoop,
+      playerIds: Iterable[String],
+      processedTicks: Map[String, Long],
+      weaponStatesThisTick: Map[String, WeaponStateSnapshotDto]
+  ): TickView = {
+    val ids = playerIds.toSeq
+    val players = ids.flatMap { id =>
+      Option(loop.playerSnapshotFor(id, processedTicks.getOrElse(id, -1L)))
+    }
+    val miningStates = ids.flatMap { id =>
+      Option(loop.getPlayerMiningTarget(id)).map(t =>
+        new MiningStateSnapshotDto(id, t.x(), t.y(), t.progress())
+      )
+    }
+    val weaponStates = ids.map { id =>
+      weaponStatesThisTick
+        .getOrElse(id, new WeaponStateSnapshotDto(id, false, 0f, 0f))
+    }
+    TickView(
+      players.map(p => p.playerId() -> (p.gridX(), p.gridY())).toMap,
+      players.toArray,
+      weaponStates.toArray,
+      miningStates.toArray,
+      loop.groundItemsView()
+    )
+  }
+
+  /** Generates every chunk a snapshot centred at (`centerX`, `centerY`) will read, so the build
+    * itself never mutates the grid and can run off the simulation thread.
+    */
+  def ensureChunksAround(
+      grid: com.droiddungeon.grid.Grid,
+      centerX: Int,
+      centerY: Int,
+      full: Boolean
+  ): Unit = {
+    val chunkSize = grid.getChunkSize()
+    val chunkRadius = if (full) ChunkRadius else 0
+    val pcx = Math.floorDiv(centerX, chunkSize)
+    val pcy = Math.floorDiv(centerY, chunkSize)
+    val minCx = math.min(pcx - chunkRadius, Math.floorDiv(centerX - BlockRadius, chunkSize))
+    val maxCx = math.max(pcx + chunkRadius, Math.floorDiv(centerX + BlockRadius, chunkSize))
+    val minCy = math.min(pcy - chunkRadius, Math.floorDiv(centerY - BlockRadius, chunkSize))
+    val maxCy = math.max(pcy + chunkRadius, Math.floorDiv(centerY + BlockRadius, chunkSize))
+    for {
+      cx <- minCx to maxCx
+      cy <- minCy to maxCy
+    } grid.ensureChunk(cx, cy)
+  }
+
+  /** One recipient's snapshot plus the caches the next delta is computed against. */
+  final case class PlayerSnapshot(
+      snapshot: WorldSnapshotDto,
+      blockCache: Map[(Int, Int), BlockState],
+      groundCache: Map[Int, GroundItemSnapshotDto],
+      enemyCache: Map[Int, EnemySnapshotDto]
+  )
+
+  /** Builds one recipient's snapshot. Only reads the world; chunks must already be generated (see
+    * [[ensureChunksAround]]). Enemies come from the regions within the keyframe chunk radius, so
+    * ones that walk out of range are sent as removals.
+    */
   def snapshotForPlayer(
       loop: ServerGameLoop,
       playerId: String,
-      playerIds: Iterable[String],
+      view: TickView,
       tick: Long,
       full: Boolean,
       blockCache: Map[(Int, Int), BlockState],
       prevGround: Map[Int, GroundItemSnapshotDto],
-      processedTicks: Map[String, Long],
-      weaponStatesThisTick: Map[String, WeaponStateSnapshotDto],
-      enemiesToSend: Seq[EnemySnapshotDto],
-      enemyRemovals: Seq[Int]
-  ): (WorldSnapshotDto, Map[(Int, Int), BlockState], Map[Int, GroundItemSnapshotDto]) = {
-    val centerOpt = Option(
-      loop.playerSnapshotFor(playerId, processedTicks.getOrElse(playerId, -1L))
-    )
-    val (centerX, centerY) =
-      centerOpt.map(p => (p.gridX(), p.gridY())).getOrElse((0, 0))
+      regions: RegionIndex,
+      prevEnemies: Map[Int, EnemySnapshotDto]
+  ): PlayerSnapshot = {
+    val (centerX, centerY) = view.centers.getOrElse(playerId, (0, 0))
 
     val (blockChanges, updatedBlockCache) =
-      collectBlockChanges(loop.grid(), centerX, centerY, blockCache, radius = 8)
+      collectBlockChanges(loop.grid(), centerX, centerY, blockCache, radius = BlockRadius)
     val groundAll = collectGroundItems(
-      loop.getGroundItems().asScala.toSeq,
+      view.groundItems,
       centerX,
       centerY,
-      radius = 20
+      radius = GroundRadius
     )
     val (groundToSend, groundRemovals) =
       if (full) (groundAll, Seq.empty[Int])
       else diffGround(groundAll, prevGround)
     val chunks =
-      if (full) collectChunks(loop.grid(), centerX, centerY, chunkRadius = 2)
+      if (full) collectChunks(loop.grid(), centerX, centerY, chunkRadius = ChunkRadius)
       else Seq.empty
-    val miningStatesAll = playerIds.toSeq.flatMap { id =>
-      Option(loop.getPlayerMiningTarget(id)).map(t =>
-        new MiningStateSnapshotDto(id, t.x(), t.y(), t.progress())
-      )
-    }
+    val enemiesNear =
+      regions.enemiesAround(centerX, centerY, ChunkRadius * loop.grid().getChunkSize())
+    val (enemiesToSend, enemyRemovals) =
+      if (full) (enemiesNear, Seq.empty[Int])
+      else diffEnemies(enemiesNear, prevEnemies)
 
-    val players = playerIds.toSeq.flatMap { id =>
-      val last = processedTicks.getOrElse(id, -1L)
-      Option(loop.playerSnapshotFor(id, last)).toSeq
-    }
-    val weaponStates = playerIds.toSeq.map { id =>
-      weaponStatesThisTick
-        .getOrElse(id, new WeaponStateSnapshotDto(id, false, 0f, 0f))
-    }
     val snap = new WorldSnapshotDto(
       tick,
       loop.worldSeed(),
@@ -63,17 +130,21 @@ object WorldSnapshotBuilder:
       full,
       chunks.toArray,
       null,
-      players.toArray,
+      view.players,
       enemiesToSend.toArray,
       enemyRemovals.toArray,
       blockChanges.toArray,
       groundToSend.toArray,
       groundRemovals.toArray,
-      weaponStates.toArray,
-      miningStatesAll.toArray
+      view.weaponStates,
+      view.miningStates
+    )
+    PlayerSnapshot(
+      snap,
+      updatedBlockCache,
+      groundAll.map(g => g.id() -> g).toMap,
+      enemiesNear.map(e => e.id() -> e).toMap
     )
-    val nextGroundMap = groundAll.map(g => g.id() -> g).toMap
-    (snap, updatedBlockCache, nextGroundMap)
   }
 
   def collectBlockChanges(
@@ -108,19 +179,17 @@ object WorldSnapshotBuilder:
     (buffer.toSeq, updated)
   }
 
+  /** Ground items within `radius` tiles, read from the chunks around the centre only. */
   def collectGroundItems(
-      groundItems: Seq[GroundItem],
+      groundItems: GroundItemsView,
       centerX: Int,
       centerY: Int,
       radius: Int
   ): Seq[GroundItemSnapshotDto] = {
-    val r2 = radius * radius
     groundItems
-      .filter { g =>
-        val dx = g.getGridX - centerX
-        val dy = g.getGridY - centerY
-        dx * dx + dy * dy <= r2
-      }
+      .within(centerX, centerY, radius)
+      .asScala
+      .toSeq
       .map { g =>
         val stack = g.getStack
         new GroundItemSnapshotDto(
@@ -0,0 +1,105 @@
+package com.droiddungeon.server.loadtest
+
+import com.droiddungeon.net.codec.{CborProtocolCodec, PayloadCompression, ProtocolCodec}
+import com.droiddungeon.net.dto.{PlayerSnapshotDto, WorldSnapshotDto}
+import java.io.ByteArrayOutputStream
+import java.net.URI
+import java.net.http.{HttpClient, WebSocket}
+import java.nio.ByteBuffer
+import java.util.concurrent.{CompletableFuture, CompletionStage, TimeUnit}
+import java.util.concurrent.atomic.{AtomicLongArray, AtomicReference}
+import java.util.concurrent.locks.LockSupport
+
+/** One simulated client: connects to `/ws`, sends scripted inputs at a fixed rate from its own
+  * (virtual) thread and decodes every snapshot on the websocket listener, feeding [[LoadStats]].
+  */
+final class Bot(uri: URI, client: HttpClient, script: BotScript, stats: LoadStats, inputIntervalNanos: Long):
+  private val codec: ProtocolCodec = CborProtocolCodec.createDefault()
+  // send time per input tick; a ring is enough since acks trail inputs by a few ticks at most
+  private val sentAt = new AtomicLongArray(1024)
+  private val playerId = new AtomicReference[String]()
+  @volatile private var tickNanos = 50_000_000L
+
+  // listener-thread state (callbacks of one websocket are serialized)
+  private val partial = new ByteArrayOutputStream()
+  private var lastSnapshotTick = -1L
+  private var lastSnapshotNanos = 0L
+  private var lastAcked = -1L
+
+  /** Runs until `deadlineNanos` (System.nanoTime) or until the connection drops. */
+  def run(deadlineNanos: Long): Unit =
+    val ws =
+      try client.newWebSocketBuilder().buildAsync(uri, listener).get(10, TimeUnit.SECONDS)
+      catch
+        case _: Exception =>
+          stats.connectFailures.incrementAndGet()
+          return
+    stats.connected.incrementAndGet()
+    try
+      var tick = 0L
+      var next = System.nanoTime()
+      while System.nanoTime() < deadlineNanos && !ws.isInputClosed do
+        tick += 1
+        val bytes = codec.encodeInput(script.next(tick))
+        sentAt.set((tick & 1023).toInt, System.nanoTime())
+        ws.sendBinary(ByteBuffer.wrap(bytes), true).get(5, TimeUnit.SECONDS)
+        stats.inputsSent.incrementAndGet()
+        stats.bytesOut.addAndGet(bytes.length)
+        next += inputIntervalNanos
+        val wait = next - System.nanoTime()
+        if wait > 0 then LockSupport.parkNanos(wait)
+        else next = System.nanoTime() // fell behind; do not burst to catch up
+    catch case _: Exception => stats.disconnected.incrementAndGet()
+    finally
+      ws.sendClose(WebSocket.NORMAL_CLOSURE, "done")
+
+  private val listener = new WebSocket.Listener:
+    override def onOpen(ws: WebSocket): Unit = ws.request(1)
+
+    override def onBinary(ws: WebSocket, data: ByteBuffer, last: Boolean): CompletionStage[?] =
+      val chunk = new Array[Byte](data.remaining())
+      data.get(chunk)
+      partial.write(chunk, 0, chunk.length)
+      if last then
+        val message = partial.toByteArray
+        partial.reset()
+        stats.bytesIn.addAndGet(message.length)
+        handle(message)
+      ws.request(1)
+      CompletableFuture.completedFuture(null)
+
+  private def handle(message: Array[Byte]): Unit =
+    try
+      codec.decode(ByteBuffer.wrap(message)) match
+        case welcome: ProtocolCodec.WelcomeMessage =>
+          val w = welcome.value()
+          playerId.set(w.playerId())
+          if w.tickMillis() > 0 then tickNanos = w.tickMillis() * 1_000_000L
+          codec.enableCompression(PayloadCompression.fromId(w.compression()), PayloadCompression.DEFAULT_THRESHOLD)
+        case snapshot: ProtocolCodec.SnapshotMessage =>
+          onSnapshot(snapshot.value(), System.nanoTime())
+        case _ => ()
+    catch case _: Exception => stats.decodeErrors.incrementAndGet()
+
+  private def onSnapshot(snap: WorldSnapshotDto, now: Long): Unit =
+    stats.snapshots.incrementAndGet()
+    if lastSnapshotTick >= 0 then
+      val gap = now - lastSnapshotNanos
+      stats.snapshotGapMicros.record(gap / 1000)
+      val advanced = snap.tick() - lastSnapshotTick
+      if advanced > 1 then stats.droppedFrames.addAndGet(advanced - 1)
+      else if advanced == 1 && gap > tickNanos * 3 / 2 then stats.tickOverruns.incrementAndGet()
+    lastSnapshotTick = math.max(lastSnapshotTick, snap.tick())
+    lastSnapshotNanos = now
+    val self = findSelf(snap)
+    if self != null && self.lastProcessedTick() > lastAcked then
+      lastAcked = self.lastProcessedTick()
+      val sent = sentAt.get((lastAcked & 1023).toInt)
+      if sent != 0L then stats.ackLatencyMicros.record((now - sent) / 1000)
+
+  private def findSelf(snap: WorldSnapshotDto): PlayerSnapshotDto =
+    val id = playerId.get()
+    val players = snap.players()
+    if id != null && players != null then
+      players.find(p => id == p.playerId()).getOrElse(snap.player())
+    else snap.player()
@@ -0,0 +1,60 @@
+package com.droiddungeon.server.loadtest
+
+import com.droiddungeon.net.dto.{ClientInputDto, MovementIntentDto, WeaponInputDto}
+import java.util.SplittableRandom
+
+/** Decides what a bot presses on each client tick. One instance per bot; not thread-safe. */
+trait BotScript:
+  def next(tick: Long): ClientInputDto
+
+object BotScript:
+  private val Idle = new MovementIntentDto(false, false, false, false, false, false, false, false)
+  private val NoAttack = new WeaponInputDto(false, false, 0f, 0f)
+
+  def named(name: String, seed: Long): BotScript = name match
+    case "square" => new Square
+    case "idle"   => tick => input(tick, Idle, NoAttack, mine = false)
+    case _        => new RandomWalk(new SplittableRandom(seed))
+
+  /** Wanders in random directions, swinging and mining now and then. */
+  final class RandomWalk(random: SplittableRandom) extends BotScript:
+    private var direction = 0
+    private var holdTicks = 0
+
+    def next(tick: Long): ClientInputDto =
+      holdTicks -= 1
+      val changed = holdTicks <= 0
+      if changed then
+        direction = random.nextInt(5) // 4 = stand still
+        holdTicks = 20 + random.nextInt(60)
+      val attack = random.nextInt(100) < 5
+      val weapon =
+        if attack then new WeaponInputDto(true, true, random.nextInt(400).toFloat, random.nextInt(400).toFloat)
+        else NoAttack
+      input(tick, movement(direction, changed), weapon, mine = random.nextInt(100) < 2)
+
+  /** Walks a fixed square so runs are repeatable. */
+  final class Square extends BotScript:
+    def next(tick: Long): ClientInputDto =
+      val leg = ((tick / 30) % 4).toInt
+      input(tick, movement(leg, tick % 30 == 0), NoAttack, mine = false)
+
+  private def movement(direction: Int, justPressed: Boolean): MovementIntentDto =
+    val left = direction == 0
+    val right = direction == 1
+    val up = direction == 2
+    val down = direction == 3
+    new MovementIntentDto(
+      left,
+      right,
+      up,
+      down,
+      left && justPressed,
+      right && justPressed,
+      up && justPressed,
+      down && justPressed
+    )
+
+  private def input(tick: Long, movement: MovementIntentDto, weapon: WeaponInputDto, mine: Boolean): ClientInputDto =
+    // the server overrides the player id with the session's own
+    new ClientInputDto(tick, null, movement, weapon, false, false, mine, -1L)
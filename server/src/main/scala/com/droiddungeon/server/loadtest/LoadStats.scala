@@ -0,0 +1,27 @@
+package com.droiddungeon.server.loadtest
+
+import com.droiddungeon.server.LatencyHistogram
+import java.util.concurrent.atomic.AtomicLong
+
+/** Counters shared by all bots; every field is safe to update from any thread. */
+final class LoadStats:
+  /** Input sent → first snapshot acknowledging it (`lastProcessedTick`), in microseconds. */
+  val ackLatencyMicros = new LatencyHistogram()
+
+  /** Wall time between consecutive snapshots of one bot, in microseconds. */
+  val snapshotGapMicros = new LatencyHistogram()
+
+  val connected = new AtomicLong()
+  val connectFailures = new AtomicLong()
+  val disconnected = new AtomicLong()
+  val snapshots = new AtomicLong()
+  val bytesIn = new AtomicLong()
+  val bytesOut = new AtomicLong()
+  val inputsSent = new AtomicLong()
+
+  /** Server ticks a bot never received a snapshot for (dropped by the outbound buffer). */
+  val droppedFrames = new AtomicLong()
+
+  /** Consecutive ticks that arrived more than 1.5 tick lengths apart: the server ran late. */
+  val tickOverruns = new AtomicLong()
+  val decodeErrors = new AtomicLong()
@@ -0,0 +1,123 @@
+package com.droiddungeon.server.loadtest
+
+import com.droiddungeon.server.{HttpServer, LatencyHistogram, ServerMetrics, WorldInstances}
+import java.net.URI
+import java.net.http.HttpClient
+import java.nio.file.Files
+import java.util.Locale
+import java.util.concurrent.{Executors, TimeUnit}
+import org.apache.pekko.actor.typed.ActorSystem
+import org.apache.pekko.actor.typed.scaladsl.Behaviors
+import scala.concurrent.Await
+import scala.concurrent.duration.*
+
+/** Headless capacity test: spawns simulated clients on virtual threads against `/ws` and reports
+  * input-ack latency percentiles, bandwidth per client, dropped frames and server tick overruns.
+  *
+  * Without `--url` a server is started in-process on an ephemeral port, so a run needs nothing but
+  * this JVM. Options (`--name=value`):
+  *   - `bots` (500), `duration` seconds (60), `ramp` seconds to spread connections over (10)
+  *   - `inputHz` client input rate (60), `script` random | square | idle (random)
+  *   - `compression` codec offer such as `deflate,lz` (none), `url` external server base URL
+  *   - `seed` world and script seed (1), `report` seconds between progress lines (5)
+  *   - `worlds` number of world instances the bots are spread over (1)
+  *
+  * Run with `./gradlew :server:loadTest --args="--bots=2000 --duration=120"`.
+  */
+object LoadTest:
+  def main(args: Array[String]): Unit =
+    val opts = parse(args)
+    val bots = opts.get("bots").map(_.toInt).getOrElse(500)
+    val duration = opts.get("duration").map(_.toInt).getOrElse(60).seconds
+    val ramp = opts.get("ramp").map(_.toInt).getOrElse(10).seconds
+    val inputHz = opts.get("inputHz").map(_.toInt).getOrElse(60)
+    val scriptName = opts.getOrElse("script", "random")
+    val seed = opts.get("seed").map(_.toLong).getOrElse(1L)
+    val reportEvery = opts.get("report").map(_.toInt).getOrElse(5).seconds
+    val worlds = opts.get("worlds").map(_.toInt).getOrElse(1).max(1)
+
+    given system: ActorSystem[Nothing] = ActorSystem(Behaviors.empty, "droiddungeon-loadtest")
+    val server =
+      if opts.contains("url") then None
+      else
+        // an in-process server takes every bot and keeps its hibernation saves out of the tree
+        sys.props.getOrElseUpdate("server.maxPlayersPerWorld", bots.toString)
+        sys.props.getOrElseUpdate("server.worldDir", Files.createTempDirectory("loadtest-worlds").toString)
+        Some(Await.result(HttpServer.start("127.0.0.1", 0, seed), 30.seconds))
+    val base = opts.getOrElse("url", s"ws://127.0.0.1:${server.map(_.port).getOrElse(8080)}")
+    val query = opts.get("compression").map(c => s"&compression=$c").getOrElse("")
+
+    val threads = Executors.newVirtualThreadPerTaskExecutor()
+    val client = HttpClient.newBuilder().executor(threads).build()
+    val stats = new LoadStats
+    val started = System.nanoTime()
+    val deadline = started + (ramp + duration).toNanos
+    val inputInterval = 1_000_000_000L / math.max(1, inputHz)
+    println(s"load test: $bots bots against $base for ${duration.toSeconds}s (+${ramp.toSeconds}s ramp)")
+
+    try
+      for i <- 0 until bots do
+        val delay = if bots > 1 then ramp.toNanos * i / (bots - 1) else 0L
+        val world = if worlds == 1 then WorldInstances.DefaultWorld else s"load-${i % worlds}"
+        val uri = URI.create(s"$base/ws?playerId=bot-$i&world=$world$query")
+        val bot = new Bot(uri, client, BotScript.named(scriptName, seed + i), stats, inputInterval)
+        threads.execute { () =>
+          Thread.sleep(delay / 1_000_000L)
+          bot.run(deadline)
+        }
+
+      var lastBytesIn = 0L
+      var lastReport = System.nanoTime()
+      while System.nanoTime() < deadline do
+        Thread.sleep(math.min(reportEvery.toMillis, math.max(1L, (deadline - System.nanoTime()) / 1_000_000L)))
+        val now = System.nanoTime()
+        val bytesIn = stats.bytesIn.get()
+        val seconds = (now - lastReport) / 1e9
+        val perClient = (bytesIn - lastBytesIn) / seconds / math.max(1L, stats.connected.get())
+        println(
+          f"[${(now - started) / 1e9}%5.0fs] connected=${stats.connected.get()} snapshots=${stats.snapshots.get()} " +
+            f"ack p99=${millis(stats.ackLatencyMicros, 0.99)} in=${perClient / 1024}%.1f KiB/s/client " +
+            s"dropped=${stats.droppedFrames.get()} overruns=${stats.tickOverruns.get()}"
+        )
+        lastBytesIn = bytesIn
+        lastReport = now
+    finally
+      threads.shutdown()
+      threads.awaitTermination(30, TimeUnit.SECONDS)
+      report(stats, bots, (System.nanoTime() - started) / 1e9)
+      server.foreach(_.worlds.metrics().foreach((world, m) => reportServer(world, m)))
+      server.foreach(s => Await.ready(s.stop()(using system.executionContext), 10.seconds))
+      system.terminate()
+
+  private def report(stats: LoadStats, bots: Int, seconds: Double): Unit =
+    val connected = math.max(1L, stats.connected.get())
+    val ack = stats.ackLatencyMicros
+    val gaps = stats.snapshotGapMicros
+    println("---- load test summary ----")
+    println(s"bots: $bots requested, ${stats.connected.get()} connected, ${stats.connectFailures.get()} failed, " +
+      s"${stats.disconnected.get()} dropped mid-run")
+    println(s"inputs sent: ${stats.inputsSent.get()}  snapshots: ${stats.snapshots.get()}  decode errors: ${stats.decodeErrors.get()}")
+    println(s"input->ack latency: p50=${millis(ack, 0.50)} p90=${millis(ack, 0.90)} p99=${millis(ack, 0.99)} " +
+      s"p99.9=${millis(ack, 0.999)} max=${ack.max / 1000.0}ms (n=${ack.count})")
+    println(s"snapshot gap: p50=${millis(gaps, 0.50)} p99=${millis(gaps, 0.99)} max=${gaps.max / 1000.0}ms")
+    println(String.format(Locale.ROOT, "bandwidth per client: in %.1f KiB/s, out %.1f KiB/s",
+      stats.bytesIn.get() / seconds / connected / 1024, stats.bytesOut.get() / seconds / connected / 1024))
+    println(s"dropped frames: ${stats.droppedFrames.get()}  tick overruns: ${stats.tickOverruns.get()}")
+
+  /** In-process runs can also read the server's own tick timings. */
+  private def reportServer(world: String, metrics: ServerMetrics): Unit =
+    val tick = metrics.tickDuration
+    println(s"[$world] server tick: p50=${millis(tick, 0.50)} p99=${millis(tick, 0.99)} max=${tick.max / 1000.0}ms " +
+      s"overruns=${metrics.tickOverruns.get()}/${metrics.ticks.get()}")
+    println(s"[$world] server snapshots: built=${metrics.snapshotsBuilt.get()} bytes=${metrics.snapshotBytes.get()} " +
+      s"build p99=${millis(metrics.buildSnapshots, 0.99)} encode p99=${millis(metrics.encodeSnapshot, 0.99)}")
+
+  private def millis(h: LatencyHistogram, q: Double): String =
+    String.format(Locale.ROOT, "%.1fms", h.percentile(q) / 1000.0)
+
+  private def parse(args: Array[String]): Map[String, String] =
+    args.toList.collect {
+      case arg if arg.startsWith("--") && arg.contains("=") =>
+        val eq = arg.indexOf('=')
+        arg.substring(2, eq) -> arg.substring(eq + 1)
+    }.toMap
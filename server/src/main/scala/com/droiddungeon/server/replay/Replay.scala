@@ -0,0 +1,106 @@
+package com.droiddungeon.server.replay
+
+import com.droiddungeon.config.GameConfig
+import com.droiddungeon.entity.EntityIds
+import com.droiddungeon.items.ItemRegistry
+import com.droiddungeon.server.{
+  InputRecording,
+  ItemRegistryLoader,
+  ServerGameLoop,
+  ServerMetrics,
+  TickProcessor,
+  TickWorkers
+}
+import java.lang.management.ManagementFactory
+import java.nio.file.Path
+import java.util.Locale
+import scala.jdk.CollectionConverters.*
+
+/** Headless replay of a session recorded with `server.recordDir` (see `InputRecorder`): feeds
+  * the recorded joins, leaves and inputs through a fresh [[ServerGameLoop]] and the same
+  * [[TickProcessor]] the server ticks with, back to back on one thread, and reports ticks per
+  * second, bytes allocated and the final [[ServerGameLoop.stateHash]].
+  *
+  * Repeated runs must end on the same hash; a difference means the simulation is not
+  * deterministic and the process exits with status 1. The world is rebuilt from its seed, so
+  * replays match the live session only when it ran with the same items and `GameConfig` and
+  * `groundItems.*` settings, and when no other world shared its process (entity ids are global).
+  * Options (`--name=value`):
+  *   - `file` the recording (required), `repeat` number of runs (3)
+  *
+  * Run with `./gradlew :server:replay --args="--file=recordings/default-1700000000000.ddrec"`.
+  */
+object Replay:
+  final case class Run(ticks: Long, nanos: Long, allocatedBytes: Long, stateHash: Long)
+
+  def main(args: Array[String]): Unit =
+    val opts = parse(args)
+    val file = opts.get("file") match
+      case Some(path) => Path.of(path)
+      case None =>
+        System.err.println("usage: Replay --file=<recording> [--repeat=N]")
+        sys.exit(2)
+    val repeat = opts.get("repeat").map(_.toInt).getOrElse(3).max(1)
+
+    val recording = InputRecording.read(file)
+    val itemRegistry = ItemRegistryLoader.load()
+    println(
+      s"replay: $file seed=${recording.worldSeed()} ticks=${recording.ticks()} " +
+        s"events=${recording.events().size()}"
+    )
+    val runs = (1 to repeat).map { i =>
+      val r = run(recording, itemRegistry)
+      val seconds = math.max(1L, r.nanos) / 1e9
+      println(
+        String.format(
+          Locale.ROOT,
+          "run %d: %.0f ticks/s, %.1f MiB/s allocated (%.1f KiB/tick), state hash %016x",
+          i,
+          r.ticks / seconds,
+          r.allocatedBytes / seconds / (1 << 20),
+          r.allocatedBytes / 1024.0 / math.max(1L, r.ticks),
+          r.stateHash
+        )
+      )
+      r
+    }
+    if runs.map(_.stateHash).distinct.size > 1 then
+      println("state hashes differ between runs: the simulation is not deterministic")
+      sys.exit(1)
+
+  /** Replays `recording` once on the calling thread; world generation is not timed. */
+  def run(recording: InputRecording, itemRegistry: ItemRegistry): Run =
+    EntityIds.reset(recording.nextEntityId())
+    val loop = new ServerGameLoop(GameConfig.defaults(), itemRegistry, recording.worldSeed())
+    val metrics = new ServerMetrics
+    val threads = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+    var ticks = TickProcessor.empty
+    var ticked = 0L
+    val allocatedBefore = threads.getCurrentThreadAllocatedBytes
+    val start = System.nanoTime()
+    recording.events().asScala.foreach {
+      case join: InputRecording.Join =>
+        ticks = ticks.registerPlayer(loop, join.playerId())._1
+      case leave: InputRecording.Leave =>
+        ticks = ticks.unregisterPlayer(loop, leave.playerId())
+      case tick: InputRecording.Tick =>
+        // same insertion order, so the pending map iterates as it did live
+        val pending =
+          tick.inputs().asScala.foldLeft(ticks.copy(tick = tick.tick()))(_.enqueueInput(_))
+        ticks = pending.processTick(loop, metrics, tick.deltaSeconds(), TickWorkers.Inline)._1
+        ticked += 1
+      case advance: InputRecording.Advance =>
+        loop.updateGlobal(advance.deltaSeconds())
+    }
+    val nanos = System.nanoTime() - start
+    val allocated = threads.getCurrentThreadAllocatedBytes - allocatedBefore
+    val hash = loop.stateHash()
+    loop.close()
+    Run(ticked, nanos, allocated, hash)
+
+  private def parse(args: Array[String]): Map[String, String] =
+    args.toList.collect {
+      case arg if arg.startsWith("--") && arg.contains("=") =>
+        val eq = arg.indexOf('=')
+        arg.substring(2, eq) -> arg.substring(eq + 1)
+    }.toMap
@@ -0,0 +1,19 @@
+package com.droiddungeon.server
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class LateTickPolicyTest:
+
+  @Test
+  def parsesEveryPolicy(): Unit =
+    assertEquals(LateTickPolicy.Skip, LateTickPolicy.parse("skip"))
+    assertEquals(LateTickPolicy.SlowDown, LateTickPolicy.parse(" SlowDown "))
+    assertEquals(LateTickPolicy.CatchUp(3), LateTickPolicy.parse("catchup"))
+    assertEquals(LateTickPolicy.CatchUp(5), LateTickPolicy.parse("catchup:5"))
+
+  @Test
+  def rejectsUnknownValuesInsteadOfFallingBackToCatchUp(): Unit =
+    for value <- Seq("skp", "catchup:", "catchup:0", "catchup:-2", "catchup:x", "catchup5", "") do
+      val error = assertThrows(classOf[IllegalArgumentException], () => LateTickPolicy.parse(value))
+      assertTrue(error.getMessage.contains("skip, catchup, catchup:<ticks> or slowdown"), value)
@@ -0,0 +1,34 @@
+package com.droiddungeon.server
+
+import java.util.Locale
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class ServerMetricsTest:
+
+  @Test
+  def summarySumsAreTheRecordedTotals(): Unit =
+    val metrics = new ServerMetrics
+    // a mean of 1/3 µs does not multiply back to a whole count exactly
+    Seq(0L, 0L, 1L).foreach(metrics.tickDuration.record)
+    assertEquals("0.000001", sumOf(metrics.render(), "total"))
+
+    var last = 1L
+    for i <- 1 to 1000 do
+      metrics.tickDuration.record(i % 7)
+      last += i % 7
+      val expected = String.format(Locale.ROOT, "%.6f", last / 1e6)
+      assertEquals(expected, sumOf(metrics.render(), "total"))
+
+  @Test
+  def worldsAreLabelledAndTheDefaultRenderIsNot(): Unit =
+    val metrics = new ServerMetrics
+    metrics.ticks.incrementAndGet()
+
+    assertTrue(metrics.render().linesIterator.contains("droiddungeon_ticks_total 1"))
+    val labelled = ServerMetrics.render(Seq("a" -> metrics))
+    assertTrue(labelled.linesIterator.contains("droiddungeon_ticks_total{world=\"a\"} 1"))
+
+  private def sumOf(exposition: String, phase: String): String =
+    val prefix = s"""droiddungeon_tick_phase_seconds_sum{phase="$phase"} """
+    exposition.linesIterator.find(_.startsWith(prefix)).get.stripPrefix(prefix)
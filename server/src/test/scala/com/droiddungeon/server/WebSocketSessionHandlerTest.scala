@@ -0,0 +1,88 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.net.codec.{CborProtocolCodec, ProtocolCodec}
+import com.droiddungeon.net.dto.{BlockChangeDto, WorldSnapshotDto}
+import org.apache.pekko.actor.typed.ActorSystem
+import org.apache.pekko.actor.typed.scaladsl.Behaviors
+import org.apache.pekko.http.scaladsl.model.ws.{BinaryMessage, Message}
+import org.apache.pekko.stream.Attributes
+import org.apache.pekko.stream.scaladsl.{Keep, Sink, Source}
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.{AfterEach, Test}
+import scala.concurrent.duration.*
+import scala.concurrent.{Await, Future, Promise}
+
+class WebSocketSessionHandlerTest:
+  private given system: ActorSystem[Nothing] =
+    ActorSystem(Behaviors.empty[Nothing], "websocket-session-test")
+
+  @AfterEach
+  def stop(): Unit =
+    system.terminate()
+    Await.result(system.whenTerminated, 30.seconds)
+
+  @Test
+  def aStalledClientStaysConnectedAndGetsTheDeltasItMissedMerged(): Unit =
+    val registered = Promise[SnapshotOutbox]()
+    val world = system.systemActorOf(
+      Behaviors.receiveMessage[GameWorldActor.Command] {
+        case GameWorldActor.RegisterSession(_, outbox) =>
+          registered.success(outbox)
+          Behaviors.same
+        case _ =>
+          Behaviors.same
+      },
+      "world"
+    )
+    val metrics = new ServerMetrics
+    val flow = WebSocketSessionHandler.websocketFlow(world, Some("alice"), None, metrics, () => ())
+    val client = Source
+      .maybe[Message]
+      .via(flow)
+      .toMat(Sink.queue[Message]().withAttributes(Attributes.inputBuffer(1, 1)))(Keep.right)
+      .run()
+    val codec = CborProtocolCodec.createDefault()
+    def next(): ProtocolCodec.DecodedMessage = await(client.pull()) match
+      case Some(message: BinaryMessage.Strict) => codec.decode(message.data.asByteBuffer)
+      case other                                => fail(s"session ended or sent $other")
+
+    // the client reads nothing while far more ticks pass than any buffer on the way holds
+    val outbox = await(registered.future)
+    val ticks = 200
+    for tick <- 1 to ticks do outbox.offer(delta(tick))
+
+    assertTrue(next().isInstanceOf[ProtocolCodec.WelcomeMessage])
+    var received = List.empty[WorldSnapshotDto]
+    while received.headOption.forall(_.tick() < ticks) do
+      next() match
+        case m: ProtocolCodec.SnapshotMessage => received = m.value() :: received
+        case _                                => ()
+    assertTrue(received.size <= 3, s"${received.size} snapshots queued instead of merged")
+    assertEquals((1 to ticks).toSet, received.flatMap(_.blockChanges().map(_.x())).toSet)
+    assertTrue(metrics.snapshotsConflated.get() >= ticks - 3)
+
+    outbox.offer(delta(ticks + 1))
+    next() match
+      case m: ProtocolCodec.SnapshotMessage => assertEquals(ticks + 1L, m.value().tick())
+      case other                            => fail(s"expected a snapshot, got $other")
+    client.cancel()
+
+  private def delta(tick: Int): WorldSnapshotDto =
+    new WorldSnapshotDto(
+      tick,
+      1L,
+      null,
+      false,
+      Array.empty,
+      null,
+      null,
+      Array.empty,
+      Array.empty,
+      Array(new BlockChangeDto(tick, 0, null, 0f)),
+      Array.empty,
+      Array.empty,
+      Array.empty,
+      Array.empty
+    )
+
+  private def await[T](future: Future[T]): T = Await.result(future, 30.seconds)
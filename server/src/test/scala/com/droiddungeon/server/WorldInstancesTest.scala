@@ -0,0 +1,147 @@
+package com.droiddungeon.server
+
+import com.droiddungeon.items.ItemRegistry
+import com.droiddungeon.net.dto.{ClientInputDto, MovementIntentDto, PlayerSnapshotDto, WeaponInputDto}
+import java.nio.file.Files
+import org.apache.pekko.actor.typed.scaladsl.Behaviors
+import org.apache.pekko.actor.typed.{ActorRef, ActorSystem}
+import org.apache.pekko.stream.scaladsl.{Sink, SinkQueueWithCancel}
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.{AfterEach, Test}
+import scala.concurrent.duration.*
+import scala.concurrent.{Await, ExecutionContext, Future}
+
+class WorldInstancesTest:
+  private val PlayerId = "alice"
+  private given system: ActorSystem[Nothing] =
+    ActorSystem(Behaviors.empty[Nothing], "world-instances-test")
+  private given ExecutionContext = system.executionContext
+  private val directory = Files.createTempDirectory("worlds")
+
+  @AfterEach
+  def stop(): Unit =
+    system.terminate()
+    Await.result(system.whenTerminated, 30.seconds)
+
+  @Test
+  def concurrentSessionsWakeAWorldOnce(): Unit =
+    val worlds = instances(maxPlayersPerWorld = 3)
+
+    val leases = await(Future.sequence(List.fill(4)(worlds.acquire("a"))))
+
+    val granted = leases.collect { case Right(lease) => lease }
+    assertEquals(3, granted.size)
+    assertEquals(1, granted.map(_.world).distinct.size)
+    assertEquals(List(Left("World a is full")), leases.filter(_.isLeft))
+    assertEquals(1, worlds.metrics().size)
+    await(worlds.shutdown())
+
+  @Test
+  def leasedWorldsStayAwake(): Unit =
+    val worlds = instances(maxPlayersPerWorld = 2)
+    val lease = await(worlds.acquire("a")).toOption.get
+
+    await(worlds.hibernateIdle())
+
+    assertEquals(Some(lease.world), worlds.awakeWorld("a"))
+    await(worlds.shutdown())
+
+  @Test
+  def idleWorldsHibernateToDiskAndWakeFromTheirSave(): Unit =
+    val worlds = instances(maxPlayersPerWorld = 2)
+    val first = await(worlds.acquire("a")).toOption.get
+    worlds.release(first)
+
+    await(worlds.hibernateIdle())
+
+    assertEquals(None, worlds.awakeWorld("a"))
+    val saved = WorldAutosave.open(directory, "a")
+    assertNotNull(saved.restored())
+    saved.close()
+
+    val second = await(worlds.acquire("a")).toOption.get
+    assertNotEquals(first.world, second.world)
+    assertEquals(Some(second.world), worlds.awakeWorld("a"))
+    await(worlds.shutdown())
+
+  @Test
+  def aSessionThatNeverOpensHandsItsLeaseBack(): Unit =
+    val worlds = instances(maxPlayersPerWorld = 1)
+    val abandoned = new WorldInstances.SessionLease(worlds, await(worlds.acquire("a")).toOption.get)
+
+    abandoned.abandon()
+    assertFalse(abandoned.open(), "a flow that starts after all does not join")
+
+    val session = new WorldInstances.SessionLease(worlds, await(worlds.acquire("a")).toOption.get)
+    assertTrue(session.open())
+    session.abandon()
+    assertEquals(Left("World a is full"), await(worlds.acquire("a")))
+
+    session.close()
+    session.close()
+    val next = await(worlds.acquire("a")).toOption.get
+    assertEquals(Left("World a is full"), await(worlds.acquire("a")), "the lease came back once")
+    worlds.release(next)
+    await(worlds.shutdown())
+
+  @Test
+  def shutdownSavesConnectedPlayersWhereTheyStand(): Unit =
+    val worlds = instances(maxPlayersPerWorld = 2)
+    val lease = await(worlds.acquire("a")).toOption.get
+    val session = connect(lease.world, lease.metrics)
+    val spawn = next(session)
+
+    // the checkpoint interval is far longer than the test, so only hibernation can save this
+    var tick = 0L
+    var at = spawn
+    while at.gridX() == spawn.gridX() && at.gridY() == spawn.gridY() do
+      assertTrue(tick < 200, "the player never moved")
+      tick += 1
+      lease.world ! GameWorldActor.ApplyInput(input(tick, direction = (tick / 10 % 4).toInt))
+      at = next(session)
+    tick += 1
+    lease.world ! GameWorldActor.ApplyInput(input(tick, direction = -1))
+    while at.lastProcessedTick() < tick do at = next(session)
+    session.cancel()
+
+    await(worlds.shutdown())
+
+    val restarted = instances(maxPlayersPerWorld = 2)
+    val again = await(restarted.acquire("a")).toOption.get
+    val restored = next(connect(again.world, again.metrics))
+    assertEquals(at.gridX(), restored.gridX())
+    assertEquals(at.gridY(), restored.gridY())
+    await(restarted.shutdown())
+
+  private def connect(
+      world: ActorRef[GameWorldActor.Command],
+      metrics: ServerMetrics
+  ): SinkQueueWithCancel[PlayerSnapshotDto] =
+    val outbox = new SnapshotOutbox(metrics)
+    world ! GameWorldActor.RegisterSession(PlayerId, outbox)
+    outbox.source.mapConcat(_.players().filter(_.playerId() == PlayerId).toList).runWith(Sink.queue())
+
+  private def next(session: SinkQueueWithCancel[PlayerSnapshotDto]): PlayerSnapshotDto =
+    await(session.pull()).get
+
+  // -1 holds nothing; 0 to 3 hold right, down, left or up
+  private def input(tick: Long, direction: Int): ClientInputDto =
+    val movement = new MovementIntentDto(
+      direction == 2,
+      direction == 0,
+      direction == 3,
+      direction == 1,
+      false,
+      false,
+      false,
+      false
+    )
+    val weapon = new WeaponInputDto(false, false, 0f, 0f)
+    new ClientInputDto(tick, PlayerId, movement, weapon, false, false, false, -1L)
+
+  private def instances(maxPlayersPerWorld: Int): WorldInstances =
+    val limits = WorldLimits(4, maxPlayersPerWorld, Duration.Zero, directory, None)
+    val items = ItemRegistry.loadDataOnly(java.util.List.of())
+    new WorldInstances(items, 1L, limits, TickWorkers.Inline)
+
+  private def await[T](future: Future[T]): T = Await.result(future, 30.seconds)